@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the BeeJU benchmarks, accepting the same arguments as JMH.
+ * <p>
+ * Unless a benchmark mode is provided, each benchmark is run twice: single-shot, where every fork measures one
+ * invocation in a fresh JVM as a test suite pays for its first test, and steady-state, where the average time is
+ * measured after warming up as a test suite pays for the tests which follow. Unless a result file is provided, the
+ * results are written as JMH JSON to {@code target/single-shot.json} and {@code target/steady-state.json} so that
+ * runs against different BeeJU and Hive versions can be compared.
+ * </p>
+ */
+public final class BeejuBenchmarks {
+
+  private static final int SINGLE_SHOT_FORKS = 5;
+
+  private BeejuBenchmarks() {}
+
+  public static void main(String[] args) throws IOException, CommandLineOptionException, RunnerException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp()
+        || commandLine.shouldList()
+        || commandLine.shouldListWithParams()
+        || commandLine.shouldListProfilers()
+        || commandLine.shouldListResultFormats()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    if (!commandLine.getBenchModes().isEmpty()) {
+      new Runner(withJsonResult(commandLine, "results").build()).run();
+      return;
+    }
+
+    ChainedOptionsBuilder singleShot = withJsonResult(commandLine, "single-shot").mode(Mode.SingleShotTime);
+    if (!commandLine.getForkCount().hasValue()) {
+      singleShot.forks(SINGLE_SHOT_FORKS);
+    }
+    if (!commandLine.getWarmupIterations().hasValue()) {
+      singleShot.warmupIterations(0);
+    }
+    if (!commandLine.getMeasurementIterations().hasValue()) {
+      singleShot.measurementIterations(1);
+    }
+    new Runner(singleShot.build()).run();
+
+    new Runner(withJsonResult(commandLine, "steady-state").mode(Mode.AverageTime).build()).run();
+  }
+
+  private static ChainedOptionsBuilder withJsonResult(CommandLineOptions commandLine, String name) {
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (!commandLine.getResult().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON).result("target/" + name + ".json");
+    } else if (!commandLine.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    return options;
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.DerbyMetastoreBackend;
+import com.hotels.beeju.core.MetastoreBackend;
+
+/**
+ * Benchmarks of creating a {@link BeejuCore} and of the calls tests make on it, with each {@link MetastoreBackend}.
+ * The {@link BeejuCore#backendReport() backend report} of the metastore the calls were made on, with its database's
+ * size and footprint, is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class BeejuCoreBenchmark {
+
+  @State(Scope.Thread)
+  public static class Construction {
+    @Param({ DerbyMetastoreBackend.IN_MEMORY, DerbyMetastoreBackend.ON_DISK,
+        DerbyMetastoreBackend.ON_DISK_LARGE_PAGE_CACHE })
+    String backend;
+    BeejuCore core;
+
+    @TearDown(Level.Invocation)
+    public void cleanUp() {
+      if (core != null) {
+        core.cleanUp();
+        core = null;
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Metastore {
+    @Param({ DerbyMetastoreBackend.IN_MEMORY, DerbyMetastoreBackend.ON_DISK,
+        DerbyMetastoreBackend.ON_DISK_LARGE_PAGE_CACHE })
+    String backend;
+    BeejuCore core;
+    int databases;
+
+    @Setup(Level.Trial)
+    public void setUp() throws TException {
+      core = newCore(backend);
+      // creates the metastore schema so that it isn't part of the first measurement
+      core.createDatabase(core.databaseName());
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() {
+      System.out.printf("Backend report: %s%n", core.backendReport());
+      core.cleanUp();
+    }
+  }
+
+  @Benchmark
+  public BeejuCore construct(Construction state) {
+    state.core = newCore(state.backend);
+    return state.core;
+  }
+
+  @Benchmark
+  public void createDatabase(Metastore state) throws TException {
+    state.core.createDatabase("benchmark_db_" + state.databases++);
+  }
+
+  private static BeejuCore newCore(String backend) {
+    return new BeejuCore("test_database", Collections.singletonMap(MetastoreBackend.BACKEND, backend));
+  }
+
+  @Benchmark
+  public HiveMetaStoreClient newClient(Metastore state) {
+    HiveMetaStoreClient client = state.core.newClient();
+    client.close();
+    return client;
+  }
+}
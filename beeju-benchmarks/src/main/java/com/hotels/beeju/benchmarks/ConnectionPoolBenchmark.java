@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.ThriftHiveMetaStoreCore;
+import com.hotels.beeju.metastore.MetastoreConnectionPool;
+
+/**
+ * Throughput of {@code get_table} calls by 1, 4 and 16 concurrent clients of a Thrift Hive Metastore service with each
+ * {@link MetastoreConnectionPool}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class ConnectionPoolBenchmark {
+
+  private static final String TABLE = "benchmark_table";
+
+  @State(Scope.Benchmark)
+  public static class Metastore {
+    @Param({ "none", "hikaricp", "dbcp" })
+    String pool;
+    @Param({ "16" })
+    String poolSize;
+
+    BeejuCore core;
+    ThriftHiveMetaStoreCore thriftHiveMetaStoreCore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+      Map<String, String> configuration = new HashMap<>();
+      configuration.put(MetastoreConnectionPool.POOL, pool);
+      configuration.put(MetastoreConnectionPool.POOL_SIZE, poolSize);
+      core = new BeejuCore("test_database", Collections.emptyMap(), configuration);
+      thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core);
+      thriftHiveMetaStoreCore.initialise();
+      core.createDatabase(core.databaseName());
+      core.loadFixture(Collections.emptyList(), Collections.singletonList(table(core.databaseName())),
+          Collections.emptyList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      thriftHiveMetaStoreCore.shutdown();
+      core.cleanUp();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Client {
+    HiveMetaStoreClient client;
+
+    @Setup(Level.Trial)
+    public void setUp(Metastore metastore) {
+      client = metastore.core.newClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      client.close();
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Table getTableOneClient(Metastore metastore, Client client) throws TException {
+    return getTable(metastore, client);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Table getTableFourClients(Metastore metastore, Client client) throws TException {
+    return getTable(metastore, client);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Table getTableSixteenClients(Metastore metastore, Client client) throws TException {
+    return getTable(metastore, client);
+  }
+
+  private static Table getTable(Metastore metastore, Client client) throws TException {
+    return client.client.getTable(metastore.core.databaseName(), TABLE);
+  }
+
+  private static Table table(String databaseName) {
+    Table table = new Table();
+    table.setDbName(databaseName);
+    table.setTableName(TABLE);
+    StorageDescriptor sd = new StorageDescriptor();
+    sd.addToCols(new FieldSchema("id", "bigint", null));
+    sd.setInputFormat("org.apache.hadoop.mapred.TextInputFormat");
+    sd.setOutputFormat("org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat");
+    sd.setSerdeInfo(new SerDeInfo(null, "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe", null));
+    table.setSd(sd);
+    return table;
+  }
+}
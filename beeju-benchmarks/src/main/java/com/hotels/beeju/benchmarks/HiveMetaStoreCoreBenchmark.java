@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.HiveMetaStoreCore;
+
+/**
+ * Benchmarks of starting an embedded Hive Metastore, as {@link com.hotels.beeju.HiveMetaStoreJUnitRule} does before
+ * each test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Thread)
+public class HiveMetaStoreCoreBenchmark {
+
+  private BeejuCore core;
+  private HiveMetaStoreCore hiveMetaStoreCore;
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    core = new BeejuCore();
+    hiveMetaStoreCore = new HiveMetaStoreCore(core);
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() {
+    hiveMetaStoreCore.shutdown();
+    core.cleanUp();
+  }
+
+  @Benchmark
+  public void initialise() throws InterruptedException, ExecutionException {
+    hiveMetaStoreCore.initialise();
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.PersistenceProfile;
+
+/**
+ * Benchmarks of {@code get_partitions} and {@code create_table} calls on an embedded metastore with each
+ * {@link PersistenceProfile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Thread)
+public class PersistenceProfileBenchmark {
+
+  private static final String TABLE = "partitioned_table";
+
+  @Param({ "default", "fast" })
+  String profile;
+  @Param({ "100" })
+  int partitions;
+
+  private BeejuCore core;
+  private HiveMetaStoreClient client;
+  private int tables;
+
+  @Setup(Level.Trial)
+  public void setUp() throws TException {
+    core = new BeejuCore("test_database", Collections.singletonMap(PersistenceProfile.PROFILE, profile));
+    core.createDatabase(core.databaseName());
+    List<Partition> fixturePartitions = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      Partition partition = new Partition();
+      partition.setDbName(core.databaseName());
+      partition.setTableName(TABLE);
+      partition.setValues(Collections.singletonList(Integer.toString(i)));
+      partition.setSd(storageDescriptor());
+      fixturePartitions.add(partition);
+    }
+    core.loadFixture(Collections.emptyList(), Collections.singletonList(table(TABLE, true)), fixturePartitions);
+    client = core.newClient();
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanUp() {
+    client.close();
+    core.cleanUp();
+  }
+
+  @Benchmark
+  public List<Partition> getPartitions() throws TException {
+    return client.listPartitions(core.databaseName(), TABLE, (short) -1);
+  }
+
+  @Benchmark
+  public void createTable() throws TException {
+    client.createTable(table("benchmark_table_" + tables++, false));
+  }
+
+  private Table table(String tableName, boolean partitioned) {
+    Table table = new Table();
+    table.setDbName(core.databaseName());
+    table.setTableName(tableName);
+    table.setSd(storageDescriptor());
+    if (partitioned) {
+      table.addToPartitionKeys(new FieldSchema("part", "string", null));
+    }
+    return table;
+  }
+
+  private static StorageDescriptor storageDescriptor() {
+    StorageDescriptor sd = new StorageDescriptor();
+    sd.addToCols(new FieldSchema("id", "bigint", null));
+    sd.addToCols(new FieldSchema("name", "string", null));
+    sd.setInputFormat("org.apache.hadoop.mapred.TextInputFormat");
+    sd.setOutputFormat("org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat");
+    sd.setSerdeInfo(new SerDeInfo(null, "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe", null));
+    return sd;
+  }
+}
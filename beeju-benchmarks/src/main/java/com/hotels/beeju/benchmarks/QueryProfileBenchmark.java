@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.HiveServer2Core;
+import com.hotels.beeju.core.QueryProfile;
+
+/**
+ * Benchmarks of DDL, DML and {@code SELECT} statements run through HiveServer2 with each {@link QueryProfile}.
+ * <p>
+ * The cost based optimiser is disabled for both profiles, as BeeJU's own Guava is too old for Calcite and queries
+ * which are planned with it fail. Statements which need a MapReduce job can't run without the MapReduce client
+ * runtime, so the DML is a {@code LOAD DATA} rather than an {@code INSERT}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Thread)
+public class QueryProfileBenchmark {
+
+  private static final String TABLE = "fixture_table";
+
+  @Param({ "default", "fast" })
+  String profile;
+  @Param({ "1000" })
+  int rows;
+
+  private BeejuCore core;
+  private HiveServer2Core hiveServer2Core;
+  private Connection connection;
+  private Statement statement;
+  private Path data;
+  private int tables;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Map<String, String> preConfiguration = new HashMap<>();
+    preConfiguration.put(QueryProfile.PROFILE, profile);
+    preConfiguration.put(HiveConf.ConfVars.HIVE_CBO_ENABLED.varname, "false");
+    core = new BeejuCore("test_database", preConfiguration);
+    hiveServer2Core = new HiveServer2Core(core);
+    hiveServer2Core.startServerSocket();
+    hiveServer2Core.initialise();
+    core.createDatabase(core.databaseName());
+
+    List<String> lines = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      lines.add(i + ",name_" + i);
+    }
+    data = Files.write(Files.createTempFile("beeju-benchmark", ".csv"), lines);
+    connection = DriverManager.getConnection(hiveServer2Core.getJdbcConnectionUrl());
+    statement = connection.createStatement();
+    statement.execute(createTable(TABLE));
+    loadData();
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanUp() throws SQLException, IOException {
+    statement.close();
+    connection.close();
+    hiveServer2Core.shutdown();
+    core.cleanUp();
+    Files.delete(data);
+  }
+
+  @Benchmark
+  public void createAndDropTable() throws SQLException {
+    String table = "benchmark_table_" + tables++;
+    statement.execute(createTable(table));
+    statement.execute("DROP TABLE " + table);
+  }
+
+  @Benchmark
+  public void loadData() throws SQLException {
+    statement.execute("LOAD DATA LOCAL INPATH '" + data + "' OVERWRITE INTO TABLE " + TABLE);
+  }
+
+  @Benchmark
+  public int select() throws SQLException {
+    int selected = 0;
+    try (ResultSet resultSet = statement.executeQuery("SELECT name FROM " + TABLE + " WHERE id % 10 = 0")) {
+      while (resultSet.next()) {
+        selected++;
+      }
+    }
+    return selected;
+  }
+
+  private static String createTable(String table) {
+    return "CREATE TABLE " + table + " (id int, name string) ROW FORMAT DELIMITED FIELDS TERMINATED BY ','";
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.metastore.BeejuObjectStore;
+
+/**
+ * Benchmarks of the whole life of a {@link BeejuCore} in a test, from creating it to cleaning it up, with and without
+ * the metastores sharing a {@link javax.jdo.PersistenceManagerFactory}. The heap and metaspace used once all the
+ * metastores have been cleaned up are printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class SharedFactoryBenchmark {
+
+  @State(Scope.Thread)
+  public static class Metastores {
+    @Param({ "true", "false" })
+    String sharedFactory;
+
+    @TearDown(Level.Trial)
+    public void printMemory() {
+      System.gc();
+      long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+      long metaspace = 0;
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getName().equals("Metaspace")) {
+          metaspace = pool.getUsage().getUsed();
+        }
+      }
+      System.out.printf("Heap used: %d MB, metaspace used: %d MB%n", heap >> 20, metaspace >> 20);
+    }
+  }
+
+  @Benchmark
+  public List<String> metastore(Metastores state) throws TException {
+    BeejuCore core = new BeejuCore("test_database", Collections.emptyMap(),
+        Collections.singletonMap(BeejuObjectStore.SHARED_FACTORY, state.sharedFactory));
+    try {
+      HiveMetaStoreClient client = core.newClient();
+      try {
+        return client.getAllDatabases();
+      } finally {
+        client.close();
+      }
+    } finally {
+      core.cleanUp();
+    }
+  }
+}
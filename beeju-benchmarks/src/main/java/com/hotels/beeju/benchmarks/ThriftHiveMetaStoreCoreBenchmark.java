@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.ThriftHiveMetaStoreCore;
+
+/**
+ * Benchmarks of starting and stopping a Thrift Hive Metastore service, as
+ * {@link com.hotels.beeju.ThriftHiveMetaStoreJUnitRule} does around each test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class ThriftHiveMetaStoreCoreBenchmark {
+
+  @State(Scope.Thread)
+  public static class Stopped {
+    BeejuCore core;
+    ThriftHiveMetaStoreCore thriftHiveMetaStoreCore;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+      core = new BeejuCore();
+      thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      thriftHiveMetaStoreCore.shutdown();
+      core.cleanUp();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Started {
+    BeejuCore core;
+    ThriftHiveMetaStoreCore thriftHiveMetaStoreCore;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+      core = new BeejuCore();
+      thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core);
+      thriftHiveMetaStoreCore.initialise();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      core.cleanUp();
+    }
+  }
+
+  @Benchmark
+  public void initialise(Stopped state) throws Exception {
+    state.thriftHiveMetaStoreCore.initialise();
+  }
+
+  @Benchmark
+  public void shutdown(Started state) {
+    state.thriftHiveMetaStoreCore.shutdown();
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.TException;
+
+/**
+ * The database, partitioned table and partitions the load is generated against.
+ */
+class LoadFixture {
+
+  private static final String TABLE = "load_table";
+  private static final String PARTITION_COLUMN = "part";
+
+  private final String databaseName;
+  private final int partitionsPerCall;
+  private final List<String> partitionNames = new ArrayList<>();
+  private final AtomicLong tables = new AtomicLong();
+  private final AtomicLong partitions = new AtomicLong();
+
+  LoadFixture(String databaseName, int partitionsPerCall) {
+    this.databaseName = databaseName;
+    this.partitionsPerCall = partitionsPerCall;
+  }
+
+  /**
+   * Drops and creates the database, then creates the partitioned table with the provided number of partitions.
+   */
+  void create(IMetaStoreClient client, int initialPartitions) throws TException {
+    client.dropDatabase(databaseName, true, true, true);
+    client.createDatabase(new Database(databaseName, null, null, null));
+    client.createTable(table(TABLE, true));
+    while (partitions.get() < initialPartitions) {
+      client.add_partitions(newPartitions(Math.min(partitionsPerCall, initialPartitions - (int) partitions.get())));
+    }
+    for (int i = 0; i < initialPartitions; i++) {
+      partitionNames.add(PARTITION_COLUMN + "=" + i);
+    }
+  }
+
+  String databaseName() {
+    return databaseName;
+  }
+
+  String partitionedTableName() {
+    return TABLE;
+  }
+
+  /**
+   * @return A table which hasn't been created yet.
+   */
+  Table newTable() {
+    return table(TABLE + "_" + tables.incrementAndGet(), false);
+  }
+
+  /**
+   * @return Partitions of the partitioned table which haven't been added yet.
+   */
+  List<Partition> newPartitions() {
+    return newPartitions(partitionsPerCall);
+  }
+
+  private List<Partition> newPartitions(int count) {
+    List<Partition> newPartitions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Partition partition = new Partition();
+      partition.setDbName(databaseName);
+      partition.setTableName(TABLE);
+      partition.setValues(Collections.singletonList(Long.toString(partitions.getAndIncrement())));
+      partition.setSd(storageDescriptor());
+      newPartitions.add(partition);
+    }
+    return newPartitions;
+  }
+
+  /**
+   * @return Names of randomly chosen partitions which were created by {@link #create(IMetaStoreClient, int)}.
+   */
+  List<String> existingPartitionNames() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<String> names = new ArrayList<>(partitionsPerCall);
+    for (int i = 0; i < partitionsPerCall; i++) {
+      names.add(partitionNames.get(random.nextInt(partitionNames.size())));
+    }
+    return names;
+  }
+
+  private Table table(String tableName, boolean partitioned) {
+    Table table = new Table();
+    table.setDbName(databaseName);
+    table.setTableName(tableName);
+    table.setTableType("EXTERNAL_TABLE");
+    table.putToParameters("EXTERNAL", "TRUE");
+    table.setSd(storageDescriptor());
+    if (partitioned) {
+      table.addToPartitionKeys(new FieldSchema(PARTITION_COLUMN, "string", null));
+    }
+    return table;
+  }
+
+  private static StorageDescriptor storageDescriptor() {
+    StorageDescriptor sd = new StorageDescriptor();
+    sd.addToCols(new FieldSchema("id", "bigint", null));
+    sd.addToCols(new FieldSchema("name", "string", null));
+    sd.setInputFormat("org.apache.hadoop.mapred.TextInputFormat");
+    sd.setOutputFormat("org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat");
+    sd.setSerdeInfo(new SerDeInfo(null, "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe", null));
+    return sd;
+  }
+}
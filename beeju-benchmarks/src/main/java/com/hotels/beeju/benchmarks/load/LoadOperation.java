@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks.load;
+
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.thrift.TException;
+
+/**
+ * The metastore calls the load is made of.
+ */
+enum LoadOperation {
+
+  GET_TABLE {
+    @Override
+    void call(IMetaStoreClient client, LoadFixture fixture) throws TException {
+      client.getTable(fixture.databaseName(), fixture.partitionedTableName());
+    }
+  },
+  GET_PARTITIONS_BY_NAMES {
+    @Override
+    void call(IMetaStoreClient client, LoadFixture fixture) throws TException {
+      client.getPartitionsByNames(fixture.databaseName(), fixture.partitionedTableName(),
+          fixture.existingPartitionNames());
+    }
+  },
+  ADD_PARTITIONS {
+    @Override
+    void call(IMetaStoreClient client, LoadFixture fixture) throws TException {
+      client.add_partitions(fixture.newPartitions());
+    }
+  },
+  CREATE_TABLE {
+    @Override
+    void call(IMetaStoreClient client, LoadFixture fixture) throws TException {
+      client.createTable(fixture.newTable());
+    }
+  };
+
+  abstract void call(IMetaStoreClient client, LoadFixture fixture) throws TException;
+
+  /**
+   * @return The name of the Thrift call, e.g. {@code get_table}.
+   */
+  String callName() {
+    return name().toLowerCase();
+  }
+
+  static LoadOperation forCallName(String callName) {
+    for (LoadOperation operation : values()) {
+      if (operation.callName().equals(callName)) {
+        return operation;
+      }
+    }
+    throw new IllegalArgumentException("Unknown call '" + callName + "', expected one of get_table, "
+        + "get_partitions_by_names, add_partitions or create_table");
+  }
+}
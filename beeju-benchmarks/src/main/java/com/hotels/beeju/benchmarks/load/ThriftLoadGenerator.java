@@ -0,0 +1,287 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.benchmarks.load;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.ThriftHiveMetaStoreCore;
+
+/**
+ * Generates load against a Thrift Hive Metastore, such as one started by {@link com.hotels.beeju.ThriftHiveMetaStoreApp},
+ * from concurrent {@link HiveMetaStoreClient} connections, each calling the metastore in a closed loop with a random
+ * mix of calls, and reports the throughput and latency percentiles of each call.
+ * <p>
+ * Usage: {@code ThriftLoadGenerator [--uri=thrift://host:port] [--clients=8] [--warmup=10] [--duration=60]
+ * [--mix=get_table=50,get_partitions_by_names=30,add_partitions=15,create_table=5] [--partitions=100]
+ * [--partitions-per-call=10] [--database=beeju_load] [--framed]}
+ * </p>
+ * <p>
+ * Without {@code --uri} a BeeJU Thrift Hive Metastore is started in this JVM. The durations are in seconds.
+ * {@code --framed} is needed for metastores served by a threaded selector server.
+ * </p>
+ */
+public final class ThriftLoadGenerator {
+
+  private static final String DEFAULT_MIX = "get_table=50,get_partitions_by_names=30,add_partitions=15,create_table=5";
+  private static final int SIGNIFICANT_DIGITS = 3;
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private String uri;
+  private int clients = 8;
+  private int warmupSeconds = 10;
+  private int durationSeconds = 60;
+  private final Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+  private String mixDescription;
+  private int initialPartitions = 100;
+  private int partitionsPerCall = 10;
+  private String databaseName = "beeju_load";
+  private boolean framed;
+
+  private final Map<LoadOperation, Recorder> latencies = new EnumMap<>(LoadOperation.class);
+  private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+  private volatile boolean running = true;
+
+  private ThriftLoadGenerator(String[] args) {
+    parseMix(DEFAULT_MIX);
+    for (String arg : args) {
+      String name = arg;
+      String value = null;
+      int equals = arg.indexOf('=');
+      if (equals > 0) {
+        name = arg.substring(0, equals);
+        value = arg.substring(equals + 1);
+      }
+      switch (name) {
+      case "--uri":
+        uri = value;
+        break;
+      case "--clients":
+        clients = positive(name, value);
+        break;
+      case "--warmup":
+        warmupSeconds = Integer.parseInt(value);
+        break;
+      case "--duration":
+        durationSeconds = positive(name, value);
+        break;
+      case "--mix":
+        parseMix(value);
+        break;
+      case "--partitions":
+        initialPartitions = positive(name, value);
+        break;
+      case "--partitions-per-call":
+        partitionsPerCall = positive(name, value);
+        break;
+      case "--database":
+        databaseName = value;
+        break;
+      case "--framed":
+        framed = true;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown argument '" + arg + "'");
+      }
+    }
+    for (LoadOperation operation : LoadOperation.values()) {
+      latencies.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  private static int positive(String name, String value) {
+    int number = Integer.parseInt(value);
+    if (number <= 0) {
+      throw new IllegalArgumentException(name + " must be >0, not " + number);
+    }
+    return number;
+  }
+
+  private void parseMix(String value) {
+    mix.clear();
+    mixDescription = value;
+    for (String entry : value.split(",")) {
+      String[] callAndWeight = entry.trim().split("=");
+      if (callAndWeight.length != 2) {
+        throw new IllegalArgumentException("Mix entries must be <call>=<weight>, not '" + entry + "'");
+      }
+      int weight = Integer.parseInt(callAndWeight[1].trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Weight of " + callAndWeight[0] + " must be >=0, not " + weight);
+      }
+      mix.put(LoadOperation.forCallName(callAndWeight[0].trim()), weight);
+    }
+    if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+      throw new IllegalArgumentException("At least one call of the mix must have a weight >0");
+    }
+  }
+
+  public static void main(String[] args) {
+    try {
+      new ThriftLoadGenerator(args).run();
+    } catch (Exception e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+    // Hive leaves non-daemon threads behind
+    System.exit(0);
+  }
+
+  private void run() throws Exception {
+    BeejuCore core = null;
+    ThriftHiveMetaStoreCore thriftHiveMetaStoreCore = null;
+    if (uri == null) {
+      core = new BeejuCore();
+      thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core);
+      thriftHiveMetaStoreCore.initialise();
+      uri = thriftHiveMetaStoreCore.getThriftConnectionUri();
+      System.out.println("Started BeeJU Thrift Hive Metastore on " + uri);
+    }
+    try {
+      generate();
+    } finally {
+      if (thriftHiveMetaStoreCore != null) {
+        thriftHiveMetaStoreCore.shutdown();
+        core.cleanUp();
+      }
+    }
+  }
+
+  private void generate() throws Exception {
+    LoadFixture fixture = new LoadFixture(databaseName, partitionsPerCall);
+    IMetaStoreClient setUpClient = newClient();
+    try {
+      fixture.create(setUpClient, initialPartitions);
+    } finally {
+      setUpClient.close();
+    }
+    LoadOperation[] operations = weightedOperations();
+
+    System.out.println("Generating load against " + uri + " from " + clients + " clients with mix " + mixDescription);
+    List<IMetaStoreClient> connections = new ArrayList<>();
+    for (int i = 0; i < clients; i++) {
+      connections.add(newClient());
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(clients);
+    List<Future<?>> workers = new ArrayList<>();
+    for (IMetaStoreClient client : connections) {
+      workers.add(executor.submit(() -> {
+        try {
+          while (running) {
+            LoadOperation operation = operations[ThreadLocalRandom.current().nextInt(operations.length)];
+            long start = System.nanoTime();
+            try {
+              operation.call(client, fixture);
+              latencies.get(operation).recordValue(System.nanoTime() - start);
+            } catch (Exception e) {
+              if (errors.get(operation).sum() == 0) {
+                System.err.println("Error calling " + operation.callName() + ": " + e);
+              }
+              errors.get(operation).increment();
+            }
+          }
+        } finally {
+          client.close();
+        }
+      }));
+    }
+    executor.shutdown();
+
+    TimeUnit.SECONDS.sleep(warmupSeconds);
+    // discards the warm up
+    for (LoadOperation operation : LoadOperation.values()) {
+      latencies.get(operation).getIntervalHistogram();
+      errors.get(operation).reset();
+    }
+    long start = System.nanoTime();
+    TimeUnit.SECONDS.sleep(durationSeconds);
+    Map<LoadOperation, Histogram> histograms = new EnumMap<>(LoadOperation.class);
+    Map<LoadOperation, Long> errorCounts = new EnumMap<>(LoadOperation.class);
+    for (LoadOperation operation : LoadOperation.values()) {
+      histograms.put(operation, latencies.get(operation).getIntervalHistogram());
+      errorCounts.put(operation, errors.get(operation).sum());
+    }
+    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    running = false;
+    for (Future<?> worker : workers) {
+      worker.get();
+    }
+
+    report(histograms, errorCounts, seconds);
+  }
+
+  private IMetaStoreClient newClient() throws Exception {
+    HiveConf conf = new HiveConf();
+    MetastoreConf.setVar(conf, ConfVars.THRIFT_URIS, uri);
+    MetastoreConf.setBoolVar(conf, ConfVars.USE_THRIFT_FRAMED_TRANSPORT, framed);
+    return new HiveMetaStoreClient(conf);
+  }
+
+  private LoadOperation[] weightedOperations() {
+    List<LoadOperation> operations = new ArrayList<>();
+    for (Map.Entry<LoadOperation, Integer> entry : mix.entrySet()) {
+      for (int i = 0; i < entry.getValue(); i++) {
+        operations.add(entry.getKey());
+      }
+    }
+    return operations.toArray(new LoadOperation[0]);
+  }
+
+  private void report(Map<LoadOperation, Histogram> histograms, Map<LoadOperation, Long> errorCounts, double seconds) {
+    String format = "%-24s %10s %10s %10s %10s %10s %10s %8s%n";
+    System.out.printf(format, "call", "count", "calls/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+    Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+    long totalErrors = 0;
+    for (LoadOperation operation : LoadOperation.values()) {
+      if (mix.getOrDefault(operation, 0) > 0) {
+        Histogram histogram = histograms.get(operation);
+        total.add(histogram);
+        totalErrors += errorCounts.get(operation);
+        printRow(format, operation.callName(), histogram, errorCounts.get(operation), seconds);
+      }
+    }
+    printRow(format, "total", total, totalErrors, seconds);
+  }
+
+  private static void printRow(String format, String name, Histogram histogram, long errors, double seconds) {
+    System.out.printf(format, name, histogram.getTotalCount(),
+        String.format("%.1f", histogram.getTotalCount() / seconds), millis(histogram.getValueAtPercentile(50)),
+        millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+        millis(histogram.getMaxValue()), errors);
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.3f", nanos / NANOS_PER_MILLI);
+  }
+}
@@ -15,7 +15,10 @@
  */
 package com.hotels.beeju;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.io.File;
+import java.util.Collections;
 import java.util.Map;
 
 import org.apache.hadoop.hive.conf.HiveConf;
@@ -25,23 +28,43 @@ import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
 
 import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.HiveMetaStoreClientPool;
+import com.hotels.beeju.core.StartupReport;
+import com.hotels.beeju.metastore.ConnectionPoolStatistics;
+import com.hotels.beeju.metastore.MetastoreCacheStatistics;
 
 /**
  * Base class for BeeJU JUnit Rules that require a Hive Metastore database configuration pre-set.
  */
 abstract class BeejuJUnitRule extends TestWatcher {
 
+  private final String databaseName;
+  private final Map<String, String> preConfiguration;
+  private final Map<String, String> postConfiguration;
   protected BeejuCore core;
 
   BeejuJUnitRule(String databaseName, Map<String, String> preConfiguration) {
-    core = new BeejuCore(databaseName, preConfiguration);
+    this(databaseName, preConfiguration, Collections.emptyMap());
   }
 
   public BeejuJUnitRule(
       String databaseName,
       Map<String, String> preConfiguration,
       Map<String, String> postConfiguration) {
-    core = new BeejuCore(databaseName, preConfiguration, postConfiguration);
+    this.databaseName = checkNotNull(databaseName, "databaseName is required");
+    this.preConfiguration = preConfiguration;
+    this.postConfiguration = postConfiguration;
+  }
+
+  /**
+   * @return The {@link BeejuCore} of the services, created the first time it is needed so that a rule which takes a
+   *         pre-started one doesn't create its own.
+   */
+  protected BeejuCore core() {
+    if (core == null) {
+      core = new BeejuCore(databaseName, preConfiguration, postConfiguration);
+    }
+    return core;
   }
 
   @Override
@@ -55,56 +78,125 @@ abstract class BeejuJUnitRule extends TestWatcher {
 
   @Override
   public void finished(Description description) {
-    core.cleanUp();
+    core().cleanUp();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#startupReport()}.
+   */
+  public StartupReport startupReport() {
+    return core().startupReport();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#driverClassName()}.
    */
   public String driverClassName() {
-    return core.driverClassName();
+    return core().driverClassName();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#databaseName()}.
    */
   public String databaseName() {
-    return core.databaseName();
+    return databaseName;
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#connectionURL()}.
    */
   public String connectionURL() {
-    return core.connectionURL();
+    return core().connectionURL();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#conf()}.
    */
   public HiveConf conf() {
-    return core.conf();
+    return core().conf();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#newClient()}.
    */
   public HiveMetaStoreClient newClient() {
-    return core.newClient();
+    return core().newClient();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#clientPool()}.
+   */
+  public HiveMetaStoreClientPool clientPool() {
+    return core().clientPool();
   }
 
   /**
    * @return Root of temporary directory
    */
   File tempDir() {
-    return core.tempDir().toFile();
+    return core().tempDir().toFile();
   }
   
   /**
    * @return Root of warehouse directory
    */
   File warehouseDir() {
-    return core.warehouseDir().toFile();
+    return core().warehouseDir().toFile();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#reset()}.
+   */
+  public void reset() {
+    core().reset();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#snapshot(String)}.
+   *
+   * @param name Snapshot name.
+   */
+  public void snapshot(String name) {
+    core().snapshot(name);
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#restore(String)}.
+   *
+   * @param name Snapshot name.
+   */
+  public void restore(String name) {
+    core().restore(name);
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#refreshMetastoreCache()}.
+   */
+  public void refreshMetastoreCache() {
+    core().refreshMetastoreCache();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#metastoreCacheStatistics()}.
+   */
+  public MetastoreCacheStatistics metastoreCacheStatistics() {
+    return core().metastoreCacheStatistics();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#connectionPoolStatistics()}.
+   */
+  public ConnectionPoolStatistics connectionPoolStatistics() {
+    return core().connectionPoolStatistics();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#reloadConfiguration(Map)}.
+   *
+   * @param properties Hive configuration properties to set.
+   */
+  public void reloadConfiguration(Map<String, String> properties) {
+    core().reloadConfiguration(properties);
   }
 
   /**
@@ -114,6 +206,6 @@ abstract class BeejuJUnitRule extends TestWatcher {
    * @throws TException If an error occurs creating the database.
    */
   public void createDatabase(String databaseName) throws TException {
-    core.createDatabase(databaseName);
+    core().createDatabase(databaseName);
   }
 }
@@ -0,0 +1,242 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.TException;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.FixtureLoadReport;
+
+/**
+ * Databases, tables and partitions to preload into a metastore, read from a file with one object per line:
+ *
+ * <pre>
+ * # comment
+ * database sales
+ * table sales.orders id:bigint,amount:decimal(10,2) partitioned by dt:string,region:string
+ * partition sales.orders dt=2021-01-01/region=eu
+ * </pre>
+ * <p>
+ * Tables are text tables and partitions are in the order of the partition keys. Tables must come after their database
+ * and partitions after their table.
+ * </p>
+ */
+class FixtureFile {
+
+  private static final String PARTITIONED_BY = " partitioned by ";
+
+  private final List<Database> databases = new ArrayList<>();
+  private final Map<String, Table> tables = new LinkedHashMap<>();
+  private final Map<String, List<Partition>> partitions = new HashMap<>();
+
+  static FixtureFile read(Path path) throws IOException {
+    FixtureFile fixture = new FixtureFile();
+    List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      try {
+        fixture.parse(line);
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException(path + ":" + (i + 1) + ": " + e.getMessage(), e);
+      }
+    }
+    return fixture;
+  }
+
+  private void parse(String line) {
+    String[] kindAndDefinition = line.split("\\s+", 2);
+    if (kindAndDefinition.length != 2) {
+      throw new IllegalArgumentException("Expected '<database|table|partition> <definition>', not '" + line + "'");
+    }
+    String definition = kindAndDefinition[1].trim();
+    switch (kindAndDefinition[0]) {
+    case "database":
+      databases.add(new Database(definition, null, null, null));
+      break;
+    case "table":
+      parseTable(definition);
+      break;
+    case "partition":
+      parsePartition(definition);
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown object '" + kindAndDefinition[0] + "'");
+    }
+  }
+
+  private void parseTable(String definition) {
+    String partitionKeys = null;
+    int partitionedBy = definition.indexOf(PARTITIONED_BY);
+    if (partitionedBy >= 0) {
+      partitionKeys = definition.substring(partitionedBy + PARTITIONED_BY.length()).trim();
+      definition = definition.substring(0, partitionedBy).trim();
+    }
+    String[] nameAndColumns = definition.split("\\s+", 2);
+    if (nameAndColumns.length != 2) {
+      throw new IllegalArgumentException("Expected '<database>.<table> <columns>', not '" + definition + "'");
+    }
+    String[] qualifiedName = qualifiedName(nameAndColumns[0]);
+    if (tables.containsKey(nameAndColumns[0])) {
+      throw new IllegalArgumentException("Table " + nameAndColumns[0] + " is already defined");
+    }
+
+    Table table = new Table();
+    table.setDbName(qualifiedName[0]);
+    table.setTableName(qualifiedName[1]);
+    table.setTableType("MANAGED_TABLE");
+    table.setSd(storageDescriptor(columns(nameAndColumns[1])));
+    table.setPartitionKeys(partitionKeys == null ? new ArrayList<>() : columns(partitionKeys));
+    tables.put(nameAndColumns[0], table);
+  }
+
+  private void parsePartition(String definition) {
+    String[] nameAndSpec = definition.split("\\s+", 2);
+    if (nameAndSpec.length != 2) {
+      throw new IllegalArgumentException("Expected '<database>.<table> <key>=<value>[/...]', not '" + definition + "'");
+    }
+    Table table = tables.get(nameAndSpec[0]);
+    if (table == null) {
+      throw new IllegalArgumentException("Table " + nameAndSpec[0] + " isn't defined");
+    }
+    String[] keyValues = nameAndSpec[1].trim().split("/");
+    List<FieldSchema> keys = table.getPartitionKeys();
+    if (keyValues.length != keys.size()) {
+      throw new IllegalArgumentException(
+          "Table " + nameAndSpec[0] + " has " + keys.size() + " partition keys, not " + keyValues.length);
+    }
+    List<String> values = new ArrayList<>(keyValues.length);
+    for (int i = 0; i < keyValues.length; i++) {
+      String[] keyAndValue = keyValues[i].split("=", 2);
+      if (keyAndValue.length != 2 || !keyAndValue[0].equals(keys.get(i).getName())) {
+        throw new IllegalArgumentException(
+            "Expected '" + keys.get(i).getName() + "=<value>', not '" + keyValues[i] + "'");
+      }
+      values.add(keyAndValue[1]);
+    }
+
+    Partition partition = new Partition();
+    partition.setDbName(table.getDbName());
+    partition.setTableName(table.getTableName());
+    partition.setValues(values);
+    partition.setSd(storageDescriptor(table.getSd().getCols()));
+    partitions.computeIfAbsent(nameAndSpec[0], name -> new ArrayList<>()).add(partition);
+  }
+
+  private static String[] qualifiedName(String name) {
+    String[] qualifiedName = name.split("\\.");
+    if (qualifiedName.length != 2) {
+      throw new IllegalArgumentException("Expected '<database>.<table>', not '" + name + "'");
+    }
+    return qualifiedName;
+  }
+
+  private static List<FieldSchema> columns(String definition) {
+    List<FieldSchema> columns = new ArrayList<>();
+    for (String column : splitTopLevel(definition)) {
+      String[] nameAndType = column.trim().split(":", 2);
+      if (nameAndType.length != 2 || nameAndType[0].isEmpty() || nameAndType[1].isEmpty()) {
+        throw new IllegalArgumentException("Expected '<column>:<type>', not '" + column + "'");
+      }
+      columns.add(new FieldSchema(nameAndType[0], nameAndType[1], null));
+    }
+    return columns;
+  }
+
+  /**
+   * Splits column definitions on the commas which aren't inside a type such as {@code map<string,int>} or
+   * {@code decimal(10,2)}.
+   */
+  private static List<String> splitTopLevel(String definition) {
+    List<String> parts = new ArrayList<>();
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i < definition.length(); i++) {
+      char c = definition.charAt(i);
+      if (c == '<' || c == '(') {
+        depth++;
+      } else if (c == '>' || c == ')') {
+        depth--;
+      } else if (c == ',' && depth == 0) {
+        parts.add(definition.substring(start, i));
+        start = i + 1;
+      }
+    }
+    parts.add(definition.substring(start));
+    return parts;
+  }
+
+  private static StorageDescriptor storageDescriptor(List<FieldSchema> columns) {
+    StorageDescriptor sd = new StorageDescriptor();
+    sd.setCols(new ArrayList<>(columns));
+    sd.setInputFormat("org.apache.hadoop.mapred.TextInputFormat");
+    sd.setOutputFormat("org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat");
+    sd.setSerdeInfo(new SerDeInfo(null, "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe", new HashMap<>()));
+    return sd;
+  }
+
+  List<Database> databases() {
+    return databases;
+  }
+
+  List<Table> tables() {
+    return new ArrayList<>(tables.values());
+  }
+
+  List<Partition> partitions(Table table) {
+    return partitions.getOrDefault(table.getDbName() + "." + table.getTableName(), new ArrayList<>());
+  }
+
+  /**
+   * Creates the databases, tables and partitions with {@link BeejuCore#loadFixture}.
+   */
+  FixtureLoadReport load(BeejuCore core) throws TException {
+    List<Partition> allPartitions = new ArrayList<>();
+    for (List<Partition> tablePartitions : partitions.values()) {
+      allPartitions.addAll(tablePartitions);
+    }
+    return core.loadFixture(databases, tables.values(), allPartitions);
+  }
+
+  /**
+   * @return The number of databases, tables and partitions.
+   */
+  int size() {
+    int size = databases.size() + tables.size();
+    for (List<Partition> tablePartitions : partitions.values()) {
+      size += tablePartitions.size();
+    }
+    return size;
+  }
+}
@@ -15,10 +15,7 @@
  */
 package com.hotels.beeju;
 
-import static org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars.CONNECT_URL_KEY;
-
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
 
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
 import org.junit.runner.Description;
@@ -36,7 +33,7 @@ public class HiveMetaStoreJUnitRule extends BeejuJUnitRule {
   
   private static final Logger log = LoggerFactory.getLogger(HiveMetaStoreJUnitRule.class);
 
-  private final HiveMetaStoreCore hiveMetaStoreCore = new HiveMetaStoreCore(core);
+  private HiveMetaStoreCore hiveMetaStoreCore;
 
   /**
    * Create a Hive Metastore with a pre-created database "test_database".
@@ -82,29 +79,35 @@ public class HiveMetaStoreJUnitRule extends BeejuJUnitRule {
 
   @Override
   public void starting(Description description) {
-    System.clearProperty(CONNECT_URL_KEY.getVarname());
     super.starting(description);
-    try {
-      hiveMetaStoreCore.initialise();
-    } catch (InterruptedException | ExecutionException e) {
-      throw new RuntimeException("Error initialising metastore core", e);
-    }
+    initialiseClient();
+  }
+
+  /**
+   * Creates the metastore client for the current {@link #core()}, for subclasses which replace the core with one whose
+   * pre-created database already exists instead of calling {@link #starting(Description)}.
+   */
+  protected void initialiseClient() {
+    hiveMetaStoreCore = new HiveMetaStoreCore(core());
+    hiveMetaStoreCore.initialise();
   }
 
   @Override
   public void finished(Description description) {
-    try {
-      hiveMetaStoreCore.shutdown();
-    } catch (Throwable t) {
-      log.warn("Error shutting down metastore core", t);
+    if (hiveMetaStoreCore != null) {
+      try {
+        hiveMetaStoreCore.shutdown();
+      } catch (Throwable t) {
+        log.warn("Error shutting down metastore core", t);
+      }
     }
     super.finished(description);
   }
 
   /**
-   * @return the {@link com.hotels.beeju.core.HiveMetaStoreCore#client()}.
+   * @return the {@link com.hotels.beeju.core.HiveMetaStoreCore#client()}, or {@code null} if the rule hasn't started.
    */
   public HiveMetaStoreClient client() {
-    return hiveMetaStoreCore.client();
+    return hiveMetaStoreCore == null ? null : hiveMetaStoreCore.client();
   }
 }
@@ -15,16 +15,16 @@
  */
 package com.hotels.beeju;
 
-import static org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars.CONNECT_URL_KEY;
-
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hive.jdbc.HiveDriver;
 import org.junit.runner.Description;
 
 import com.hotels.beeju.core.HiveServer2Core;
+import com.hotels.beeju.core.QueryProfile;
 
 /**
  * A JUnit Rule that creates a HiveServer2 service and Thrift Metastore service backed by a Hive Metastore using an
@@ -39,7 +39,7 @@ import com.hotels.beeju.core.HiveServer2Core;
  */
 public class HiveServer2JUnitRule extends BeejuJUnitRule {
 
-  private HiveServer2Core hiveServer2Core = new HiveServer2Core(core);
+  private HiveServer2Core hiveServer2Core = new HiveServer2Core(core());
 
   /**
    * Create a HiveServer2 service with a pre-created database "test_database".
@@ -69,7 +69,6 @@ public class HiveServer2JUnitRule extends BeejuJUnitRule {
 
   @Override
   public void starting(Description description) {
-    System.clearProperty(CONNECT_URL_KEY.getVarname());
     try {
       hiveServer2Core.startServerSocket();
     } catch (IOException e) {
@@ -108,4 +107,29 @@ public class HiveServer2JUnitRule extends BeejuJUnitRule {
     return hiveServer2Core.getJdbcConnectionUrl();
   }
 
+  /**
+   * @return {@link com.hotels.beeju.core.HiveServer2Core#getQueryProfile()}.
+   */
+  public QueryProfile queryProfile() {
+    return hiveServer2Core.getQueryProfile();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.HiveServer2Core#setStartupTimeout(long, TimeUnit)}.
+   *
+   * @param timeout How long to wait for the service to accept connections before failing.
+   * @param unit The unit of the timeout.
+   */
+  public void setStartupTimeout(long timeout, TimeUnit unit) {
+    hiveServer2Core.setStartupTimeout(timeout, unit);
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.HiveServer2Core#setLazyStart(boolean)}.
+   *
+   * @param lazyStart {@code true} to only start the service the first time a test asks for its connection details.
+   */
+  public void setLazyStart(boolean lazyStart) {
+    hiveServer2Core.setLazyStart(lazyStart);
+  }
 }
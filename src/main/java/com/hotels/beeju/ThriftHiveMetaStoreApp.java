@@ -15,17 +15,216 @@
  */
 package com.hotels.beeju;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.ThriftHiveMetaStoreCore;
+import com.hotels.beeju.core.ThriftServerOptions;
+
+/**
+ * Serves one or more independent Thrift Hive Metastores from one JVM, for use as stand-in metastores outside of tests.
+ * <p>
+ * Usage: {@code ThriftHiveMetaStoreApp [--port=22334 ...] [--database=test_database ...] [--conf=<key>=<value> ...]
+ * [--fixture=<file>] [--ready-file=<file>] [--workers=<threads>] [--selector-threads=<threads>]}
+ * </p>
+ * <ul>
+ * <li>{@code --port}: a metastore is served on each port, 0 for any free port. Defaults to 22334.</li>
+ * <li>{@code --database}: databases created in each metastore. Defaults to {@code test_database}.</li>
+ * <li>{@code --conf}: Hive configuration set to override BeeJU's defaults.</li>
+ * <li>{@code --fixture}: a {@link FixtureFile fixture file} loaded into each metastore.</li>
+ * <li>{@code --ready-file}: a file the metastore URIs are written to, one per line, once they are all ready. It is
+ * created atomically, so scripts can wait for it to exist, and deleted on shutdown.</li>
+ * <li>{@code --workers}: the maximum number of worker threads of each metastore.</li>
+ * <li>{@code --selector-threads}: serves the metastores with a threaded selector server with this many selector
+ * threads, clients need to use framed transport.</li>
+ * </ul>
+ * <p>
+ * A line starting with {@value #READY} is printed once all the metastores are ready. The metastores are shut down when
+ * the JVM is.
+ * </p>
+ */
 public class ThriftHiveMetaStoreApp {
 
+  private static final Logger log = LoggerFactory.getLogger(ThriftHiveMetaStoreApp.class);
+
+  static final String READY = "BeeJU Thrift Hive Metastores ready:";
+  private static final int DEFAULT_PORT = 22334;
+  private static final String DEFAULT_DATABASE = "test_database";
+  private static final int DEFAULT_SELECTOR_WORKER_THREADS = 8;
+
+  private final List<Integer> ports = new ArrayList<>();
+  private final List<String> databaseNames = new ArrayList<>();
+  private final Map<String, String> configuration = new LinkedHashMap<>();
+  private Path fixture;
+  private Path readyFile;
+  private int workerThreads;
+  private int selectorThreads;
+
+  private final List<Instance> instances = new ArrayList<>();
+
+  private static class Instance {
+    private final BeejuCore core;
+    private final ThriftHiveMetaStoreCore thriftHiveMetaStoreCore;
+
+    private Instance(BeejuCore core, ThriftHiveMetaStoreCore thriftHiveMetaStoreCore) {
+      this.core = core;
+      this.thriftHiveMetaStoreCore = thriftHiveMetaStoreCore;
+    }
+  }
+
+  ThriftHiveMetaStoreApp(String... args) {
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (equals < 0) {
+        throw new IllegalArgumentException("Expected --<option>=<value>, not '" + arg + "'");
+      }
+      String name = arg.substring(0, equals);
+      String value = arg.substring(equals + 1);
+      switch (name) {
+      case "--port":
+        ports.add(Integer.parseInt(value));
+        break;
+      case "--database":
+        databaseNames.add(value);
+        break;
+      case "--conf":
+        int valueEquals = value.indexOf('=');
+        if (valueEquals <= 0) {
+          throw new IllegalArgumentException("Expected --conf=<key>=<value>, not '" + arg + "'");
+        }
+        configuration.put(value.substring(0, valueEquals), value.substring(valueEquals + 1));
+        break;
+      case "--fixture":
+        fixture = Paths.get(value);
+        break;
+      case "--ready-file":
+        readyFile = Paths.get(value);
+        break;
+      case "--workers":
+        workerThreads = Integer.parseInt(value);
+        break;
+      case "--selector-threads":
+        selectorThreads = Integer.parseInt(value);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown option '" + name + "'");
+      }
+    }
+    if (ports.isEmpty()) {
+      ports.add(DEFAULT_PORT);
+    }
+    if (databaseNames.isEmpty()) {
+      databaseNames.add(DEFAULT_DATABASE);
+    }
+  }
+
   public static void main(String[] args) throws Throwable {
-    ThriftHiveMetaStoreJUnitRule rule = new ThriftHiveMetaStoreJUnitRule();
-    rule.setThriftPort(22334);
-    rule.starting(null);
-    System.out.println("BeeJU Thrift Hive Metastore listening on: " + rule.getThriftConnectionUri());
+    ThriftHiveMetaStoreApp app = new ThriftHiveMetaStoreApp(args);
+    Runtime.getRuntime().addShutdownHook(new Thread(app::stop, "beeju-shutdown"));
+    app.start();
+    for (String uri : app.getThriftConnectionUris()) {
+      System.out.println("BeeJU Thrift Hive Metastore listening on: " + uri);
+    }
+    System.out.println(READY + " " + String.join(",", app.getThriftConnectionUris()));
     CountDownLatch latch = new CountDownLatch(1);
     latch.await();
   }
 
+  /**
+   * Starts the metastores, creates their databases, loads the fixture into them and then writes the ready file.
+   */
+  synchronized void start() throws Exception {
+    FixtureFile fixtureFile = fixture == null ? null : FixtureFile.read(fixture);
+    ThriftServerOptions serverOptions = serverOptions();
+    try {
+      for (int port : ports) {
+        BeejuCore core = new BeejuCore(databaseNames.get(0), null, configuration);
+        ThriftHiveMetaStoreCore thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core);
+        instances.add(new Instance(core, thriftHiveMetaStoreCore));
+        thriftHiveMetaStoreCore.setThriftPort(port);
+        thriftHiveMetaStoreCore.setServerOptions(serverOptions);
+        thriftHiveMetaStoreCore.initialise();
+        for (String databaseName : databaseNames) {
+          core.createDatabase(databaseName);
+        }
+        if (fixtureFile != null) {
+          fixtureFile.load(core);
+        }
+        log.info("Started Thrift Hive Metastore {}", thriftHiveMetaStoreCore.getThriftConnectionUri());
+      }
+      if (readyFile != null) {
+        writeReadyFile();
+      }
+    } catch (Exception e) {
+      stop();
+      throw e;
+    }
+  }
+
+  private ThriftServerOptions serverOptions() {
+    if (selectorThreads > 0) {
+      return ThriftServerOptions.threadedSelector(selectorThreads,
+          workerThreads > 0 ? workerThreads : DEFAULT_SELECTOR_WORKER_THREADS);
+    }
+    if (workerThreads > 0) {
+      return ThriftServerOptions.threadPool(0, workerThreads);
+    }
+    return ThriftServerOptions.defaults();
+  }
+
+  private void writeReadyFile() throws IOException {
+    Path directory = readyFile.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, readyFile.getFileName().toString(), ".tmp");
+    Files.write(temporary, getThriftConnectionUris(), StandardCharsets.UTF_8);
+    Files.move(temporary, readyFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * @return The URIs of the metastores, in the order of their ports.
+   */
+  synchronized List<String> getThriftConnectionUris() {
+    List<String> uris = new ArrayList<>();
+    for (Instance instance : instances) {
+      uris.add(instance.thriftHiveMetaStoreCore.getThriftConnectionUri());
+    }
+    return Collections.unmodifiableList(uris);
+  }
+
+  /**
+   * Deletes the ready file and shuts down the metastores.
+   */
+  synchronized void stop() {
+    if (readyFile != null) {
+      try {
+        Files.deleteIfExists(readyFile);
+      } catch (IOException e) {
+        log.warn("Unable to delete ready file {}", readyFile, e);
+      }
+    }
+    for (int i = instances.size() - 1; i >= 0; i--) {
+      Instance instance = instances.get(i);
+      try {
+        instance.thriftHiveMetaStoreCore.shutdown();
+        instance.core.cleanUp();
+      } catch (RuntimeException e) {
+        log.warn("Error shutting down Thrift Hive Metastore", e);
+      }
+    }
+    instances.clear();
+  }
 }
@@ -15,13 +15,15 @@
  */
 package com.hotels.beeju;
 
-import static org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars.CONNECT_URL_KEY;
-
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.runner.Description;
 
 import com.hotels.beeju.core.ThriftHiveMetaStoreCore;
+import com.hotels.beeju.core.ThriftHiveMetaStorePool;
+import com.hotels.beeju.core.ThriftServerOptions;
+import com.hotels.beeju.core.ThriftServerStatistics;
 
 /**
  * A JUnit Rule that creates a Hive Metastore Thrift service backed by a Hive Metastore using an HSQLDB in-memory
@@ -29,10 +31,23 @@ import com.hotels.beeju.core.ThriftHiveMetaStoreCore;
  * <p>
  * A fresh database instance will be created for each test method.
  * </p>
+ * <p>
+ * When {@link #setPrestart(boolean) pre-start} is enabled the service is taken from the services that
+ * {@link ThriftHiveMetaStorePool#shared()} has started in the background and the service for the next test is started
+ * while this one runs.
+ * </p>
  */
 public class ThriftHiveMetaStoreJUnitRule extends HiveMetaStoreJUnitRule {
 
-  private ThriftHiveMetaStoreCore thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core);
+  private final Map<String, String> preConfiguration;
+  private final Map<String, String> postConfiguration;
+  private final ThriftServerOptions serverOptions;
+  private ThriftHiveMetaStoreCore thriftHiveMetaStoreCore;
+  private int thriftPort = -1;
+  private long startupTimeout;
+  private TimeUnit startupTimeoutUnit;
+  private boolean lazyStart;
+  private boolean prestart;
 
   /**
    * Create a Thrift Hive Metastore service with a pre-created database "test_database".
@@ -59,6 +74,9 @@ public class ThriftHiveMetaStoreJUnitRule extends HiveMetaStoreJUnitRule {
    */
   public ThriftHiveMetaStoreJUnitRule(String databaseName, Map<String, String> preConfiguration) {
     super(databaseName, preConfiguration);
+    this.preConfiguration = preConfiguration;
+    postConfiguration = null;
+    serverOptions = ThriftServerOptions.defaults();
   }
 
   /**
@@ -73,24 +91,90 @@ public class ThriftHiveMetaStoreJUnitRule extends HiveMetaStoreJUnitRule {
       String databaseName,
       Map<String, String> preConfiguration,
       Map<String, String> postConfiguration) {
+    this(databaseName, preConfiguration, postConfiguration, ThriftServerOptions.defaults());
+  }
+
+  /**
+   * Create a Thrift Hive Metastore service with a pre-created database using the provided name and configuration,
+   * served by a Thrift server with the provided model and worker pool.
+   *
+   * @param databaseName Database name.
+   * @param preConfiguration Hive configuration properties that will be set prior to BeeJU potentially overriding these
+   *          with its defaults.
+   * @param postConfiguration Hive configuration properties that will be set to override BeeJU's defaults.
+   * @param serverOptions Thrift server model and worker pool.
+   */
+  public ThriftHiveMetaStoreJUnitRule(
+      String databaseName,
+      Map<String, String> preConfiguration,
+      Map<String, String> postConfiguration,
+      ThriftServerOptions serverOptions) {
     super(databaseName, preConfiguration, postConfiguration);
+    this.preConfiguration = preConfiguration;
+    this.postConfiguration = postConfiguration;
+    this.serverOptions = serverOptions;
+  }
+
+  /**
+   * @return The Thrift Hive Metastore of {@link #core()}, created with this rule's settings.
+   */
+  private ThriftHiveMetaStoreCore thriftHiveMetaStoreCore() {
+    if (thriftHiveMetaStoreCore == null) {
+      thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core());
+      thriftHiveMetaStoreCore.setServerOptions(serverOptions);
+      if (thriftPort >= 0) {
+        thriftHiveMetaStoreCore.setThriftPort(thriftPort);
+      }
+      if (startupTimeoutUnit != null) {
+        thriftHiveMetaStoreCore.setStartupTimeout(startupTimeout, startupTimeoutUnit);
+      }
+      thriftHiveMetaStoreCore.setLazyStart(lazyStart);
+    }
+    return thriftHiveMetaStoreCore;
   }
 
   @Override
   public void starting(Description description) {
-    System.clearProperty(CONNECT_URL_KEY.getVarname());
+    if (prestart) {
+      takePrestarted();
+      initialiseClient();
+      return;
+    }
     try {
-      thriftHiveMetaStoreCore.initialise();
+      thriftHiveMetaStoreCore().initialise();
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
     super.starting(description);
   }
 
+  private void takePrestarted() {
+    ThriftHiveMetaStorePool pool = ThriftHiveMetaStorePool.shared();
+    ThriftHiveMetaStorePool.Lease lease;
+    try {
+      lease = pool.lease(databaseName(), preConfiguration, postConfiguration);
+    } catch (Exception e) {
+      throw new RuntimeException("Error starting Thrift Hive Metastore", e);
+    }
+    lease.detach();
+    pool.prestart(databaseName(), preConfiguration, postConfiguration);
+    // created by calls made before the rule started
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.shutdown();
+    }
+    if (core != null) {
+      core.cleanUp();
+    }
+    core = lease.core();
+    thriftHiveMetaStoreCore = lease.thriftHiveMetaStore();
+  }
+
   @Override
   public void finished(Description description) {
     try {
-      thriftHiveMetaStoreCore.shutdown();
+      if (thriftHiveMetaStoreCore != null) {
+        thriftHiveMetaStoreCore.shutdown();
+      }
     } finally {
       super.finished(description);
     }
@@ -100,14 +184,21 @@ public class ThriftHiveMetaStoreJUnitRule extends HiveMetaStoreJUnitRule {
    * @return {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#getThriftConnectionUri()}.
    */
   public String getThriftConnectionUri() {
-    return thriftHiveMetaStoreCore.getThriftConnectionUri();
+    return thriftHiveMetaStoreCore().getThriftConnectionUri();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#getThriftPort()}
    */
   public int getThriftPort() {
-    return thriftHiveMetaStoreCore.getThriftPort();
+    return thriftHiveMetaStoreCore().getThriftPort();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#getServerStatistics()}
+   */
+  public ThriftServerStatistics getServerStatistics() {
+    return thriftHiveMetaStoreCore().getServerStatistics();
   }
 
   /**
@@ -115,7 +206,45 @@ public class ThriftHiveMetaStoreJUnitRule extends HiveMetaStoreJUnitRule {
    *          be allocated.
    */
   public void setThriftPort(int thriftPort) {
-    thriftHiveMetaStoreCore.setThriftPort(thriftPort);
+    this.thriftPort = thriftPort;
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.setThriftPort(thriftPort);
+    }
   }
 
+  /**
+   * See {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#setStartupTimeout(long, TimeUnit)}.
+   *
+   * @param timeout How long to wait for the service to accept connections before failing.
+   * @param unit The unit of the timeout.
+   */
+  public void setStartupTimeout(long timeout, TimeUnit unit) {
+    startupTimeout = timeout;
+    startupTimeoutUnit = unit;
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.setStartupTimeout(timeout, unit);
+    }
+  }
+
+  /**
+   * @param prestart {@code true} to take a Thrift Hive Metastore service which has been started in the background
+   *          instead of starting one when the test starts, and to start the one for the next test with the same
+   *          database name and configuration in the background. The thrift port, server options, startup timeout and
+   *          lazy start settings don't apply to pre-started services. Disabled by default.
+   */
+  public void setPrestart(boolean prestart) {
+    this.prestart = prestart;
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#setLazyStart(boolean)}.
+   *
+   * @param lazyStart {@code true} to only start the service the first time a test asks for its connection details.
+   */
+  public void setLazyStart(boolean lazyStart) {
+    this.lazyStart = lazyStart;
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.setLazyStart(lazyStart);
+    }
+  }
 }
@@ -20,9 +20,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.net.ServerSocket;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -30,6 +36,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.derby.jdbc.EmbeddedDriver;
@@ -37,29 +44,67 @@ import org.apache.hadoop.fs.FileUtil;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.Warehouse;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
 import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.hotels.beeju.metastore.BeejuCachedStore;
+import com.hotels.beeju.metastore.BeejuObjectStore;
+import com.hotels.beeju.metastore.ConnectionPoolStatistics;
+import com.hotels.beeju.metastore.InMemoryRawStore;
+import com.hotels.beeju.metastore.InMemoryTxnStore;
+import com.hotels.beeju.metastore.MetastoreCacheStatistics;
+import com.hotels.beeju.metastore.MetastoreConnectionPool;
+
 // This class contains some code sourced from and inspired by HiveRunner, specifically 
 // https://github.com/klarna/HiveRunner/blob/fb00a98f37abdb779547c1c98ef6fbe54d373e0c/src/main/java/com/klarna/hiverunner/StandaloneHiveServerContext.java
 public class BeejuCore {
 
+  /**
+   * Configuration property which, when {@code true}, makes the metastore serve reads from a {@link BeejuCachedStore}
+   * cache which is prewarmed when the instance is created. Defaults to {@code false}. Ignored by metastores using an
+   * {@link InMemoryRawStore}, which already keeps everything in memory.
+   */
+  public static final String METASTORE_CACHE = "beeju.metastore.cache";
+
   private static final Logger log = LoggerFactory.getLogger(BeejuCore.class);
 
   // "user" conflicts with USER db and the metastore_db can't be created.
   private static final String METASTORE_DB_USER = "db_user";
   private static final String METASTORE_DB_PASSWORD = "db_password";
 
+  private static final String DERBY_SYSTEM_HOME = "derby.system.home";
+  private static final String DERBY_ERROR_FILE = "derby.stream.error.file";
+  private static final String DATABASE_SIZE_SQL = "SELECT SUM(sp.NUMALLOCATEDPAGES * sp.PAGESIZE),"
+      + " SUM(sp.NUMALLOCATEDPAGES) FROM SYS.SYSSCHEMAS s, SYS.SYSTABLES t,"
+      + " TABLE (SYSCS_DIAG.SPACE_TABLE(s.SCHEMANAME, t.TABLENAME)) sp WHERE s.SCHEMAID = t.SCHEMAID";
+  private static final int DEFAULT_FIXTURE_BATCH_SIZE = 500;
+  private static final int DEFAULT_FIXTURE_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+  private static final int DEFAULT_CLIENT_POOL_SIZE = 8;
+  private static final long CLIENT_BORROW_TIMEOUT_SECONDS = 60;
+
   protected final HiveConf conf = new HiveConf();
+  private final StartupReport startupReport = new StartupReport();
+  private int fixtureBatchSize = DEFAULT_FIXTURE_BATCH_SIZE;
+  private int fixtureThreads = DEFAULT_FIXTURE_THREADS;
+  private int clientPoolSize = DEFAULT_CLIENT_POOL_SIZE;
+  private HiveMetaStoreClientPool clientPool;
   private final String databaseName;
+  private MetastoreBackend backend;
+  private PersistenceProfile persistenceProfile;
+  private QueryProfile queryProfile;
+  private MetastoreConnectionPool connectionPool;
+  private boolean inMemoryRawStore;
+  private boolean metastoreCache;
   private String connectionURL;
   private String driverClassName;
   private Path warehouseDir;
-  private Path derbyHome;
   private Path baseDir;
 
   private static Map<String, String> convertToMap(HiveConf hiveConf) {
@@ -88,18 +133,43 @@ public class BeejuCore {
     this(databaseName, preConfiguration, Collections.emptyMap());
   }
 
+  /**
+   * Creates the configuration in this order, each step overriding the ones before it: the pre configuration, BeeJU's
+   * own settings, the properties of the {@link PersistenceProfile} and the {@link QueryProfile} chosen with the
+   * {@value PersistenceProfile#PROFILE} and {@value QueryProfile#PROFILE} properties, and last the post configuration.
+   * The profiles can be chosen in either the pre or the post configuration.
+   *
+   * @param databaseName Name of the database created in the metastore.
+   * @param preConfiguration Properties set before BeeJU's own settings.
+   * @param postConfiguration Properties set after BeeJU's own settings.
+   */
   public BeejuCore(String databaseName, Map<String, String> preConfiguration, Map<String, String> postConfiguration) {
     checkNotNull(databaseName, "databaseName is required");
     this.databaseName = databaseName;
+    configureJvmDefaults();
     configure(preConfiguration);
 
     configureFolders();
 
-    configureMetastore();
+    configureMetastore(postConfiguration);
 
     configureMisc();
 
+    persistenceProfile = configureProfile(postConfiguration, PersistenceProfile.PROFILE, PersistenceProfile.DEFAULT,
+        PersistenceProfile::forName);
+    queryProfile = configureProfile(postConfiguration, QueryProfile.PROFILE, QueryProfile.DEFAULT,
+        QueryProfile::forName);
+
     configure(postConfiguration);
+    connectionPool = MetastoreConnectionPool.forConf(conf);
+
+    inMemoryRawStore = usesInMemoryRawStore();
+    if (inMemoryRawStore) {
+      configureInMemoryRawStore();
+    } else {
+      createMetastoreDatabase(postConfiguration);
+      configureMetastoreCache();
+    }
   }
 
   private void configureMisc() {
@@ -114,30 +184,26 @@ public class BeejuCore {
     conf.setBoolVar(HiveConf.ConfVars.HIVE_SERVER2_LOGGING_OPERATION_ENABLED, false);
 
     // Used to prevent "Not authorized to make the get_current_notificationEventId call" errors
-    setMetastoreAndSystemProperty(MetastoreConf.ConfVars.EVENT_DB_NOTIFICATION_API_AUTH, "false");
+    setMetastoreProperty(MetastoreConf.ConfVars.EVENT_DB_NOTIFICATION_API_AUTH, "false");
 
     // Used to prevent "Error polling for notification events" error
     conf.setTimeVar(HiveConf.ConfVars.HIVE_NOTFICATION_EVENT_POLL_INTERVAL, 0, TimeUnit.MILLISECONDS);
 
     // Has to be added to exclude failures related to the HiveMaterializedViewsRegistry
     conf.set(HiveConf.ConfVars.HIVE_SERVER2_MATERIALIZED_VIEWS_REGISTRY_IMPL.varname, "DUMMY");
-    System.setProperty(HiveConf.ConfVars.HIVE_SERVER2_MATERIALIZED_VIEWS_REGISTRY_IMPL.varname, "DUMMY");
   }
 
-  private void setMetastoreAndSystemProperty(MetastoreConf.ConfVars key, String value) {
+  private void setMetastoreProperty(MetastoreConf.ConfVars key, String value) {
     conf.set(key.getVarname(), value);
     conf.set(key.getHiveName(), value);
-
-    System.setProperty(key.getVarname(), value);
-    System.setProperty(key.getHiveName(), value);
   }
 
   private int getWebUIPort() {
     // Try to find a free port, if impossible return the default port 0 which disables the WebUI altogether
     int defaultPort = 0;
 
-    try (ServerSocket socket = new ServerSocket(0)) {
-      return socket.getLocalPort();
+    try {
+      return PortAllocator.shared().allocate();
     } catch (IOException e) {
       log.info(
           "No free port available for the Web UI. Setting the port to " + defaultPort + ", which disables the WebUI.",
@@ -147,35 +213,153 @@ public class BeejuCore {
   }
 
   private void configureFolders() {
+    long start = StartupReport.start();
     try {
       baseDir = Files.createTempDirectory("beeju-basedir-");
       createAndSetFolderProperty(HiveConf.ConfVars.SCRATCHDIR, "scratchdir");
       createAndSetFolderProperty(HiveConf.ConfVars.LOCALSCRATCHDIR, "localscratchdir");
       createAndSetFolderProperty(HiveConf.ConfVars.HIVEHISTORYFILELOC, "hive-history");
 
-      createDerbyPaths();
       createWarehousePath();
     } catch (IOException e) {
       throw new UncheckedIOException("Error creating temporary folders", e);
     }
+    startupReport.record(StartupReport.CONFIGURE_FOLDERS, start);
   }
 
-  private void configureMetastore() {
+  private void configureMetastore(Map<String, String> postConfiguration) {
     driverClassName = EmbeddedDriver.class.getName();
     conf.setBoolean("hcatalog.hive.client.cache.disabled", true);
-    connectionURL = "jdbc:derby:memory:" + UUID.randomUUID() + ";create=true";
+    backend = createBackend(postConfiguration);
+    connectionURL = backend.connectionURL(UUID.randomUUID().toString());
 
-    setMetastoreAndSystemProperty(MetastoreConf.ConfVars.CONNECT_URL_KEY, connectionURL);
-    setMetastoreAndSystemProperty(MetastoreConf.ConfVars.CONNECTION_DRIVER, driverClassName);
-    setMetastoreAndSystemProperty(MetastoreConf.ConfVars.CONNECTION_USER_NAME, METASTORE_DB_USER);
-    setMetastoreAndSystemProperty(MetastoreConf.ConfVars.PWD, METASTORE_DB_PASSWORD);
+    setMetastoreProperty(MetastoreConf.ConfVars.CONNECT_URL_KEY, connectionURL);
+    setMetastoreProperty(MetastoreConf.ConfVars.CONNECTION_DRIVER, driverClassName);
+    setMetastoreProperty(MetastoreConf.ConfVars.CONNECTION_USER_NAME, METASTORE_DB_USER);
+    setMetastoreProperty(MetastoreConf.ConfVars.PWD, METASTORE_DB_PASSWORD);
 
     conf.setVar(HiveConf.ConfVars.METASTORE_CONNECTION_POOLING_TYPE, "NONE");
+    // makes each handler call point the thread's RawStore at this metastore, which BeejuObjectStore does without
+    // initialising itself again unless the configuration has been reloaded
     conf.setBoolVar(HiveConf.ConfVars.HMSHANDLERFORCERELOADCONF, true);
+    // Hive's ObjectStore shares one PersistenceManagerFactory between all the metastores in the JVM
+    if (!usesInMemoryRawStore()) {
+      setMetastoreProperty(MetastoreConf.ConfVars.RAW_STORE_IMPL, BeejuObjectStore.class.getName());
+    }
+    setMetastoreProperty(MetastoreConf.ConfVars.CACHED_RAW_STORE_IMPL, BeejuObjectStore.class.getName());
+    // only used if the RawStore is switched to an InMemoryRawStore, which keeps a catalog per store id
+    conf.set(InMemoryRawStore.STORE_ID, connectionURL);
 
     // Hive 2.x compatibility
-    setMetastoreAndSystemProperty(MetastoreConf.ConfVars.AUTO_CREATE_ALL, "true");
-    setMetastoreAndSystemProperty(MetastoreConf.ConfVars.SCHEMA_VERIFICATION, "false");
+    setMetastoreProperty(MetastoreConf.ConfVars.AUTO_CREATE_ALL, "true");
+    setMetastoreProperty(MetastoreConf.ConfVars.SCHEMA_VERIFICATION, "false");
+  }
+
+  private MetastoreBackend createBackend(Map<String, String> postConfiguration) {
+    String name = configuredValue(postConfiguration, MetastoreBackend.BACKEND, DerbyMetastoreBackend.IN_MEMORY);
+    MetastoreBackend builtIn = DerbyMetastoreBackend
+        .forName(name, configuredValue(postConfiguration, MetastoreBackend.DIRECTORY, null));
+    if (builtIn != null) {
+      return builtIn;
+    }
+    try {
+      return conf.getClassByName(name).asSubclass(MetastoreBackend.class).getConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new IllegalArgumentException("Unknown metastore backend " + name, e);
+    }
+  }
+
+  private <P extends ConfigurationProfile> P configureProfile(
+      Map<String, String> postConfiguration,
+      String property,
+      P defaultProfile,
+      Function<String, P> forName) {
+    P profile = forName.apply(configuredValue(postConfiguration, property, defaultProfile.profileName()));
+    configure(profile.properties());
+    return profile;
+  }
+
+  private String configuredValue(Map<String, String> postConfiguration, String key, String defaultValue) {
+    if (postConfiguration != null && postConfiguration.containsKey(key)) {
+      return postConfiguration.get(key);
+    }
+    return conf.get(key, defaultValue);
+  }
+
+  private boolean usesInMemoryRawStore() {
+    return inMemoryRawStoreClass() != null;
+  }
+
+  private String inMemoryRawStoreClass() {
+    return rawStoreClass(InMemoryRawStore.class);
+  }
+
+  private String rawStoreClass(Class<?> type) {
+    // either name selects it, as BeeJU sets both names
+    for (String name : Arrays.asList(MetastoreConf.ConfVars.RAW_STORE_IMPL.getVarname(),
+        MetastoreConf.ConfVars.RAW_STORE_IMPL.getHiveName())) {
+      String className = conf.get(name);
+      try {
+        if (className != null && type.isAssignableFrom(conf.getClassByName(className))) {
+          return className;
+        }
+      } catch (ClassNotFoundException e) {
+        // the metastore will fail to create its RawStore
+      }
+    }
+    return null;
+  }
+
+  private void configureInMemoryRawStore() {
+    setMetastoreProperty(MetastoreConf.ConfVars.RAW_STORE_IMPL, inMemoryRawStoreClass());
+    String txnStore = MetastoreConf.getVar(conf, MetastoreConf.ConfVars.TXN_STORE_IMPL);
+    if (txnStore.equals(MetastoreConf.ConfVars.TXN_STORE_IMPL.getDefaultVal())) {
+      // Hive's TxnStore keeps its tables in the metastore database, which isn't created for an InMemoryRawStore
+      setMetastoreProperty(MetastoreConf.ConfVars.TXN_STORE_IMPL, InMemoryTxnStore.class.getName());
+    }
+  }
+
+  private void configureMetastoreCache() {
+    String cachedStore = rawStoreClass(BeejuCachedStore.class);
+    if (cachedStore == null && conf.getBoolean(METASTORE_CACHE, false)) {
+      cachedStore = BeejuCachedStore.class.getName();
+    }
+    if (cachedStore == null) {
+      return;
+    }
+    setMetastoreProperty(MetastoreConf.ConfVars.RAW_STORE_IMPL, cachedStore);
+    metastoreCache = true;
+    long start = StartupReport.start();
+    refreshMetastoreCache();
+    startupReport.record(StartupReport.PREWARM_METASTORE_CACHE, start);
+  }
+
+  private void createMetastoreDatabase(Map<String, String> postConfiguration) {
+    if (!connectionURL.equals(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY))) {
+      // connection URL has been overridden so there is no BeeJU database to pre-populate
+      return;
+    }
+    try {
+      long start = StartupReport.start();
+      DerbySchemaTemplate template = DerbySchemaTemplate.forConf(conf);
+      startupReport.record(StartupReport.SCHEMA_TEMPLATE, start);
+
+      start = StartupReport.start();
+      template.cloneTo(backend, connectionURL, MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_USER_NAME),
+          MetastoreConf.getVar(conf, MetastoreConf.ConfVars.PWD));
+      startupReport.record(StartupReport.CREATE_DERBY_DATABASE, start);
+      if (!isConfigured(postConfiguration, MetastoreConf.ConfVars.AUTO_CREATE_ALL)) {
+        // the cloned schema is complete so there is no need for DataNucleus to check it on first use of each class
+        setMetastoreProperty(MetastoreConf.ConfVars.AUTO_CREATE_ALL, "false");
+      }
+    } catch (RuntimeException e) {
+      log.warn("Unable to clone metastore schema template, the schema will be created on first use instead", e);
+    }
+  }
+
+  private static boolean isConfigured(Map<String, String> configuration, MetastoreConf.ConfVars key) {
+    return configuration != null
+        && (configuration.containsKey(key.getVarname()) || configuration.containsKey(key.getHiveName()));
   }
 
   private void createAndSetFolderProperty(HiveConf.ConfVars var, String childFolderName) throws IOException {
@@ -189,13 +373,35 @@ public class BeejuCore {
     return newFolder;
   }
 
-  private void createDerbyPaths() throws IOException {
-    derbyHome = Files.createTempDirectory(baseDir, "derby-home-");
-    System.setProperty("derby.system.home", derbyHome.toString());
-
-    // overriding default derby log path to go to tmp
-    String derbyLog = Files.createTempFile(baseDir, "derby", ".log").toString();
-    System.setProperty("derby.stream.error.file", derbyLog);
+  /**
+   * Sets the JVM wide defaults which can't be configured per instance. They are the same for every instance so they are
+   * only set once, and only if the user hasn't set them already.
+   * <p>
+   * Derby reads its home and log file from System properties when its engine boots and HiveServer2 initialises the
+   * materialized views registry with a {@link HiveConf} created from the System properties rather than from its own
+   * configuration.
+   * </p>
+   */
+  private static synchronized void configureJvmDefaults() {
+    if (System.getProperty(HiveConf.ConfVars.HIVE_SERVER2_MATERIALIZED_VIEWS_REGISTRY_IMPL.varname) == null) {
+      System.setProperty(HiveConf.ConfVars.HIVE_SERVER2_MATERIALIZED_VIEWS_REGISTRY_IMPL.varname, "DUMMY");
+    }
+    if (System.getProperty(DERBY_SYSTEM_HOME) != null && System.getProperty(DERBY_ERROR_FILE) != null) {
+      return;
+    }
+    try {
+      Path derbyHome = Files.createTempDirectory("beeju-derby-home-");
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtils.deleteQuietly(derbyHome.toFile())));
+      if (System.getProperty(DERBY_SYSTEM_HOME) == null) {
+        System.setProperty(DERBY_SYSTEM_HOME, derbyHome.toString());
+      }
+      if (System.getProperty(DERBY_ERROR_FILE) == null) {
+        // overriding default derby log path to go to tmp
+        System.setProperty(DERBY_ERROR_FILE, derbyHome.resolve("derby.log").toString());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error creating Derby home folder", e);
+    }
   }
 
   private void createWarehousePath() throws IOException {
@@ -204,9 +410,176 @@ public class BeejuCore {
   }
 
   public void cleanUp() {
+    closeClientPool();
+    BeejuObjectStore.closePersistenceManagerFactories(connectionURL);
+    BeejuCachedStore.dropCache(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY));
+    BeejuObjectStore.dropConfigurationReloads(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY));
+    dropDatabase();
     deleteDirectory(baseDir);
   }
 
+  /**
+   * Clears the {@link #clientPool() client pool}, if it has been created, so that the clients borrowed from now on use
+   * the current metastore connection settings.
+   */
+  synchronized void clearClientPool() {
+    if (clientPool != null) {
+      clientPool.clear();
+    }
+  }
+
+  private synchronized void closeClientPool() {
+    if (clientPool != null) {
+      clientPool.close();
+    }
+  }
+
+  private void dropDatabase() {
+    if (inMemoryRawStore) {
+      InMemoryRawStore.drop(connectionURL);
+      return;
+    }
+    backend.drop(connectionURL, MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_USER_NAME),
+        MetastoreConf.getVar(conf, MetastoreConf.ConfVars.PWD));
+  }
+
+  /**
+   * Returns the Hive Metastore to the state it was in when the pre-created database had just been created, so that it
+   * can be reused by another test without being restarted.
+   * <p>
+   * Every database apart from the default and pre-created ones is dropped, all tables, partitions, functions,
+   * transactions and notification events are removed and the warehouse directory is emptied. This is done with bulk
+   * SQL against the metastore database rather than through the metastore API, so it typically only takes tens of milliseconds.
+   * The catalog of a metastore using an {@link InMemoryRawStore} is emptied in memory instead.
+   * </p>
+   */
+  public void reset() {
+    if (inMemoryRawStore) {
+      InMemoryRawStore.reset(connectionURL, MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CATALOG_DEFAULT),
+          Warehouse.DEFAULT_DATABASE_NAME, databaseName);
+      resetWarehouse();
+      return;
+    }
+    try (Connection connection = DriverManager.getConnection(connectionURL,
+        MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_USER_NAME),
+        MetastoreConf.getVar(conf, MetastoreConf.ConfVars.PWD))) {
+      MetastoreDatabaseReset.reset(connection, MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CATALOG_DEFAULT),
+          Warehouse.DEFAULT_DATABASE_NAME, databaseName);
+    } catch (SQLException e) {
+      throw new RuntimeException("Unable to reset metastore database " + connectionURL, e);
+    }
+    resetWarehouse();
+    if (metastoreCache) {
+      refreshMetastoreCache();
+    }
+  }
+
+  private void resetWarehouse() {
+    File[] children = warehouseDir.toFile().listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      try {
+        if (child.getName().equals(databaseName) && child.isDirectory()) {
+          FileUtils.cleanDirectory(child);
+        } else {
+          FileUtils.forceDelete(child);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Error cleaning up " + child, e);
+      }
+    }
+  }
+
+  /**
+   * Takes a snapshot of the Hive Metastore database and the warehouse directory which this or any other
+   * {@link BeejuCore} in the JVM can later be {@link #restore(String) restored} from, replacing any snapshot with the
+   * same name. The database is copied with Derby's online backup, so it typically takes well under a second even for a
+   * catalog of tens of thousands of partitions. Snapshots are deleted when the JVM exits.
+   *
+   * @param name Snapshot name.
+   * @throws IllegalStateException If the metastore doesn't use BeeJU's own database.
+   */
+  public void snapshot(String name) {
+    checkSnapshotName(name);
+    checkBeejuDatabase();
+    long start = System.nanoTime();
+    MetastoreSnapshot.take(name, connectionURL, MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_USER_NAME),
+        MetastoreConf.getVar(conf, MetastoreConf.ConfVars.PWD), warehouseDir);
+    log.info("Took metastore snapshot '{}' in {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * Replaces the Hive Metastore database and the contents of the warehouse directory with a
+   * {@link #snapshot(String) snapshot}. The snapshot may have been taken by another {@link BeejuCore}, in which case
+   * the locations of its catalogs, databases, tables and partitions are moved into this instance's warehouse
+   * directory.
+   * <p>
+   * Clients, Thrift Hive Metastore services and HiveServer2 services which are already connected carry on working
+   * with the restored database, but it mustn't be restored while they are in the middle of a call.
+   * </p>
+   *
+   * @param name Snapshot name.
+   * @throws IllegalArgumentException If there is no snapshot with the given name.
+   * @throws IllegalStateException If the metastore doesn't use BeeJU's own database.
+   */
+  public void restore(String name) {
+    checkSnapshotName(name);
+    checkBeejuDatabase();
+    MetastoreSnapshot snapshot = MetastoreSnapshot.get(name);
+    if (snapshot == null) {
+      throw new IllegalArgumentException("There is no metastore snapshot named '" + name + "'");
+    }
+    long start = System.nanoTime();
+    // persistence managers cache identifiers allocated from the database being replaced
+    BeejuObjectStore.closePersistenceManagerFactories(connectionURL);
+    dropDatabase();
+    snapshot.restoreTo(backend, connectionURL, MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_USER_NAME),
+        MetastoreConf.getVar(conf, MetastoreConf.ConfVars.PWD), warehouseDir);
+    // running stores still hold persistence managers of the closed factories
+    BeejuObjectStore.reloadConfiguration(connectionURL, Collections.emptyMap());
+    if (metastoreCache) {
+      refreshMetastoreCache();
+    }
+    log.info("Restored metastore snapshot '{}' in {} ms", name,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * @param name Snapshot name.
+   * @return {@code true} if a {@link #snapshot(String) snapshot} with the given name has been taken in this JVM.
+   */
+  public static boolean hasSnapshot(String name) {
+    return MetastoreSnapshot.get(name) != null;
+  }
+
+  /**
+   * Deletes a {@link #snapshot(String) snapshot}.
+   *
+   * @param name Snapshot name.
+   * @return {@code true} if there was a snapshot with the given name.
+   */
+  public static boolean deleteSnapshot(String name) {
+    return MetastoreSnapshot.remove(name);
+  }
+
+  private static void checkSnapshotName(String name) {
+    if (name == null || name.isEmpty()) {
+      throw new IllegalArgumentException("Snapshot name must not be empty");
+    }
+  }
+
+  private void checkBeejuDatabase() {
+    if (inMemoryRawStore) {
+      throw new IllegalStateException("Not supported for a metastore using " + InMemoryRawStore.class.getName());
+    }
+    if (!connectionURL.equals(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY))) {
+      throw new IllegalStateException("Only supported for BeeJU's own metastore database, not "
+          + MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY));
+    }
+  }
+
   private void deleteDirectory(Path path) {
     try {
       FileUtils.deleteDirectory(path.toFile());
@@ -223,6 +596,20 @@ public class BeejuCore {
     }
   }
 
+  /**
+   * Sets configuration properties in this instance's configuration and in the running Hive Metastore, for tests which
+   * change metastore settings at runtime. The metastore's handlers don't read their configuration again on every call,
+   * so they only see the new properties from their next call after this one, on every connection to the embedded and
+   * Thrift Hive Metastore. Properties of the metastore database connection can't be reloaded.
+   *
+   * @param properties Hive configuration properties to set.
+   */
+  public void reloadConfiguration(Map<String, String> properties) {
+    configure(properties);
+    BeejuObjectStore.reloadConfiguration(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY),
+        properties);
+  }
+
   void setHiveVar(HiveConf.ConfVars variable, String value) {
     conf.setVar(variable, value);
   }
@@ -244,14 +631,113 @@ public class BeejuCore {
   public void createDatabase(String databaseName) throws TException {
     File tempFile = warehouseDir.toFile();
     String databaseFolder = new File(tempFile, databaseName).toURI().toString();
-    HiveMetaStoreClient client = newClient();
+    HiveMetaStoreClientPool pool = clientPool();
+    HiveMetaStoreClient client = pool.borrow();
     try {
+      long start = StartupReport.start();
       client.createDatabase(new Database(databaseName, null, databaseFolder, null));
+      if (databaseName.equals(this.databaseName)) {
+        startupReport.record(StartupReport.CREATE_DATABASE, start);
+      }
     } finally {
-      client.close();
+      pool.release(client);
+    }
+  }
+
+  /**
+   * Creates databases, tables and partitions in bulk. The databases are created first. Then the tables, each followed by
+   * its partitions in {@code add_partitions} calls of up to {@link #setFixtureBatchSize(int) batch size} partitions, are
+   * created in parallel by up to {@link #setFixtureThreads(int) threads} threads with clients from the
+   * {@link #clientPool() client pool}. Partitions may belong to tables which already exist.
+   *
+   * @param databases Databases to create.
+   * @param tables Tables to create.
+   * @param partitions Partitions to add.
+   * @return how many objects were created and how long it took.
+   * @throws TException If an error occurs creating an object, in which case the objects created so far are kept.
+   */
+  public FixtureLoadReport loadFixture(
+      Collection<Database> databases,
+      Collection<Table> tables,
+      Collection<Partition> partitions)
+    throws TException {
+    FixtureLoadReport report = new FixtureLoader(this, fixtureBatchSize, fixtureThreads)
+        .load(databases, tables, partitions);
+    log.info("Loaded fixture: {}", report);
+    if (metastoreCache) {
+      refreshMetastoreCache();
+    }
+    return report;
+  }
+
+  /**
+   * Empties the {@link #METASTORE_CACHE metastore cache} and fills it with every database, table and partition in the
+   * metastore database. Changes made through the metastore keep the cache up to date, so this is only needed after the
+   * metastore database has been changed directly. {@link #loadFixture}, {@link #reset()} and
+   * {@link #restore(String)} refresh the cache themselves.
+   *
+   * @throws IllegalStateException If the metastore cache isn't enabled.
+   */
+  public void refreshMetastoreCache() {
+    checkMetastoreCache();
+    try {
+      BeejuCachedStore.prewarm(conf);
+    } catch (MetaException e) {
+      throw new RuntimeException("Unable to prewarm metastore cache", e);
+    }
+  }
+
+  /**
+   * @return how many reads the {@link #METASTORE_CACHE metastore cache} has served and missed and how many objects
+   *         it holds.
+   * @throws IllegalStateException If the metastore cache isn't enabled.
+   */
+  public MetastoreCacheStatistics metastoreCacheStatistics() {
+    checkMetastoreCache();
+    return BeejuCachedStore.statistics(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY));
+  }
+
+  /**
+   * @return how many connections the {@link MetastoreConnectionPool#POOL metastore connection pool} has open and in
+   *         use, or {@code null} if the metastore hasn't connected to its database yet.
+   * @throws IllegalStateException If the metastore doesn't use a connection pool.
+   */
+  public ConnectionPoolStatistics connectionPoolStatistics() {
+    if (connectionPool == MetastoreConnectionPool.NONE) {
+      throw new IllegalStateException(
+          "The metastore doesn't use a connection pool, set " + MetastoreConnectionPool.POOL + " to choose one");
+    }
+    return BeejuObjectStore.connectionPoolStatistics(connectionURL);
+  }
+
+  private void checkMetastoreCache() {
+    if (!metastoreCache) {
+      throw new IllegalStateException("The metastore cache isn't enabled, set " + METASTORE_CACHE + " to true");
     }
   }
 
+  /**
+   * @param fixtureBatchSize The maximum number of partitions added per {@code add_partitions} call by
+   *          {@link #loadFixture}. Defaults to 500.
+   */
+  public void setFixtureBatchSize(int fixtureBatchSize) {
+    if (fixtureBatchSize <= 0) {
+      throw new IllegalArgumentException("Fixture batch size must be >0, not " + fixtureBatchSize);
+    }
+    this.fixtureBatchSize = fixtureBatchSize;
+  }
+
+  /**
+   * @param fixtureThreads The maximum number of tables {@link #loadFixture} loads in parallel. Defaults to the number
+   *          of processors, up to 4.
+   */
+  public void setFixtureThreads(int fixtureThreads) {
+    if (fixtureThreads <= 0) {
+      throw new IllegalArgumentException("Fixture threads must be >0, not " + fixtureThreads);
+    }
+    this.fixtureThreads = fixtureThreads;
+  }
+
   /**
    * @return a copy of the {@link HiveConf} used to create the Hive Metastore database. This {@link HiveConf} should be
    * used by tests wishing to connect to the database.
@@ -281,6 +767,70 @@ public class BeejuCore {
     return connectionURL;
   }
 
+  /**
+   * @return the {@link MetastoreBackend} chosen with the {@value MetastoreBackend#BACKEND} configuration property.
+   */
+  public MetastoreBackend backend() {
+    return backend;
+  }
+
+  /**
+   * @return the {@link PersistenceProfile} chosen with the {@value PersistenceProfile#PROFILE} configuration property.
+   */
+  public PersistenceProfile persistenceProfile() {
+    return persistenceProfile;
+  }
+
+  /**
+   * @return the {@link QueryProfile} chosen with the {@value QueryProfile#PROFILE} configuration property.
+   */
+  public QueryProfile queryProfile() {
+    return queryProfile;
+  }
+
+  /**
+   * @return the {@link MetastoreConnectionPool} chosen with the {@value MetastoreConnectionPool#POOL} configuration
+   *         property.
+   */
+  public MetastoreConnectionPool connectionPool() {
+    return connectionPool;
+  }
+
+  /**
+   * Measures the metastore database as it is now, so the sizes grow with the catalog.
+   *
+   * @return how long the metastore database took to create and how much memory and disk it takes up.
+   * @throws IllegalStateException If the metastore doesn't use BeeJU's own database.
+   */
+  public MetastoreBackendReport backendReport() {
+    checkBeejuDatabase();
+    long databaseBytes;
+    long pages;
+    try (Connection connection = DriverManager.getConnection(connectionURL,
+        MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_USER_NAME),
+        MetastoreConf.getVar(conf, MetastoreConf.ConfVars.PWD));
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(DATABASE_SIZE_SQL)) {
+      resultSet.next();
+      databaseBytes = resultSet.getLong(1);
+      pages = resultSet.getLong(2);
+    } catch (SQLException e) {
+      throw new RuntimeException("Unable to measure metastore database " + connectionURL, e);
+    }
+    long cachedPages = Math.min(pages, backend.pageCacheSize());
+    long cacheBytes = pages == 0 ? 0 : cachedPages * (databaseBytes / pages);
+    long heapBytes = (backend.isInMemory() ? databaseBytes : 0) + cacheBytes;
+    return new MetastoreBackendReport(backend.name(), startupReport.phase(StartupReport.CREATE_DERBY_DATABASE),
+        databaseBytes, heapBytes, backend.diskBytes(connectionURL));
+  }
+
+  /**
+   * @return how long each phase of starting this instance and the services using it took so far.
+   */
+  public StartupReport startupReport() {
+    return startupReport;
+  }
+
   public Path tempDir() {
     return baseDir;
   }
@@ -289,6 +839,35 @@ public class BeejuCore {
     return warehouseDir;
   }
 
+  /**
+   * @return the pool of clients of this instance's metastore, which is created the first time it is used and closed by
+   *         {@link #cleanUp()}. Clients talk to the Thrift Hive Metastore of this instance while one is running, else
+   *         directly to the backed metastore database. The pool is cleared when the Thrift Hive Metastore starts or
+   *         stops, so clients borrowed before then are closed when they are returned instead of being reused.
+   */
+  public synchronized HiveMetaStoreClientPool clientPool() {
+    if (clientPool == null) {
+      clientPool = new HiveMetaStoreClientPool(this::newClient, clientPoolSize, CLIENT_BORROW_TIMEOUT_SECONDS,
+          TimeUnit.SECONDS);
+    }
+    return clientPool;
+  }
+
+  /**
+   * @param clientPoolSize The maximum number of clients in the {@link #clientPool() client pool}. Defaults to 8.
+   * @throws IllegalArgumentException If the size isn't positive.
+   * @throws IllegalStateException If the client pool has already been created.
+   */
+  public synchronized void setClientPoolSize(int clientPoolSize) {
+    if (clientPoolSize <= 0) {
+      throw new IllegalArgumentException("Client pool size must be >0, not " + clientPoolSize);
+    }
+    if (clientPool != null) {
+      throw new IllegalStateException("Client pool has already been created");
+    }
+    this.clientPoolSize = clientPoolSize;
+  }
+
   /**
    * Creates a new HiveMetaStoreClient that can talk directly to the backed metastore database.
    * <p>
@@ -299,7 +878,12 @@ public class BeejuCore {
    */
   public HiveMetaStoreClient newClient() {
     try {
-      return new HiveMetaStoreClient(conf);
+      long start = StartupReport.start();
+      HiveMetaStoreClient client = new HiveMetaStoreClient(conf);
+      if (!startupReport.contains(StartupReport.FIRST_CLIENT_CONNECT)) {
+        startupReport.record(StartupReport.FIRST_CLIENT_CONNECT, start);
+      }
+      return client;
     } catch (MetaException e) {
       throw new RuntimeException("Unable to create HiveMetaStoreClient", e);
     }
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.util.Locale;
+
+/**
+ * Names of the constants of BeeJU's enums which are chosen with a configuration property, such as a
+ * {@link PersistenceProfile}. A constant is chosen by its name in lower case, or in any other case.
+ */
+public final class ConfigurationNames {
+
+  private ConfigurationNames() {}
+
+  /**
+   * @param constant An enum constant.
+   * @return The name the constant is chosen with.
+   */
+  public static String nameOf(Enum<?> constant) {
+    return constant.name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @param type The enum type.
+   * @param description What the constants are, for the error message, e.g. {@code "persistence profile"}.
+   * @param name The name, in any case.
+   * @return The constant with the given name.
+   * @throws IllegalArgumentException If there is no constant with the given name.
+   */
+  public static <E extends Enum<E>> E forName(Class<E> type, String description, String name) {
+    for (E constant : type.getEnumConstants()) {
+      if (nameOf(constant).equalsIgnoreCase(name)) {
+        return constant;
+      }
+    }
+    throw new IllegalArgumentException("Unknown " + description + " " + name);
+  }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.util.Map;
+
+/**
+ * A named set of configuration properties which {@link BeejuCore} sets when the profile is chosen, see
+ * {@link BeejuCore#BeejuCore(String, Map, Map)}.
+ */
+interface ConfigurationProfile {
+
+  /**
+   * @return The name the profile is chosen with.
+   */
+  String profileName();
+
+  /**
+   * @return The configuration properties the profile sets.
+   */
+  Map<String, String> properties();
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The built in {@link MetastoreBackend backends}, embedded Derby databases held either on the heap or in a directory.
+ * <p>
+ * An in-memory database keeps every page on the heap, so a catalog of many thousands of partitions can take a large
+ * share of a small test JVM's heap. An on-disk database only keeps its page cache on the heap and, when its directory
+ * is a tmpfs, reads and writes pages at memory speed. On-disk databases are booted with
+ * {@code derby.system.durability=test}, which skips the syncs to disk Derby otherwise does on every commit.
+ * </p>
+ * <p>
+ * Derby only reads its durability and page cache size from the System properties, when a database boots, so they are
+ * set for the duration of the boot while holding a lock which every backend boots its databases with.
+ * </p>
+ */
+public final class DerbyMetastoreBackend implements MetastoreBackend {
+
+  private static final Logger log = LoggerFactory.getLogger(DerbyMetastoreBackend.class);
+
+  /** Name of the in-memory backend, which is the default. */
+  public static final String IN_MEMORY = "derby-memory";
+  /** Name of the on-disk backend. */
+  public static final String ON_DISK = "derby-disk";
+  /** Name of the on-disk backend with a {@link #LARGE_PAGE_CACHE_SIZE large page cache}. */
+  public static final String ON_DISK_LARGE_PAGE_CACHE = "derby-disk-large-cache";
+
+  /** Derby's default page cache size, which the other backends use unless it has been set in the System properties. */
+  public static final int DEFAULT_PAGE_CACHE_SIZE = 1000;
+  /** Page cache size of the {@value #ON_DISK_LARGE_PAGE_CACHE} backend. */
+  public static final int LARGE_PAGE_CACHE_SIZE = 8000;
+
+  private static final String DERBY_URL_PREFIX = "jdbc:derby:";
+  private static final String MEMORY_SUBPROTOCOL = "memory:";
+  private static final String DURABILITY = "derby.system.durability";
+  private static final String PAGE_CACHE_SIZE = "derby.storage.pageCacheSize";
+  private static final String SHUTDOWN_SQL_STATE = "08006";
+  private static final String NOT_FOUND_SQL_STATE = "XJ004";
+  private static final Path SHARED_MEMORY = Paths.get("/dev/shm");
+
+  private static final Object BOOT_LOCK = new Object();
+
+  private final String name;
+  private final Path directory;
+  // 0 to leave the page cache size to Derby
+  private final int pageCacheSize;
+
+  private DerbyMetastoreBackend(String name, Path directory, int pageCacheSize) {
+    this.name = name;
+    this.directory = directory;
+    this.pageCacheSize = pageCacheSize;
+  }
+
+  /**
+   * @return a backend which holds databases on the heap.
+   */
+  public static DerbyMetastoreBackend inMemory() {
+    return new DerbyMetastoreBackend(IN_MEMORY, null, 0);
+  }
+
+  /**
+   * @param directory The directory to create databases in, ideally a tmpfs.
+   * @return a backend which holds databases on disk.
+   */
+  public static DerbyMetastoreBackend onDisk(Path directory) {
+    return new DerbyMetastoreBackend(ON_DISK, directory, 0);
+  }
+
+  /**
+   * @param directory The directory to create databases in, ideally a tmpfs.
+   * @return a backend which holds databases on disk and caches up to {@value #LARGE_PAGE_CACHE_SIZE} pages of each on
+   *         the heap.
+   */
+  public static DerbyMetastoreBackend onDiskWithLargePageCache(Path directory) {
+    return new DerbyMetastoreBackend(ON_DISK_LARGE_PAGE_CACHE, directory, LARGE_PAGE_CACHE_SIZE);
+  }
+
+  /**
+   * @param name A built in backend name.
+   * @param directory The directory on-disk backends create databases in, or {@code null} for the default.
+   * @return the backend, or {@code null} if the name isn't one of a built in backend.
+   */
+  static DerbyMetastoreBackend forName(String name, String directory) {
+    switch (name) {
+    case IN_MEMORY:
+      return inMemory();
+    case ON_DISK:
+      return onDisk(directory(directory));
+    case ON_DISK_LARGE_PAGE_CACHE:
+      return onDiskWithLargePageCache(directory(directory));
+    default:
+      return null;
+    }
+  }
+
+  private static Path directory(String directory) {
+    if (directory != null) {
+      return Paths.get(directory);
+    }
+    if (Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY)) {
+      return SHARED_MEMORY;
+    }
+    return Paths.get(System.getProperty("java.io.tmpdir"));
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public String connectionURL(String databaseName) {
+    if (directory == null) {
+      return DERBY_URL_PREFIX + MEMORY_SUBPROTOCOL + databaseName + ";create=true";
+    }
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error creating metastore database folder " + directory, e);
+    }
+    return DERBY_URL_PREFIX + directory.resolve("beeju-" + databaseName).toAbsolutePath() + ";create=true";
+  }
+
+  @Override
+  public Connection connect(String url, String user, String password) throws SQLException {
+    synchronized (BOOT_LOCK) {
+      Map<String, String> bootProperties = new LinkedHashMap<>();
+      if (pageCacheSize > 0) {
+        bootProperties.put(PAGE_CACHE_SIZE, Integer.toString(pageCacheSize));
+      }
+      if (directory != null) {
+        bootProperties.put(DURABILITY, "test");
+      }
+      Map<String, String> previous = setSystemProperties(bootProperties);
+      try {
+        return DriverManager.getConnection(url, user, password);
+      } finally {
+        setSystemProperties(previous);
+      }
+    }
+  }
+
+  private static Map<String, String> setSystemProperties(Map<String, String> properties) {
+    Map<String, String> previous = new LinkedHashMap<>();
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      previous.put(property.getKey(), System.getProperty(property.getKey()));
+      if (property.getValue() == null) {
+        System.clearProperty(property.getKey());
+      } else {
+        System.setProperty(property.getKey(), property.getValue());
+      }
+    }
+    return previous;
+  }
+
+  @Override
+  public void drop(String connectionURL, String user, String password) {
+    String databaseURL = connectionURL.split(";")[0];
+    String attribute = directory == null ? ";drop=true" : ";shutdown=true";
+    try (Connection connection = DriverManager.getConnection(databaseURL + attribute, user, password)) {
+      log.warn("Metastore database {} was not dropped", databaseURL);
+    } catch (SQLException e) {
+      if (!SHUTDOWN_SQL_STATE.equals(e.getSQLState()) && !NOT_FOUND_SQL_STATE.equals(e.getSQLState())) {
+        log.warn("Error dropping metastore database " + databaseURL, e);
+      }
+    }
+    if (directory != null) {
+      FileUtils.deleteQuietly(databaseDirectory(connectionURL));
+    }
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return directory == null;
+  }
+
+  @Override
+  public int pageCacheSize() {
+    return pageCacheSize > 0 ? pageCacheSize : Integer.getInteger(PAGE_CACHE_SIZE, DEFAULT_PAGE_CACHE_SIZE);
+  }
+
+  @Override
+  public long diskBytes(String connectionURL) {
+    if (directory == null) {
+      return 0;
+    }
+    File databaseDirectory = databaseDirectory(connectionURL);
+    return databaseDirectory.exists() ? FileUtils.sizeOfDirectory(databaseDirectory) : 0;
+  }
+
+  private static File databaseDirectory(String connectionURL) {
+    return new File(connectionURL.split(";")[0].substring(DERBY_URL_PREFIX.length()));
+  }
+
+  /**
+   * @param connectionURL A Derby JDBC URL.
+   * @return the name of the folder Derby backs the database up into.
+   */
+  static String backupName(String connectionURL) {
+    String database = connectionURL.split(";")[0].substring(DERBY_URL_PREFIX.length());
+    if (database.startsWith(MEMORY_SUBPROTOCOL)) {
+      database = database.substring(MEMORY_SUBPROTOCOL.length());
+    }
+    return Paths.get(database).getFileName().toString();
+  }
+
+  @Override
+  public String toString() {
+    return "DerbyMetastoreBackend[name=" + name + ", directory=" + directory + ", pageCacheSize=" + pageCacheSize() + "]";
+  }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManagerFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.datanucleus.api.jdo.JDOPersistenceManagerFactory;
+import org.datanucleus.metadata.FileMetaData;
+import org.datanucleus.metadata.PackageMetaData;
+import org.datanucleus.store.schema.SchemaAwareStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Derby backup of an empty Hive Metastore schema which new metastore databases are cloned from.
+ * <p>
+ * Creating the metastore schema through DataNucleus takes several seconds, so it is done once per JVM for each distinct
+ * set of DataNucleus properties and every {@link BeejuCore} then restores its in-memory database from the backup using
+ * Derby's {@code createFrom} attribute.
+ * </p>
+ */
+final class DerbySchemaTemplate {
+
+  private static final Logger log = LoggerFactory.getLogger(DerbySchemaTemplate.class);
+
+  private static final String METADATA_FILE = "package.jdo";
+  private static final String DERBY_MEMORY_PREFIX = "jdbc:derby:memory:";
+
+  private static final ConcurrentMap<String, DerbySchemaTemplate> templates = new ConcurrentHashMap<>();
+
+  private final Path backupDir;
+
+  private DerbySchemaTemplate(Path backupDir) {
+    this.backupDir = backupDir;
+  }
+
+  /**
+   * @param conf Configuration holding the DataNucleus and JDO properties of the metastore.
+   * @return the template for the given configuration, building it if this is the first time it has been requested.
+   */
+  static DerbySchemaTemplate forConf(Configuration conf) {
+    Properties properties = dataSourceProperties(conf);
+    return templates.computeIfAbsent(templateKey(properties), key -> build(properties));
+  }
+
+  /**
+   * Creates a new Derby database which is an exact copy of this template.
+   *
+   * @param backend The backend the database is created with.
+   * @param connectionURL The URL of the database to create.
+   * @param user Database user name.
+   * @param password Database password.
+   */
+  void cloneTo(MetastoreBackend backend, String connectionURL, String user, String password) {
+    String databaseURL = connectionURL.split(";")[0];
+    try (Connection connection = backend
+        .connect(databaseURL + ";createFrom=" + backupDir.toAbsolutePath(), user, password)) {
+      log.debug("Cloned metastore schema template {} into {}", backupDir, databaseURL);
+    } catch (SQLException e) {
+      throw new RuntimeException("Unable to clone metastore schema template into " + databaseURL, e);
+    }
+  }
+
+  /**
+   * Mirrors the way Hive's {@code ObjectStore} extracts the properties used to create its
+   * {@link PersistenceManagerFactory}.
+   */
+  static Properties dataSourceProperties(Configuration conf) {
+    Properties properties = new Properties();
+    for (MetastoreConf.ConfVars var : MetastoreConf.dataNucleusAndJdoConfs) {
+      properties.setProperty(var.getVarname(), MetastoreConf.getAsString(conf, var));
+    }
+    properties.setProperty("datanucleus.autoStartMechanismMode", "ignored");
+    return properties;
+  }
+
+  private static String templateKey(Properties properties) {
+    Map<Object, Object> key = new TreeMap<>(properties);
+    key.remove(MetastoreConf.ConfVars.CONNECT_URL_KEY.getVarname());
+    key.remove(MetastoreConf.ConfVars.PWD.getVarname());
+    key.remove(MetastoreConf.ConfVars.AUTO_CREATE_ALL.getVarname());
+    return key.toString();
+  }
+
+  private static DerbySchemaTemplate build(Properties properties) {
+    String templateName = "beeju-schema-template-" + UUID.randomUUID();
+    String templateURL = DERBY_MEMORY_PREFIX + templateName;
+    Properties templateProperties = new Properties();
+    templateProperties.putAll(properties);
+    templateProperties.setProperty(MetastoreConf.ConfVars.CONNECT_URL_KEY.getVarname(), templateURL + ";create=true");
+    templateProperties.setProperty(MetastoreConf.ConfVars.AUTO_CREATE_ALL.getVarname(), "true");
+
+    log.info("Building metastore schema template {}", templateName);
+    createSchema(templateProperties);
+    createSequenceTable(templateURL, templateProperties);
+    Path backupDir = backup(templateURL, templateProperties).resolve(templateName);
+    drop(templateURL, templateProperties);
+    return new DerbySchemaTemplate(backupDir);
+  }
+
+  private static void createSchema(Properties properties) {
+    PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(properties);
+    try {
+      JDOPersistenceManagerFactory jdoPmf = (JDOPersistenceManagerFactory) pmf;
+      FileMetaData[] fileMetaData = jdoPmf
+          .getNucleusContext()
+          .getMetaDataManager()
+          .loadMetadataFiles(new String[] { METADATA_FILE }, DerbySchemaTemplate.class.getClassLoader());
+      Set<String> classNames = new HashSet<>();
+      for (FileMetaData file : fileMetaData) {
+        for (int i = 0; i < file.getNoOfPackages(); i++) {
+          PackageMetaData packageMetaData = file.getPackage(i);
+          for (int j = 0; j < packageMetaData.getNoOfClasses(); j++) {
+            classNames.add(packageMetaData.getClass(j).getFullClassName());
+          }
+        }
+      }
+      SchemaAwareStoreManager storeManager = (SchemaAwareStoreManager) jdoPmf.getNucleusContext().getStoreManager();
+      storeManager.createSchemaForClasses(classNames, new Properties());
+    } finally {
+      pmf.close();
+    }
+  }
+
+  /**
+   * DataNucleus only creates the table it allocates datastore ids from the first time it needs one, so clones which
+   * share a {@link PersistenceManagerFactory}, which only looks for it once, need it from the start.
+   */
+  private static void createSequenceTable(String templateURL, Properties properties) {
+    try (Connection connection = connect(templateURL, properties);
+        Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE SEQUENCE_TABLE (SEQUENCE_NAME VARCHAR(256) NOT NULL, NEXT_VAL BIGINT NOT NULL, "
+          + "CONSTRAINT SEQUENCE_TABLE_PK PRIMARY KEY (SEQUENCE_NAME))");
+    } catch (SQLException e) {
+      throw new RuntimeException("Unable to create metastore schema template sequence table", e);
+    }
+  }
+
+  private static Path backup(String templateURL, Properties properties) {
+    try {
+      Path backupRoot = Files.createTempDirectory("beeju-schema-template-");
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtils.deleteQuietly(backupRoot.toFile())));
+      try (Connection connection = connect(templateURL, properties);
+          CallableStatement backup = connection.prepareCall("CALL SYSCS_UTIL.SYSCS_BACKUP_DATABASE(?)")) {
+        backup.setString(1, backupRoot.toAbsolutePath().toString());
+        backup.execute();
+      }
+      return backupRoot;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error creating metastore schema template folder", e);
+    } catch (SQLException e) {
+      throw new RuntimeException("Unable to back up metastore schema template", e);
+    }
+  }
+
+  private static void drop(String templateURL, Properties properties) {
+    try (Connection connection = connect(templateURL + ";drop=true", properties)) {
+      // Derby always signals a successful drop with an exception
+    } catch (SQLException e) {
+      log.debug("Dropped metastore schema template {}: {}", templateURL, e.getMessage());
+    }
+  }
+
+  private static Connection connect(String url, Properties properties) throws SQLException {
+    return DriverManager.getConnection(url,
+        properties.getProperty(MetastoreConf.ConfVars.CONNECTION_USER_NAME.getVarname()),
+        properties.getProperty(MetastoreConf.ConfVars.PWD.getVarname()));
+  }
+}
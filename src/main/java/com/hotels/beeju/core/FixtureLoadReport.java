@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.time.Duration;
+
+/**
+ * How many databases, tables and partitions {@link BeejuCore#loadFixture} created and how long it took.
+ */
+public final class FixtureLoadReport {
+
+  private final int databases;
+  private final int tables;
+  private final int partitions;
+  private final Duration duration;
+
+  FixtureLoadReport(int databases, int tables, int partitions, Duration duration) {
+    this.databases = databases;
+    this.tables = tables;
+    this.partitions = partitions;
+    this.duration = duration;
+  }
+
+  public int getDatabases() {
+    return databases;
+  }
+
+  public int getTables() {
+    return tables;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  /**
+   * @return the number of databases, tables and partitions.
+   */
+  public int getObjects() {
+    return databases + tables + partitions;
+  }
+
+  public Duration getDuration() {
+    return duration;
+  }
+
+  /**
+   * @return the number of objects created per second.
+   */
+  public double getObjectsPerSecond() {
+    long nanos = Math.max(duration.toNanos(), 1);
+    return getObjects() * 1_000_000_000.0 / nanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("FixtureLoadReport[databases=%d, tables=%d, partitions=%d, duration=%dms, objectsPerSecond=%.1f]",
+        databases, tables, partitions, duration.toMillis(), getObjectsPerSecond());
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.TException;
+
+/**
+ * Creates databases, tables and partitions in bulk: the tables, each followed by its partitions in batches of
+ * {@code add_partitions} calls, are created in parallel by a bounded number of threads with clients from the
+ * {@link BeejuCore#clientPool() client pool}.
+ */
+final class FixtureLoader {
+
+  private final BeejuCore beejuCore;
+  private final int batchSize;
+  private final int threads;
+
+  FixtureLoader(BeejuCore beejuCore, int batchSize, int threads) {
+    this.beejuCore = beejuCore;
+    this.batchSize = batchSize;
+    this.threads = threads;
+  }
+
+  FixtureLoadReport load(Collection<Database> databases, Collection<Table> tables, Collection<Partition> partitions)
+    throws TException {
+    long start = System.nanoTime();
+    Map<String, TableFixture> tableFixtures = new LinkedHashMap<>();
+    for (Table table : tables) {
+      tableFixture(tableFixtures, table.getDbName(), table.getTableName()).table = table;
+    }
+    for (Partition partition : partitions) {
+      tableFixture(tableFixtures, partition.getDbName(), partition.getTableName()).partitions.add(partition);
+    }
+
+    HiveMetaStoreClientPool pool = beejuCore.clientPool();
+    int poolThreads = Math.min(threads, pool.getMaxSize());
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(poolThreads, tableFixtures.size())),
+        runnable -> {
+          Thread thread = new Thread(runnable, "beeju-fixture-loader");
+          thread.setDaemon(true);
+          return thread;
+        });
+    try {
+      // databases first, the tables need them
+      withClient(pool, client -> {
+        for (Database database : databases) {
+          client.createDatabase(database);
+        }
+      });
+
+      List<Future<?>> futures = new ArrayList<>();
+      for (TableFixture tableFixture : tableFixtures.values()) {
+        futures.add(executor.submit(() -> {
+          withClient(pool, client -> tableFixture.load(client, batchSize));
+          return null;
+        }));
+      }
+      await(futures);
+    } finally {
+      executor.shutdownNow();
+    }
+    return new FixtureLoadReport(databases.size(), tables.size(), partitions.size(),
+        Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  private static TableFixture tableFixture(Map<String, TableFixture> tableFixtures, String databaseName, String tableName) {
+    return tableFixtures.computeIfAbsent((databaseName + "." + tableName).toLowerCase(), name -> new TableFixture());
+  }
+
+  private interface ClientCall {
+    void call(HiveMetaStoreClient client) throws TException;
+  }
+
+  private static void withClient(HiveMetaStoreClientPool pool, ClientCall call) throws TException {
+    HiveMetaStoreClient client = pool.borrow();
+    boolean success = false;
+    try {
+      call.call(client);
+      success = true;
+    } finally {
+      // a failed call may have left the client's connection unusable
+      if (success) {
+        pool.release(client);
+      } else {
+        pool.invalidate(client);
+      }
+    }
+  }
+
+  private static void await(List<Future<?>> futures) throws TException {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted loading fixture", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof TException) {
+        throw (TException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException("Error loading fixture", cause);
+    }
+  }
+
+  /**
+   * A table to create, or {@code null} if it already exists, and its partitions.
+   */
+  private static class TableFixture {
+    private Table table;
+    private final List<Partition> partitions = new ArrayList<>();
+
+    private void load(HiveMetaStoreClient client, int batchSize) throws TException {
+      if (table != null) {
+        client.createTable(table);
+      }
+      for (int from = 0; from < partitions.size(); from += batchSize) {
+        client.add_partitions(partitions.subList(from, Math.min(from + batchSize, partitions.size())));
+      }
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded, thread-safe pool of {@link HiveMetaStoreClient HiveMetaStoreClients} owned by a {@link BeejuCore}.
+ * <p>
+ * Clients are created on demand up to the maximum size, and {@link #borrow()} waits for a client to be returned once
+ * they are all borrowed. Idle clients are reused most recently returned first and are validated with a
+ * {@code getMetaConf} call when borrowed, so that clients whose connection has broken are replaced. When the
+ * {@link ThriftHiveMetaStoreCore Thrift Hive Metastore} of the {@link BeejuCore} starts or stops the pool is
+ * {@link #clear() cleared}, so that new clients connect to the Thrift Hive Metastore while it runs and directly to the
+ * metastore database otherwise. The pool is closed, with its idle clients, by {@link BeejuCore#cleanUp()}; clients
+ * returned after that are closed.
+ * </p>
+ */
+public class HiveMetaStoreClientPool {
+
+  private static final Logger log = LoggerFactory.getLogger(HiveMetaStoreClientPool.class);
+
+  private static final String VALIDATION_KEY = MetastoreConf.ConfVars.TRY_DIRECT_SQL.getVarname();
+
+  private final Supplier<HiveMetaStoreClient> clientFactory;
+  private final int maxSize;
+  private final long borrowTimeoutMillis;
+  private final Semaphore permits;
+  private final Deque<HiveMetaStoreClient> idle = new ArrayDeque<>();
+  // the generation of each borrowed client, clients of an earlier generation are closed when they are returned
+  private final Map<HiveMetaStoreClient, Long> borrowedGenerations = new IdentityHashMap<>();
+  private long generation;
+  private boolean closed;
+
+  private final AtomicLong borrows = new AtomicLong();
+  private final AtomicLong returns = new AtomicLong();
+  private final AtomicLong created = new AtomicLong();
+  private final AtomicLong validationFailures = new AtomicLong();
+  private final AtomicLong borrowWaitNanos = new AtomicLong();
+
+  HiveMetaStoreClientPool(Supplier<HiveMetaStoreClient> clientFactory, int maxSize, long borrowTimeout, TimeUnit unit) {
+    this.clientFactory = clientFactory;
+    this.maxSize = maxSize;
+    borrowTimeoutMillis = unit.toMillis(borrowTimeout);
+    permits = new Semaphore(maxSize, true);
+  }
+
+  /**
+   * Borrows a client, which must be {@link #release(HiveMetaStoreClient) released} or
+   * {@link #invalidate(HiveMetaStoreClient) invalidated} once it isn't used any more.
+   *
+   * @return a valid client.
+   * @throws IllegalStateException If the pool is closed or no client was returned within the borrow timeout.
+   */
+  public HiveMetaStoreClient borrow() {
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new IllegalStateException(
+            "No HiveMetaStoreClient was returned to the pool within " + borrowTimeoutMillis + "ms, all " + maxSize
+                + " clients are borrowed");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted borrowing a HiveMetaStoreClient", e);
+    } finally {
+      borrowWaitNanos.addAndGet(System.nanoTime() - start);
+    }
+    try {
+      HiveMetaStoreClient client = validIdleClient();
+      if (client == null) {
+        long clientGeneration;
+        synchronized (this) {
+          clientGeneration = generation;
+        }
+        client = clientFactory.get();
+        created.incrementAndGet();
+        synchronized (this) {
+          borrowedGenerations.put(client, clientGeneration);
+        }
+      }
+      borrows.incrementAndGet();
+      return client;
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  private HiveMetaStoreClient validIdleClient() {
+    while (true) {
+      HiveMetaStoreClient client;
+      synchronized (this) {
+        if (closed) {
+          throw new IllegalStateException("HiveMetaStoreClient pool is closed");
+        }
+        client = idle.pollFirst();
+        if (client == null) {
+          return null;
+        }
+        borrowedGenerations.put(client, generation);
+      }
+      try {
+        client.getMetaConf(VALIDATION_KEY);
+        return client;
+      } catch (Exception e) {
+        log.debug("Discarding invalid HiveMetaStoreClient", e);
+        validationFailures.incrementAndGet();
+        synchronized (this) {
+          borrowedGenerations.remove(client);
+        }
+        client.close();
+      }
+    }
+  }
+
+  /**
+   * Returns a borrowed client to the pool.
+   *
+   * @param client A client returned by {@link #borrow()}.
+   */
+  public void release(HiveMetaStoreClient client) {
+    returns.incrementAndGet();
+    boolean close;
+    synchronized (this) {
+      Long clientGeneration = borrowedGenerations.remove(client);
+      close = closed || clientGeneration == null || clientGeneration != generation;
+      if (!close) {
+        idle.addFirst(client);
+      }
+    }
+    if (close) {
+      client.close();
+    }
+    permits.release();
+  }
+
+  /**
+   * Closes a borrowed client which mustn't be reused, e.g. because a call failed and left its connection in an
+   * unknown state.
+   *
+   * @param client A client returned by {@link #borrow()}.
+   */
+  public void invalidate(HiveMetaStoreClient client) {
+    returns.incrementAndGet();
+    synchronized (this) {
+      borrowedGenerations.remove(client);
+    }
+    try {
+      client.close();
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Closes the idle clients and the borrowed ones when they are returned, so that the clients borrowed from now on are
+   * created with the current configuration of the {@link BeejuCore}, e.g. after its Thrift Hive Metastore has started.
+   */
+  void clear() {
+    Collection<HiveMetaStoreClient> clients;
+    synchronized (this) {
+      generation++;
+      clients = new ArrayDeque<>(idle);
+      idle.clear();
+    }
+    closeAll(clients);
+  }
+
+  /**
+   * Closes the idle clients. Borrowed clients are closed when they are returned.
+   */
+  void close() {
+    Collection<HiveMetaStoreClient> clients;
+    synchronized (this) {
+      closed = true;
+      clients = new ArrayDeque<>(idle);
+      idle.clear();
+    }
+    closeAll(clients);
+  }
+
+  private static void closeAll(Collection<HiveMetaStoreClient> clients) {
+    for (HiveMetaStoreClient client : clients) {
+      try {
+        client.close();
+      } catch (RuntimeException e) {
+        log.debug("Unable to close HiveMetaStoreClient", e);
+      }
+    }
+  }
+
+  /**
+   * @return the maximum number of clients.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @return the number of clients which are currently borrowed.
+   */
+  public int getBorrowed() {
+    return maxSize - permits.availablePermits();
+  }
+
+  /**
+   * @return the number of clients which are waiting to be borrowed.
+   */
+  public synchronized int getIdle() {
+    return idle.size();
+  }
+
+  /**
+   * @return the number of threads waiting for a client to be returned.
+   */
+  public int getWaiting() {
+    return permits.getQueueLength();
+  }
+
+  /**
+   * @return the number of times a client was borrowed.
+   */
+  public long getBorrowCount() {
+    return borrows.get();
+  }
+
+  /**
+   * @return the number of times a client was released or invalidated.
+   */
+  public long getReturnCount() {
+    return returns.get();
+  }
+
+  /**
+   * @return the number of clients which were created.
+   */
+  public long getCreatedCount() {
+    return created.get();
+  }
+
+  /**
+   * @return the number of idle clients which were discarded because they failed validation.
+   */
+  public long getValidationFailureCount() {
+    return validationFailures.get();
+  }
+
+  /**
+   * @param unit The unit of the result.
+   * @return the total time spent waiting for a client to be returned.
+   */
+  public long getBorrowWait(TimeUnit unit) {
+    return unit.convert(borrowWaitNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "HiveMetaStoreClientPool[maxSize=" + maxSize + ", borrowed=" + getBorrowed() + ", idle=" + getIdle()
+        + ", borrowCount=" + getBorrowCount() + ", returnCount=" + getReturnCount() + ", createdCount="
+        + getCreatedCount() + ", validationFailureCount=" + getValidationFailureCount() + "]";
+  }
+}
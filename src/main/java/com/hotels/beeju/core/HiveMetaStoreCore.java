@@ -15,13 +15,13 @@
  */
 package com.hotels.beeju.core;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Collection;
 
-import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.TException;
 
 public class HiveMetaStoreCore {
 
@@ -32,14 +32,8 @@ public class HiveMetaStoreCore {
     this.beejuCore = beejuCore;
   }
 
-  public void initialise() throws InterruptedException, ExecutionException {
-    HiveConf hiveConf = new HiveConf(beejuCore.conf(), HiveMetaStoreClient.class);
-    ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
-    try {
-      client = singleThreadExecutor.submit(new CallableHiveClient(hiveConf)).get();
-    } finally {
-      singleThreadExecutor.shutdown();
-    }
+  public void initialise() {
+    client = beejuCore.newClient();
   }
 
   public void shutdown() {
@@ -48,6 +42,13 @@ public class HiveMetaStoreCore {
     }
   }
 
+  /**
+   * @return {@link BeejuCore#startupReport()}.
+   */
+  public StartupReport getStartupReport() {
+    return beejuCore.startupReport();
+  }
+
   /**
    * @return the {@link HiveMetaStoreClient} backed by an HSQLDB in-memory database.
    */
@@ -55,17 +56,20 @@ public class HiveMetaStoreCore {
     return client;
   }
 
-  public static class CallableHiveClient implements Callable<HiveMetaStoreClient> {
-
-    private final HiveConf hiveConf;
-
-    CallableHiveClient(HiveConf hiveConf) {
-      this.hiveConf = hiveConf;
-    }
-
-    @Override
-    public HiveMetaStoreClient call() throws Exception {
-      return new HiveMetaStoreClient(hiveConf);
-    }
+  /**
+   * See {@link BeejuCore#loadFixture(Collection, Collection, Collection)}.
+   *
+   * @param databases Databases to create.
+   * @param tables Tables to create.
+   * @param partitions Partitions to add.
+   * @return how many objects were created and how long it took.
+   * @throws TException If an error occurs creating an object.
+   */
+  public FixtureLoadReport loadFixture(
+      Collection<Database> databases,
+      Collection<Table> tables,
+      Collection<Partition> partitions)
+    throws TException {
+    return beejuCore.loadFixture(databases, tables, partitions);
   }
 }
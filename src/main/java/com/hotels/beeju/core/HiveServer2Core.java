@@ -16,7 +16,7 @@
 package com.hotels.beeju.core;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hive.service.Service;
@@ -30,48 +30,120 @@ public class HiveServer2Core {
   private String jdbcConnectionUrl;
   private HiveServer2 hiveServer2;
   private int port;
+  private long startupTimeout = 1;
+  private TimeUnit startupTimeoutUnit = TimeUnit.MINUTES;
+  private boolean lazyStart;
+  private boolean startRequested;
+  private boolean started;
 
   public HiveServer2Core(BeejuCore beejuCore) {
     this.beejuCore = beejuCore;
   }
 
-  public void initialise() throws InterruptedException {
+  /**
+   * Starts HiveServer2, or when {@link #setLazyStart(boolean) lazy start} is enabled arranges for it to be started the
+   * first time its JDBC connection URL or server is requested.
+   *
+   * @throws InterruptedException If interrupted while waiting for HiveServer2 to start.
+   */
+  public synchronized void initialise() throws InterruptedException {
+    startRequested = true;
+    if (!lazyStart) {
+      start();
+    }
+  }
+
+  private synchronized void ensureStarted() {
+    if (!startRequested || started) {
+      return;
+    }
+    try {
+      start();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while starting HiveServer2", e);
+    }
+  }
+
+  private void start() throws InterruptedException {
     beejuCore.setHiveVar(HiveConf.ConfVars.HIVE_AUTHORIZATION_MANAGER,
         RelaxedSQLStdHiveAuthorizerFactory.class.getName());
+    long start = StartupReport.start();
     hiveServer2 = new HiveServer2();
     hiveServer2.init(beejuCore.conf());
+    beejuCore.startupReport().record(StartupReport.HIVESERVER2_INIT, start);
+
+    start = StartupReport.start();
     hiveServer2.start();
     waitForHiveServer2StartUp();
+    beejuCore.startupReport().record(StartupReport.HIVESERVER2_START, start);
 
     jdbcConnectionUrl = "jdbc:hive2://localhost:" + port + "/" + beejuCore.databaseName();
+    started = true;
   }
 
-  public void shutdown() {
+  /**
+   * Stops HiveServer2. A lazily started server which was never started is left as it is.
+   */
+  public synchronized void shutdown() {
+    startRequested = false;
+    started = false;
     if (hiveServer2 != null) {
       hiveServer2.stop();
     }
   }
 
   private void waitForHiveServer2StartUp() throws InterruptedException {
-    int retries = 0;
-    int maxRetries = 5;
-    while (hiveServer2.getServiceState() != Service.STATE.STARTED && retries < maxRetries) {
-      Thread.sleep(1000);
-      retries++;
-    }
-    if (retries >= maxRetries) {
-      throw new RuntimeException("HiveServer2 did not start in a reasonable time");
+    if (hiveServer2.getServiceState() != Service.STATE.STARTED) {
+      throw new RuntimeException("HiveServer2 failed to start, its state is " + hiveServer2.getServiceState());
     }
+    new ReadinessProbe("HiveServer2", ReadinessProbe.isListening(port), startupTimeout, startupTimeoutUnit).await(null);
   }
 
+  /**
+   * Allocates the port of HiveServer2 from {@link PortAllocator#shared()}, as HiveServer2 binds its port itself and
+   * doesn't report the port it got when asked to bind port 0.
+   *
+   * @throws IOException If no port can be allocated.
+   */
   public void startServerSocket() throws IOException {
-    try (ServerSocket socket = new ServerSocket(0)) {
-      port = socket.getLocalPort();
-    }
+    port = PortAllocator.shared().allocate();
     beejuCore.setHiveIntVar(HiveConf.ConfVars.HIVE_SERVER2_THRIFT_PORT, port);
   }
 
+  /**
+   * @param timeout How long to wait for HiveServer2 to accept connections before failing, one minute by default.
+   * @param unit The unit of the timeout.
+   */
+  public void setStartupTimeout(long timeout, TimeUnit unit) {
+    if (timeout <= 0) {
+      throw new IllegalArgumentException("Startup timeout must be >0, not " + timeout);
+    }
+    startupTimeout = timeout;
+    startupTimeoutUnit = unit;
+  }
+
+  /**
+   * @param lazyStart {@code true} to only start HiveServer2 the first time {@link #getJdbcConnectionUrl()} or
+   *          {@link #getHiveServer2()} is called after {@link #initialise()}, so that tests which don't connect to it
+   *          don't pay for its start up. Disabled by default.
+   */
+  public synchronized void setLazyStart(boolean lazyStart) {
+    this.lazyStart = lazyStart;
+  }
+
+  /**
+   * @return {@code true} if HiveServer2 has been started.
+   */
+  public synchronized boolean isStarted() {
+    return started;
+  }
+
+  /**
+   * @return the JDBC connection URL of HiveServer2, starting it first if it is started lazily.
+   */
   public String getJdbcConnectionUrl() {
+    ensureStarted();
     return jdbcConnectionUrl;
   }
 
@@ -79,10 +151,28 @@ public class HiveServer2Core {
     return port;
   }
 
+  /**
+   * @return HiveServer2, starting it first if it is started lazily.
+   */
   public HiveServer2 getHiveServer2() {
+    ensureStarted();
     return hiveServer2;
   }
 
+  /**
+   * @return {@link BeejuCore#queryProfile()}.
+   */
+  public QueryProfile getQueryProfile() {
+    return beejuCore.queryProfile();
+  }
+
+  /**
+   * @return {@link BeejuCore#startupReport()}.
+   */
+  public StartupReport getStartupReport() {
+    return beejuCore.startupReport();
+  }
+
   public BeejuCore getCore() {
     return beejuCore;
   }
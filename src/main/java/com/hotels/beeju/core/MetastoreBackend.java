@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Where and how the Derby database behind a {@link BeejuCore} metastore is stored.
+ * <p>
+ * The backend is chosen with the {@value #BACKEND} configuration property, set in either the pre or the post
+ * configuration, which is the name of one of the {@link DerbyMetastoreBackend built in backends} or the name of a class
+ * implementing this interface with a public no argument constructor. BeeJU clones the metastore schema into,
+ * {@link BeejuCore#reset() resets} and {@link BeejuCore#snapshot(String) snapshots} the database with Derby specific
+ * SQL, so every backend must be an embedded Derby database.
+ * </p>
+ */
+public interface MetastoreBackend {
+
+  /** Configuration property naming the backend. Defaults to {@value DerbyMetastoreBackend#IN_MEMORY}. */
+  String BACKEND = "beeju.metastore.backend";
+
+  /**
+   * Configuration property holding the directory the on-disk backends create their databases in. Defaults to
+   * {@code /dev/shm} if it is a writable directory, which is a tmpfs on most Linux systems, else to the temporary
+   * directory.
+   */
+  String DIRECTORY = "beeju.metastore.backend.dir";
+
+  /**
+   * @return the backend name, as reported by {@link MetastoreBackendReport#getBackend()}.
+   */
+  String name();
+
+  /**
+   * @param databaseName A name which is unique in the JVM.
+   * @return the JDBC URL of a new database, with the {@code create=true} attribute.
+   */
+  String connectionURL(String databaseName);
+
+  /**
+   * Opens a connection which may boot the database, applying any boot time settings of this backend. All connections
+   * which create a database, including from a backup with the {@code createFrom} attribute, are opened with this
+   * method.
+   *
+   * @param url JDBC URL.
+   * @param user Database user name.
+   * @param password Database password.
+   * @return the connection.
+   * @throws SQLException If the connection can't be opened.
+   */
+  Connection connect(String url, String user, String password) throws SQLException;
+
+  /**
+   * Removes a database and everything it stored. The database may not exist.
+   *
+   * @param connectionURL JDBC URL returned by {@link #connectionURL(String)}.
+   * @param user Database user name.
+   * @param password Database password.
+   */
+  void drop(String connectionURL, String user, String password);
+
+  /**
+   * @return {@code true} if the database is held on the heap.
+   */
+  boolean isInMemory();
+
+  /**
+   * @return the number of pages Derby caches on the heap for each database.
+   */
+  int pageCacheSize();
+
+  /**
+   * @param connectionURL JDBC URL returned by {@link #connectionURL(String)}.
+   * @return the bytes the database takes up on disk.
+   */
+  long diskBytes(String connectionURL);
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.time.Duration;
+
+/**
+ * How long the metastore database of a {@link BeejuCore} took to create and how much memory and disk it takes up.
+ */
+public final class MetastoreBackendReport {
+
+  private final String backend;
+  private final Duration creationTime;
+  private final long databaseBytes;
+  private final long heapBytes;
+  private final long diskBytes;
+
+  MetastoreBackendReport(String backend, Duration creationTime, long databaseBytes, long heapBytes, long diskBytes) {
+    this.backend = backend;
+    this.creationTime = creationTime;
+    this.databaseBytes = databaseBytes;
+    this.heapBytes = heapBytes;
+    this.diskBytes = diskBytes;
+  }
+
+  /**
+   * @return the {@link MetastoreBackend#name() name} of the backend.
+   */
+  public String getBackend() {
+    return backend;
+  }
+
+  /**
+   * @return how long the database took to create from the schema template, or {@code null} if it was created by
+   *         DataNucleus on first use instead.
+   */
+  public Duration getCreationTime() {
+    return creationTime;
+  }
+
+  /**
+   * @return the size of the pages allocated to the database's tables and indexes.
+   */
+  public long getDatabaseBytes() {
+    return databaseBytes;
+  }
+
+  /**
+   * @return an upper bound of the heap the database takes up: its pages, if it is held in memory, and its page cache.
+   */
+  public long getHeapBytes() {
+    return heapBytes;
+  }
+
+  /**
+   * @return the bytes the database takes up on disk, 0 if it is held in memory.
+   */
+  public long getDiskBytes() {
+    return diskBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "MetastoreBackendReport[backend=" + backend + ", creationTime="
+        + (creationTime == null ? null : creationTime.toMillis() + "ms") + ", databaseBytes=" + databaseBytes
+        + ", heapBytes=" + heapBytes + ", diskBytes=" + diskBytes + "]";
+  }
+}
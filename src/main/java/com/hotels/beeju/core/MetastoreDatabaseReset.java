@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Empties a Derby Hive Metastore database with bulk SQL so that it can be reused by another test.
+ * <p>
+ * Rows the metastore creates on start up (catalogs, roles, global privileges, the schema version) and the counters
+ * DataNucleus and the metastore allocate identifiers from are kept. Databases other than the retained ones are
+ * dropped and every other table is emptied, children before parents so that no foreign key is violated.
+ * </p>
+ */
+final class MetastoreDatabaseReset {
+
+  private static final Set<String> RETAINED_TABLES = Collections
+      .unmodifiableSet(new HashSet<>(Arrays.asList("CTLGS", "DBS", "DATABASE_PARAMS", "DB_PRIVS", "ROLES",
+          "ROLE_MAP", "GLOBAL_PRIVS", "VERSION", "METASTORE_DB_PROPERTIES", "SEQUENCE_TABLE",
+          "NOTIFICATION_SEQUENCE", "NEXT_TXN_ID", "NEXT_LOCK_ID", "NEXT_COMPACTION_QUEUE_ID")));
+
+  // nullable foreign keys { child table, column, parent table } which are cleared first to break reference cycles
+  private static final String[][] NULLABLE_REFERENCES = { { "WM_RESOURCEPLAN", "DEFAULT_POOL_ID", "WM_POOL" } };
+
+  private static final String TABLES_SQL = "SELECT t.TABLENAME FROM SYS.SYSTABLES t"
+      + " JOIN SYS.SYSSCHEMAS s ON t.SCHEMAID = s.SCHEMAID"
+      + " WHERE s.SCHEMANAME = CURRENT SCHEMA AND t.TABLETYPE = 'T'";
+
+  private static final String FOREIGN_KEYS_SQL = "SELECT child.TABLENAME, parent.TABLENAME FROM SYS.SYSFOREIGNKEYS fk"
+      + " JOIN SYS.SYSCONSTRAINTS childKey ON fk.CONSTRAINTID = childKey.CONSTRAINTID"
+      + " JOIN SYS.SYSTABLES child ON childKey.TABLEID = child.TABLEID"
+      + " JOIN SYS.SYSCONSTRAINTS parentKey ON fk.KEYCONSTRAINTID = parentKey.CONSTRAINTID"
+      + " JOIN SYS.SYSTABLES parent ON parentKey.TABLEID = parent.TABLEID"
+      + " JOIN SYS.SYSSCHEMAS s ON child.SCHEMAID = s.SCHEMAID"
+      + " WHERE s.SCHEMANAME = CURRENT SCHEMA";
+
+  private static final String DROPPED_DATABASES = "SELECT DB_ID FROM DBS WHERE CTLG_NAME <> ? OR NAME NOT IN (?, ?)";
+
+  private MetastoreDatabaseReset() {}
+
+  /**
+   * @param connection Connection to the metastore database, as the user owning the metastore schema.
+   * @param catalogName Name of the catalog holding the retained databases.
+   * @param defaultDatabaseName Name of the default database.
+   * @param databaseName Name of the pre-created database.
+   * @throws SQLException If the metastore database can't be emptied, in which case nothing is deleted.
+   */
+  static void reset(Connection connection, String catalogName, String defaultDatabaseName, String databaseName)
+    throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      try (Statement statement = connection.createStatement()) {
+        List<String> deletionOrder = deletionOrder(connection);
+        for (String[] reference : NULLABLE_REFERENCES) {
+          if (deletionOrder.contains(reference[0])) {
+            statement.executeUpdate("UPDATE \"" + reference[0] + "\" SET \"" + reference[1] + "\" = NULL");
+          }
+        }
+        for (String table : deletionOrder) {
+          statement.executeUpdate("DELETE FROM \"" + table + "\"");
+        }
+      }
+      deleteDatabases(connection, catalogName, defaultDatabaseName, databaseName);
+      connection.commit();
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private static List<String> deletionOrder(Connection connection) throws SQLException {
+    Set<String> remaining = new TreeSet<>();
+    Map<String, Set<String>> referencedBy = new HashMap<>();
+    try (Statement statement = connection.createStatement()) {
+      try (ResultSet tables = statement.executeQuery(TABLES_SQL)) {
+        while (tables.next()) {
+          if (!RETAINED_TABLES.contains(tables.getString(1))) {
+            remaining.add(tables.getString(1));
+          }
+        }
+      }
+      try (ResultSet foreignKeys = statement.executeQuery(FOREIGN_KEYS_SQL)) {
+        while (foreignKeys.next()) {
+          String child = foreignKeys.getString(1);
+          String parent = foreignKeys.getString(2);
+          if (!child.equals(parent) && !isNullableReference(child, parent)) {
+            referencedBy.computeIfAbsent(parent, key -> new HashSet<>()).add(child);
+          }
+        }
+      }
+    }
+
+    List<String> order = new ArrayList<>(remaining.size());
+    while (!remaining.isEmpty()) {
+      boolean progress = false;
+      for (Iterator<String> iterator = remaining.iterator(); iterator.hasNext();) {
+        String table = iterator.next();
+        if (Collections.disjoint(referencedBy.getOrDefault(table, Collections.emptySet()), remaining)) {
+          order.add(table);
+          iterator.remove();
+          progress = true;
+        }
+      }
+      if (!progress) {
+        throw new IllegalStateException("Circular foreign keys between metastore tables " + remaining);
+      }
+    }
+    return order;
+  }
+
+  private static boolean isNullableReference(String child, String parent) {
+    for (String[] reference : NULLABLE_REFERENCES) {
+      if (reference[0].equals(child) && reference[2].equals(parent)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void deleteDatabases(
+      Connection connection,
+      String catalogName,
+      String defaultDatabaseName,
+      String databaseName)
+    throws SQLException {
+    String[] statements = {
+        "DELETE FROM DATABASE_PARAMS WHERE DB_ID IN (" + DROPPED_DATABASES + ")",
+        "DELETE FROM DB_PRIVS WHERE DB_ID IN (" + DROPPED_DATABASES + ")",
+        "DELETE FROM DBS WHERE DB_ID IN (" + DROPPED_DATABASES + ")" };
+    for (String sql : statements) {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        // the metastore stores catalog and database names in lower case
+        statement.setString(1, catalogName.toLowerCase(Locale.ROOT));
+        statement.setString(2, defaultDatabaseName.toLowerCase(Locale.ROOT));
+        statement.setString(3, databaseName.toLowerCase(Locale.ROOT));
+        statement.executeUpdate();
+      }
+    }
+  }
+}
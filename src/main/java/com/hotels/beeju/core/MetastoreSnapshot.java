@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A named copy of a Hive Metastore Derby database and its warehouse directory which any {@link BeejuCore} in the JVM
+ * can be restored from.
+ * <p>
+ * The database is copied with Derby's online backup and restored with its {@code createFrom} attribute, the same way
+ * {@link DerbySchemaTemplate} clones the empty schema, so the cost of either doesn't depend on how the catalog was
+ * built. Snapshots are kept in a temporary directory which is deleted when the JVM exits.
+ * </p>
+ */
+final class MetastoreSnapshot {
+
+  private static final Logger log = LoggerFactory.getLogger(MetastoreSnapshot.class);
+
+  private static final String WAREHOUSE_FOLDER = "warehouse";
+
+  // { table, column } of the locations which point into the warehouse directory
+  private static final String[][] LOCATION_COLUMNS = { { "CTLGS", "LOCATION_URI" }, { "DBS", "DB_LOCATION_URI" },
+      { "SDS", "LOCATION" }, { "SKEWED_COL_VALUE_LOC_MAP", "LOCATION" } };
+
+  private static final ConcurrentMap<String, MetastoreSnapshot> snapshots = new ConcurrentHashMap<>();
+  private static Path snapshotRoot;
+
+  private final String name;
+  private final Path folder;
+  private final Path backupDir;
+  private final String warehouseLocation;
+
+  private MetastoreSnapshot(String name, Path folder, Path backupDir, String warehouseLocation) {
+    this.name = name;
+    this.folder = folder;
+    this.backupDir = backupDir;
+    this.warehouseLocation = warehouseLocation;
+  }
+
+  /**
+   * Backs up a database and copies a warehouse directory, replacing any snapshot with the same name.
+   *
+   * @param name Snapshot name.
+   * @param connectionURL The URL of the database.
+   * @param user Database user name.
+   * @param password Database password.
+   * @param warehouseDir The warehouse directory the database's locations point into.
+   * @return the snapshot.
+   */
+  static MetastoreSnapshot take(String name, String connectionURL, String user, String password, Path warehouseDir) {
+    String databaseURL = connectionURL.split(";")[0];
+    Path folder = newFolder(name);
+    try {
+      try (Connection connection = DriverManager.getConnection(databaseURL, user, password);
+          CallableStatement backup = connection.prepareCall("CALL SYSCS_UTIL.SYSCS_BACKUP_DATABASE(?)")) {
+        backup.setString(1, folder.toAbsolutePath().toString());
+        backup.execute();
+      }
+      FileUtils.copyDirectory(warehouseDir.toFile(), folder.resolve(WAREHOUSE_FOLDER).toFile());
+    } catch (SQLException e) {
+      FileUtils.deleteQuietly(folder.toFile());
+      throw new RuntimeException("Unable to back up metastore database " + databaseURL, e);
+    } catch (IOException e) {
+      FileUtils.deleteQuietly(folder.toFile());
+      throw new UncheckedIOException("Error copying warehouse directory " + warehouseDir, e);
+    }
+    Path backupDir = folder.resolve(DerbyMetastoreBackend.backupName(databaseURL));
+    MetastoreSnapshot snapshot = new MetastoreSnapshot(name, folder, backupDir,
+        warehouseDir.toAbsolutePath().toString());
+    MetastoreSnapshot replaced = snapshots.put(name, snapshot);
+    if (replaced != null) {
+      replaced.delete();
+    }
+    log.debug("Took metastore snapshot '{}' of {} into {}", name, databaseURL, folder);
+    return snapshot;
+  }
+
+  /**
+   * @param name Snapshot name.
+   * @return the snapshot with the given name, or {@code null} if there isn't one.
+   */
+  static MetastoreSnapshot get(String name) {
+    return snapshots.get(name);
+  }
+
+  /**
+   * Deletes the snapshot with the given name.
+   *
+   * @param name Snapshot name.
+   * @return {@code true} if there was a snapshot with the given name.
+   */
+  static boolean remove(String name) {
+    MetastoreSnapshot snapshot = snapshots.remove(name);
+    if (snapshot == null) {
+      return false;
+    }
+    snapshot.delete();
+    return true;
+  }
+
+  /**
+   * Creates a new Derby database which is a copy of this snapshot and replaces the contents of a warehouse directory
+   * with the snapshot's. Locations which pointed into the snapshot's warehouse directory are moved to the given one.
+   *
+   * @param backend The backend the database is created with.
+   * @param connectionURL The URL of the database to create, which mustn't exist.
+   * @param user Database user name.
+   * @param password Database password.
+   * @param warehouseDir The warehouse directory to restore.
+   */
+  void restoreTo(MetastoreBackend backend, String connectionURL, String user, String password, Path warehouseDir) {
+    String databaseURL = connectionURL.split(";")[0];
+    String targetLocation = warehouseDir.toAbsolutePath().toString();
+    try (Connection connection = backend
+        .connect(databaseURL + ";createFrom=" + backupDir.toAbsolutePath(), user, password)) {
+      if (!targetLocation.equals(warehouseLocation)) {
+        relocate(connection, warehouseLocation, targetLocation);
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException("Unable to restore metastore snapshot '" + name + "' into " + databaseURL, e);
+    }
+    try {
+      FileUtils.cleanDirectory(warehouseDir.toFile());
+      FileUtils.copyDirectory(folder.resolve(WAREHOUSE_FOLDER).toFile(), warehouseDir.toFile());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error restoring warehouse directory " + warehouseDir, e);
+    }
+    log.debug("Restored metastore snapshot '{}' into {}", name, databaseURL);
+  }
+
+  private static void relocate(Connection connection, String from, String to) throws SQLException {
+    for (String[] column : LOCATION_COLUMNS) {
+      String table = column[0];
+      String location = column[1];
+      // Derby has no REPLACE function, so the location is spliced around the first occurrence of the old directory
+      String find = "LOCATE(CAST(? AS VARCHAR(4000)), " + location + ")";
+      String sql = "UPDATE " + table + " SET " + location + " = SUBSTR(" + location + ", 1, " + find
+          + " - 1) || CAST(? AS VARCHAR(4000)) || SUBSTR(" + location + ", " + find + " + ?) WHERE " + find + " > 0";
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        statement.setString(1, from);
+        statement.setString(2, to);
+        statement.setString(3, from);
+        statement.setInt(4, from.length());
+        statement.setString(5, from);
+        statement.executeUpdate();
+      }
+    }
+  }
+
+  private void delete() {
+    FileUtils.deleteQuietly(folder.toFile());
+  }
+
+  private static synchronized Path newFolder(String name) {
+    try {
+      if (snapshotRoot == null) {
+        Path root = Files.createTempDirectory("beeju-snapshots-");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtils.deleteQuietly(root.toFile())));
+        snapshotRoot = root;
+      }
+      return Files.createTempDirectory(snapshotRoot, "snapshot-");
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error creating folder for metastore snapshot '" + name + "'", e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+
+/**
+ * Named sets of configuration properties which tune how a {@link BeejuCore} metastore reads and writes its database,
+ * chosen with the {@value #PROFILE} configuration property.
+ */
+public enum PersistenceProfile implements ConfigurationProfile {
+
+  /** Hive's own defaults, which are tuned for a remote RDBMS. */
+  DEFAULT,
+
+  /**
+   * Settings for an embedded Derby database. DataNucleus keeps compiled queries in strong caches and the HiveServer2
+   * sessions of the core create their metastore clients without Hive's retrying wrapper. Direct SQL, the aggregate
+   * stats cache and the absence of metastore event listeners, init hooks and DML events are Hive's defaults, which the
+   * profile pins so that a {@code hive-site.xml} on the test classpath can't change them.
+   */
+  FAST {
+    @Override
+    public Map<String, String> properties() {
+      return new ProfileProperties()
+          // compiled JDOQL and its generated SQL are otherwise held softly and recompiled after each GC
+          .set(QUERY_COMPILATION_CACHED, "true")
+          .set(QUERY_COMPILATION_CACHE_TYPE, "strong")
+          .set(QUERY_COMPILATION_DATASTORE_CACHE_TYPE, "strong")
+          // only read by Hive.createMetaStoreClient, so it doesn't change how the metastore uses its database
+          .set(HiveConf.ConfVars.METASTORE_FASTPATH, "true")
+          // Hive's defaults
+          .set(MetastoreConf.ConfVars.TRY_DIRECT_SQL, "true")
+          .set(MetastoreConf.ConfVars.TRY_DIRECT_SQL_DDL, "true")
+          .set(MetastoreConf.ConfVars.AGGREGATE_STATS_CACHE_ENABLED, "true")
+          .set(MetastoreConf.ConfVars.EVENT_LISTENERS, "")
+          .set(MetastoreConf.ConfVars.TRANSACTIONAL_EVENT_LISTENERS, "")
+          .set(MetastoreConf.ConfVars.PRE_EVENT_LISTENERS, "")
+          .set(MetastoreConf.ConfVars.END_FUNCTION_LISTENERS, "")
+          .set(MetastoreConf.ConfVars.INIT_HOOKS, "")
+          .set(HiveConf.ConfVars.FIRE_EVENTS_FOR_DML, "false")
+          .build();
+    }
+  };
+
+  /** Configuration property naming the profile. Defaults to {@code default}. */
+  public static final String PROFILE = "beeju.metastore.profile";
+
+  private static final String QUERY_COMPILATION_CACHED = "datanucleus.query.compilation.cached";
+  private static final String QUERY_COMPILATION_CACHE_TYPE = "datanucleus.cache.queryCompilation.type";
+  private static final String QUERY_COMPILATION_DATASTORE_CACHE_TYPE =
+      "datanucleus.cache.queryCompilationDatastore.type";
+
+  /**
+   * @param name Profile name, in any case.
+   * @return The profile with the given name.
+   * @throws IllegalArgumentException If there is no profile with the given name.
+   */
+  public static PersistenceProfile forName(String name) {
+    return ConfigurationNames.forName(PersistenceProfile.class, "persistence profile", name);
+  }
+
+  @Override
+  public String profileName() {
+    return ConfigurationNames.nameOf(this);
+  }
+
+  @Override
+  public Map<String, String> properties() {
+    return Collections.emptyMap();
+  }
+}
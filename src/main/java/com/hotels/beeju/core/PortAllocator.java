@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allocates ports for services which bind their port themselves and can't be asked to bind port 0 and report the port
+ * they got, such as HiveServer2 and its web UI.
+ * <p>
+ * Picking a free port with {@code new ServerSocket(0)} and closing it again leaves a window in which another JVM can
+ * pick the same port, which happens regularly when many surefire forks start services at the same time. Instead, each
+ * JVM claims blocks of ports by holding a lock on a file per block in a directory shared by all the JVMs on the host,
+ * and only hands out ports from its own blocks. The locks are released by the operating system when the JVM exits.
+ * Ports are handed out round robin and are checked to be free first, so a port is only handed out again once all the
+ * other ports in the claimed blocks have been. Another block is claimed when none of the claimed ports are free.
+ * </p>
+ */
+final class PortAllocator {
+
+  private static final Logger log = LoggerFactory.getLogger(PortAllocator.class);
+
+  // below the default Linux ephemeral port range so that ports aren't taken by outgoing connections
+  private static final int FIRST_PORT = 20000;
+  private static final int LAST_PORT = 32000;
+  private static final int BLOCK_SIZE = 100;
+
+  private static final PortAllocator SHARED = new PortAllocator(
+      Paths.get(System.getProperty("java.io.tmpdir"), "beeju-ports"), FIRST_PORT, LAST_PORT, BLOCK_SIZE);
+
+  private final Path lockDirectory;
+  private final int firstPort;
+  private final int blockSize;
+  private final int blocks;
+  private final List<Integer> ports = new ArrayList<>();
+  // the channels are kept open so that the blocks stay locked until the JVM exits
+  private final List<FileChannel> locks = new ArrayList<>();
+  private int next;
+
+  PortAllocator(Path lockDirectory, int firstPort, int lastPort, int blockSize) {
+    this.lockDirectory = lockDirectory;
+    this.firstPort = firstPort;
+    this.blockSize = blockSize;
+    blocks = (lastPort - firstPort) / blockSize;
+  }
+
+  /**
+   * @return the allocator shared by the whole JVM.
+   */
+  static PortAllocator shared() {
+    return SHARED;
+  }
+
+  /**
+   * @return a free port which no other JVM using the same lock directory will hand out, or an ephemeral port if no
+   *         block of ports could be claimed.
+   * @throws IOException If no block could be claimed and no ephemeral port is available.
+   */
+  synchronized int allocate() throws IOException {
+    int claimed = ports.size();
+    for (int i = 0; i < claimed; i++) {
+      int port = ports.get(next);
+      next = (next + 1) % claimed;
+      if (isFree(port)) {
+        return port;
+      }
+    }
+    while (claimBlock()) {
+      for (next = claimed; next < ports.size(); next++) {
+        int port = ports.get(next);
+        if (isFree(port)) {
+          next = (next + 1) % ports.size();
+          return port;
+        }
+      }
+      claimed = ports.size();
+      next = 0;
+    }
+    log.warn("Unable to claim a block of ports in {}, falling back to an ephemeral port", lockDirectory);
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private boolean claimBlock() {
+    try {
+      Files.createDirectories(lockDirectory);
+    } catch (IOException e) {
+      log.debug("Unable to create port lock directory {}", lockDirectory, e);
+      return false;
+    }
+    int offset = ThreadLocalRandom.current().nextInt(blocks);
+    for (int i = 0; i < blocks; i++) {
+      int blockStart = firstPort + ((offset + i) % blocks) * blockSize;
+      if (ports.contains(blockStart)) {
+        continue;
+      }
+      if (lock(lockDirectory.resolve("ports-" + blockStart + ".lock"))) {
+        log.debug("Claimed ports {} to {}", blockStart, blockStart + blockSize - 1);
+        for (int port = blockStart; port < blockStart + blockSize; port++) {
+          ports.add(port);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean lock(Path lockFile) {
+    FileChannel channel = null;
+    try {
+      channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      FileLock lock = channel.tryLock();
+      if (lock != null) {
+        locks.add(channel);
+        return true;
+      }
+    } catch (IOException | OverlappingFileLockException e) {
+      // held by another allocator in this JVM, or not lockable
+      log.debug("Unable to lock {}", lockFile, e);
+    }
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.debug("Unable to close {}", lockFile, e);
+      }
+    }
+    return false;
+  }
+
+  private static boolean isFree(int port) {
+    try (ServerSocket socket = new ServerSocket()) {
+      socket.bind(new InetSocketAddress(port));
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+}
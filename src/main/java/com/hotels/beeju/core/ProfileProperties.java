@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+
+/**
+ * Builds the properties of a {@link ConfigurationProfile}.
+ */
+final class ProfileProperties {
+
+  private final Map<String, String> properties = new LinkedHashMap<>();
+
+  /**
+   * Sets a metastore property by both its metastore and its Hive name, as either may be read.
+   */
+  ProfileProperties set(MetastoreConf.ConfVars key, String value) {
+    properties.put(key.getVarname(), value);
+    properties.put(key.getHiveName(), value);
+    return this;
+  }
+
+  ProfileProperties set(HiveConf.ConfVars key, String value) {
+    properties.put(key.varname, value);
+    return this;
+  }
+
+  ProfileProperties set(String key, String value) {
+    properties.put(key, value);
+    return this;
+  }
+
+  Map<String, String> build() {
+    return Collections.unmodifiableMap(properties);
+  }
+}
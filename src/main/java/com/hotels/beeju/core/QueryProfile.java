@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+
+/**
+ * Named sets of configuration properties which tune how the queries submitted to a {@link HiveServer2Core} are
+ * planned and run, chosen with the {@value #PROFILE} configuration property.
+ */
+public enum QueryProfile implements ConfigurationProfile {
+
+  /** Hive's own defaults, which are tuned for a cluster and large data. */
+  DEFAULT,
+
+  /**
+   * Settings for a few rows of test data, which only set properties that differ from Hive's defaults: queries are
+   * planned without the cost based optimiser, and for statements which run a job, aggregations without a group by are
+   * finished by the fetch task instead of a reduce stage, map join hash tables are built in the HiveServer2 JVM
+   * instead of a child JVM and no merge job is run after map-only inserts.
+   */
+  FAST {
+    @Override
+    public Map<String, String> properties() {
+      return new ProfileProperties()
+          // Calcite needs a newer Guava than BeeJU's, so queries planned by the cost based optimiser fail
+          .set(HiveConf.ConfVars.HIVE_CBO_ENABLED, "false")
+          .set(HiveConf.ConfVars.HIVEFETCHTASKAGGR, "true")
+          .set(HiveConf.ConfVars.SUBMITLOCALTASKVIACHILD, "false")
+          .set(HiveConf.ConfVars.HIVEMERGEMAPFILES, "false")
+          .build();
+    }
+  };
+
+  /** Configuration property naming the profile. Defaults to {@code default}. */
+  public static final String PROFILE = "beeju.hiveserver2.profile";
+
+  /**
+   * @param name Profile name, in any case.
+   * @return The profile with the given name.
+   * @throws IllegalArgumentException If there is no profile with the given name.
+   */
+  public static QueryProfile forName(String name) {
+    return ConfigurationNames.forName(QueryProfile.class, "query profile", name);
+  }
+
+  @Override
+  public String profileName() {
+    return ConfigurationNames.nameOf(this);
+  }
+
+  @Override
+  public Map<String, String> properties() {
+    return Collections.emptyMap();
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Waits for a service to accept connections on its Thrift port.
+ * <p>
+ * The service is probed with a backoff starting at one millisecond, so it is reported ready within a few milliseconds
+ * of its transport being bound. While waiting, the probe also watches the task starting the service, if there is one,
+ * so that a start up failure is reported as soon as it happens rather than when the timeout expires.
+ * </p>
+ */
+final class ReadinessProbe {
+
+  private static final String LOCALHOST = "localhost";
+  private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+  private static final long MAX_BACKOFF_MILLIS = 50;
+
+  private final String serviceName;
+  private final BooleanSupplier ready;
+  private final long timeoutMillis;
+
+  ReadinessProbe(String serviceName, BooleanSupplier ready, long timeout, TimeUnit unit) {
+    this.serviceName = serviceName;
+    this.ready = ready;
+    timeoutMillis = unit.toMillis(timeout);
+  }
+
+  /**
+   * @return a check that a connection to the port can be opened, for services which silently drop connections that
+   *         don't send anything.
+   */
+  static BooleanSupplier acceptsConnections(int port) {
+    return () -> {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(LOCALHOST, port), CONNECT_TIMEOUT_MILLIS);
+        return true;
+      } catch (IOException e) {
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @return a check that something is listening on the port, for services which log an error for every connection
+   *         which doesn't complete their handshake. Connections are accepted as soon as the port is listening.
+   */
+  static BooleanSupplier isListening(int port) {
+    return () -> {
+      try (ServerSocket socket = new ServerSocket(port)) {
+        return false;
+      } catch (IOException e) {
+        return true;
+      }
+    };
+  }
+
+  /**
+   * @param startup The task starting the service, which is expected to keep running while the service is up.
+   * @throws InterruptedException If interrupted while waiting.
+   * @throws RuntimeException If the service failed to start or isn't accepting connections before the timeout expires.
+   */
+  void await(Future<?> startup) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    long backoffMillis = 1;
+    while (!ready.getAsBoolean()) {
+      long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (remainingMillis <= 0) {
+        throw new RuntimeException(serviceName + " did not start within " + timeoutMillis + " ms");
+      }
+      long waitMillis = Math.min(backoffMillis, remainingMillis);
+      if (startup == null) {
+        TimeUnit.MILLISECONDS.sleep(waitMillis);
+      } else {
+        awaitFailure(startup, waitMillis);
+      }
+      backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+    }
+  }
+
+  private void awaitFailure(Future<?> startup, long waitMillis) throws InterruptedException {
+    try {
+      startup.get(waitMillis, TimeUnit.MILLISECONDS);
+      throw new RuntimeException(serviceName + " stopped before accepting connections");
+    } catch (ExecutionException e) {
+      throw new RuntimeException(serviceName + " failed to start", e.getCause());
+    } catch (CancellationException e) {
+      throw new RuntimeException(serviceName + " was stopped before accepting connections", e);
+    } catch (TimeoutException e) {
+      // still starting
+    }
+  }
+}
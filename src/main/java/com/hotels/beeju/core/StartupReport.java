@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How long each phase of starting the BeeJU services took, measured with {@link System#nanoTime()}.
+ * <p>
+ * Phases are listed in the order they were first run. A phase which is run more than once, e.g. HiveServer2 start up
+ * when an extension restarts it for each test method, reports the duration of its latest run.
+ * </p>
+ */
+public class StartupReport {
+
+  /** Creation of the temporary folders. */
+  public static final String CONFIGURE_FOLDERS = "configureFolders";
+  /** Look up of the metastore schema template, which is built by the first {@link BeejuCore} in the JVM. */
+  public static final String SCHEMA_TEMPLATE = "schemaTemplate";
+  /** Creation of the Derby metastore database. */
+  public static final String CREATE_DERBY_DATABASE = "createDerbyDatabase";
+  /** Prewarming of the metastore cache, when it is {@link BeejuCore#METASTORE_CACHE enabled}. */
+  public static final String PREWARM_METASTORE_CACHE = "prewarmMetastoreCache";
+  /** Creation of the first {@code HiveMetaStoreClient}, which initialises the metastore when it is embedded. */
+  public static final String FIRST_CLIENT_CONNECT = "firstClientConnect";
+  /** Port binding and start up of the Thrift Hive Metastore until it accepts connections. */
+  public static final String THRIFT_METASTORE_START = "thriftMetaStoreStart";
+  /** {@code HiveServer2.init}. */
+  public static final String HIVESERVER2_INIT = "hiveServer2Init";
+  /** {@code HiveServer2.start} until it accepts connections. */
+  public static final String HIVESERVER2_START = "hiveServer2Start";
+  /** Creation of the pre-created database. */
+  public static final String CREATE_DATABASE = "createDatabase";
+
+  private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+  /**
+   * @return the value of the monotonic clock phases are timed with, to be passed to {@link #record(String, long)}.
+   */
+  static long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records a phase which started at the given time and has just finished.
+   *
+   * @param phase Phase name.
+   * @param startNanos The value returned by {@link #start()} when the phase started.
+   */
+  synchronized void record(String phase, long startNanos) {
+    phaseNanos.put(phase, System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @param phase Phase name.
+   * @return {@code true} if the phase has been recorded.
+   */
+  synchronized boolean contains(String phase) {
+    return phaseNanos.containsKey(phase);
+  }
+
+  /**
+   * @return the duration of each phase which has been run so far, in the order they were first run.
+   */
+  public synchronized Map<String, Duration> phases() {
+    Map<String, Duration> phases = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+      phases.put(entry.getKey(), Duration.ofNanos(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(phases);
+  }
+
+  /**
+   * @param phase Phase name.
+   * @return the duration of the phase, or {@code null} if it hasn't been run.
+   */
+  public synchronized Duration phase(String phase) {
+    Long nanos = phaseNanos.get(phase);
+    return nanos == null ? null : Duration.ofNanos(nanos);
+  }
+
+  /**
+   * @return the sum of the durations of all the phases.
+   */
+  public synchronized Duration total() {
+    long total = 0;
+    for (long nanos : phaseNanos.values()) {
+      total += nanos;
+    }
+    return Duration.ofNanos(total);
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder("StartupReport[");
+    for (Map.Entry<String, Duration> entry : phases().entrySet()) {
+      builder.append(entry.getKey()).append('=').append(entry.getValue().toMillis()).append("ms, ");
+    }
+    return builder.append("total=").append(total().toMillis()).append("ms]").toString();
+  }
+}
@@ -15,18 +15,18 @@
  */
 package com.hotels.beeju.core;
 
-import java.net.ServerSocket;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStore;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
 import org.apache.hadoop.hive.metastore.security.HadoopThriftAuthBridge;
 import org.apache.hadoop.hive.metastore.security.HadoopThriftAuthBridge23;
 import org.slf4j.Logger;
@@ -37,65 +37,155 @@ public class ThriftHiveMetaStoreCore {
   private static final Logger LOG = LoggerFactory.getLogger(ThriftHiveMetaStoreCore.class);
   private final ExecutorService thriftServer;
   private final BeejuCore beejuCore;
+  private ThriftMetaStoreServer server;
   private int thriftPort = -1;
+  private ThriftServerOptions serverOptions = ThriftServerOptions.defaults();
+  private long startupTimeout = 3;
+  private TimeUnit startupTimeoutUnit = TimeUnit.MINUTES;
+  private boolean lazyStart;
+  private boolean startRequested;
+  private boolean started;
+  private String localMetastoreUris;
 
   public ThriftHiveMetaStoreCore(BeejuCore beejuCore) {
     this.beejuCore = beejuCore;
     thriftServer = Executors.newSingleThreadExecutor();
   }
 
-  public void initialise() throws Exception {
-    final Lock startLock = new ReentrantLock();
-    final Condition startCondition = startLock.newCondition();
-    final AtomicBoolean startedServing = new AtomicBoolean();
-    int socketPort = 0;
-    if (thriftPort > 0) {
-      socketPort = thriftPort;
+  /**
+   * Starts the Thrift Hive Metastore, or when {@link #setLazyStart(boolean) lazy start} is enabled arranges for it to be
+   * started the first time its connection details are requested.
+   *
+   * @throws Exception If the service fails to start.
+   */
+  public synchronized void initialise() throws Exception {
+    startRequested = true;
+    if (!lazyStart) {
+      start();
+    }
+  }
+
+  private synchronized void ensureStarted() {
+    if (!startRequested || started) {
+      return;
+    }
+    try {
+      start();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while starting Thrift server for Hive Metastore", e);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException("Unable to start Thrift server for Hive Metastore", e);
     }
-    try (ServerSocket socket = new ServerSocket(socketPort)) {
-      thriftPort = socket.getLocalPort();
+  }
+
+  private void start() throws Exception {
+    long start = StartupReport.start();
+    final ThriftMetaStoreServer server;
+    BooleanSupplier ready;
+    if (ThriftMetaStoreServer.supports(beejuCore.conf())) {
+      if (serverOptions.getModel() == ThriftServerOptions.Model.THREADED_SELECTOR) {
+        // the non-blocking server only understands framed transport
+        beejuCore.setHiveConf(MetastoreConf.ConfVars.USE_THRIFT_FRAMED_TRANSPORT.getVarname(), "true");
+        beejuCore.setHiveConf(MetastoreConf.ConfVars.USE_THRIFT_FRAMED_TRANSPORT.getHiveName(), "true");
+      }
+      // bound straight away, so that no other process can take the port before the metastore starts
+      server = new ThriftMetaStoreServer(Math.max(thriftPort, 0), serverOptions);
+      thriftPort = server.getPort();
+      ready = server::isServing;
+    } else {
+      server = null;
+      if (thriftPort <= 0) {
+        thriftPort = PortAllocator.shared().allocate();
+      }
+      ready = ReadinessProbe.acceptsConnections(thriftPort);
     }
-    beejuCore.setHiveVar(HiveConf.ConfVars.METASTOREURIS, getThriftConnectionUri());
+    this.server = server;
+    localMetastoreUris = beejuCore.conf().getVar(HiveConf.ConfVars.METASTOREURIS);
+    beejuCore.setHiveVar(HiveConf.ConfVars.METASTOREURIS, thriftConnectionUri());
+    beejuCore.clearClientPool();
     final HiveConf hiveConf = new HiveConf(beejuCore.conf(), HiveMetaStoreClient.class);
-    thriftServer.execute(() -> {
+    Future<?> startup = thriftServer.submit(() -> {
       try {
-        HadoopThriftAuthBridge bridge = HadoopThriftAuthBridge23.getBridge();
-        HiveMetaStore.startMetaStore(thriftPort, bridge, hiveConf, startLock, startCondition, startedServing);
+        serve(server, hiveConf);
+      } catch (Error | Exception e) {
+        LOG.error("Unable to start a Thrift server for Hive Metastore", e);
+        throw e;
       } catch (Throwable e) {
         LOG.error("Unable to start a Thrift server for Hive Metastore", e);
+        throw new RuntimeException(e);
       }
+      return null;
     });
-    int i = 0;
-    while (i++ < 3) {
-      startLock.lock();
-      try {
-        if (startCondition.await(1, TimeUnit.MINUTES)) {
-          break;
-        }
-      } finally {
-        startLock.unlock();
-      }
-      if (i == 3) {
-        throw new RuntimeException("Maximum number of tries reached whilst waiting for Thrift server to be ready");
-      }
+    try {
+      new ReadinessProbe("Thrift server for Hive Metastore", ready, startupTimeout, startupTimeoutUnit).await(startup);
+    } catch (InterruptedException | RuntimeException e) {
+      stopServer();
+      useLocalMetastore();
+      throw e;
+    }
+    beejuCore.startupReport().record(StartupReport.THRIFT_METASTORE_START, start);
+    started = true;
+  }
+
+  private void serve(ThriftMetaStoreServer server, HiveConf hiveConf) throws Throwable {
+    if (server != null) {
+      server.serve(hiveConf);
+    } else {
+      // SASL and SSL are left to Hive, which binds the port itself
+      HadoopThriftAuthBridge bridge = HadoopThriftAuthBridge23.getBridge();
+      // no start lock so that Hive doesn't start a thread which only signals it once a second
+      HiveMetaStore.startMetaStore(thriftPort, bridge, hiveConf, null, null, null);
+    }
+  }
+
+  private void stopServer() {
+    if (server != null) {
+      server.stop();
+      server = null;
     }
   }
 
-  public void shutdown() {
+  /**
+   * Stops the Thrift Hive Metastore. A lazily started service which was never started is left as it is.
+   */
+  public synchronized void shutdown() {
+    startRequested = false;
+    stopServer();
     thriftServer.shutdown();
+    if (started) {
+      useLocalMetastore();
+    }
+    started = false;
+  }
+
+  /**
+   * Points the clients created from now on back at the metastore database.
+   */
+  private void useLocalMetastore() {
+    beejuCore.setHiveVar(HiveConf.ConfVars.METASTOREURIS, localMetastoreUris);
+    beejuCore.clearClientPool();
   }
 
   /**
-   * @return The Thrift connection string for the Metastore service.
+   * @return The Thrift connection string for the Metastore service, starting it first if it is started lazily.
    */
   public String getThriftConnectionUri() {
+    ensureStarted();
+    return thriftConnectionUri();
+  }
+
+  private String thriftConnectionUri() {
     return "thrift://localhost:" + thriftPort;
   }
 
   /**
-   * @return The port used for the Thrift Metastore service.
+   * @return The port used for the Thrift Metastore service, starting it first if it is started lazily.
    */
   public int getThriftPort() {
+    ensureStarted();
     return thriftPort;
   }
   
@@ -109,6 +199,58 @@ public class ThriftHiveMetaStoreCore {
     this.thriftPort = thriftPort;
   }
 
+  /**
+   * @param serverOptions The Thrift server model and worker pool, {@link ThriftServerOptions#defaults()} by default.
+   *          Metastores configured to use SASL or SSL are started by Hive with its default server instead.
+   */
+  public void setServerOptions(ThriftServerOptions serverOptions) {
+    this.serverOptions = checkNotNull(serverOptions, "serverOptions is required");
+  }
+
+  /**
+   * @return The current state of the connections and worker pool of the Thrift server, or {@code null} if it isn't
+   *         running or is Hive's own server.
+   */
+  public synchronized ThriftServerStatistics getServerStatistics() {
+    return server == null ? null : server.statistics();
+  }
+
+  /**
+   * @param timeout How long to wait for the Thrift Hive Metastore to accept connections before failing, three minutes
+   *          by default.
+   * @param unit The unit of the timeout.
+   */
+  public void setStartupTimeout(long timeout, TimeUnit unit) {
+    if (timeout <= 0) {
+      throw new IllegalArgumentException("Startup timeout must be >0, not " + timeout);
+    }
+    startupTimeout = timeout;
+    startupTimeoutUnit = unit;
+  }
+
+  /**
+   * @param lazyStart {@code true} to only start the Thrift Hive Metastore the first time {@link #getThriftConnectionUri()}
+   *          or {@link #getThriftPort()} is called after {@link #initialise()}, so that tests which don't connect to it
+   *          don't pay for its start up. Disabled by default.
+   */
+  public synchronized void setLazyStart(boolean lazyStart) {
+    this.lazyStart = lazyStart;
+  }
+
+  /**
+   * @return {@code true} if the Thrift Hive Metastore has been started.
+   */
+  public synchronized boolean isStarted() {
+    return started;
+  }
+
+  /**
+   * @return {@link BeejuCore#startupReport()}.
+   */
+  public StartupReport getStartupReport() {
+    return beejuCore.startupReport();
+  }
+
   public String getDatabaseName(){
     return beejuCore.databaseName();
   }
@@ -0,0 +1,480 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of running Thrift Hive Metastore services which can be shared by test classes using the same configuration.
+ * <p>
+ * Servers are keyed by a fingerprint of the pre-created database name and the pre and post configuration they were
+ * created with. {@link #lease(String, Map, Map) Leasing} a server hands out an idle one with a matching fingerprint if
+ * there is one, or starts a new one otherwise. {@link Lease#close() Returning} a server {@link BeejuCore#reset()
+ * resets} its metastore and keeps it running for the next lease. When the number of running servers exceeds the
+ * configured maximum the least recently used idle servers are stopped.
+ * </p>
+ * <p>
+ * Servers can also be {@link #prestart(String, Map, Map) pre-started} in the background so that the next lease with
+ * the same configuration doesn't have to wait for a server to start.
+ * </p>
+ */
+public class ThriftHiveMetaStorePool implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ThriftHiveMetaStorePool.class);
+
+  public static final int DEFAULT_MAX_SERVERS = 4;
+
+  private static final ThriftHiveMetaStorePool SHARED = new ThriftHiveMetaStorePool(DEFAULT_MAX_SERVERS);
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(SHARED::close));
+  }
+
+  // idle servers, least recently used first
+  private final LinkedList<PooledServer> idle = new LinkedList<>();
+  // configurations of the servers being pre-started
+  private final Set<Fingerprint> starting = new HashSet<>();
+  private ExecutorService prestarter;
+  private int maxServers;
+  private int liveServers;
+
+  /**
+   * @param maxServers Maximum number of servers to keep running.
+   */
+  public ThriftHiveMetaStorePool(int maxServers) {
+    setMaxServers(maxServers);
+  }
+
+  /**
+   * @return the pool shared by every test in the JVM, whose idle servers are stopped when the JVM exits.
+   */
+  public static ThriftHiveMetaStorePool shared() {
+    return SHARED;
+  }
+
+  /**
+   * Leases a server with a pre-created database "test_database" and no custom configuration.
+   *
+   * @return the lease, which must be closed to return the server to the pool.
+   * @throws Exception If a new server can't be started.
+   */
+  public Lease lease() throws Exception {
+    return lease("test_database");
+  }
+
+  /**
+   * Leases a server with a pre-created database using the provided name and no custom configuration.
+   *
+   * @param databaseName Database name.
+   * @return the lease, which must be closed to return the server to the pool.
+   * @throws Exception If a new server can't be started.
+   */
+  public Lease lease(String databaseName) throws Exception {
+    return lease(databaseName, Collections.emptyMap(), Collections.emptyMap());
+  }
+
+  /**
+   * Leases a server with a pre-created database using the provided name and configuration, starting a new one if there
+   * is no idle server with the same configuration.
+   *
+   * @param databaseName Database name.
+   * @param preConfiguration Hive configuration properties applied before the BeeJU defaults, see {@link BeejuCore}.
+   * @param postConfiguration Hive configuration properties applied after the BeeJU defaults, see {@link BeejuCore}.
+   * @return the lease, which must be closed to return the server to the pool.
+   * @throws Exception If a new server can't be started.
+   */
+  public Lease lease(String databaseName, Map<String, String> preConfiguration, Map<String, String> postConfiguration)
+    throws Exception {
+    checkNotNull(databaseName, "databaseName is required");
+    Fingerprint fingerprint = new Fingerprint(databaseName, preConfiguration, postConfiguration);
+    PooledServer server = takeIdle(fingerprint);
+    if (server == null) {
+      try {
+        server = start(fingerprint, databaseName, preConfiguration, postConfiguration);
+      } catch (Exception | Error e) {
+        synchronized (this) {
+          liveServers--;
+        }
+        throw e;
+      }
+    }
+    return new Lease(server);
+  }
+
+  private PooledServer takeIdle(Fingerprint fingerprint) throws InterruptedException {
+    List<PooledServer> evicted;
+    synchronized (this) {
+      while (true) {
+        for (Iterator<PooledServer> iterator = idle.descendingIterator(); iterator.hasNext();) {
+          PooledServer server = iterator.next();
+          if (server.fingerprint.equals(fingerprint)) {
+            iterator.remove();
+            return server;
+          }
+        }
+        if (!starting.contains(fingerprint)) {
+          break;
+        }
+        // a server with this configuration is being pre-started, which is quicker than starting another one
+        wait();
+      }
+      // reserve a place for the server which is about to be started
+      liveServers++;
+      evicted = evict();
+    }
+    stop(evicted);
+    return null;
+  }
+
+  private static PooledServer start(
+      Fingerprint fingerprint,
+      String databaseName,
+      Map<String, String> preConfiguration,
+      Map<String, String> postConfiguration)
+    throws Exception {
+    BeejuCore core = null;
+    ThriftHiveMetaStoreCore thriftHiveMetaStore = null;
+    try {
+      core = new BeejuCore(databaseName, preConfiguration, postConfiguration);
+      thriftHiveMetaStore = new ThriftHiveMetaStoreCore(core);
+      thriftHiveMetaStore.initialise();
+      core.createDatabase(databaseName);
+      log.info("Started pooled Thrift Hive Metastore {}", thriftHiveMetaStore.getThriftConnectionUri());
+      return new PooledServer(fingerprint, core, thriftHiveMetaStore);
+    } catch (Exception | Error e) {
+      stop(core, thriftHiveMetaStore);
+      throw e;
+    }
+  }
+
+  /**
+   * Starts a server with the provided pre-created database name and configuration on a background thread and adds it
+   * to the idle servers, unless there already is an idle or starting server with the same configuration. A lease
+   * requested while the server is starting waits for it rather than starting another one.
+   *
+   * @param databaseName Database name.
+   * @param preConfiguration Hive configuration properties applied before the BeeJU defaults, see {@link BeejuCore}.
+   * @param postConfiguration Hive configuration properties applied after the BeeJU defaults, see {@link BeejuCore}.
+   */
+  public void prestart(String databaseName, Map<String, String> preConfiguration, Map<String, String> postConfiguration) {
+    checkNotNull(databaseName, "databaseName is required");
+    Fingerprint fingerprint = new Fingerprint(databaseName, preConfiguration, postConfiguration);
+    List<PooledServer> evicted;
+    synchronized (this) {
+      if (starting.contains(fingerprint) || hasIdle(fingerprint)) {
+        return;
+      }
+      starting.add(fingerprint);
+      liveServers++;
+      evicted = evict();
+      ExecutorService executor = prestarter();
+      executor.execute(() -> prestarted(executor, fingerprint, databaseName, preConfiguration, postConfiguration));
+    }
+    stop(evicted);
+  }
+
+  private void prestarted(
+      ExecutorService executor,
+      Fingerprint fingerprint,
+      String databaseName,
+      Map<String, String> preConfiguration,
+      Map<String, String> postConfiguration) {
+    PooledServer server = null;
+    try {
+      server = start(fingerprint, databaseName, preConfiguration, postConfiguration);
+    } catch (Exception | Error e) {
+      log.warn("Unable to pre-start Thrift Hive Metastore", e);
+    }
+    List<PooledServer> evicted = new ArrayList<>();
+    synchronized (this) {
+      starting.remove(fingerprint);
+      if (server == null) {
+        liveServers--;
+      } else if (executor.isShutdown()) {
+        // the pool was closed while the server was starting
+        liveServers--;
+        evicted.add(server);
+      } else {
+        idle.addLast(server);
+        evicted.addAll(evict());
+      }
+      notifyAll();
+    }
+    stop(evicted);
+  }
+
+  private boolean hasIdle(Fingerprint fingerprint) {
+    for (PooledServer server : idle) {
+      if (server.fingerprint.equals(fingerprint)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ExecutorService prestarter() {
+    if (prestarter == null) {
+      prestarter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "beeju-prestarter");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return prestarter;
+  }
+
+  private void release(PooledServer server) {
+    try {
+      server.core.reset();
+    } catch (RuntimeException e) {
+      log.warn("Unable to reset pooled Thrift Hive Metastore, stopping it", e);
+      discard(server);
+      return;
+    }
+    List<PooledServer> evicted;
+    synchronized (this) {
+      idle.addLast(server);
+      evicted = evict();
+    }
+    stop(evicted);
+  }
+
+  private void discard(PooledServer server) {
+    synchronized (this) {
+      liveServers--;
+    }
+    server.stop();
+  }
+
+  private List<PooledServer> evict() {
+    List<PooledServer> evicted = new ArrayList<>();
+    while (liveServers > maxServers && !idle.isEmpty()) {
+      evicted.add(idle.removeFirst());
+      liveServers--;
+    }
+    return evicted;
+  }
+
+  private static void stop(List<PooledServer> servers) {
+    for (PooledServer server : servers) {
+      log.info("Stopping pooled Thrift Hive Metastore {}", server.thriftHiveMetaStore.getThriftConnectionUri());
+      server.stop();
+    }
+  }
+
+  /**
+   * @param maxServers Maximum number of servers to keep running. Idle servers are stopped as soon as there are more
+   *          running servers than this, but leased servers are never stopped so the maximum is exceeded when more
+   *          servers than this are leased at the same time.
+   */
+  public void setMaxServers(int maxServers) {
+    if (maxServers < 0) {
+      throw new IllegalArgumentException("Maximum number of servers must be >=0, not " + maxServers);
+    }
+    List<PooledServer> evicted;
+    synchronized (this) {
+      this.maxServers = maxServers;
+      evicted = evict();
+    }
+    stop(evicted);
+  }
+
+  /**
+   * @return the maximum number of servers to keep running.
+   */
+  public synchronized int getMaxServers() {
+    return maxServers;
+  }
+
+  /**
+   * @return the number of running servers, both leased and idle.
+   */
+  public synchronized int getLiveServers() {
+    return liveServers;
+  }
+
+  /**
+   * @return the number of running servers which aren't leased.
+   */
+  public synchronized int getIdleServers() {
+    return idle.size();
+  }
+
+  /**
+   * Stops all the idle servers. Leased servers are stopped when they are returned and servers which are being
+   * pre-started are stopped as soon as they have started.
+   */
+  @Override
+  public void close() {
+    List<PooledServer> stopped;
+    synchronized (this) {
+      if (prestarter != null) {
+        prestarter.shutdown();
+        prestarter = null;
+      }
+      stopped = new ArrayList<>(idle);
+      liveServers -= idle.size();
+      idle.clear();
+    }
+    stop(stopped);
+  }
+
+  /**
+   * A server leased from a {@link ThriftHiveMetaStorePool}, which is returned to the pool when the lease is closed.
+   */
+  public final class Lease implements AutoCloseable {
+
+    private final PooledServer server;
+    private boolean returned;
+
+    private Lease(PooledServer server) {
+      this.server = server;
+    }
+
+    /**
+     * @return the {@link BeejuCore} of the leased server.
+     */
+    public BeejuCore core() {
+      return server.core;
+    }
+
+    /**
+     * @return the leased {@link ThriftHiveMetaStoreCore}.
+     */
+    public ThriftHiveMetaStoreCore thriftHiveMetaStore() {
+      return server.thriftHiveMetaStore;
+    }
+
+    /**
+     * @return {@link ThriftHiveMetaStoreCore#getThriftConnectionUri()}.
+     */
+    public String getThriftConnectionUri() {
+      return server.thriftHiveMetaStore.getThriftConnectionUri();
+    }
+
+    /**
+     * Resets the server and returns it to the pool.
+     */
+    @Override
+    public void close() {
+      checkNotReturned();
+      returned = true;
+      release(server);
+    }
+
+    /**
+     * Removes the server from the pool instead of returning it, for callers which want a fresh server and will stop it
+     * themselves with {@link ThriftHiveMetaStoreCore#shutdown()} and {@link BeejuCore#cleanUp()}.
+     */
+    public void detach() {
+      checkNotReturned();
+      returned = true;
+      synchronized (ThriftHiveMetaStorePool.this) {
+        liveServers--;
+      }
+    }
+
+    private void checkNotReturned() {
+      if (returned) {
+        throw new IllegalStateException("Server " + getThriftConnectionUri() + " has already been returned");
+      }
+    }
+  }
+
+  private static void stop(BeejuCore core, ThriftHiveMetaStoreCore thriftHiveMetaStore) {
+    if (thriftHiveMetaStore != null) {
+      thriftHiveMetaStore.shutdown();
+    }
+    if (core != null) {
+      core.cleanUp();
+    }
+  }
+
+  private static final class PooledServer {
+
+    private final Fingerprint fingerprint;
+    private final BeejuCore core;
+    private final ThriftHiveMetaStoreCore thriftHiveMetaStore;
+
+    private PooledServer(Fingerprint fingerprint, BeejuCore core, ThriftHiveMetaStoreCore thriftHiveMetaStore) {
+      this.fingerprint = fingerprint;
+      this.core = core;
+      this.thriftHiveMetaStore = thriftHiveMetaStore;
+    }
+
+    private void stop() {
+      ThriftHiveMetaStorePool.stop(core, thriftHiveMetaStore);
+    }
+  }
+
+  private static final class Fingerprint {
+
+    private final String databaseName;
+    private final Map<String, String> preConfiguration;
+    private final Map<String, String> postConfiguration;
+    private final int hashCode;
+
+    private Fingerprint(
+        String databaseName,
+        Map<String, String> preConfiguration,
+        Map<String, String> postConfiguration) {
+      this.databaseName = databaseName;
+      this.preConfiguration = sorted(preConfiguration);
+      this.postConfiguration = sorted(postConfiguration);
+      hashCode = Objects.hash(databaseName, this.preConfiguration, this.postConfiguration);
+    }
+
+    private static Map<String, String> sorted(Map<String, String> configuration) {
+      return configuration == null ? Collections.emptyMap() : new TreeMap<>(configuration);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Fingerprint)) {
+        return false;
+      }
+      Fingerprint other = (Fingerprint) obj;
+      return hashCode == other.hashCode
+          && databaseName.equals(other.databaseName)
+          && preConfiguration.equals(other.preConfiguration)
+          && postConfiguration.equals(other.postConfiguration);
+    }
+  }
+}
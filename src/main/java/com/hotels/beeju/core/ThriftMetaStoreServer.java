@@ -0,0 +1,295 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.HiveMetaStore;
+import org.apache.hadoop.hive.metastore.IHMSHandler;
+import org.apache.hadoop.hive.metastore.RetryingHMSHandler;
+import org.apache.hadoop.hive.metastore.TServerSocketKeepAlive;
+import org.apache.hadoop.hive.metastore.TSetIpAddressProcessor;
+import org.apache.hadoop.hive.metastore.TUGIBasedProcessor;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars;
+import org.apache.hadoop.hive.metastore.security.TUGIContainingTransport;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.server.ServerContext;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.server.TServerEventHandler;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TNonblockingServerSocket;
+import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TServerTransport;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.apache.thrift.transport.TTransportFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Thrift server of a Hive Metastore, set up the same way as {@link HiveMetaStore#startMetaStore} does for a
+ * metastore which doesn't use SASL or SSL, with the server model and worker pool of its {@link ThriftServerOptions}.
+ * <p>
+ * Unlike {@code startMetaStore}, the port is bound when the server is created, so it can be port 0 and the port which
+ * was actually bound is known before the server is started, and the server can be stopped.
+ * </p>
+ */
+final class ThriftMetaStoreServer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ThriftMetaStoreServer.class);
+  private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+
+  private final ThriftServerOptions options;
+  private final TServerTransport serverTransport;
+  private final int port;
+  private final AtomicInteger openConnections = new AtomicInteger();
+  private ThreadPoolExecutor workers;
+  private TServer server;
+  private boolean stopped;
+
+  /**
+   * @param port The port to bind, or 0 to bind any free port.
+   * @param options The server model and worker pool.
+   * @throws TTransportException If the port can't be bound.
+   */
+  ThriftMetaStoreServer(int port, ThriftServerOptions options) throws TTransportException {
+    this.options = options;
+    if (options.getModel() == ThriftServerOptions.Model.THREADED_SELECTOR) {
+      TNonblockingServerSocket socket = new TNonblockingServerSocket(new InetSocketAddress(port));
+      serverTransport = socket;
+      this.port = socket.getPort();
+    } else {
+      TServerSocket socket = new TServerSocket(new InetSocketAddress(port));
+      serverTransport = socket;
+      this.port = socket.getServerSocket().getLocalPort();
+    }
+  }
+
+  /**
+   * @return {@code true} if the metastore can be served by this server, {@code false} if it needs Hive's own because it
+   *         uses SASL or SSL.
+   */
+  static boolean supports(Configuration conf) {
+    return !MetastoreConf.getBoolVar(conf, ConfVars.USE_THRIFT_SASL)
+        && !MetastoreConf.getBoolVar(conf, ConfVars.USE_SSL);
+  }
+
+  /**
+   * @return The port the server is bound to.
+   */
+  int getPort() {
+    return port;
+  }
+
+  /**
+   * Serves the metastore until the server is {@link #stop() stopped}.
+   *
+   * @param conf The metastore configuration.
+   * @throws Exception If the metastore can't be created.
+   */
+  void serve(Configuration conf) throws Exception {
+    try {
+      serveUntilStopped(conf);
+    } finally {
+      serverTransport.close();
+    }
+  }
+
+  private void serveUntilStopped(Configuration conf) throws Exception {
+    long maxMessageSize = MetastoreConf.getLongVar(conf, ConfVars.SERVER_MAX_MESSAGE_SIZE);
+    TProtocolFactory protocolFactory;
+    TProtocolFactory inputProtocolFactory;
+    if (MetastoreConf.getBoolVar(conf, ConfVars.USE_THRIFT_COMPACT_PROTOCOL)) {
+      protocolFactory = new TCompactProtocol.Factory();
+      inputProtocolFactory = new TCompactProtocol.Factory(maxMessageSize, maxMessageSize);
+    } else {
+      protocolFactory = new TBinaryProtocol.Factory();
+      inputProtocolFactory = new TBinaryProtocol.Factory(true, true, maxMessageSize, maxMessageSize);
+    }
+
+    HiveMetaStore.HMSHandler baseHandler = new HiveMetaStore.HMSHandler("new db based metaserver", conf, false);
+    // as for an embedded metastore, the handler and its RawStores share the configuration which reloads are applied to
+    IHMSHandler handler = RetryingHMSHandler.getProxy(conf, baseHandler, true);
+    TServer server;
+    if (options.getModel() == ThriftServerOptions.Model.THREADED_SELECTOR) {
+      server = threadedSelectorServer(handler, protocolFactory, inputProtocolFactory);
+    } else {
+      server = threadPoolServer(conf, handler, protocolFactory, inputProtocolFactory);
+    }
+    server.setServerEventHandler(new TServerEventHandler() {
+      @Override
+      public void preServe() {}
+
+      @Override
+      public ServerContext createContext(TProtocol input, TProtocol output) {
+        openConnections.incrementAndGet();
+        return null;
+      }
+
+      @Override
+      public void deleteContext(ServerContext serverContext, TProtocol input, TProtocol output) {
+        openConnections.decrementAndGet();
+        if (options.getModel() != ThriftServerOptions.Model.THREAD_POOL) {
+          // called on a selector thread, while the RawStores belong to the workers, which serve every connection
+          return;
+        }
+        // called on the connection's worker thread: cleans up its thread local RawStore in case the client didn't
+        // close its connection cleanly
+        try {
+          baseHandler.shutdown();
+        } catch (RuntimeException e) {
+          // the metastore database has already been dropped
+          LOG.debug("Unable to clean up RawStore", e);
+        }
+      }
+
+      @Override
+      public void processContext(ServerContext serverContext, TTransport input, TTransport output) {}
+    });
+
+    synchronized (this) {
+      if (stopped) {
+        workers.shutdown();
+        return;
+      }
+      this.server = server;
+    }
+    LOG.info("Started Thrift server for Hive Metastore on port {} with {}", port, options);
+    server.serve();
+  }
+
+  private TServer threadPoolServer(
+      Configuration conf,
+      IHMSHandler handler,
+      TProtocolFactory protocolFactory,
+      TProtocolFactory inputProtocolFactory)
+    throws Exception {
+    boolean framed = MetastoreConf.getBoolVar(conf, ConfVars.USE_THRIFT_FRAMED_TRANSPORT);
+    TProcessor processor;
+    TTransportFactory transportFactory;
+    if (MetastoreConf.getBoolVar(conf, ConfVars.EXECUTE_SET_UGI)) {
+      processor = new TUGIBasedProcessor<>(handler);
+      transportFactory = framed ? chain(new TFramedTransport.Factory(), new TUGIContainingTransport.Factory())
+          : new TUGIContainingTransport.Factory();
+    } else {
+      processor = new TSetIpAddressProcessor<>(handler);
+      transportFactory = framed ? new TFramedTransport.Factory() : new TTransportFactory();
+    }
+
+    TServerSocket socket = (TServerSocket) serverTransport;
+    if (MetastoreConf.getBoolVar(conf, ConfVars.TCP_KEEP_ALIVE)) {
+      socket = new TServerSocketKeepAlive(socket);
+    }
+    int minWorkerThreads = options.getMinWorkerThreads();
+    int maxWorkerThreads = options.getMaxWorkerThreads();
+    if (maxWorkerThreads == 0) {
+      minWorkerThreads = MetastoreConf.getIntVar(conf, ConfVars.SERVER_MIN_THREADS);
+      maxWorkerThreads = MetastoreConf.getIntVar(conf, ConfVars.SERVER_MAX_THREADS);
+    }
+    // the same pool TThreadPoolServer creates, which hands each connection straight to a worker
+    workers = new ThreadPoolExecutor(minWorkerThreads, maxWorkerThreads, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new SynchronousQueue<>(), workerThreadFactory());
+    TThreadPoolServer.Args args = new TThreadPoolServer.Args(socket)
+        .processor(processor)
+        .transportFactory(transportFactory)
+        .protocolFactory(protocolFactory)
+        .inputProtocolFactory(inputProtocolFactory)
+        .executorService(workers);
+    return new TThreadPoolServer(args);
+  }
+
+  private TServer threadedSelectorServer(
+      IHMSHandler handler,
+      TProtocolFactory protocolFactory,
+      TProtocolFactory inputProtocolFactory)
+    throws Exception {
+    // requests arrive as whole frames, so there is no transport to take the client's user or address from
+    workers = new ThreadPoolExecutor(options.getMaxWorkerThreads(), options.getMaxWorkerThreads(), 0,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), workerThreadFactory());
+    TThreadedSelectorServer.Args args = new TThreadedSelectorServer.Args((TNonblockingServerSocket) serverTransport)
+        .selectorThreads(options.getSelectorThreads())
+        .acceptQueueSizePerThread(options.getAcceptQueueSizePerThread())
+        .executorService(workers)
+        .processor(new TSetIpAddressProcessor<>(handler))
+        .protocolFactory(protocolFactory)
+        .inputProtocolFactory(inputProtocolFactory);
+    return new TThreadedSelectorServer(args);
+  }
+
+  private ThreadFactory workerThreadFactory() {
+    AtomicInteger threads = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "beeju-metastore-" + port + "-worker-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static TTransportFactory chain(TTransportFactory parent, TTransportFactory child) {
+    return new TTransportFactory() {
+      @Override
+      public TTransport getTransport(TTransport transport) {
+        return child.getTransport(parent.getTransport(transport));
+      }
+    };
+  }
+
+  /**
+   * @return {@code true} once the server is accepting connections. The port accepts connections as soon as it is bound,
+   *         before the metastore has been created.
+   */
+  synchronized boolean isServing() {
+    return server != null && server.isServing();
+  }
+
+  /**
+   * @return The current state of the connections and worker pool, or {@code null} if the server hasn't been created.
+   */
+  synchronized ThriftServerStatistics statistics() {
+    if (server == null) {
+      return null;
+    }
+    return new ThriftServerStatistics(options.getModel(), openConnections.get(), workers.getPoolSize(),
+        workers.getActiveCount(), workers.getLargestPoolSize(), workers.getQueue().size(),
+        workers.getCompletedTaskCount());
+  }
+
+  /**
+   * Stops accepting connections. Connections which are open are served until they are closed.
+   */
+  synchronized void stop() {
+    stopped = true;
+    if (server == null) {
+      serverTransport.close();
+    } else {
+      server.stop();
+    }
+  }
+}
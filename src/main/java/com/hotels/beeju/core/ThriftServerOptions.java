@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+/**
+ * The Thrift server model and worker pool used to serve a Thrift Hive Metastore.
+ * <p>
+ * The {@link Model#THREAD_POOL thread pool} model is the one Hive uses: each connection is served by its own worker
+ * thread until it is closed, so the maximum number of workers is the maximum number of concurrent connections. The
+ * {@link Model#THREADED_SELECTOR threaded selector} model reads requests from many connections with a few selector
+ * threads and hands them to a fixed pool of workers, so it can serve many more connections than it has threads.
+ * Clients need to use framed transport to talk to it, which {@link ThriftHiveMetaStoreCore} enables in the
+ * configuration of its {@link BeejuCore}.
+ * </p>
+ */
+public final class ThriftServerOptions {
+
+  /**
+   * Thrift server models.
+   */
+  public enum Model {
+    /** One worker thread per connection, Thrift's {@code TThreadPoolServer}. */
+    THREAD_POOL,
+    /** Non-blocking selector threads and a pool of workers, Thrift's {@code TThreadedSelectorServer}. */
+    THREADED_SELECTOR
+  }
+
+  private static final int DEFAULT_ACCEPT_QUEUE_SIZE_PER_THREAD = 4;
+  private static final ThriftServerOptions DEFAULTS = new ThriftServerOptions(Model.THREAD_POOL, 0, 0, 0, 0);
+
+  private final Model model;
+  private final int minWorkerThreads;
+  private final int maxWorkerThreads;
+  private final int selectorThreads;
+  private final int acceptQueueSizePerThread;
+
+  private ThriftServerOptions(
+      Model model,
+      int minWorkerThreads,
+      int maxWorkerThreads,
+      int selectorThreads,
+      int acceptQueueSizePerThread) {
+    this.model = model;
+    this.minWorkerThreads = minWorkerThreads;
+    this.maxWorkerThreads = maxWorkerThreads;
+    this.selectorThreads = selectorThreads;
+    this.acceptQueueSizePerThread = acceptQueueSizePerThread;
+  }
+
+  /**
+   * @return A thread pool server sized by the {@code metastore.server.min.threads} and
+   *         {@code metastore.server.max.threads} metastore configuration, as Hive does.
+   */
+  public static ThriftServerOptions defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * @param minWorkerThreads Number of worker threads kept when idle.
+   * @param maxWorkerThreads Maximum number of worker threads, and so of concurrent connections.
+   * @return A thread pool server with the provided number of workers.
+   */
+  public static ThriftServerOptions threadPool(int minWorkerThreads, int maxWorkerThreads) {
+    if (minWorkerThreads < 0) {
+      throw new IllegalArgumentException("Minimum worker threads must be >=0, not " + minWorkerThreads);
+    }
+    if (maxWorkerThreads <= 0 || maxWorkerThreads < minWorkerThreads) {
+      throw new IllegalArgumentException(
+          "Maximum worker threads must be >0 and >=" + minWorkerThreads + ", not " + maxWorkerThreads);
+    }
+    return new ThriftServerOptions(Model.THREAD_POOL, minWorkerThreads, maxWorkerThreads, 0, 0);
+  }
+
+  /**
+   * @param selectorThreads Number of threads reading and writing requests.
+   * @param workerThreads Number of threads processing requests.
+   * @return A threaded selector server with the provided number of threads, which queues up to four accepted
+   *         connections per selector thread.
+   */
+  public static ThriftServerOptions threadedSelector(int selectorThreads, int workerThreads) {
+    return threadedSelector(selectorThreads, workerThreads, DEFAULT_ACCEPT_QUEUE_SIZE_PER_THREAD);
+  }
+
+  /**
+   * @param selectorThreads Number of threads reading and writing requests.
+   * @param workerThreads Number of threads processing requests.
+   * @param acceptQueueSizePerThread Number of accepted connections which can wait for each selector thread.
+   * @return A threaded selector server with the provided number of threads.
+   */
+  public static ThriftServerOptions threadedSelector(int selectorThreads, int workerThreads, int acceptQueueSizePerThread) {
+    if (selectorThreads <= 0) {
+      throw new IllegalArgumentException("Selector threads must be >0, not " + selectorThreads);
+    }
+    if (workerThreads <= 0) {
+      throw new IllegalArgumentException("Worker threads must be >0, not " + workerThreads);
+    }
+    if (acceptQueueSizePerThread <= 0) {
+      throw new IllegalArgumentException("Accept queue size per thread must be >0, not " + acceptQueueSizePerThread);
+    }
+    return new ThriftServerOptions(Model.THREADED_SELECTOR, workerThreads, workerThreads, selectorThreads,
+        acceptQueueSizePerThread);
+  }
+
+  public Model getModel() {
+    return model;
+  }
+
+  /**
+   * @return The minimum number of worker threads, or 0 if it is taken from the metastore configuration.
+   */
+  public int getMinWorkerThreads() {
+    return minWorkerThreads;
+  }
+
+  /**
+   * @return The maximum number of worker threads, or 0 if it is taken from the metastore configuration.
+   */
+  public int getMaxWorkerThreads() {
+    return maxWorkerThreads;
+  }
+
+  /**
+   * @return The number of selector threads of a threaded selector server.
+   */
+  public int getSelectorThreads() {
+    return selectorThreads;
+  }
+
+  /**
+   * @return The number of accepted connections which can wait for each selector thread of a threaded selector server.
+   */
+  public int getAcceptQueueSizePerThread() {
+    return acceptQueueSizePerThread;
+  }
+
+  @Override
+  public String toString() {
+    return "ThriftServerOptions[model=" + model + ", minWorkerThreads=" + minWorkerThreads + ", maxWorkerThreads="
+        + maxWorkerThreads + ", selectorThreads=" + selectorThreads + ", acceptQueueSizePerThread="
+        + acceptQueueSizePerThread + "]";
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+/**
+ * A snapshot of the connections and worker pool of a Thrift Hive Metastore server.
+ */
+public final class ThriftServerStatistics {
+
+  private final ThriftServerOptions.Model model;
+  private final int openConnections;
+  private final int workerThreads;
+  private final int activeWorkerThreads;
+  private final int largestWorkerThreads;
+  private final int queuedRequests;
+  private final long completedTasks;
+
+  ThriftServerStatistics(
+      ThriftServerOptions.Model model,
+      int openConnections,
+      int workerThreads,
+      int activeWorkerThreads,
+      int largestWorkerThreads,
+      int queuedRequests,
+      long completedTasks) {
+    this.model = model;
+    this.openConnections = openConnections;
+    this.workerThreads = workerThreads;
+    this.activeWorkerThreads = activeWorkerThreads;
+    this.largestWorkerThreads = largestWorkerThreads;
+    this.queuedRequests = queuedRequests;
+    this.completedTasks = completedTasks;
+  }
+
+  public ThriftServerOptions.Model getModel() {
+    return model;
+  }
+
+  /**
+   * @return The number of client connections which are open.
+   */
+  public int getOpenConnections() {
+    return openConnections;
+  }
+
+  /**
+   * @return The current number of worker threads.
+   */
+  public int getWorkerThreads() {
+    return workerThreads;
+  }
+
+  /**
+   * @return The number of worker threads which are serving a connection, for a thread pool server, or processing a
+   *         request, for a threaded selector server.
+   */
+  public int getActiveWorkerThreads() {
+    return activeWorkerThreads;
+  }
+
+  /**
+   * @return The largest number of worker threads there have been at the same time.
+   */
+  public int getLargestWorkerThreads() {
+    return largestWorkerThreads;
+  }
+
+  /**
+   * @return The number of requests waiting for a worker thread. Always 0 for a thread pool server, which hands each
+   *         connection straight to a worker.
+   */
+  public int getQueuedRequests() {
+    return queuedRequests;
+  }
+
+  /**
+   * @return The number of connections served, for a thread pool server, or requests processed, for a threaded selector
+   *         server.
+   */
+  public long getCompletedTasks() {
+    return completedTasks;
+  }
+
+  @Override
+  public String toString() {
+    return "ThriftServerStatistics[model=" + model + ", openConnections=" + openConnections + ", workerThreads="
+        + workerThreads + ", activeWorkerThreads=" + activeWorkerThreads + ", largestWorkerThreads="
+        + largestWorkerThreads + ", queuedRequests=" + queuedRequests + ", completedTasks=" + completedTasks + "]";
+  }
+}
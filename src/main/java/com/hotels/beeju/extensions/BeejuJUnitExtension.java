@@ -15,72 +15,267 @@
  */
 package com.hotels.beeju.extensions;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.io.File;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
 import org.apache.thrift.TException;
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
 
 import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.HiveMetaStoreClientPool;
+import com.hotels.beeju.core.StartupReport;
+import com.hotels.beeju.metastore.ConnectionPoolStatistics;
+import com.hotels.beeju.metastore.MetastoreCacheStatistics;
 
 /**
  * Base class for BeeJU JUnit Extensions that require a Hive Metastore database configuration pre-set.
+ * <p>
+ * When registered on an instance field the services are started before and stopped after each test method. When
+ * registered on a {@code static} field the services are started once before all the tests in the class and shared by
+ * them, or shared by every test class in the JUnit launcher session if the extension is
+ * {@link #setSessionScoped(boolean) session scoped}. Once its services have been stopped an extension starts them
+ * again with a new {@link BeejuCore} the next time it is used, e.g. by the next test class which inherits it.
+ * </p>
  */
-public abstract class BeejuJUnitExtension implements BeforeEachCallback, AfterEachCallback {
+public abstract class BeejuJUnitExtension
+    implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
+
+  private static final Namespace NAMESPACE = Namespace.create(BeejuJUnitExtension.class);
+  private static final String REPORT_ENTRY_PREFIX = "beeju.startup.";
 
+  private final String databaseName;
+  private final Map<String, String> configuration;
   protected BeejuCore core;
+  private boolean sessionScoped;
+  private String startedBy;
 
   public BeejuJUnitExtension(String databaseName, Map<String, String> configuration) {
-    core = new BeejuCore(databaseName, configuration);
+    this.databaseName = checkNotNull(databaseName, "databaseName is required");
+    this.configuration = configuration;
+  }
+
+  /**
+   * @return The {@link BeejuCore} of the services, created the first time it is needed, so that an extension which
+   *         takes a pre-started one doesn't create its own, and again if the previous one has been cleaned up.
+   */
+  protected BeejuCore core() {
+    if (core == null) {
+      core = new BeejuCore(databaseName, configuration);
+    }
+    return core;
+  }
+
+  @Override
+  public void beforeAll(ExtensionContext context) throws Exception {
+    if (startedBy != null) {
+      // shared with an enclosing class or, if session scoped, an earlier test class
+      return;
+    }
+    before(context);
+    publishStartupReport(context);
+    startedBy = context.getUniqueId();
+    if (sessionScoped) {
+      ExtensionContext root = context.getRoot();
+      root.getStore(NAMESPACE).put(this, (CloseableResource) () -> {
+        try {
+          after(root);
+        } finally {
+          startedBy = null;
+        }
+      });
+    }
   }
 
   @Override
   public void beforeEach(ExtensionContext context) throws Exception {
-    createDatabase(databaseName());
+    if (startedBy == null) {
+      before(context);
+      publishStartupReport(context);
+    }
   }
 
   @Override
   public void afterEach(ExtensionContext context) throws Exception {
-    core.cleanUp();
+    if (startedBy == null) {
+      after(context);
+    }
+  }
+
+  @Override
+  public void afterAll(ExtensionContext context) throws Exception {
+    if (!sessionScoped && context.getUniqueId().equals(startedBy)) {
+      try {
+        after(context);
+      } finally {
+        startedBy = null;
+      }
+    }
+  }
+
+  /**
+   * Publishes the duration in milliseconds of each start up phase, see {@link StartupReport}, as JUnit report entries
+   * prefixed with {@value #REPORT_ENTRY_PREFIX}.
+   */
+  private void publishStartupReport(ExtensionContext context) {
+    StartupReport startupReport = core().startupReport();
+    Map<String, String> entries = new LinkedHashMap<>();
+    for (Map.Entry<String, Duration> phase : startupReport.phases().entrySet()) {
+      entries.put(REPORT_ENTRY_PREFIX + phase.getKey(), String.valueOf(phase.getValue().toMillis()));
+    }
+    entries.put(REPORT_ENTRY_PREFIX + "total", String.valueOf(startupReport.total().toMillis()));
+    context.publishReportEntry(entries);
+  }
+
+  /**
+   * Starts the services provided by this extension.
+   *
+   * @param context The context of the test method or, if the extension is shared, test class being started.
+   * @throws Exception If the services can't be started.
+   */
+  protected void before(ExtensionContext context) throws Exception {
+    createDatabase(databaseName());
+  }
+
+  /**
+   * Stops the services provided by this extension and cleans up its {@link BeejuCore}.
+   *
+   * @param context The context of the test method or, if the extension is shared, test class or launcher session
+   *          being finished.
+   * @throws Exception If the services can't be stopped.
+   */
+  protected void after(ExtensionContext context) throws Exception {
+    try {
+      if (core != null) {
+        core.cleanUp();
+      }
+    } finally {
+      core = null;
+    }
+  }
+
+  /**
+   * @param sessionScoped {@code true} to keep the services of an extension registered on a {@code static} field
+   *          running until the end of the JUnit launcher session, so that it can be shared by several test classes,
+   *          rather than stopping them after the last test of the class.
+   */
+  public void setSessionScoped(boolean sessionScoped) {
+    this.sessionScoped = sessionScoped;
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#startupReport()}.
+   */
+  public StartupReport startupReport() {
+    return core().startupReport();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#driverClassName()}.
    */
   public String driverClassName() {
-    return core.driverClassName();
+    return core().driverClassName();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#databaseName()}.
    */
   public String databaseName() {
-    return core.databaseName();
+    return databaseName;
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#connectionURL()}
    */
   public String connectionURL() {
-    return core.connectionURL();
+    return core().connectionURL();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#conf()}.
    */
   public HiveConf conf() {
-    return core.conf();
+    return core().conf();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.BeejuCore#newClient()}.
    */
   public HiveMetaStoreClient newClient() {
-    return core.newClient();
+    return core().newClient();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#clientPool()}.
+   */
+  public HiveMetaStoreClientPool clientPool() {
+    return core().clientPool();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#reset()}.
+   */
+  public void reset() {
+    core().reset();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#snapshot(String)}.
+   *
+   * @param name Snapshot name.
+   */
+  public void snapshot(String name) {
+    core().snapshot(name);
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#restore(String)}.
+   *
+   * @param name Snapshot name.
+   */
+  public void restore(String name) {
+    core().restore(name);
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#refreshMetastoreCache()}.
+   */
+  public void refreshMetastoreCache() {
+    core().refreshMetastoreCache();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#metastoreCacheStatistics()}.
+   */
+  public MetastoreCacheStatistics metastoreCacheStatistics() {
+    return core().metastoreCacheStatistics();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.BeejuCore#connectionPoolStatistics()}.
+   */
+  public ConnectionPoolStatistics connectionPoolStatistics() {
+    return core().connectionPoolStatistics();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.BeejuCore#reloadConfiguration(Map)}.
+   *
+   * @param properties Hive configuration properties to set.
+   */
+  public void reloadConfiguration(Map<String, String> properties) {
+    core().reloadConfiguration(properties);
   }
 
   /**
@@ -90,20 +285,20 @@ public abstract class BeejuJUnitExtension implements BeforeEachCallback, AfterEa
    * @throws TException If an error occurs creating the database.
    */
   public void createDatabase(String databaseName) throws TException {
-    core.createDatabase(databaseName);
+    core().createDatabase(databaseName);
   }
 
   /**
    * @return Root temporary directory as a file.
    */
   public File getTempDirectory() {
-    return core.tempDir().toFile();
+    return core().tempDir().toFile();
   }
   
   /**
    * @return Root warehouse directory as a file.
    */
   public File getWarehouseDirectory() {
-    return core.warehouseDir().toFile();
+    return core().warehouseDir().toFile();
   }
 }
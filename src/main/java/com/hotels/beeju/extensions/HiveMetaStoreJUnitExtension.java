@@ -15,8 +15,6 @@
  */
 package com.hotels.beeju.extensions;
 
-import static org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars.CONNECT_URL_KEY;
-
 import java.util.Map;
 
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
@@ -27,12 +25,13 @@ import com.hotels.beeju.core.HiveMetaStoreCore;
 /**
  * A JUnit Extension that creates a Hive Metastore backed by an in-memory database.
  * <p>
- * A fresh database instance will be created for each test method.
+ * A fresh database instance will be created for each test method, or once for all the test methods in a class when the
+ * extension is registered on a {@code static} field.
  * </p>
  */
 public class HiveMetaStoreJUnitExtension extends BeejuJUnitExtension {
 
-  private final HiveMetaStoreCore hiveMetaStoreCore;
+  private HiveMetaStoreCore hiveMetaStoreCore;
 
   /**
    * Create a Hive Metastore with a pre-created database "test_database".
@@ -58,26 +57,42 @@ public class HiveMetaStoreJUnitExtension extends BeejuJUnitExtension {
    */
   public HiveMetaStoreJUnitExtension(String databaseName, Map<String, String> configuration) {
     super(databaseName, configuration);
-    hiveMetaStoreCore = new HiveMetaStoreCore(core);
   }
 
   @Override
-  public void beforeEach(ExtensionContext context) throws Exception {
-    System.clearProperty(CONNECT_URL_KEY.getVarname());
-    super.beforeEach(context);
+  protected void before(ExtensionContext context) throws Exception {
+    super.before(context);
+    initialiseClient();
+  }
+
+  /**
+   * Creates the metastore client for the current {@link #core()}, for subclasses which replace the core with one whose
+   * pre-created database already exists instead of calling {@link #before(ExtensionContext)}.
+   *
+   * @throws Exception If the client can't be created.
+   */
+  protected void initialiseClient() throws Exception {
+    hiveMetaStoreCore = new HiveMetaStoreCore(core());
     hiveMetaStoreCore.initialise();
   }
 
   @Override
-  public void afterEach(ExtensionContext context) throws Exception {
-    hiveMetaStoreCore.shutdown();
-    super.afterEach(context);
+  protected void after(ExtensionContext context) throws Exception {
+    try {
+      if (hiveMetaStoreCore != null) {
+        hiveMetaStoreCore.shutdown();
+      }
+    } finally {
+      hiveMetaStoreCore = null;
+      super.after(context);
+    }
   }
 
   /**
-   * @return {@link com.hotels.beeju.core.HiveMetaStoreCore#client()}.
+   * @return {@link com.hotels.beeju.core.HiveMetaStoreCore#client()}, or {@code null} if the extension hasn't started
+   *         or has stopped.
    */
   public HiveMetaStoreClient client() {
-    return hiveMetaStoreCore.client();
+    return hiveMetaStoreCore == null ? null : hiveMetaStoreCore.client();
   }
 }
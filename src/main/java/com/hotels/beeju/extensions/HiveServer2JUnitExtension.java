@@ -15,18 +15,21 @@
  */
 package com.hotels.beeju.extensions;
 
-import static org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars.CONNECT_URL_KEY;
-
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hive.jdbc.HiveDriver;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
 import com.hotels.beeju.core.HiveServer2Core;
+import com.hotels.beeju.core.QueryProfile;
 
 public class HiveServer2JUnitExtension extends BeejuJUnitExtension {
 
-  private final HiveServer2Core hiveServer2Core;
+  private HiveServer2Core hiveServer2Core;
+  private long startupTimeout;
+  private TimeUnit startupTimeoutUnit;
+  private boolean lazyStart;
 
   /**
    * Create a HiveServer2 service with a pre-created database "test_database".
@@ -52,21 +55,40 @@ public class HiveServer2JUnitExtension extends BeejuJUnitExtension {
    */
   public HiveServer2JUnitExtension(String databaseName, Map<String, String> configuration) {
     super(databaseName, configuration);
-    hiveServer2Core = new HiveServer2Core(core);
+    hiveServer2Core();
+  }
+
+  /**
+   * @return The HiveServer2 of the current {@link #core()}, created with this extension's settings.
+   */
+  private HiveServer2Core hiveServer2Core() {
+    if (hiveServer2Core == null) {
+      hiveServer2Core = new HiveServer2Core(core());
+      if (startupTimeoutUnit != null) {
+        hiveServer2Core.setStartupTimeout(startupTimeout, startupTimeoutUnit);
+      }
+      hiveServer2Core.setLazyStart(lazyStart);
+    }
+    return hiveServer2Core;
   }
 
   @Override
-  public void beforeEach(ExtensionContext context) throws Exception {
-    System.clearProperty(CONNECT_URL_KEY.getVarname());
-    hiveServer2Core.startServerSocket();
-    super.beforeEach(context);
-    hiveServer2Core.initialise();
+  protected void before(ExtensionContext context) throws Exception {
+    hiveServer2Core().startServerSocket();
+    super.before(context);
+    hiveServer2Core().initialise();
   }
 
   @Override
-  public void afterEach(ExtensionContext context) throws Exception {
-    hiveServer2Core.shutdown();
-    super.afterEach(context);
+  protected void after(ExtensionContext context) throws Exception {
+    try {
+      if (hiveServer2Core != null) {
+        hiveServer2Core.shutdown();
+      }
+    } finally {
+      hiveServer2Core = null;
+      super.after(context);
+    }
   }
 
   /**
@@ -82,6 +104,35 @@ public class HiveServer2JUnitExtension extends BeejuJUnitExtension {
    */
   @Override
   public String connectionURL() {
-    return hiveServer2Core.getJdbcConnectionUrl();
+    return hiveServer2Core().getJdbcConnectionUrl();
+  }
+
+  /**
+   * @return {@link com.hotels.beeju.core.HiveServer2Core#getQueryProfile()}.
+   */
+  public QueryProfile queryProfile() {
+    return hiveServer2Core().getQueryProfile();
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.HiveServer2Core#setStartupTimeout(long, TimeUnit)}.
+   *
+   * @param timeout How long to wait for the service to accept connections before failing.
+   * @param unit The unit of the timeout.
+   */
+  public void setStartupTimeout(long timeout, TimeUnit unit) {
+    hiveServer2Core().setStartupTimeout(timeout, unit);
+    startupTimeout = timeout;
+    startupTimeoutUnit = unit;
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.HiveServer2Core#setLazyStart(boolean)}.
+   *
+   * @param lazyStart {@code true} to only start the service the first time a test asks for its connection details.
+   */
+  public void setLazyStart(boolean lazyStart) {
+    hiveServer2Core().setLazyStart(lazyStart);
+    this.lazyStart = lazyStart;
   }
 }
@@ -15,24 +15,39 @@
  */
 package com.hotels.beeju.extensions;
 
-import static org.apache.hadoop.hive.metastore.conf.MetastoreConf.ConfVars.CONNECT_URL_KEY;
-
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.extension.ExtensionContext;
 
 import com.hotels.beeju.core.ThriftHiveMetaStoreCore;
+import com.hotels.beeju.core.ThriftHiveMetaStorePool;
+import com.hotels.beeju.core.ThriftServerOptions;
+import com.hotels.beeju.core.ThriftServerStatistics;
 
 /**
  * A JUnit Extension that creates a Hive Metastore Thrift service backed by a Hive Metastore using an in-memory
  * database.
  * <p>
- * A fresh database instance will be created for each test method.
+ * A fresh database instance will be created for each test method, or once for all the test methods in a class when the
+ * extension is registered on a {@code static} field.
+ * </p>
+ * <p>
+ * When {@link #setPrestart(boolean) pre-start} is enabled the service is taken from the services that
+ * {@link ThriftHiveMetaStorePool#shared()} has started in the background and the service for the next test is started
+ * while this one runs.
  * </p>
  */
 public class ThriftHiveMetaStoreJUnitExtension extends HiveMetaStoreJUnitExtension {
 
-  private final ThriftHiveMetaStoreCore thriftHiveMetaStoreCore;
+  private final Map<String, String> configuration;
+  private final ThriftServerOptions serverOptions;
+  private ThriftHiveMetaStoreCore thriftHiveMetaStoreCore;
+  private int thriftPort = -1;
+  private long startupTimeout;
+  private TimeUnit startupTimeoutUnit;
+  private boolean lazyStart;
+  private boolean prestart;
 
   /**
    * Create a Thrift Hive Metastore service with a pre-created database "test_database".
@@ -57,41 +72,147 @@ public class ThriftHiveMetaStoreJUnitExtension extends HiveMetaStoreJUnitExtensi
    * @param configuration Hive configuration properties.
    */
   public ThriftHiveMetaStoreJUnitExtension(String databaseName, Map<String, String> configuration) {
+    this(databaseName, configuration, ThriftServerOptions.defaults());
+  }
+
+  /**
+   * Create a Thrift Hive Metastore service with a pre-created database using the provided name and configuration,
+   * served by a Thrift server with the provided model and worker pool.
+   *
+   * @param databaseName Database name.
+   * @param configuration Hive configuration properties.
+   * @param serverOptions Thrift server model and worker pool.
+   */
+  public ThriftHiveMetaStoreJUnitExtension(
+      String databaseName,
+      Map<String, String> configuration,
+      ThriftServerOptions serverOptions) {
     super(databaseName, configuration);
-    thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core);
+    this.configuration = configuration;
+    this.serverOptions = serverOptions;
+  }
+
+  /**
+   * @return The Thrift Hive Metastore of the current {@link #core()}, created with this extension's settings.
+   */
+  private ThriftHiveMetaStoreCore thriftHiveMetaStoreCore() {
+    if (thriftHiveMetaStoreCore == null) {
+      thriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(core());
+      thriftHiveMetaStoreCore.setServerOptions(serverOptions);
+      if (thriftPort >= 0) {
+        thriftHiveMetaStoreCore.setThriftPort(thriftPort);
+      }
+      if (startupTimeoutUnit != null) {
+        thriftHiveMetaStoreCore.setStartupTimeout(startupTimeout, startupTimeoutUnit);
+      }
+      thriftHiveMetaStoreCore.setLazyStart(lazyStart);
+    }
+    return thriftHiveMetaStoreCore;
   }
 
   @Override
-  public void beforeEach(ExtensionContext context) throws Exception {
-    System.clearProperty(CONNECT_URL_KEY.getVarname());
-    thriftHiveMetaStoreCore.initialise();
-    super.beforeEach(context);
+  protected void before(ExtensionContext context) throws Exception {
+    if (prestart) {
+      takePrestarted();
+      initialiseClient();
+      return;
+    }
+    thriftHiveMetaStoreCore().initialise();
+    super.before(context);
+  }
+
+  private void takePrestarted() throws Exception {
+    ThriftHiveMetaStorePool pool = ThriftHiveMetaStorePool.shared();
+    ThriftHiveMetaStorePool.Lease lease = pool.lease(databaseName(), configuration, null);
+    lease.detach();
+    pool.prestart(databaseName(), configuration, null);
+    // created by calls made before the extension started
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.shutdown();
+    }
+    if (core != null) {
+      core.cleanUp();
+    }
+    core = lease.core();
+    thriftHiveMetaStoreCore = lease.thriftHiveMetaStore();
   }
 
   @Override
-  public void afterEach(ExtensionContext context) throws Exception {
-    thriftHiveMetaStoreCore.shutdown();
-    super.afterEach(context);
+  protected void after(ExtensionContext context) throws Exception {
+    try {
+      if (thriftHiveMetaStoreCore != null) {
+        thriftHiveMetaStoreCore.shutdown();
+      }
+    } finally {
+      thriftHiveMetaStoreCore = null;
+      super.after(context);
+    }
   }
 
   /**
    * @return {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#getThriftConnectionUri()}.
    */
   public String getThriftConnectionUri() {
-    return thriftHiveMetaStoreCore.getThriftConnectionUri();
+    return thriftHiveMetaStoreCore().getThriftConnectionUri();
   }
 
   /**
    * @return {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#getThriftPort()}
    */
   public int getThriftPort() {
-    return thriftHiveMetaStoreCore.getThriftPort();
+    return thriftHiveMetaStoreCore().getThriftPort();
   }
   
+  /**
+   * @return {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#getServerStatistics()}
+   */
+  public ThriftServerStatistics getServerStatistics() {
+    return thriftHiveMetaStoreCore().getServerStatistics();
+  }
+
   /**
    * @param thriftPort The Port to use for the Thrift Hive metastore, if not set then a port number will automatically be allocated.
    */
   public void setThriftPort(int thriftPort) {
-    thriftHiveMetaStoreCore.setThriftPort(thriftPort);
+    this.thriftPort = thriftPort;
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.setThriftPort(thriftPort);
+    }
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#setStartupTimeout(long, TimeUnit)}.
+   *
+   * @param timeout How long to wait for the service to accept connections before failing.
+   * @param unit The unit of the timeout.
+   */
+  public void setStartupTimeout(long timeout, TimeUnit unit) {
+    startupTimeout = timeout;
+    startupTimeoutUnit = unit;
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.setStartupTimeout(timeout, unit);
+    }
+  }
+
+  /**
+   * @param prestart {@code true} to take a Thrift Hive Metastore service which has been started in the background
+   *          instead of starting one when the test starts, and to start the one for the next test with the same
+   *          database name and configuration in the background. The thrift port, server options, startup timeout and
+   *          lazy start settings don't apply to pre-started services. Disabled by default.
+   */
+  public void setPrestart(boolean prestart) {
+    this.prestart = prestart;
+  }
+
+  /**
+   * See {@link com.hotels.beeju.core.ThriftHiveMetaStoreCore#setLazyStart(boolean)}.
+   *
+   * @param lazyStart {@code true} to only start the service the first time a test asks for its connection details.
+   */
+  public void setLazyStart(boolean lazyStart) {
+    this.lazyStart = lazyStart;
+    if (thriftHiveMetaStoreCore != null) {
+      thriftHiveMetaStoreCore.setLazyStart(lazyStart);
+    }
   }
 }
@@ -0,0 +1,552 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.Deadline;
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.Catalog;
+import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
+import org.apache.hadoop.hive.metastore.api.CreationMetadata;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.InvalidInputException;
+import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
+import org.apache.hadoop.hive.metastore.api.InvalidOperationException;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SQLCheckConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLDefaultConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLForeignKey;
+import org.apache.hadoop.hive.metastore.api.SQLNotNullConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLPrimaryKey;
+import org.apache.hadoop.hive.metastore.api.SQLUniqueConstraint;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.hadoop.hive.metastore.partition.spec.PartitionSpecProxy;
+import org.apache.hadoop.hive.metastore.utils.MetaStoreUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link BeejuObjectStore} which serves the reads read-heavy tests repeat most, of databases, tables and partitions
+ * and the lists of their names, from a cache of the metastore database.
+ * <p>
+ * Hive's {@code CachedStore} keeps one cache and one background refresh thread for the whole JVM, bound to the
+ * configuration of the first store created, so it can't be used by more than one metastore at a time. This store
+ * keeps a cache for each metastore database instead, which is filled synchronously by {@link #prewarm(Configuration)}
+ * and as objects are read. Writes made through the metastore invalidate the objects they change as soon as they are
+ * made and again when their transaction ends; the cache must be {@link #prewarm(Configuration) refreshed} after the
+ * metastore database has been changed in any other way.
+ * </p>
+ */
+public class BeejuCachedStore extends BeejuObjectStore {
+
+  private static final Logger log = LoggerFactory.getLogger(BeejuCachedStore.class);
+
+  private static final long PREWARM_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private MetastoreCache cache;
+  private final List<Runnable> pendingInvalidations = new ArrayList<>();
+
+  /**
+   * Empties the cache of the metastore with the given configuration and fills it with every database, table and
+   * partition in the metastore database.
+   *
+   * @param conf The metastore configuration.
+   * @throws MetaException If the metastore database can't be read.
+   */
+  public static void prewarm(Configuration conf) throws MetaException {
+    long start = System.nanoTime();
+    BeejuCachedStore store = new BeejuCachedStore();
+    store.setConf(conf);
+    Deadline.registerIfNot(PREWARM_TIMEOUT_MILLIS);
+    try {
+      store.prewarm();
+    } finally {
+      Deadline.clear();
+      store.shutdown();
+    }
+    log.info("Prewarmed metastore cache {} in {} ms", store.cache.statistics(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * @param connectionURL The connection URL of the metastore database.
+   * @return The statistics of the cache of the metastore, or {@code null} if it hasn't been used.
+   */
+  public static MetastoreCacheStatistics statistics(String connectionURL) {
+    MetastoreCache cache = MetastoreCache.get(connectionURL);
+    return cache == null ? null : cache.statistics();
+  }
+
+  /**
+   * Discards the cache of the metastore.
+   *
+   * @param connectionURL The connection URL of the metastore database.
+   */
+  public static void dropCache(String connectionURL) {
+    MetastoreCache.remove(connectionURL);
+  }
+
+  @Override
+  public void setConf(Configuration conf) {
+    super.setConf(conf);
+    cache = MetastoreCache.forId(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY));
+  }
+
+  private void prewarm() throws MetaException {
+    cache.invalidateAll();
+    long generation = cache.generation();
+    for (String catalogName : super.getCatalogs()) {
+      List<String> databaseNames = super.getAllDatabases(catalogName);
+      cache.put(cache.databaseNames, MetastoreCache.key(catalogName), databaseNames, generation);
+      for (String databaseName : databaseNames) {
+        try {
+          cache.put(cache.databases, MetastoreCache.key(catalogName, databaseName),
+              super.getDatabase(catalogName, databaseName), generation);
+        } catch (NoSuchObjectException e) {
+          // dropped since it was listed
+          continue;
+        }
+        List<String> tableNames = super.getAllTables(catalogName, databaseName);
+        cache.put(cache.tableNames, MetastoreCache.key(catalogName, databaseName), tableNames, generation);
+        for (String tableName : tableNames) {
+          Table table = super.getTable(catalogName, databaseName, tableName);
+          if (table == null) {
+            continue;
+          }
+          String tableKey = MetastoreCache.key(catalogName, databaseName, tableName);
+          cache.put(cache.tables, tableKey, table, generation);
+          if (table.getPartitionKeysSize() > 0) {
+            cache.put(cache.partitions, tableKey, loadPartitions(table), generation);
+          }
+        }
+      }
+    }
+  }
+
+  private String catalogName(String catalogName) {
+    return catalogName == null ? MetaStoreUtils.getDefaultCatalog(getConf()) : catalogName;
+  }
+
+  // reads
+
+  @Override
+  public Database getDatabase(String catalogName, String name) throws NoSuchObjectException {
+    String key = MetastoreCache.key(catalogName(catalogName), name);
+    Database database = cache.get(cache.databases, key);
+    if (database == null) {
+      long generation = cache.miss();
+      database = super.getDatabase(catalogName, name);
+      putIfNotInTransaction(cache.databases, key, database, generation);
+    }
+    return database.deepCopy();
+  }
+
+  @Override
+  public List<String> getAllDatabases(String catName) throws MetaException {
+    String key = MetastoreCache.key(catalogName(catName));
+    List<String> names = cache.get(cache.databaseNames, key);
+    if (names == null) {
+      long generation = cache.miss();
+      names = Collections.unmodifiableList(new ArrayList<>(super.getAllDatabases(catName)));
+      putIfNotInTransaction(cache.databaseNames, key, names, generation);
+    }
+    return new ArrayList<>(names);
+  }
+
+  @Override
+  public Table getTable(String catName, String dbName, String tableName) throws MetaException {
+    Table table = cachedTable(catName, dbName, tableName);
+    return table == null ? null : table.deepCopy();
+  }
+
+  private Table cachedTable(String catName, String dbName, String tableName) throws MetaException {
+    String key = MetastoreCache.key(catalogName(catName), dbName, tableName);
+    Table table = cache.get(cache.tables, key);
+    if (table == null) {
+      long generation = cache.miss();
+      table = super.getTable(catName, dbName, tableName);
+      putIfNotInTransaction(cache.tables, key, table, generation);
+    }
+    return table;
+  }
+
+  @Override
+  public List<String> getAllTables(String catName, String dbName) throws MetaException {
+    String key = MetastoreCache.key(catalogName(catName), dbName);
+    List<String> names = cache.get(cache.tableNames, key);
+    if (names == null) {
+      long generation = cache.miss();
+      names = Collections.unmodifiableList(new ArrayList<>(super.getAllTables(catName, dbName)));
+      putIfNotInTransaction(cache.tableNames, key, names, generation);
+    }
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * @return The partitions of the table keyed by name in name order, or {@code null} if the table doesn't exist.
+   */
+  private Map<String, Partition> cachedPartitions(String catName, String dbName, String tableName)
+    throws MetaException {
+    String key = MetastoreCache.key(catalogName(catName), dbName, tableName);
+    Map<String, Partition> partitions = cache.get(cache.partitions, key);
+    if (partitions == null) {
+      long generation = cache.miss();
+      Table table = super.getTable(catName, dbName, tableName);
+      if (table == null) {
+        return null;
+      }
+      partitions = loadPartitions(table);
+      putIfNotInTransaction(cache.partitions, key, partitions, generation);
+    }
+    return partitions;
+  }
+
+  private Map<String, Partition> loadPartitions(Table table) throws MetaException {
+    List<Partition> partitions;
+    boolean timed = Deadline.startTimer("getPartitions");
+    try {
+      partitions = super.getPartitions(table.getCatName(), table.getDbName(), table.getTableName(), -1);
+    } catch (NoSuchObjectException e) {
+      partitions = Collections.emptyList();
+    } finally {
+      if (timed) {
+        Deadline.stopTimer();
+      }
+    }
+    Map<String, Partition> partitionsByName = new TreeMap<>();
+    for (Partition partition : partitions) {
+      partitionsByName.put(Warehouse.makePartName(table.getPartitionKeys(), partition.getValues()), partition);
+    }
+    return Collections.unmodifiableMap(new LinkedHashMap<>(partitionsByName));
+  }
+
+  private <T> void putIfNotInTransaction(Map<String, T> map, String key, T value, long generation) {
+    // objects read in a transaction may include its own changes, which aren't committed yet
+    if (!isActiveTransaction()) {
+      cache.put(map, key, value, generation);
+    }
+  }
+
+  private static List<Partition> copies(Iterable<Partition> partitions, int max) {
+    List<Partition> copies = new ArrayList<>();
+    for (Partition partition : partitions) {
+      if (max >= 0 && copies.size() >= max) {
+        break;
+      }
+      copies.add(partition.deepCopy());
+    }
+    return copies;
+  }
+
+  @Override
+  public List<Partition> getPartitions(String catName, String dbName, String tableName, int maxParts)
+    throws MetaException, NoSuchObjectException {
+    Map<String, Partition> partitions = cachedPartitions(catName, dbName, tableName);
+    if (partitions == null) {
+      return super.getPartitions(catName, dbName, tableName, maxParts);
+    }
+    return copies(partitions.values(), maxParts);
+  }
+
+  @Override
+  public Partition getPartition(String catName, String dbName, String tableName, List<String> part_vals)
+    throws NoSuchObjectException, MetaException {
+    Table table = cachedTable(catName, dbName, tableName);
+    Map<String, Partition> partitions = cachedPartitions(catName, dbName, tableName);
+    if (table == null || partitions == null || part_vals.size() != table.getPartitionKeysSize()) {
+      return super.getPartition(catName, dbName, tableName, part_vals);
+    }
+    Partition partition = partitions.get(Warehouse.makePartName(table.getPartitionKeys(), part_vals));
+    if (partition == null) {
+      throw new NoSuchObjectException("partition values=" + part_vals.toString());
+    }
+    return partition.deepCopy();
+  }
+
+  @Override
+  public List<String> listPartitionNames(String catName, String dbName, String tableName, short max)
+    throws MetaException {
+    Map<String, Partition> partitions = cachedPartitions(catName, dbName, tableName);
+    if (partitions == null) {
+      return super.listPartitionNames(catName, dbName, tableName, max);
+    }
+    List<String> names = new ArrayList<>();
+    for (String name : partitions.keySet()) {
+      if (max >= 0 && names.size() >= max) {
+        break;
+      }
+      names.add(name);
+    }
+    return names;
+  }
+
+  @Override
+  public List<Partition> getPartitionsByNames(String catName, String dbName, String tblName, List<String> partNames)
+    throws MetaException, NoSuchObjectException {
+    Map<String, Partition> partitions = cachedPartitions(catName, dbName, tblName);
+    if (partitions == null) {
+      return super.getPartitionsByNames(catName, dbName, tblName, partNames);
+    }
+    Set<String> names = new HashSet<>(partNames);
+    List<Partition> result = new ArrayList<>();
+    for (Map.Entry<String, Partition> partition : partitions.entrySet()) {
+      if (names.contains(partition.getKey())) {
+        result.add(partition.getValue().deepCopy());
+      }
+    }
+    return result;
+  }
+
+  // writes
+
+  /**
+   * Invalidates cached objects now and, if there is a transaction, again when it ends, so that objects which are read
+   * from the metastore database by other stores before the transaction is committed are invalidated too.
+   */
+  private void invalidate(Runnable invalidation) {
+    invalidation.run();
+    if (isActiveTransaction()) {
+      pendingInvalidations.add(invalidation);
+    }
+  }
+
+  private void invalidateTable(String catName, String dbName, String tableName) {
+    String catalogName = catalogName(catName);
+    invalidate(() -> cache.invalidateTable(catalogName, dbName, tableName));
+  }
+
+  private void invalidatePartitions(String catName, String dbName, String tableName) {
+    String catalogName = catalogName(catName);
+    invalidate(() -> cache.invalidatePartitions(catalogName, dbName, tableName));
+  }
+
+  private void endTransaction() {
+    if (!isActiveTransaction()) {
+      for (Runnable invalidation : pendingInvalidations) {
+        invalidation.run();
+      }
+      pendingInvalidations.clear();
+    }
+  }
+
+  @Override
+  public boolean commitTransaction() {
+    try {
+      return super.commitTransaction();
+    } finally {
+      endTransaction();
+    }
+  }
+
+  @Override
+  public void rollbackTransaction() {
+    try {
+      super.rollbackTransaction();
+    } finally {
+      endTransaction();
+    }
+  }
+
+  @Override
+  public void createCatalog(Catalog cat) throws MetaException {
+    invalidate(cache::invalidateAll);
+    super.createCatalog(cat);
+  }
+
+  @Override
+  public void alterCatalog(String catName, Catalog cat) throws MetaException, InvalidOperationException {
+    invalidate(cache::invalidateAll);
+    super.alterCatalog(catName, cat);
+  }
+
+  @Override
+  public void dropCatalog(String catalogName) throws NoSuchObjectException, MetaException {
+    invalidate(cache::invalidateAll);
+    super.dropCatalog(catalogName);
+  }
+
+  @Override
+  public void createDatabase(Database db) throws InvalidObjectException, MetaException {
+    String catalogName = catalogName(db.getCatalogName());
+    invalidate(() -> cache.invalidateDatabase(catalogName, db.getName()));
+    super.createDatabase(db);
+  }
+
+  @Override
+  public boolean dropDatabase(String catName, String dbname) throws NoSuchObjectException, MetaException {
+    String catalogName = catalogName(catName);
+    invalidate(() -> cache.invalidateDatabase(catalogName, dbname));
+    return super.dropDatabase(catName, dbname);
+  }
+
+  @Override
+  public boolean alterDatabase(String catName, String dbName, Database db)
+    throws MetaException, NoSuchObjectException {
+    String catalogName = catalogName(catName);
+    invalidate(() -> cache.invalidateDatabase(catalogName, dbName));
+    return super.alterDatabase(catName, dbName, db);
+  }
+
+  @Override
+  public void createTable(Table tbl) throws InvalidObjectException, MetaException {
+    invalidateTable(tbl.getCatName(), tbl.getDbName(), tbl.getTableName());
+    super.createTable(tbl);
+  }
+
+  @Override
+  public List<String> createTableWithConstraints(
+      Table tbl,
+      List<SQLPrimaryKey> primaryKeys,
+      List<SQLForeignKey> foreignKeys,
+      List<SQLUniqueConstraint> uniqueConstraints,
+      List<SQLNotNullConstraint> notNullConstraints,
+      List<SQLDefaultConstraint> defaultConstraints,
+      List<SQLCheckConstraint> checkConstraints)
+    throws InvalidObjectException, MetaException {
+    invalidateTable(tbl.getCatName(), tbl.getDbName(), tbl.getTableName());
+    return super.createTableWithConstraints(tbl, primaryKeys, foreignKeys, uniqueConstraints, notNullConstraints,
+        defaultConstraints, checkConstraints);
+  }
+
+  @Override
+  public boolean dropTable(String catName, String dbName, String tableName)
+    throws MetaException, NoSuchObjectException, InvalidObjectException, InvalidInputException {
+    invalidateTable(catName, dbName, tableName);
+    return super.dropTable(catName, dbName, tableName);
+  }
+
+  @Override
+  public void alterTable(String catName, String dbname, String name, Table newTable)
+    throws InvalidObjectException, MetaException {
+    invalidateTable(catName, dbname, name);
+    invalidateTable(catName, newTable.getDbName(), newTable.getTableName());
+    super.alterTable(catName, dbname, name, newTable);
+  }
+
+  @Override
+  public void updateCreationMetadata(String catName, String dbname, String tablename, CreationMetadata cm)
+    throws MetaException {
+    invalidateTable(catName, dbname, tablename);
+    super.updateCreationMetadata(catName, dbname, tablename, cm);
+  }
+
+  @Override
+  public boolean addPartition(Partition part) throws InvalidObjectException, MetaException {
+    invalidatePartitions(part.getCatName(), part.getDbName(), part.getTableName());
+    return super.addPartition(part);
+  }
+
+  @Override
+  public boolean addPartitions(String catName, String dbName, String tblName, List<Partition> parts)
+    throws InvalidObjectException, MetaException {
+    invalidatePartitions(catName, dbName, tblName);
+    return super.addPartitions(catName, dbName, tblName, parts);
+  }
+
+  @Override
+  public boolean addPartitions(
+      String catName,
+      String dbName,
+      String tblName,
+      PartitionSpecProxy partitionSpec,
+      boolean ifNotExists)
+    throws InvalidObjectException, MetaException {
+    invalidatePartitions(catName, dbName, tblName);
+    return super.addPartitions(catName, dbName, tblName, partitionSpec, ifNotExists);
+  }
+
+  @Override
+  public boolean dropPartition(String catName, String dbName, String tableName, List<String> part_vals)
+    throws MetaException, NoSuchObjectException, InvalidObjectException, InvalidInputException {
+    invalidatePartitions(catName, dbName, tableName);
+    return super.dropPartition(catName, dbName, tableName, part_vals);
+  }
+
+  @Override
+  public void dropPartitions(String catName, String dbName, String tblName, List<String> partNames)
+    throws MetaException, NoSuchObjectException {
+    invalidatePartitions(catName, dbName, tblName);
+    super.dropPartitions(catName, dbName, tblName, partNames);
+  }
+
+  @Override
+  public void alterPartition(String catName, String dbname, String name, List<String> part_vals, Partition newPart)
+    throws InvalidObjectException, MetaException {
+    invalidatePartitions(catName, dbname, name);
+    super.alterPartition(catName, dbname, name, part_vals, newPart);
+  }
+
+  @Override
+  public void alterPartitions(
+      String catName,
+      String dbname,
+      String name,
+      List<List<String>> part_vals,
+      List<Partition> newParts)
+    throws InvalidObjectException, MetaException {
+    invalidatePartitions(catName, dbname, name);
+    super.alterPartitions(catName, dbname, name, part_vals, newParts);
+  }
+
+  @Override
+  public boolean updateTableColumnStatistics(ColumnStatistics colStats)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    invalidateTable(colStats.getStatsDesc().getCatName(), colStats.getStatsDesc().getDbName(),
+        colStats.getStatsDesc().getTableName());
+    return super.updateTableColumnStatistics(colStats);
+  }
+
+  @Override
+  public boolean updatePartitionColumnStatistics(ColumnStatistics colStats, List<String> partVals)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    invalidatePartitions(colStats.getStatsDesc().getCatName(), colStats.getStatsDesc().getDbName(),
+        colStats.getStatsDesc().getTableName());
+    return super.updatePartitionColumnStatistics(colStats, partVals);
+  }
+
+  @Override
+  public boolean deleteTableColumnStatistics(String catName, String dbName, String tableName, String colName)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    invalidateTable(catName, dbName, tableName);
+    return super.deleteTableColumnStatistics(catName, dbName, tableName, colName);
+  }
+
+  @Override
+  public boolean deletePartitionColumnStatistics(
+      String catName,
+      String dbName,
+      String tableName,
+      String partName,
+      List<String> partVals,
+      String colName)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    invalidatePartitions(catName, dbName, tableName);
+    return super.deletePartitionColumnStatistics(catName, dbName, tableName, partName, partVals, colName);
+  }
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.sql.DataSource;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.ObjectStore;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.hadoop.hive.metastore.datasource.DataSourceProvider;
+import org.apache.hadoop.hive.metastore.datasource.DataSourceProviderFactory;
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.NucleusContext;
+import org.datanucleus.api.jdo.JDOPersistenceManagerFactory;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.MetaData;
+import org.datanucleus.metadata.MetaDataManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link ObjectStore} which gets its {@link PersistenceManagerFactory} from the configuration it was given rather
+ * than from JVM wide state.
+ * <p>
+ * Hive's {@code ObjectStore} keeps a single static {@link PersistenceManagerFactory}, creates it from a configuration
+ * loaded from the System properties and closes it whenever an {@code ObjectStore} is configured for a different
+ * database. This means that only one metastore database can be used at a time in each JVM. This store keeps a
+ * {@link PersistenceManagerFactory} for each distinct set of DataNucleus properties instead so that many metastores
+ * can run concurrently, each one on its own database.
+ * </p>
+ * <p>
+ * Metastores whose DataNucleus properties only differ in their database, which has been cloned with the complete
+ * schema, share one {@link PersistenceManagerFactory} and its JDO metadata unless {@value #SHARED_FACTORY} is
+ * {@code false}. The factory connects to the database of the metastore this store was last configured for on the
+ * calling thread, and allocates ids one at a time from the database they are used in.
+ * </p>
+ * <p>
+ * BeeJU metastore handlers pass their configuration to the RawStore of the calling thread before every call, so that
+ * a thread which calls more than one metastore uses the right database for each. Hive's {@code ObjectStore} creates a
+ * new {@link PersistenceManager} and checks the database for direct SQL each time, which this store only does when
+ * the configuration is a different one, when it has been {@link #reloadConfiguration(String, Map) reloaded} or when
+ * {@value #RELOAD_PER_CALL} is {@code true}.
+ * </p>
+ */
+public class BeejuObjectStore extends ObjectStore {
+
+  /**
+   * Configuration property which, when {@code true}, makes the store initialise itself again before every metastore
+   * call, as Hive's {@code ObjectStore} does. Defaults to {@code false}.
+   */
+  public static final String RELOAD_PER_CALL = "beeju.metastore.reload.per.call";
+
+  /**
+   * Configuration property which, when {@code false}, gives the metastore its own {@link PersistenceManagerFactory}
+   * even if it could share one with other metastores. Defaults to {@code true}.
+   */
+  public static final String SHARED_FACTORY = "beeju.metastore.shared.factory";
+
+  private static final Logger log = LoggerFactory.getLogger(BeejuObjectStore.class);
+
+  private static final String CONNECTION_URL = MetastoreConf.ConfVars.CONNECT_URL_KEY.getVarname();
+  private static final String PASSWORD = MetastoreConf.ConfVars.PWD.getVarname();
+  private static final String CONNECTION_FACTORY = "datanucleus.ConnectionFactory";
+  private static final String NON_TRANSACTIONAL_CONNECTION_FACTORY = "datanucleus.ConnectionFactory2";
+  private static final String KEY_CACHE_SIZE = "key-cache-size";
+  private static final String QUERY_RESULTS_CACHED = "datanucleus.query.results.cached";
+  private static final String PERSISTENCE_MANAGER_FACTORY_CLASS = "javax.jdo.PersistenceManagerFactoryClass";
+  private static final List<String> QUERY_CACHE_PROPERTIES = Arrays.asList("datanucleus.query.compilation.cached",
+      "datanucleus.cache.queryCompilation.type", "datanucleus.cache.queryCompilationDatastore.type",
+      "datanucleus.query.results.cached", "datanucleus.cache.queryResults.type");
+
+  private static final ConcurrentMap<Map<Object, Object>, PersistenceManagerFactory> factories = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<Map<Object, Object>, SharedFactory> sharedFactories = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<Map<Object, Object>, DataSource> pools = new ConcurrentHashMap<>();
+
+  private long reloadedVersion;
+  private boolean reloadPerCall;
+
+  @Override
+  public void setConf(Configuration conf) {
+    DatabaseRoutingDataSource.select(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY));
+    ConfigurationReloads reloads = ConfigurationReloads.forConf(conf);
+    // a metastore whose reloads have been dropped is being shut down, so there is nothing to initialise again for
+    long version = reloads == null ? reloadedVersion : reloads.version();
+    if (!reloadPerCall && conf == getConf() && version == reloadedVersion) {
+      return;
+    }
+    if (reloads != null) {
+      reloadedVersion = reloads.applyTo(conf);
+    }
+    reloadPerCall = conf.getBoolean(RELOAD_PER_CALL, false);
+    super.setConf(conf);
+  }
+
+  /**
+   * Sets configuration properties in every RawStore of a running metastore, and in the configuration of the metastore
+   * handlers they belong to, before their next call. Properties of the metastore database connection can't be
+   * reloaded.
+   *
+   * @param connectionURL JDBC connection URL of the metastore database.
+   * @param properties Configuration properties to set, or none to only make the stores initialise themselves again,
+   *          e.g. after their {@link PersistenceManagerFactory} has been closed.
+   */
+  public static void reloadConfiguration(String connectionURL, Map<String, String> properties) {
+    ConfigurationReloads.forId(connectionURL).reload(properties);
+  }
+
+  /**
+   * Forgets the configuration {@link #reloadConfiguration(String, Map) reloaded} into a metastore which is no longer
+   * used.
+   *
+   * @param connectionURL JDBC connection URL of the metastore database.
+   */
+  public static void dropConfigurationReloads(String connectionURL) {
+    ConfigurationReloads.remove(connectionURL);
+  }
+
+  @Override
+  public PersistenceManager getPersistenceManager() {
+    return persistenceManagerFactory(getConf()).getPersistenceManager();
+  }
+
+  private static PersistenceManagerFactory persistenceManagerFactory(Configuration conf) {
+    Map<Object, Object> properties = dataSourceProperties(conf);
+    if (isShareable(conf)) {
+      Map<Object, Object> sharedProperties = new HashMap<>(properties);
+      String connectionURL = (String) sharedProperties.remove(CONNECTION_URL);
+      sharedProperties.remove(PASSWORD);
+      SharedFactory sharedFactory = sharedFactories.computeIfAbsent(sharedProperties, SharedFactory::new);
+      sharedFactory.databases.add(connectionURL, url -> database(conf, properties));
+      return sharedFactory.factory();
+    }
+    return factories.computeIfAbsent(properties, key -> create(conf, key));
+  }
+
+  private static boolean isShareable(Configuration conf) {
+    return conf.getBoolean(SHARED_FACTORY, true)
+        // the schema would only be created in the first database
+        && !MetastoreConf.getBoolVar(conf, MetastoreConf.ConfVars.AUTO_CREATE_ALL)
+        // cached objects and query results would be read from another database
+        && !MetastoreConf.getBoolVar(conf, MetastoreConf.ConfVars.DATANUCLEUS_CACHE_LEVEL2)
+        && !conf.getBoolean(QUERY_RESULTS_CACHED, false)
+        && "NONE".equalsIgnoreCase(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_POOLING_TYPE));
+  }
+
+  private static DataSource database(Configuration conf, Map<Object, Object> properties) {
+    try {
+      DataSource pool = MetastoreConnectionPool.forConf(conf).create(conf);
+      if (pool == null) {
+        return new DatabaseRoutingDataSource.Unpooled(DataSourceProvider.getMetastoreJdbcDriverUrl(conf),
+            DataSourceProvider.getMetastoreJdbcUser(conf), DataSourceProvider.getMetastoreJdbcPasswd(conf));
+      }
+      pools.put(properties, pool);
+      return pool;
+    } catch (SQLException e) {
+      throw new RuntimeException("Error creating metastore connection pool: " + e.getMessage(), e);
+    }
+  }
+
+  private static PersistenceManagerFactory create(Configuration conf, Map<Object, Object> properties) {
+    log.debug("Creating PersistenceManagerFactory for {}", properties.get(CONNECTION_URL));
+    MetastoreConnectionPool pool = MetastoreConnectionPool.forConf(conf);
+    if (pool != MetastoreConnectionPool.NONE) {
+      try {
+        DataSource dataSource = pool.create(conf);
+        pools.put(properties, dataSource);
+        return JDOHelper.getPersistenceManagerFactory(pooledProperties(properties, dataSource));
+      } catch (SQLException e) {
+        throw new RuntimeException("Error creating metastore connection pool: " + e.getMessage(), e);
+      }
+    }
+    DataSourceProvider dataSourceProvider = DataSourceProviderFactory.getDataSourceProvider(conf);
+    if (dataSourceProvider == null) {
+      return JDOHelper.getPersistenceManagerFactory(properties);
+    }
+    try {
+      DataSource dataSource = dataSourceProvider.create(conf);
+      return JDOHelper.getPersistenceManagerFactory(pooledProperties(properties, dataSource));
+    } catch (SQLException e) {
+      log.warn("Could not create PersistenceManagerFactory using connection pool properties, will fall back", e);
+      return JDOHelper.getPersistenceManagerFactory(properties);
+    }
+  }
+
+  private static Map<Object, Object> pooledProperties(Map<Object, Object> properties, DataSource dataSource) {
+    Map<Object, Object> pooled = new HashMap<>(properties);
+    pooled.put(CONNECTION_FACTORY, dataSource);
+    pooled.put(PERSISTENCE_MANAGER_FACTORY_CLASS, "org.datanucleus.api.jdo.JDOPersistenceManagerFactory");
+    return pooled;
+  }
+
+  /**
+   * Mirrors the way Hive's {@code ObjectStore} extracts the properties used to create its
+   * {@link PersistenceManagerFactory}, and also passes on the DataNucleus query cache properties, which Hive's
+   * {@code ObjectStore} ignores.
+   */
+  private static Map<Object, Object> dataSourceProperties(Configuration conf) {
+    Map<Object, Object> properties = new HashMap<>();
+    for (MetastoreConf.ConfVars var : MetastoreConf.dataNucleusAndJdoConfs) {
+      properties.put(var.getVarname(), MetastoreConf.getAsString(conf, var));
+    }
+    for (String key : QUERY_CACHE_PROPERTIES) {
+      String value = conf.get(key);
+      if (value != null) {
+        properties.put(key, value);
+      }
+    }
+    try {
+      String password = MetastoreConf.getPassword(conf, MetastoreConf.ConfVars.PWD);
+      if (password != null && !password.isEmpty()) {
+        properties.put(MetastoreConf.ConfVars.PWD.getVarname(), password);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Error getting metastore password: " + e.getMessage(), e);
+    }
+    return properties;
+  }
+
+  /**
+   * Closes the {@link PersistenceManagerFactory PersistenceManagerFactories} of a metastore database which is no longer
+   * used.
+   *
+   * @param connectionURL JDBC connection URL of the metastore database.
+   */
+  public static void closePersistenceManagerFactories(String connectionURL) {
+    for (Iterator<Map.Entry<Map<Object, Object>, PersistenceManagerFactory>> iterator = factories
+        .entrySet()
+        .iterator(); iterator.hasNext();) {
+      Map.Entry<Map<Object, Object>, PersistenceManagerFactory> entry = iterator.next();
+      if (connectionURL.equals(entry.getKey().get(CONNECTION_URL))) {
+        iterator.remove();
+        try {
+          entry.getValue().close();
+        } catch (RuntimeException e) {
+          log.warn("Error closing PersistenceManagerFactory for " + connectionURL, e);
+        }
+      }
+    }
+    // shared factories stay open for the next metastores
+    for (SharedFactory sharedFactory : sharedFactories.values()) {
+      sharedFactory.databases.remove(connectionURL);
+    }
+    for (Iterator<Map.Entry<Map<Object, Object>, DataSource>> iterator = pools.entrySet().iterator(); iterator
+        .hasNext();) {
+      Map.Entry<Map<Object, Object>, DataSource> entry = iterator.next();
+      if (connectionURL.equals(entry.getKey().get(CONNECTION_URL))) {
+        iterator.remove();
+        try {
+          MetastoreConnectionPool.close(entry.getValue());
+        } catch (Exception e) {
+          log.warn("Error closing connection pool for " + connectionURL, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param connectionURL JDBC connection URL of the metastore database.
+   * @return The current state of the {@link MetastoreConnectionPool} of the metastore, with the connections of all its
+   *         {@link PersistenceManagerFactory PersistenceManagerFactories} added together, or {@code null} if it doesn't
+   *         have one or hasn't used it yet.
+   */
+  public static ConnectionPoolStatistics connectionPoolStatistics(String connectionURL) {
+    ConnectionPoolStatistics total = null;
+    for (Map.Entry<Map<Object, Object>, DataSource> entry : pools.entrySet()) {
+      if (connectionURL.equals(entry.getKey().get(CONNECTION_URL))) {
+        ConnectionPoolStatistics statistics = MetastoreConnectionPool.statistics(entry.getValue());
+        total = total == null ? statistics : total.add(statistics);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * @param connectionURL JDBC connection URL of the metastore database.
+   * @return {@code true} if the metastore uses a {@link PersistenceManagerFactory} which it shares with other
+   *         metastores, {@code false} if it has its own or hasn't used one yet.
+   */
+  public static boolean isFactoryShared(String connectionURL) {
+    for (SharedFactory sharedFactory : sharedFactories.values()) {
+      if (sharedFactory.databases.contains(connectionURL)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A {@link PersistenceManagerFactory} which connects to the database selected by the calling thread.
+   */
+  private static final class SharedFactory {
+
+    private final Map<Object, Object> properties;
+    private final DatabaseRoutingDataSource databases = new DatabaseRoutingDataSource();
+    private PersistenceManagerFactory factory;
+
+    private SharedFactory(Map<Object, Object> sharedProperties) {
+      properties = new HashMap<>(sharedProperties);
+      properties.put(CONNECTION_FACTORY, databases);
+      properties.put(NON_TRANSACTIONAL_CONNECTION_FACTORY, databases);
+      properties.put(PERSISTENCE_MANAGER_FACTORY_CLASS, "org.datanucleus.api.jdo.JDOPersistenceManagerFactory");
+    }
+
+    /**
+     * Creates the factory once a database has been added, as DataNucleus connects to it straight away.
+     */
+    private synchronized PersistenceManagerFactory factory() {
+      if (factory == null) {
+        log.debug("Creating shared PersistenceManagerFactory");
+        factory = JDOHelper.getPersistenceManagerFactory(properties);
+        NucleusContext context = ((JDOPersistenceManagerFactory) factory).getNucleusContext();
+        MetaDataManager metaDataManager = context.getMetaDataManager();
+        // the metastore classes are loaded with the factory, any others the first time they are used
+        metaDataManager.registerListener(SharedFactory::allocateIdsOneAtATime);
+        ClassLoaderResolver resolver = context.getClassLoaderResolver(BeejuObjectStore.class.getClassLoader());
+        for (String className : metaDataManager.getClassesWithMetaData()) {
+          allocateIdsOneAtATime(metaDataManager.getMetaDataForClass(className, resolver));
+        }
+      }
+      return factory;
+    }
+
+    /**
+     * DataNucleus keeps the ids it has allocated but not used yet for the next object of the class, whichever
+     * database it is stored in, and allocates the next ones from the database which happens to be selected. Allocating
+     * one id at a time always takes it from the database the object is stored in.
+     */
+    private static void allocateIdsOneAtATime(AbstractClassMetaData classMetaData) {
+      allocateOneAtATime(classMetaData.getIdentityMetaData());
+      for (int i = 0; i < classMetaData.getNoOfMembers(); i++) {
+        AbstractMemberMetaData memberMetaData = classMetaData.getMetaDataForMemberAtRelativePosition(i);
+        if (memberMetaData.getValueStrategy() != null) {
+          allocateOneAtATime(memberMetaData);
+        }
+      }
+    }
+
+    private static void allocateOneAtATime(MetaData metaData) {
+      if (metaData != null && !metaData.hasExtension(KEY_CACHE_SIZE)) {
+        metaData.addExtension(KEY_CACHE_SIZE, "1");
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+
+/**
+ * The configuration properties which have been {@link BeejuObjectStore#reloadConfiguration(String, Map) reloaded}
+ * into a running metastore, keyed by the connection URL of its database, and a version which changes with each
+ * reload so that the RawStores of the metastore know when to apply them. Versions are never reused, so a store can't
+ * mistake the reloads of a metastore which has been dropped and started again for the ones it has applied.
+ */
+final class ConfigurationReloads {
+
+  private static final ConcurrentMap<String, ConfigurationReloads> reloads = new ConcurrentHashMap<>();
+  private static final AtomicLong versions = new AtomicLong();
+
+  private final Map<String, String> properties = new LinkedHashMap<>();
+  private volatile long version;
+
+  /**
+   * @param conf The configuration of a RawStore.
+   * @return The reloads of the RawStore's metastore, or {@code null} if there haven't been any.
+   */
+  static ConfigurationReloads forConf(Configuration conf) {
+    return reloads.get(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECT_URL_KEY));
+  }
+
+  static ConfigurationReloads forId(String id) {
+    return reloads.computeIfAbsent(id, key -> new ConfigurationReloads());
+  }
+
+  static void remove(String id) {
+    reloads.remove(id);
+  }
+
+  synchronized void reload(Map<String, String> reloadedProperties) {
+    properties.putAll(reloadedProperties);
+    version = versions.incrementAndGet();
+  }
+
+  long version() {
+    return version;
+  }
+
+  /**
+   * Sets every property reloaded so far in the given configuration.
+   *
+   * @return The version which has been applied.
+   */
+  synchronized long applyTo(Configuration conf) {
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      conf.set(property.getKey(), property.getValue());
+    }
+    return version;
+  }
+}
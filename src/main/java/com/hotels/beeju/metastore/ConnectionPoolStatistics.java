@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+/**
+ * A snapshot of the connections of the {@link MetastoreConnectionPool} of a metastore.
+ */
+public final class ConnectionPoolStatistics {
+
+  private final int maximumConnections;
+  private final int activeConnections;
+  private final int idleConnections;
+  private final int threadsAwaitingConnection;
+
+  ConnectionPoolStatistics(
+      int maximumConnections,
+      int activeConnections,
+      int idleConnections,
+      int threadsAwaitingConnection) {
+    this.maximumConnections = maximumConnections;
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+    this.threadsAwaitingConnection = threadsAwaitingConnection;
+  }
+
+  /**
+   * @return The maximum number of connections the pool opens.
+   */
+  public int getMaximumConnections() {
+    return maximumConnections;
+  }
+
+  /**
+   * @return The number of connections in use.
+   */
+  public int getActiveConnections() {
+    return activeConnections;
+  }
+
+  /**
+   * @return The number of open connections which aren't in use.
+   */
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  /**
+   * @return The number of open connections.
+   */
+  public int getTotalConnections() {
+    return activeConnections + idleConnections;
+  }
+
+  /**
+   * @return The number of threads waiting for a connection because all of them are in use. Always 0 for
+   *         {@link MetastoreConnectionPool#DBCP}, which doesn't track them.
+   */
+  public int getThreadsAwaitingConnection() {
+    return threadsAwaitingConnection;
+  }
+
+  ConnectionPoolStatistics add(ConnectionPoolStatistics other) {
+    return new ConnectionPoolStatistics(maximumConnections + other.maximumConnections,
+        activeConnections + other.activeConnections, idleConnections + other.idleConnections,
+        threadsAwaitingConnection + other.threadsAwaitingConnection);
+  }
+
+  @Override
+  public String toString() {
+    return "ConnectionPoolStatistics[maximumConnections=" + maximumConnections + ", activeConnections="
+        + activeConnections + ", idleConnections=" + idleConnections + ", threadsAwaitingConnection="
+        + threadsAwaitingConnection + "]";
+  }
+}
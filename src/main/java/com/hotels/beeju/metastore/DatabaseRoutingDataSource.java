@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+/**
+ * The connection factory of a {@link javax.jdo.PersistenceManagerFactory PersistenceManagerFactory} shared by
+ * metastores whose databases have the same schema, which connects to the database the calling thread has
+ * {@link #select(String) selected}.
+ * <p>
+ * DataNucleus asks its connection factory for a connection without saying what for, so the database can't be chosen
+ * by the {@link javax.jdo.PersistenceManager PersistenceManager} asking. Instead {@link BeejuObjectStore} selects the
+ * database of its metastore whenever the metastore handler passes it its configuration, which it does on the calling
+ * thread before every call.
+ * </p>
+ */
+final class DatabaseRoutingDataSource extends AbstractDataSource {
+
+  private static final ThreadLocal<String> selected = new ThreadLocal<>();
+
+  private final ConcurrentMap<String, DataSource> databases = new ConcurrentHashMap<>();
+
+  /**
+   * Makes the calling thread connect to the database with the given connection URL.
+   */
+  static void select(String connectionURL) {
+    selected.set(connectionURL);
+  }
+
+  /**
+   * @return The data source of the database with the given connection URL, created if it hasn't been added yet.
+   */
+  DataSource add(String connectionURL, Function<String, DataSource> dataSourceFactory) {
+    return databases.computeIfAbsent(connectionURL, dataSourceFactory);
+  }
+
+  /**
+   * @return {@code true} if the database with the given connection URL has been added.
+   */
+  boolean contains(String connectionURL) {
+    return databases.containsKey(connectionURL);
+  }
+
+  /**
+   * @return The data source of the database with the given connection URL, or {@code null} if it hadn't been added.
+   */
+  DataSource remove(String connectionURL) {
+    return databases.remove(connectionURL);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return selectedDatabase().getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return selectedDatabase().getConnection(username, password);
+  }
+
+  private DataSource selectedDatabase() throws SQLException {
+    String connectionURL = selected.get();
+    if (connectionURL == null) {
+      throw new SQLException("No metastore database has been selected on thread " + Thread.currentThread().getName());
+    }
+    DataSource database = databases.get(connectionURL);
+    if (database == null) {
+      throw new SQLException("Metastore database " + connectionURL + " has been closed");
+    }
+    return database;
+  }
+
+  /**
+   * Opens a new connection each time, as DataNucleus does when its connections aren't pooled.
+   */
+  static final class Unpooled extends AbstractDataSource {
+
+    private final String connectionURL;
+    private final String username;
+    private final String password;
+
+    Unpooled(String connectionURL, String username, String password) {
+      this.connectionURL = connectionURL;
+      this.username = username;
+      this.password = password;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return getConnection(username, password);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return DriverManager.getConnection(connectionURL, username, password);
+    }
+  }
+}
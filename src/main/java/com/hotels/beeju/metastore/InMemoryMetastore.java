@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.hive.metastore.api.Catalog;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.Function;
+import org.apache.hadoop.hive.metastore.api.NotificationEvent;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Role;
+import org.apache.hadoop.hive.metastore.api.RolePrincipalGrant;
+import org.apache.hadoop.hive.metastore.api.SQLCheckConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLDefaultConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLForeignKey;
+import org.apache.hadoop.hive.metastore.api.SQLNotNullConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLPrimaryKey;
+import org.apache.hadoop.hive.metastore.api.SQLUniqueConstraint;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.api.Type;
+
+/**
+ * The catalog of an {@link InMemoryRawStore}, shared by all the stores which are configured with the same store id.
+ * <p>
+ * Catalogs, databases, tables, partitions and functions are kept in {@link ConcurrentSkipListMap}s keyed by their
+ * lower case names, so they can be read without locking and are listed in name order. Partitions are keyed by their
+ * partition name, e.g. {@code year=2021/month=01}. Changes to the structure of the catalog are made while holding this
+ * object's lock.
+ * </p>
+ */
+final class InMemoryMetastore {
+
+  private static final ConcurrentMap<String, InMemoryMetastore> metastores = new ConcurrentHashMap<>();
+
+  final ConcurrentSkipListMap<String, CatalogEntry> catalogs = new ConcurrentSkipListMap<>();
+  final ConcurrentSkipListMap<String, Role> roles = new ConcurrentSkipListMap<>();
+  final List<RolePrincipalGrant> roleGrants = new CopyOnWriteArrayList<>();
+  final ConcurrentMap<String, Type> types = new ConcurrentHashMap<>();
+  final ConcurrentMap<String, String> tokens = new ConcurrentHashMap<>();
+  final ConcurrentSkipListMap<Integer, String> masterKeys = new ConcurrentSkipListMap<>();
+  final AtomicInteger masterKeySequence = new AtomicInteger();
+  final ConcurrentSkipListMap<Long, NotificationEvent> notifications = new ConcurrentSkipListMap<>();
+  final AtomicLong notificationSequence = new AtomicLong();
+  final String uuid = UUID.randomUUID().toString();
+  volatile String schemaVersion;
+
+  private InMemoryMetastore() {}
+
+  /**
+   * @param id Store id.
+   * @return the catalog of the stores with the given id, creating an empty one if there isn't one.
+   */
+  static InMemoryMetastore forId(String id) {
+    return metastores.computeIfAbsent(id, key -> new InMemoryMetastore());
+  }
+
+  /**
+   * @param id Store id.
+   * @return the catalog of the stores with the given id, or {@code null} if there isn't one.
+   */
+  static InMemoryMetastore get(String id) {
+    return metastores.get(id);
+  }
+
+  /**
+   * @param id Store id.
+   */
+  static void remove(String id) {
+    metastores.remove(id);
+  }
+
+  /**
+   * Drops every database apart from the retained ones of the given catalog, empties the retained ones and removes
+   * every type, delegation token, master key and notification event. Catalogs and roles are kept.
+   *
+   * @param catalogName Catalog name.
+   * @param retainedDatabases Names of the databases to keep.
+   */
+  synchronized void reset(String catalogName, Collection<String> retainedDatabases) {
+    Set<String> retained = new HashSet<>();
+    for (String databaseName : retainedDatabases) {
+      retained.add(databaseName.toLowerCase());
+    }
+    for (Map.Entry<String, CatalogEntry> catalog : catalogs.entrySet()) {
+      if (catalog.getKey().equals(catalogName.toLowerCase())) {
+        catalog.getValue().databases.keySet().retainAll(retained);
+      } else {
+        catalog.getValue().databases.clear();
+      }
+      for (DatabaseEntry database : catalog.getValue().databases.values()) {
+        database.tables.clear();
+        database.functions.clear();
+      }
+    }
+    types.clear();
+    tokens.clear();
+    masterKeys.clear();
+    notifications.clear();
+  }
+
+  int databaseCount() {
+    int count = 0;
+    for (CatalogEntry catalog : catalogs.values()) {
+      count += catalog.databases.size();
+    }
+    return count;
+  }
+
+  int tableCount() {
+    int count = 0;
+    for (CatalogEntry catalog : catalogs.values()) {
+      for (DatabaseEntry database : catalog.databases.values()) {
+        count += database.tables.size();
+      }
+    }
+    return count;
+  }
+
+  int partitionCount() {
+    int count = 0;
+    for (CatalogEntry catalog : catalogs.values()) {
+      for (DatabaseEntry database : catalog.databases.values()) {
+        for (TableEntry table : database.tables.values()) {
+          count += table.partitions.size();
+        }
+      }
+    }
+    return count;
+  }
+
+  static final class CatalogEntry {
+    volatile Catalog catalog;
+    final ConcurrentSkipListMap<String, DatabaseEntry> databases = new ConcurrentSkipListMap<>();
+
+    CatalogEntry(Catalog catalog) {
+      this.catalog = catalog;
+    }
+  }
+
+  static final class DatabaseEntry {
+    volatile Database database;
+    final ConcurrentSkipListMap<String, TableEntry> tables = new ConcurrentSkipListMap<>();
+    final ConcurrentSkipListMap<String, Function> functions = new ConcurrentSkipListMap<>();
+
+    DatabaseEntry(Database database) {
+      this.database = database;
+    }
+  }
+
+  static final class TableEntry {
+    volatile Table table;
+    final ConcurrentSkipListMap<String, Partition> partitions = new ConcurrentSkipListMap<>();
+    final ConcurrentMap<String, ColumnStatisticsObj> columnStatistics = new ConcurrentHashMap<>();
+    final ConcurrentMap<String, ConcurrentMap<String, ColumnStatisticsObj>> partitionColumnStatistics =
+        new ConcurrentHashMap<>();
+    final List<SQLPrimaryKey> primaryKeys = new CopyOnWriteArrayList<>();
+    final List<SQLForeignKey> foreignKeys = new CopyOnWriteArrayList<>();
+    final List<SQLUniqueConstraint> uniqueConstraints = new CopyOnWriteArrayList<>();
+    final List<SQLNotNullConstraint> notNullConstraints = new CopyOnWriteArrayList<>();
+    final List<SQLDefaultConstraint> defaultConstraints = new CopyOnWriteArrayList<>();
+    final List<SQLCheckConstraint> checkConstraints = new CopyOnWriteArrayList<>();
+
+    TableEntry(Table table) {
+      this.table = table;
+    }
+  }
+}
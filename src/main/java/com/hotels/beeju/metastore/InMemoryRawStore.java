@@ -0,0 +1,2165 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.common.StatsSetupConst;
+import org.apache.hadoop.hive.metastore.FileMetadataHandler;
+import org.apache.hadoop.hive.metastore.ObjectStore;
+import org.apache.hadoop.hive.metastore.PartFilterExprUtil;
+import org.apache.hadoop.hive.metastore.PartitionExpressionProxy;
+import org.apache.hadoop.hive.metastore.RawStore;
+import org.apache.hadoop.hive.metastore.TableType;
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
+import org.apache.hadoop.hive.metastore.api.Catalog;
+import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsDesc;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
+import org.apache.hadoop.hive.metastore.api.CreationMetadata;
+import org.apache.hadoop.hive.metastore.api.CurrentNotificationEventId;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.FileMetadataExprType;
+import org.apache.hadoop.hive.metastore.api.Function;
+import org.apache.hadoop.hive.metastore.api.HiveObjectPrivilege;
+import org.apache.hadoop.hive.metastore.api.HiveObjectRef;
+import org.apache.hadoop.hive.metastore.api.ISchema;
+import org.apache.hadoop.hive.metastore.api.ISchemaName;
+import org.apache.hadoop.hive.metastore.api.InvalidInputException;
+import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
+import org.apache.hadoop.hive.metastore.api.InvalidOperationException;
+import org.apache.hadoop.hive.metastore.api.InvalidPartitionException;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.NotificationEvent;
+import org.apache.hadoop.hive.metastore.api.NotificationEventRequest;
+import org.apache.hadoop.hive.metastore.api.NotificationEventResponse;
+import org.apache.hadoop.hive.metastore.api.NotificationEventsCountRequest;
+import org.apache.hadoop.hive.metastore.api.NotificationEventsCountResponse;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.PartitionEventType;
+import org.apache.hadoop.hive.metastore.api.PartitionValuesResponse;
+import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
+import org.apache.hadoop.hive.metastore.api.PrincipalType;
+import org.apache.hadoop.hive.metastore.api.PrivilegeBag;
+import org.apache.hadoop.hive.metastore.api.Role;
+import org.apache.hadoop.hive.metastore.api.RolePrincipalGrant;
+import org.apache.hadoop.hive.metastore.api.RuntimeStat;
+import org.apache.hadoop.hive.metastore.api.SQLCheckConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLDefaultConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLForeignKey;
+import org.apache.hadoop.hive.metastore.api.SQLNotNullConstraint;
+import org.apache.hadoop.hive.metastore.api.SQLPrimaryKey;
+import org.apache.hadoop.hive.metastore.api.SQLUniqueConstraint;
+import org.apache.hadoop.hive.metastore.api.SchemaVersion;
+import org.apache.hadoop.hive.metastore.api.SchemaVersionDescriptor;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.api.TableMeta;
+import org.apache.hadoop.hive.metastore.api.Type;
+import org.apache.hadoop.hive.metastore.api.UnknownDBException;
+import org.apache.hadoop.hive.metastore.api.UnknownPartitionException;
+import org.apache.hadoop.hive.metastore.api.UnknownTableException;
+import org.apache.hadoop.hive.metastore.api.WMFullResourcePlan;
+import org.apache.hadoop.hive.metastore.api.WMMapping;
+import org.apache.hadoop.hive.metastore.api.WMNullablePool;
+import org.apache.hadoop.hive.metastore.api.WMNullableResourcePlan;
+import org.apache.hadoop.hive.metastore.api.WMPool;
+import org.apache.hadoop.hive.metastore.api.WMResourcePlan;
+import org.apache.hadoop.hive.metastore.api.WMTrigger;
+import org.apache.hadoop.hive.metastore.api.WMValidateResourcePlanResponse;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.hadoop.hive.metastore.partition.spec.PartitionSpecProxy;
+import org.apache.hadoop.hive.metastore.utils.MetaStoreUtils;
+import org.apache.hadoop.hive.metastore.utils.MetaStoreUtils.ColStatsObjWithSourceInfo;
+import org.apache.hadoop.hive.metastore.utils.MetaStoreUtils.FullTableName;
+
+import com.hotels.beeju.metastore.InMemoryMetastore.CatalogEntry;
+import com.hotels.beeju.metastore.InMemoryMetastore.DatabaseEntry;
+import com.hotels.beeju.metastore.InMemoryMetastore.TableEntry;
+
+/**
+ * A {@link RawStore} which keeps the catalog in memory instead of in a database accessed through DataNucleus, selected
+ * by setting {@code metastore.rawstore.impl} to this class.
+ * <p>
+ * Catalogs, databases, tables, partitions, functions, roles, column statistics, constraints, notification events,
+ * delegation tokens and master keys are kept in concurrent maps shared by every store configured with the same
+ * {@value #STORE_ID}, so a metastore's thread local stores all see the same catalog. Objects are copied on the way in
+ * and out, like {@link ObjectStore} materialises new ones. Partition filters are evaluated against the partition
+ * values and partition expressions by the metastore's {@link PartitionExpressionProxy}, both in memory.
+ * </p>
+ * <p>
+ * Transactions are only counted: changes are visible as soon as they are made and aren't undone by a rollback.
+ * Privileges are accepted but not stored, so no privileges are ever reported. Workload management, the schema
+ * registry, file metadata and table filters are not supported.
+ * </p>
+ */
+public class InMemoryRawStore implements RawStore {
+
+  /**
+   * Configuration property holding the id of the catalog a store uses. Stores configured with the same id share a
+   * catalog. Defaults to the empty string.
+   */
+  public static final String STORE_ID = "beeju.metastore.rawstore.id";
+
+  private Configuration conf;
+  private InMemoryMetastore metastore;
+  private String defaultCatalog;
+  private PartitionExpressionProxy expressionProxy;
+  private int transactionDepth;
+
+  /**
+   * Empties the catalog of the stores with the given id as {@code com.hotels.beeju.core.BeejuCore#reset()} empties a
+   * metastore database: databases other than the retained ones are dropped, the retained ones are emptied and
+   * notification events are removed.
+   *
+   * @param storeId Store id.
+   * @param catalogName Catalog name.
+   * @param retainedDatabases Names of the databases to keep.
+   */
+  public static void reset(String storeId, String catalogName, String... retainedDatabases) {
+    InMemoryMetastore metastore = InMemoryMetastore.get(storeId);
+    if (metastore != null) {
+      metastore.reset(catalogName, Arrays.asList(retainedDatabases));
+    }
+  }
+
+  /**
+   * Discards the catalog of the stores with the given id.
+   *
+   * @param storeId Store id.
+   */
+  public static void drop(String storeId) {
+    InMemoryMetastore.remove(storeId);
+  }
+
+  @Override
+  public void setConf(Configuration conf) {
+    ConfigurationReloads reloads = ConfigurationReloads.forConf(conf);
+    if (reloads != null) {
+      reloads.applyTo(conf);
+    }
+    this.conf = conf;
+    metastore = InMemoryMetastore.forId(conf.get(STORE_ID, ""));
+    defaultCatalog = MetaStoreUtils.getDefaultCatalog(conf);
+  }
+
+  @Override
+  public Configuration getConf() {
+    return conf;
+  }
+
+  @Override
+  public void shutdown() {}
+
+  @Override
+  public boolean openTransaction() {
+    transactionDepth++;
+    return true;
+  }
+
+  @Override
+  public boolean commitTransaction() {
+    if (transactionDepth > 0) {
+      transactionDepth--;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean isActiveTransaction() {
+    return transactionDepth > 0;
+  }
+
+  @Override
+  public void rollbackTransaction() {
+    transactionDepth = 0;
+  }
+
+  private static String normalize(String name) {
+    return name == null ? null : name.trim().toLowerCase();
+  }
+
+  private String catalogName(String catalogName) {
+    return catalogName == null ? normalize(defaultCatalog) : normalize(catalogName);
+  }
+
+  private CatalogEntry catalogEntry(String catalogName) {
+    return metastore.catalogs.get(catalogName(catalogName));
+  }
+
+  private DatabaseEntry databaseEntry(String catalogName, String databaseName) {
+    CatalogEntry catalog = catalogEntry(catalogName);
+    return catalog == null ? null : catalog.databases.get(normalize(databaseName));
+  }
+
+  private TableEntry tableEntry(String catalogName, String databaseName, String tableName) {
+    DatabaseEntry database = databaseEntry(catalogName, databaseName);
+    return database == null ? null : database.tables.get(normalize(tableName));
+  }
+
+  private TableEntry existingTable(String catalogName, String databaseName, String tableName)
+    throws NoSuchObjectException {
+    TableEntry table = tableEntry(catalogName, databaseName, tableName);
+    if (table == null) {
+      throw new NoSuchObjectException(
+          "Table " + catalogName(catalogName) + "." + databaseName + "." + tableName + " does not exist");
+    }
+    return table;
+  }
+
+  private static MetaException unsupported(String operation) {
+    return new MetaException(operation + " is not supported by " + InMemoryRawStore.class.getSimpleName());
+  }
+
+  /**
+   * Matches names against a metastore pattern, which is a {@code |} separated list of patterns in which {@code *}
+   * matches any characters, ignoring case.
+   */
+  private static boolean matches(String name, String pattern) {
+    if (pattern == null || pattern.equals("*")) {
+      return true;
+    }
+    for (String subpattern : pattern.trim().split("\\|")) {
+      if (Pattern.compile(subpattern.replaceAll("\\*", ".*"), Pattern.CASE_INSENSITIVE).matcher(name).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static <T> List<T> limit(Collection<T> values, int max) {
+    List<T> limited = new ArrayList<>();
+    for (T value : values) {
+      if (max >= 0 && limited.size() >= max) {
+        break;
+      }
+      limited.add(value);
+    }
+    return limited;
+  }
+
+  private static List<Partition> copies(Collection<Partition> partitions, int max) {
+    List<Partition> copies = new ArrayList<>();
+    for (Partition partition : limit(partitions, max)) {
+      copies.add(partition.deepCopy());
+    }
+    return copies;
+  }
+
+  private static int now() {
+    return (int) (System.currentTimeMillis() / 1000);
+  }
+
+  // catalogs
+
+  @Override
+  public void createCatalog(Catalog cat) throws MetaException {
+    synchronized (metastore) {
+      String name = normalize(cat.getName());
+      if (metastore.catalogs.containsKey(name)) {
+        throw new MetaException("Catalog " + name + " already exists");
+      }
+      metastore.catalogs.put(name, new CatalogEntry(cat.deepCopy()));
+    }
+  }
+
+  @Override
+  public void alterCatalog(String catName, Catalog cat) throws MetaException, InvalidOperationException {
+    CatalogEntry catalog = catalogEntry(catName);
+    if (catalog == null) {
+      throw new MetaException("Catalog " + catName + " does not exist");
+    }
+    if (!catalogName(catName).equals(normalize(cat.getName()))) {
+      throw new InvalidOperationException("Catalogs can't be renamed");
+    }
+    catalog.catalog = cat.deepCopy();
+  }
+
+  @Override
+  public Catalog getCatalog(String catalogName) throws NoSuchObjectException, MetaException {
+    CatalogEntry catalog = catalogEntry(catalogName);
+    if (catalog == null) {
+      throw new NoSuchObjectException("No catalog " + catalogName);
+    }
+    return catalog.catalog.deepCopy();
+  }
+
+  @Override
+  public List<String> getCatalogs() throws MetaException {
+    return new ArrayList<>(metastore.catalogs.keySet());
+  }
+
+  @Override
+  public void dropCatalog(String catalogName) throws NoSuchObjectException, MetaException {
+    if (metastore.catalogs.remove(catalogName(catalogName)) == null) {
+      throw new NoSuchObjectException("No catalog " + catalogName);
+    }
+  }
+
+  // databases
+
+  @Override
+  public void createDatabase(Database db) throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      CatalogEntry catalog = catalogEntry(db.getCatalogName());
+      if (catalog == null) {
+        throw new InvalidObjectException("No catalog " + db.getCatalogName());
+      }
+      String name = normalize(db.getName());
+      if (catalog.databases.containsKey(name)) {
+        throw new InvalidObjectException("Database " + name + " already exists");
+      }
+      Database database = db.deepCopy();
+      database.setName(name);
+      database.setCatalogName(catalogName(db.getCatalogName()));
+      catalog.databases.put(name, new DatabaseEntry(database));
+    }
+  }
+
+  @Override
+  public Database getDatabase(String catalogName, String name) throws NoSuchObjectException {
+    DatabaseEntry database = databaseEntry(catalogName, name);
+    if (database == null) {
+      throw new NoSuchObjectException("There is no database " + catalogName(catalogName) + "." + name);
+    }
+    return database.database.deepCopy();
+  }
+
+  @Override
+  public boolean dropDatabase(String catalogName, String dbname) throws NoSuchObjectException, MetaException {
+    synchronized (metastore) {
+      CatalogEntry catalog = catalogEntry(catalogName);
+      if (catalog == null || catalog.databases.remove(normalize(dbname)) == null) {
+        throw new NoSuchObjectException("There is no database " + catalogName(catalogName) + "." + dbname);
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public boolean alterDatabase(String catalogName, String dbname, Database db)
+    throws NoSuchObjectException, MetaException {
+    DatabaseEntry database = databaseEntry(catalogName, dbname);
+    if (database == null) {
+      throw new NoSuchObjectException("There is no database " + catalogName(catalogName) + "." + dbname);
+    }
+    Database altered = db.deepCopy();
+    altered.setName(database.database.getName());
+    altered.setCatalogName(database.database.getCatalogName());
+    database.database = altered;
+    return true;
+  }
+
+  @Override
+  public List<String> getDatabases(String catalogName, String pattern) throws MetaException {
+    List<String> names = new ArrayList<>();
+    CatalogEntry catalog = catalogEntry(catalogName);
+    if (catalog != null) {
+      for (String name : catalog.databases.keySet()) {
+        if (matches(name, pattern)) {
+          names.add(name);
+        }
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public List<String> getAllDatabases(String catalogName) throws MetaException {
+    return getDatabases(catalogName, null);
+  }
+
+  // types
+
+  @Override
+  public boolean createType(Type type) {
+    return metastore.types.putIfAbsent(type.getName(), type.deepCopy()) == null;
+  }
+
+  @Override
+  public Type getType(String typeName) {
+    Type type = metastore.types.get(typeName);
+    return type == null ? null : type.deepCopy();
+  }
+
+  @Override
+  public boolean dropType(String typeName) {
+    return metastore.types.remove(typeName) != null;
+  }
+
+  // tables
+
+  @Override
+  public void createTable(Table tbl) throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      DatabaseEntry database = databaseEntry(tbl.getCatName(), tbl.getDbName());
+      if (database == null) {
+        throw new InvalidObjectException("Database " + tbl.getDbName() + " doesn't exist.");
+      }
+      String name = normalize(tbl.getTableName());
+      if (database.tables.containsKey(name)) {
+        throw new MetaException("Table " + tbl.getDbName() + "." + name + " already exists");
+      }
+      database.tables.put(name, new TableEntry(normalizedCopy(tbl)));
+    }
+  }
+
+  private Table normalizedCopy(Table tbl) {
+    Table table = tbl.deepCopy();
+    table.setCatName(catalogName(tbl.getCatName()));
+    table.setDbName(normalize(tbl.getDbName()));
+    table.setTableName(normalize(tbl.getTableName()));
+    if (table.getParameters() == null) {
+      table.setParameters(new HashMap<>());
+    }
+    // the same table type ObjectStore derives when it stores and materialises a table
+    boolean external = Boolean.parseBoolean(table.getParameters().get("EXTERNAL"));
+    if (table.getTableType() == null) {
+      if (table.getViewOriginalText() != null) {
+        table.setTableType(TableType.VIRTUAL_VIEW.toString());
+      } else {
+        table.setTableType(external ? TableType.EXTERNAL_TABLE.toString() : TableType.MANAGED_TABLE.toString());
+      }
+    } else if (TableType.MANAGED_TABLE.toString().equals(table.getTableType()) && external) {
+      table.setTableType(TableType.EXTERNAL_TABLE.toString());
+    } else if (TableType.EXTERNAL_TABLE.toString().equals(table.getTableType()) && !external) {
+      table.setTableType(TableType.MANAGED_TABLE.toString());
+    }
+    return table;
+  }
+
+  @Override
+  public boolean dropTable(String catalogName, String dbName, String tableName)
+    throws MetaException, NoSuchObjectException, InvalidObjectException, InvalidInputException {
+    synchronized (metastore) {
+      DatabaseEntry database = databaseEntry(catalogName, dbName);
+      return database != null && database.tables.remove(normalize(tableName)) != null;
+    }
+  }
+
+  @Override
+  public Table getTable(String catalogName, String dbName, String tableName) throws MetaException {
+    TableEntry table = tableEntry(catalogName, dbName, tableName);
+    return table == null ? null : table.table.deepCopy();
+  }
+
+  @Override
+  public void alterTable(String catName, String dbname, String name, Table newTable)
+    throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      DatabaseEntry database = databaseEntry(catName, dbname);
+      TableEntry table = database == null ? null : database.tables.get(normalize(name));
+      if (table == null) {
+        throw new InvalidObjectException("Table " + dbname + "." + name + " doesn't exist");
+      }
+      Table altered = normalizedCopy(newTable);
+      altered.setCatName(table.table.getCatName());
+      if (!altered.getDbName().equals(table.table.getDbName())
+          || !altered.getTableName().equals(table.table.getTableName())) {
+        DatabaseEntry newDatabase = databaseEntry(catName, altered.getDbName());
+        if (newDatabase == null) {
+          throw new InvalidObjectException("Database " + altered.getDbName() + " doesn't exist.");
+        }
+        if (newDatabase.tables.containsKey(altered.getTableName())) {
+          throw new InvalidObjectException(
+              "Table " + altered.getDbName() + "." + altered.getTableName() + " already exists");
+        }
+        database.tables.remove(normalize(name));
+        newDatabase.tables.put(altered.getTableName(), table);
+        for (Map.Entry<String, Partition> entry : table.partitions.entrySet()) {
+          Partition partition = entry.getValue().deepCopy();
+          partition.setDbName(altered.getDbName());
+          partition.setTableName(altered.getTableName());
+          entry.setValue(partition);
+        }
+      }
+      table.table = altered;
+    }
+  }
+
+  @Override
+  public void updateCreationMetadata(String catName, String dbname, String tablename, CreationMetadata cm)
+    throws MetaException {
+    TableEntry table = tableEntry(catName, dbname, tablename);
+    if (table == null) {
+      throw new MetaException("Table " + dbname + "." + tablename + " doesn't exist");
+    }
+    Table altered = table.table.deepCopy();
+    altered.setCreationMetadata(cm.deepCopy());
+    table.table = altered;
+  }
+
+  @Override
+  public List<String> getTables(String catName, String dbName, String pattern) throws MetaException {
+    return getTables(catName, dbName, pattern, null);
+  }
+
+  @Override
+  public List<String> getTables(String catName, String dbName, String pattern, TableType tableType)
+    throws MetaException {
+    List<String> names = new ArrayList<>();
+    DatabaseEntry database = databaseEntry(catName, dbName);
+    if (database != null) {
+      for (TableEntry table : database.tables.values()) {
+        if (matches(table.table.getTableName(), pattern)
+            && (tableType == null || tableType.toString().equals(table.table.getTableType()))) {
+          names.add(table.table.getTableName());
+        }
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public List<String> getMaterializedViewsForRewriting(String catName, String dbName)
+    throws MetaException, NoSuchObjectException {
+    List<String> names = new ArrayList<>();
+    DatabaseEntry database = databaseEntry(catName, dbName);
+    if (database != null) {
+      for (TableEntry table : database.tables.values()) {
+        if (TableType.MATERIALIZED_VIEW.toString().equals(table.table.getTableType())
+            && table.table.isRewriteEnabled()) {
+          names.add(table.table.getTableName());
+        }
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public List<TableMeta> getTableMeta(String catName, String dbNames, String tableNames, List<String> tableTypes)
+    throws MetaException {
+    List<TableMeta> metas = new ArrayList<>();
+    CatalogEntry catalog = catalogEntry(catName);
+    if (catalog == null) {
+      return metas;
+    }
+    for (DatabaseEntry database : catalog.databases.values()) {
+      if (!matches(database.database.getName(), dbNames)) {
+        continue;
+      }
+      for (TableEntry entry : database.tables.values()) {
+        Table table = entry.table;
+        if (matches(table.getTableName(), tableNames)
+            && (tableTypes == null || tableTypes.isEmpty() || tableTypes.contains(table.getTableType()))) {
+          TableMeta meta = new TableMeta(table.getDbName(), table.getTableName(), table.getTableType());
+          meta.setCatName(table.getCatName());
+          if (table.getParameters() != null) {
+            meta.setComments(table.getParameters().get("comment"));
+          }
+          metas.add(meta);
+        }
+      }
+    }
+    return metas;
+  }
+
+  @Override
+  public List<Table> getTableObjectsByName(String catName, String dbname, List<String> tableNames)
+    throws MetaException, UnknownDBException {
+    DatabaseEntry database = databaseEntry(catName, dbname);
+    if (database == null) {
+      throw new UnknownDBException("Could not find database " + dbname);
+    }
+    List<Table> tables = new ArrayList<>();
+    for (String tableName : tableNames) {
+      TableEntry table = database.tables.get(normalize(tableName));
+      if (table != null) {
+        tables.add(table.table.deepCopy());
+      }
+    }
+    return tables;
+  }
+
+  @Override
+  public List<String> getAllTables(String catName, String dbName) throws MetaException {
+    return getTables(catName, dbName, null);
+  }
+
+  @Override
+  public List<String> listTableNamesByFilter(String catName, String dbName, String filter, short max_tables)
+    throws MetaException, UnknownDBException {
+    throw unsupported("listTableNamesByFilter");
+  }
+
+  @Override
+  public int getTableCount() throws MetaException {
+    return metastore.tableCount();
+  }
+
+  @Override
+  public int getPartitionCount() throws MetaException {
+    return metastore.partitionCount();
+  }
+
+  @Override
+  public int getDatabaseCount() throws MetaException {
+    return metastore.databaseCount();
+  }
+
+  // partitions
+
+  private static String partitionName(Table table, List<String> values) throws MetaException {
+    if (values == null || values.size() != table.getPartitionKeysSize()) {
+      throw new MetaException("Partition values " + values + " don't match the partition keys of "
+          + table.getDbName() + "." + table.getTableName());
+    }
+    return Warehouse.makePartName(table.getPartitionKeys(), values);
+  }
+
+  private Partition normalizedCopy(Partition part, Table table) {
+    Partition partition = part.deepCopy();
+    partition.setCatName(table.getCatName());
+    partition.setDbName(table.getDbName());
+    partition.setTableName(table.getTableName());
+    return partition;
+  }
+
+  @Override
+  public boolean addPartition(Partition part) throws InvalidObjectException, MetaException {
+    return addPartitions(part.getCatName(), part.getDbName(), part.getTableName(), Collections.singletonList(part));
+  }
+
+  @Override
+  public boolean addPartitions(String catName, String dbName, String tblName, List<Partition> parts)
+    throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      TableEntry table = tableEntry(catName, dbName, tblName);
+      if (table == null) {
+        throw new InvalidObjectException("Table " + dbName + "." + tblName + " doesn't exist");
+      }
+      Map<String, Partition> added = new HashMap<>();
+      for (Partition part : parts) {
+        String name = partitionName(table.table, part.getValues());
+        if (table.partitions.containsKey(name) || added.containsKey(name)) {
+          throw new MetaException("Partition " + name + " of " + dbName + "." + tblName + " already exists");
+        }
+        added.put(name, normalizedCopy(part, table.table));
+      }
+      table.partitions.putAll(added);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean addPartitions(
+      String catName,
+      String dbName,
+      String tblName,
+      PartitionSpecProxy partitionSpec,
+      boolean ifNotExists)
+    throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      TableEntry table = tableEntry(catName, dbName, tblName);
+      if (table == null) {
+        throw new InvalidObjectException("Table " + dbName + "." + tblName + " doesn't exist");
+      }
+      List<Partition> parts = new ArrayList<>();
+      PartitionSpecProxy.PartitionIterator iterator = partitionSpec.getPartitionIterator();
+      while (iterator.hasNext()) {
+        Partition part = iterator.next();
+        if (!ifNotExists || !table.partitions.containsKey(partitionName(table.table, part.getValues()))) {
+          parts.add(part);
+        }
+      }
+      return addPartitions(catName, dbName, tblName, parts);
+    }
+  }
+
+  @Override
+  public Partition getPartition(String catName, String dbName, String tableName, List<String> part_vals)
+    throws MetaException, NoSuchObjectException {
+    TableEntry table = existingTable(catName, dbName, tableName);
+    Partition partition = table.partitions.get(partitionName(table.table, part_vals));
+    if (partition == null) {
+      throw new NoSuchObjectException("Partition " + part_vals + " of " + dbName + "." + tableName + " does not exist");
+    }
+    return partition.deepCopy();
+  }
+
+  @Override
+  public boolean doesPartitionExist(String catName, String dbName, String tableName, List<String> part_vals)
+    throws MetaException, NoSuchObjectException {
+    TableEntry table = tableEntry(catName, dbName, tableName);
+    return table != null && table.partitions.containsKey(partitionName(table.table, part_vals));
+  }
+
+  @Override
+  public boolean dropPartition(String catName, String dbName, String tableName, List<String> part_vals)
+    throws MetaException, NoSuchObjectException, InvalidObjectException, InvalidInputException {
+    TableEntry table = existingTable(catName, dbName, tableName);
+    String name = partitionName(table.table, part_vals);
+    table.partitionColumnStatistics.remove(name);
+    return table.partitions.remove(name) != null;
+  }
+
+  @Override
+  public void dropPartitions(String catName, String dbName, String tblName, List<String> partNames)
+    throws MetaException, NoSuchObjectException {
+    TableEntry table = existingTable(catName, dbName, tblName);
+    for (String name : partNames) {
+      table.partitionColumnStatistics.remove(name);
+      table.partitions.remove(name);
+    }
+  }
+
+  @Override
+  public List<Partition> getPartitions(String catName, String dbName, String tableName, int max)
+    throws MetaException, NoSuchObjectException {
+    TableEntry table = tableEntry(catName, dbName, tableName);
+    return table == null ? new ArrayList<>() : copies(table.partitions.values(), max);
+  }
+
+  @Override
+  public List<String> listPartitionNames(String catName, String db_name, String tbl_name, short max_parts)
+    throws MetaException {
+    TableEntry table = tableEntry(catName, db_name, tbl_name);
+    return table == null ? new ArrayList<>() : limit(table.partitions.keySet(), max_parts);
+  }
+
+  @Override
+  public PartitionValuesResponse listPartitionValues(
+      String catName,
+      String db_name,
+      String tbl_name,
+      List<FieldSchema> cols,
+      boolean applyDistinct,
+      String filter,
+      boolean ascending,
+      List<FieldSchema> order,
+      long maxParts)
+    throws MetaException {
+    throw unsupported("listPartitionValues");
+  }
+
+  @Override
+  public void alterPartition(String catName, String db_name, String tbl_name, List<String> part_vals,
+      Partition new_part)
+    throws InvalidObjectException, MetaException {
+    alterPartitions(catName, db_name, tbl_name, Collections.singletonList(part_vals),
+        Collections.singletonList(new_part));
+  }
+
+  @Override
+  public void alterPartitions(
+      String catName,
+      String db_name,
+      String tbl_name,
+      List<List<String>> part_vals_list,
+      List<Partition> new_parts)
+    throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      TableEntry table = tableEntry(catName, db_name, tbl_name);
+      if (table == null) {
+        throw new InvalidObjectException("Table " + db_name + "." + tbl_name + " doesn't exist");
+      }
+      for (int i = 0; i < new_parts.size(); i++) {
+        String name = partitionName(table.table, part_vals_list.get(i));
+        if (!table.partitions.containsKey(name)) {
+          throw new InvalidObjectException("Partition " + name + " of " + db_name + "." + tbl_name + " doesn't exist");
+        }
+        Partition partition = normalizedCopy(new_parts.get(i), table.table);
+        String newName = partitionName(table.table, partition.getValues());
+        if (!newName.equals(name)) {
+          table.partitions.remove(name);
+          table.partitionColumnStatistics.remove(name);
+        }
+        table.partitions.put(newName, partition);
+      }
+    }
+  }
+
+  private List<Partition> filter(TableEntry table, String filter, int max) throws MetaException {
+    PartitionFilter partitionFilter = PartitionFilter.parse(filter);
+    List<FieldSchema> keys = table.table.getPartitionKeys();
+    List<Partition> partitions = new ArrayList<>();
+    for (Partition partition : table.partitions.values()) {
+      if (max >= 0 && partitions.size() >= max) {
+        break;
+      }
+      if (partitionFilter.matches(keys, partition.getValues())) {
+        partitions.add(partition);
+      }
+    }
+    return partitions;
+  }
+
+  @Override
+  public List<Partition> getPartitionsByFilter(
+      String catName,
+      String dbName,
+      String tblName,
+      String filter,
+      short maxParts)
+    throws MetaException, NoSuchObjectException {
+    return copies(filter(existingTable(catName, dbName, tblName), filter, maxParts), -1);
+  }
+
+  @Override
+  public int getNumPartitionsByFilter(String catName, String dbName, String tblName, String filter)
+    throws MetaException, NoSuchObjectException {
+    return filter(existingTable(catName, dbName, tblName), filter, -1).size();
+  }
+
+  private PartitionExpressionProxy expressionProxy() {
+    if (expressionProxy == null) {
+      expressionProxy = PartFilterExprUtil.createExpressionProxy(conf);
+    }
+    return expressionProxy;
+  }
+
+  private List<String> filterByExpr(TableEntry table, byte[] expr, String defaultPartitionName, boolean[] unknown)
+    throws MetaException {
+    if (defaultPartitionName == null || defaultPartitionName.isEmpty()) {
+      defaultPartitionName = MetastoreConf.getVar(conf, MetastoreConf.ConfVars.DEFAULTPARTITIONNAME);
+    }
+    List<String> names = new ArrayList<>(table.partitions.keySet());
+    unknown[0] = expressionProxy()
+        .filterPartitionsByExpr(table.table.getPartitionKeys(), expr, defaultPartitionName, names);
+    return names;
+  }
+
+  @Override
+  public boolean getPartitionsByExpr(
+      String catName,
+      String dbName,
+      String tblName,
+      byte[] expr,
+      String defaultPartitionName,
+      short maxParts,
+      List<Partition> result)
+    throws MetaException, NoSuchObjectException {
+    TableEntry table = existingTable(catName, dbName, tblName);
+    boolean[] unknown = new boolean[1];
+    List<String> names = filterByExpr(table, expr, defaultPartitionName, unknown);
+    for (String name : limit(names, maxParts)) {
+      Partition partition = table.partitions.get(name);
+      if (partition != null) {
+        result.add(partition.deepCopy());
+      }
+    }
+    return unknown[0];
+  }
+
+  @Override
+  public int getNumPartitionsByExpr(String catName, String dbName, String tblName, byte[] expr)
+    throws MetaException, NoSuchObjectException {
+    return filterByExpr(existingTable(catName, dbName, tblName), expr, null, new boolean[1]).size();
+  }
+
+  @Override
+  public List<Partition> getPartitionsByNames(String catName, String dbName, String tblName, List<String> partNames)
+    throws MetaException, NoSuchObjectException {
+    List<Partition> partitions = new ArrayList<>();
+    TableEntry table = tableEntry(catName, dbName, tblName);
+    if (table != null) {
+      for (String name : partNames) {
+        Partition partition = table.partitions.get(name);
+        if (partition != null) {
+          partitions.add(partition.deepCopy());
+        }
+      }
+    }
+    return partitions;
+  }
+
+  private static boolean matchesPartialValues(List<String> values, List<String> partialValues) {
+    for (int i = 0; i < partialValues.size() && i < values.size(); i++) {
+      String partialValue = partialValues.get(i);
+      if (partialValue != null && !partialValue.isEmpty() && !partialValue.equals(values.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private List<Map.Entry<String, Partition>> listPartial(
+      String catName,
+      String dbName,
+      String tblName,
+      List<String> partVals,
+      short max)
+    throws NoSuchObjectException {
+    TableEntry table = existingTable(catName, dbName, tblName);
+    List<Map.Entry<String, Partition>> partitions = new ArrayList<>();
+    for (Map.Entry<String, Partition> entry : table.partitions.entrySet()) {
+      if (max >= 0 && partitions.size() >= max) {
+        break;
+      }
+      if (matchesPartialValues(entry.getValue().getValues(), partVals)) {
+        partitions.add(entry);
+      }
+    }
+    return partitions;
+  }
+
+  @Override
+  public List<String> listPartitionNamesPs(
+      String catName,
+      String db_name,
+      String tbl_name,
+      List<String> part_vals,
+      short max_parts)
+    throws MetaException, NoSuchObjectException {
+    List<String> names = new ArrayList<>();
+    for (Map.Entry<String, Partition> entry : listPartial(catName, db_name, tbl_name, part_vals, max_parts)) {
+      names.add(entry.getKey());
+    }
+    return names;
+  }
+
+  @Override
+  public List<Partition> listPartitionsPsWithAuth(
+      String catName,
+      String db_name,
+      String tbl_name,
+      List<String> part_vals,
+      short max_parts,
+      String userName,
+      List<String> groupNames)
+    throws MetaException, InvalidObjectException, NoSuchObjectException {
+    List<Partition> partitions = new ArrayList<>();
+    for (Map.Entry<String, Partition> entry : listPartial(catName, db_name, tbl_name, part_vals, max_parts)) {
+      partitions.add(entry.getValue().deepCopy());
+    }
+    return partitions;
+  }
+
+  @Override
+  public Partition getPartitionWithAuth(
+      String catName,
+      String dbName,
+      String tblName,
+      List<String> partVals,
+      String user_name,
+      List<String> group_names)
+    throws MetaException, NoSuchObjectException, InvalidObjectException {
+    return getPartition(catName, dbName, tblName, partVals);
+  }
+
+  @Override
+  public List<Partition> getPartitionsWithAuth(
+      String catName,
+      String dbName,
+      String tblName,
+      short maxParts,
+      String userName,
+      List<String> groupNames)
+    throws MetaException, NoSuchObjectException, InvalidObjectException {
+    return getPartitions(catName, dbName, tblName, maxParts);
+  }
+
+  @Override
+  public Table markPartitionForEvent(
+      String catName,
+      String dbName,
+      String tblName,
+      Map<String, String> partVals,
+      PartitionEventType evtType)
+    throws MetaException, UnknownTableException, InvalidPartitionException, UnknownPartitionException {
+    throw unsupported("markPartitionForEvent");
+  }
+
+  @Override
+  public boolean isPartitionMarkedForEvent(
+      String catName,
+      String dbName,
+      String tblName,
+      Map<String, String> partName,
+      PartitionEventType evtType)
+    throws MetaException, UnknownTableException, InvalidPartitionException, UnknownPartitionException {
+    throw unsupported("isPartitionMarkedForEvent");
+  }
+
+  // roles and privileges
+
+  @Override
+  public boolean addRole(String rowName, String ownerName)
+    throws InvalidObjectException, MetaException, NoSuchObjectException {
+    if (metastore.roles.putIfAbsent(rowName, new Role(rowName, now(), ownerName)) != null) {
+      throw new InvalidObjectException("Role " + rowName + " already exists.");
+    }
+    return true;
+  }
+
+  @Override
+  public boolean removeRole(String roleName) throws MetaException, NoSuchObjectException {
+    if (metastore.roles.remove(roleName) == null) {
+      throw new NoSuchObjectException("Role " + roleName + " does not exist");
+    }
+    metastore.roleGrants.removeIf(grant -> grant.getRoleName().equals(roleName));
+    return true;
+  }
+
+  @Override
+  public boolean grantRole(
+      Role role,
+      String userName,
+      PrincipalType principalType,
+      String grantor,
+      PrincipalType grantorType,
+      boolean grantOption)
+    throws MetaException, NoSuchObjectException, InvalidObjectException {
+    synchronized (metastore) {
+      if (findRoleGrant(role.getRoleName(), userName, principalType) != null) {
+        throw new InvalidObjectException(
+            principalType + " " + userName + " already has the role " + role.getRoleName());
+      }
+      metastore.roleGrants.add(new RolePrincipalGrant(role.getRoleName(), userName, principalType, grantOption, now(),
+          grantor, grantorType));
+      return true;
+    }
+  }
+
+  private RolePrincipalGrant findRoleGrant(String roleName, String principalName, PrincipalType principalType) {
+    for (RolePrincipalGrant grant : metastore.roleGrants) {
+      if (grant.getRoleName().equals(roleName)
+          && grant.getPrincipalName().equals(principalName)
+          && grant.getPrincipalType() == principalType) {
+        return grant;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean revokeRole(Role role, String userName, PrincipalType principalType, boolean grantOption)
+    throws MetaException, NoSuchObjectException {
+    synchronized (metastore) {
+      RolePrincipalGrant grant = findRoleGrant(role.getRoleName(), userName, principalType);
+      if (grant == null) {
+        throw new NoSuchObjectException(
+            principalType + " " + userName + " does not have the role " + role.getRoleName());
+      }
+      metastore.roleGrants.remove(grant);
+      if (grantOption) {
+        RolePrincipalGrant revoked = grant.deepCopy();
+        revoked.setGrantOption(false);
+        metastore.roleGrants.add(revoked);
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public Role getRole(String roleName) throws NoSuchObjectException {
+    Role role = metastore.roles.get(roleName);
+    if (role == null) {
+      throw new NoSuchObjectException("Role " + roleName + " does not exist");
+    }
+    return role.deepCopy();
+  }
+
+  @Override
+  public List<String> listRoleNames() {
+    return new ArrayList<>(metastore.roles.keySet());
+  }
+
+  @Override
+  public List<Role> listRoles(String principalName, PrincipalType principalType) {
+    List<Role> roles = new ArrayList<>();
+    for (RolePrincipalGrant grant : listRolesWithGrants(principalName, principalType)) {
+      Role role = metastore.roles.get(grant.getRoleName());
+      if (role != null) {
+        roles.add(role.deepCopy());
+      }
+    }
+    // every user has the public role, as in ObjectStore
+    if (principalType == PrincipalType.USER) {
+      Role publicRole = metastore.roles.get("public");
+      if (publicRole != null && !roles.contains(publicRole)) {
+        roles.add(publicRole.deepCopy());
+      }
+    }
+    return roles;
+  }
+
+  @Override
+  public List<RolePrincipalGrant> listRolesWithGrants(String principalName, PrincipalType principalType) {
+    List<RolePrincipalGrant> grants = new ArrayList<>();
+    for (RolePrincipalGrant grant : metastore.roleGrants) {
+      if (grant.getPrincipalName().equals(principalName) && grant.getPrincipalType() == principalType) {
+        grants.add(grant.deepCopy());
+      }
+    }
+    return grants;
+  }
+
+  @Override
+  public List<RolePrincipalGrant> listRoleMembers(String roleName) {
+    List<RolePrincipalGrant> grants = new ArrayList<>();
+    for (RolePrincipalGrant grant : metastore.roleGrants) {
+      if (grant.getRoleName().equals(roleName)) {
+        grants.add(grant.deepCopy());
+      }
+    }
+    return grants;
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getUserPrivilegeSet(String userName, List<String> groupNames)
+    throws InvalidObjectException, MetaException {
+    return new PrincipalPrivilegeSet();
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getDBPrivilegeSet(
+      String catName,
+      String dbName,
+      String userName,
+      List<String> groupNames)
+    throws InvalidObjectException, MetaException {
+    return new PrincipalPrivilegeSet();
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getTablePrivilegeSet(
+      String catName,
+      String dbName,
+      String tableName,
+      String userName,
+      List<String> groupNames)
+    throws InvalidObjectException, MetaException {
+    return new PrincipalPrivilegeSet();
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getPartitionPrivilegeSet(
+      String catName,
+      String dbName,
+      String tableName,
+      String partition,
+      String userName,
+      List<String> groupNames)
+    throws InvalidObjectException, MetaException {
+    return new PrincipalPrivilegeSet();
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getColumnPrivilegeSet(
+      String catName,
+      String dbName,
+      String tableName,
+      String partitionName,
+      String columnName,
+      String userName,
+      List<String> groupNames)
+    throws InvalidObjectException, MetaException {
+    return new PrincipalPrivilegeSet();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalGlobalGrants(String principalName, PrincipalType principalType) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalDBGrants(
+      String principalName,
+      PrincipalType principalType,
+      String catName,
+      String dbName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listAllTableGrants(
+      String principalName,
+      PrincipalType principalType,
+      String catName,
+      String dbName,
+      String tableName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalPartitionGrants(
+      String principalName,
+      PrincipalType principalType,
+      String catName,
+      String dbName,
+      String tableName,
+      List<String> partValues,
+      String partName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalTableColumnGrants(
+      String principalName,
+      PrincipalType principalType,
+      String catName,
+      String dbName,
+      String tableName,
+      String columnName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalPartitionColumnGrants(
+      String principalName,
+      PrincipalType principalType,
+      String catName,
+      String dbName,
+      String tableName,
+      List<String> partValues,
+      String partName,
+      String columnName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public boolean grantPrivileges(PrivilegeBag privileges)
+    throws InvalidObjectException, MetaException, NoSuchObjectException {
+    return true;
+  }
+
+  @Override
+  public boolean revokePrivileges(PrivilegeBag privileges, boolean grantOption)
+    throws InvalidObjectException, MetaException, NoSuchObjectException {
+    return true;
+  }
+
+  @Override
+  public boolean refreshPrivileges(HiveObjectRef objToRefresh, String authorizer, PrivilegeBag grantPrivileges)
+    throws InvalidObjectException, MetaException, NoSuchObjectException {
+    return true;
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalDBGrantsAll(String principalName, PrincipalType principalType) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalTableGrantsAll(String principalName, PrincipalType principalType) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalPartitionGrantsAll(
+      String principalName,
+      PrincipalType principalType) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalTableColumnGrantsAll(
+      String principalName,
+      PrincipalType principalType) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalPartitionColumnGrantsAll(
+      String principalName,
+      PrincipalType principalType) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listGlobalGrantsAll() {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listDBGrantsAll(String catName, String dbName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPartitionColumnGrantsAll(
+      String catName,
+      String dbName,
+      String tableName,
+      String partitionName,
+      String columnName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listTableGrantsAll(String catName, String dbName, String tableName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPartitionGrantsAll(
+      String catName,
+      String dbName,
+      String tableName,
+      String partitionName) {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listTableColumnGrantsAll(
+      String catName,
+      String dbName,
+      String tableName,
+      String columnName) {
+    return new ArrayList<>();
+  }
+
+  // column statistics
+
+  @Override
+  public boolean updateTableColumnStatistics(ColumnStatistics colStats)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    ColumnStatisticsDesc desc = colStats.getStatsDesc();
+    TableEntry table = existingTable(desc.getCatName(), desc.getDbName(), desc.getTableName());
+    List<String> columns = new ArrayList<>();
+    for (ColumnStatisticsObj statistics : colStats.getStatsObj()) {
+      table.columnStatistics.put(normalize(statistics.getColName()), statistics.deepCopy());
+      columns.add(normalize(statistics.getColName()));
+    }
+    synchronized (metastore) {
+      Table altered = table.table.deepCopy();
+      if (altered.getParameters() == null) {
+        altered.setParameters(new HashMap<>());
+      }
+      StatsSetupConst.setColumnStatsState(altered.getParameters(), columns);
+      table.table = altered;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean updatePartitionColumnStatistics(ColumnStatistics statsObj, List<String> partVals)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    ColumnStatisticsDesc desc = statsObj.getStatsDesc();
+    TableEntry table = existingTable(desc.getCatName(), desc.getDbName(), desc.getTableName());
+    String name = partitionName(table.table, partVals);
+    List<String> columns = new ArrayList<>();
+    synchronized (metastore) {
+      Partition partition = table.partitions.get(name);
+      if (partition == null) {
+        throw new NoSuchObjectException("Partition " + name + " of " + desc.getDbName() + "." + desc.getTableName()
+            + " does not exist");
+      }
+      Map<String, ColumnStatisticsObj> statistics = table.partitionColumnStatistics
+          .computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+      for (ColumnStatisticsObj columnStatistics : statsObj.getStatsObj()) {
+        statistics.put(normalize(columnStatistics.getColName()), columnStatistics.deepCopy());
+        columns.add(normalize(columnStatistics.getColName()));
+      }
+      Partition altered = partition.deepCopy();
+      if (altered.getParameters() == null) {
+        altered.setParameters(new HashMap<>());
+      }
+      StatsSetupConst.setColumnStatsState(altered.getParameters(), columns);
+      table.partitions.put(name, altered);
+    }
+    return true;
+  }
+
+  private static List<ColumnStatisticsObj> columnStatistics(
+      Map<String, ColumnStatisticsObj> statistics,
+      List<String> colNames) {
+    List<ColumnStatisticsObj> objects = new ArrayList<>();
+    for (String colName : colNames) {
+      ColumnStatisticsObj object = statistics.get(normalize(colName));
+      if (object != null) {
+        objects.add(object.deepCopy());
+      }
+    }
+    return objects;
+  }
+
+  @Override
+  public ColumnStatistics getTableColumnStatistics(
+      String catName,
+      String dbName,
+      String tableName,
+      List<String> colName)
+    throws MetaException, NoSuchObjectException {
+    TableEntry table = existingTable(catName, dbName, tableName);
+    List<ColumnStatisticsObj> objects = columnStatistics(table.columnStatistics, colName);
+    if (objects.isEmpty()) {
+      return null;
+    }
+    ColumnStatisticsDesc desc = new ColumnStatisticsDesc(true, table.table.getDbName(), table.table.getTableName());
+    desc.setCatName(table.table.getCatName());
+    return new ColumnStatistics(desc, objects);
+  }
+
+  @Override
+  public List<ColumnStatistics> getPartitionColumnStatistics(
+      String catName,
+      String dbName,
+      String tblName,
+      List<String> partNames,
+      List<String> colNames)
+    throws MetaException, NoSuchObjectException {
+    TableEntry table = existingTable(catName, dbName, tblName);
+    List<ColumnStatistics> result = new ArrayList<>();
+    for (String partName : partNames) {
+      Map<String, ColumnStatisticsObj> statistics = table.partitionColumnStatistics.get(partName);
+      if (statistics == null) {
+        continue;
+      }
+      List<ColumnStatisticsObj> objects = columnStatistics(statistics, colNames);
+      if (!objects.isEmpty()) {
+        ColumnStatisticsDesc desc = new ColumnStatisticsDesc(false, table.table.getDbName(),
+            table.table.getTableName());
+        desc.setCatName(table.table.getCatName());
+        desc.setPartName(partName);
+        result.add(new ColumnStatistics(desc, objects));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean deletePartitionColumnStatistics(
+      String catName,
+      String dbName,
+      String tableName,
+      String partName,
+      List<String> partVals,
+      String colName)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    TableEntry table = existingTable(catName, dbName, tableName);
+    Map<String, ColumnStatisticsObj> statistics = table.partitionColumnStatistics.get(partName);
+    if (statistics == null) {
+      return false;
+    }
+    if (colName == null) {
+      statistics.clear();
+      return true;
+    }
+    return statistics.remove(normalize(colName)) != null;
+  }
+
+  @Override
+  public boolean deleteTableColumnStatistics(String catName, String dbName, String tableName, String colName)
+    throws NoSuchObjectException, MetaException, InvalidObjectException, InvalidInputException {
+    TableEntry table = existingTable(catName, dbName, tableName);
+    if (colName == null) {
+      table.columnStatistics.clear();
+      return true;
+    }
+    return table.columnStatistics.remove(normalize(colName)) != null;
+  }
+
+  @Override
+  public AggrStats get_aggr_stats_for(
+      String catName,
+      String dbName,
+      String tblName,
+      List<String> partNames,
+      List<String> colNames)
+    throws MetaException, NoSuchObjectException {
+    return new AggrStats(new ArrayList<>(), 0);
+  }
+
+  @Override
+  public List<ColStatsObjWithSourceInfo> getPartitionColStatsForDatabase(String catName, String dbName)
+    throws MetaException, NoSuchObjectException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<FullTableName> getTableNamesWithStats() throws MetaException, NoSuchObjectException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<FullTableName> getAllTableNamesForStats() throws MetaException, NoSuchObjectException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public Map<String, List<String>> getPartitionColsWithStats(String catName, String dbName, String tableName)
+    throws MetaException, NoSuchObjectException {
+    return new HashMap<>();
+  }
+
+  // tokens, keys and schema version
+
+  @Override
+  public long cleanupEvents() {
+    return 0;
+  }
+
+  @Override
+  public boolean addToken(String tokenIdentifier, String delegationToken) {
+    return metastore.tokens.putIfAbsent(tokenIdentifier, delegationToken) == null;
+  }
+
+  @Override
+  public boolean removeToken(String tokenIdentifier) {
+    return metastore.tokens.remove(tokenIdentifier) != null;
+  }
+
+  @Override
+  public String getToken(String tokenIdentifier) {
+    return metastore.tokens.get(tokenIdentifier);
+  }
+
+  @Override
+  public List<String> getAllTokenIdentifiers() {
+    return new ArrayList<>(metastore.tokens.keySet());
+  }
+
+  @Override
+  public int addMasterKey(String key) throws MetaException {
+    int sequence = metastore.masterKeySequence.incrementAndGet();
+    metastore.masterKeys.put(sequence, key);
+    return sequence;
+  }
+
+  @Override
+  public void updateMasterKey(Integer seqNo, String key) throws NoSuchObjectException, MetaException {
+    if (metastore.masterKeys.replace(seqNo, key) == null) {
+      throw new NoSuchObjectException("No key found with keyId: " + seqNo);
+    }
+  }
+
+  @Override
+  public boolean removeMasterKey(Integer keySeq) {
+    return metastore.masterKeys.remove(keySeq) != null;
+  }
+
+  @Override
+  public String[] getMasterKeys() {
+    return metastore.masterKeys.values().toArray(new String[0]);
+  }
+
+  @Override
+  public void verifySchema() throws MetaException {}
+
+  @Override
+  public String getMetaStoreSchemaVersion() throws MetaException {
+    return metastore.schemaVersion;
+  }
+
+  @Override
+  public void setMetaStoreSchemaVersion(String version, String comment) throws MetaException {
+    metastore.schemaVersion = version;
+  }
+
+  @Override
+  public String getMetastoreDbUuid() throws MetaException {
+    return metastore.uuid;
+  }
+
+  // functions
+
+  @Override
+  public void createFunction(Function func) throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      DatabaseEntry database = databaseEntry(func.getCatName(), func.getDbName());
+      if (database == null) {
+        throw new InvalidObjectException("Database " + func.getDbName() + " doesn't exist.");
+      }
+      String name = normalize(func.getFunctionName());
+      if (database.functions.containsKey(name)) {
+        throw new InvalidObjectException("Function " + func.getDbName() + "." + name + " already exists");
+      }
+      database.functions.put(name, normalizedCopy(func));
+    }
+  }
+
+  private Function normalizedCopy(Function func) {
+    Function function = func.deepCopy();
+    function.setCatName(catalogName(func.getCatName()));
+    function.setDbName(normalize(func.getDbName()));
+    function.setFunctionName(normalize(func.getFunctionName()));
+    return function;
+  }
+
+  @Override
+  public void alterFunction(String catName, String dbName, String funcName, Function newFunction)
+    throws InvalidObjectException, MetaException {
+    synchronized (metastore) {
+      DatabaseEntry database = databaseEntry(catName, dbName);
+      if (database == null || database.functions.remove(normalize(funcName)) == null) {
+        throw new InvalidObjectException("Function " + dbName + "." + funcName + " doesn't exist");
+      }
+      Function function = normalizedCopy(newFunction);
+      DatabaseEntry newDatabase = databaseEntry(function.getCatName(), function.getDbName());
+      if (newDatabase == null) {
+        throw new InvalidObjectException("Database " + function.getDbName() + " doesn't exist.");
+      }
+      newDatabase.functions.put(function.getFunctionName(), function);
+    }
+  }
+
+  @Override
+  public void dropFunction(String catName, String dbName, String funcName)
+    throws MetaException, NoSuchObjectException, InvalidObjectException, InvalidInputException {
+    DatabaseEntry database = databaseEntry(catName, dbName);
+    if (database == null || database.functions.remove(normalize(funcName)) == null) {
+      throw new NoSuchObjectException("Function " + dbName + "." + funcName + " does not exist");
+    }
+  }
+
+  @Override
+  public Function getFunction(String catName, String dbName, String funcName) throws MetaException {
+    DatabaseEntry database = databaseEntry(catName, dbName);
+    Function function = database == null ? null : database.functions.get(normalize(funcName));
+    return function == null ? null : function.deepCopy();
+  }
+
+  @Override
+  public List<Function> getAllFunctions(String catName) throws MetaException {
+    List<Function> functions = new ArrayList<>();
+    CatalogEntry catalog = catalogEntry(catName);
+    if (catalog != null) {
+      for (DatabaseEntry database : catalog.databases.values()) {
+        for (Function function : database.functions.values()) {
+          functions.add(function.deepCopy());
+        }
+      }
+    }
+    return functions;
+  }
+
+  @Override
+  public List<String> getFunctions(String catName, String dbName, String pattern) throws MetaException {
+    List<String> names = new ArrayList<>();
+    DatabaseEntry database = databaseEntry(catName, dbName);
+    if (database != null) {
+      for (String name : database.functions.keySet()) {
+        if (matches(name, pattern)) {
+          names.add(name);
+        }
+      }
+    }
+    return names;
+  }
+
+  // notifications
+
+  @Override
+  public NotificationEventResponse getNextNotification(NotificationEventRequest rqst) {
+    List<NotificationEvent> events = new ArrayList<>();
+    for (NotificationEvent event : metastore.notifications.tailMap(rqst.getLastEvent(), false).values()) {
+      if (rqst.isSetMaxEvents() && events.size() >= rqst.getMaxEvents()) {
+        break;
+      }
+      events.add(event.deepCopy());
+    }
+    return new NotificationEventResponse(events);
+  }
+
+  @Override
+  public void addNotificationEvent(NotificationEvent event) {
+    event.setEventId(metastore.notificationSequence.incrementAndGet());
+    if (event.getEventTime() == 0) {
+      event.setEventTime(now());
+    }
+    metastore.notifications.put(event.getEventId(), event.deepCopy());
+  }
+
+  @Override
+  public void cleanNotificationEvents(int olderThan) {
+    int threshold = now() - olderThan;
+    metastore.notifications.values().removeIf(event -> event.getEventTime() < threshold);
+  }
+
+  @Override
+  public CurrentNotificationEventId getCurrentNotificationEventId() {
+    return new CurrentNotificationEventId(metastore.notificationSequence.get());
+  }
+
+  @Override
+  public NotificationEventsCountResponse getNotificationEventsCount(NotificationEventsCountRequest rqst) {
+    long count = 0;
+    for (NotificationEvent event : metastore.notifications.tailMap(rqst.getFromEventId(), false).values()) {
+      if (rqst.getDbName() == null || rqst.getDbName().equalsIgnoreCase(event.getDbName())) {
+        count++;
+      }
+    }
+    return new NotificationEventsCountResponse(count);
+  }
+
+  @Override
+  public void flushCache() {}
+
+  // file metadata
+
+  @Override
+  public ByteBuffer[] getFileMetadata(List<Long> fileIds) throws MetaException {
+    throw unsupported("getFileMetadata");
+  }
+
+  @Override
+  public void putFileMetadata(List<Long> fileIds, List<ByteBuffer> metadata, FileMetadataExprType type)
+    throws MetaException {
+    throw unsupported("putFileMetadata");
+  }
+
+  @Override
+  public boolean isFileMetadataSupported() {
+    return false;
+  }
+
+  @Override
+  public void getFileMetadataByExpr(
+      List<Long> fileIds,
+      FileMetadataExprType type,
+      byte[] expr,
+      ByteBuffer[] metadatas,
+      ByteBuffer[] exprResults,
+      boolean[] eliminated)
+    throws MetaException {
+    throw unsupported("getFileMetadataByExpr");
+  }
+
+  @Override
+  public FileMetadataHandler getFileMetadataHandler(FileMetadataExprType type) {
+    return null;
+  }
+
+  // constraints
+
+  private List<TableEntry> tables(String catName, String dbName, String tableName) {
+    List<TableEntry> tables = new ArrayList<>();
+    CatalogEntry catalog = catalogEntry(catName);
+    if (catalog == null) {
+      return tables;
+    }
+    for (DatabaseEntry database : catalog.databases.values()) {
+      if (dbName != null && !database.database.getName().equals(normalize(dbName))) {
+        continue;
+      }
+      for (TableEntry table : database.tables.values()) {
+        if (tableName == null || table.table.getTableName().equals(normalize(tableName))) {
+          tables.add(table);
+        }
+      }
+    }
+    return tables;
+  }
+
+  @Override
+  public List<SQLPrimaryKey> getPrimaryKeys(String catName, String db_name, String tbl_name) throws MetaException {
+    List<SQLPrimaryKey> keys = new ArrayList<>();
+    TableEntry table = tableEntry(catName, db_name, tbl_name);
+    if (table != null) {
+      for (SQLPrimaryKey key : table.primaryKeys) {
+        keys.add(key.deepCopy());
+      }
+    }
+    return keys;
+  }
+
+  @Override
+  public List<SQLForeignKey> getForeignKeys(
+      String catName,
+      String parent_db_name,
+      String parent_tbl_name,
+      String foreign_db_name,
+      String foreign_tbl_name)
+    throws MetaException {
+    List<SQLForeignKey> keys = new ArrayList<>();
+    for (TableEntry table : tables(catName, foreign_db_name, foreign_tbl_name)) {
+      for (SQLForeignKey key : table.foreignKeys) {
+        if ((parent_db_name == null || parent_db_name.equalsIgnoreCase(key.getPktable_db()))
+            && (parent_tbl_name == null || parent_tbl_name.equalsIgnoreCase(key.getPktable_name()))) {
+          keys.add(key.deepCopy());
+        }
+      }
+    }
+    return keys;
+  }
+
+  @Override
+  public List<SQLUniqueConstraint> getUniqueConstraints(String catName, String db_name, String tbl_name)
+    throws MetaException {
+    List<SQLUniqueConstraint> constraints = new ArrayList<>();
+    TableEntry table = tableEntry(catName, db_name, tbl_name);
+    if (table != null) {
+      for (SQLUniqueConstraint constraint : table.uniqueConstraints) {
+        constraints.add(constraint.deepCopy());
+      }
+    }
+    return constraints;
+  }
+
+  @Override
+  public List<SQLNotNullConstraint> getNotNullConstraints(String catName, String db_name, String tbl_name)
+    throws MetaException {
+    List<SQLNotNullConstraint> constraints = new ArrayList<>();
+    TableEntry table = tableEntry(catName, db_name, tbl_name);
+    if (table != null) {
+      for (SQLNotNullConstraint constraint : table.notNullConstraints) {
+        constraints.add(constraint.deepCopy());
+      }
+    }
+    return constraints;
+  }
+
+  @Override
+  public List<SQLDefaultConstraint> getDefaultConstraints(String catName, String db_name, String tbl_name)
+    throws MetaException {
+    List<SQLDefaultConstraint> constraints = new ArrayList<>();
+    TableEntry table = tableEntry(catName, db_name, tbl_name);
+    if (table != null) {
+      for (SQLDefaultConstraint constraint : table.defaultConstraints) {
+        constraints.add(constraint.deepCopy());
+      }
+    }
+    return constraints;
+  }
+
+  @Override
+  public List<SQLCheckConstraint> getCheckConstraints(String catName, String db_name, String tbl_name)
+    throws MetaException {
+    List<SQLCheckConstraint> constraints = new ArrayList<>();
+    TableEntry table = tableEntry(catName, db_name, tbl_name);
+    if (table != null) {
+      for (SQLCheckConstraint constraint : table.checkConstraints) {
+        constraints.add(constraint.deepCopy());
+      }
+    }
+    return constraints;
+  }
+
+  @Override
+  public List<String> createTableWithConstraints(
+      Table tbl,
+      List<SQLPrimaryKey> primaryKeys,
+      List<SQLForeignKey> foreignKeys,
+      List<SQLUniqueConstraint> uniqueConstraints,
+      List<SQLNotNullConstraint> notNullConstraints,
+      List<SQLDefaultConstraint> defaultConstraints,
+      List<SQLCheckConstraint> checkConstraints)
+    throws InvalidObjectException, MetaException {
+    createTable(tbl);
+    List<String> names = new ArrayList<>();
+    names.addAll(addPrimaryKeys(primaryKeys));
+    names.addAll(addForeignKeys(foreignKeys));
+    names.addAll(addUniqueConstraints(uniqueConstraints));
+    names.addAll(addNotNullConstraints(notNullConstraints));
+    names.addAll(addDefaultConstraints(defaultConstraints));
+    names.addAll(addCheckConstraints(checkConstraints));
+    return names;
+  }
+
+  @Override
+  public void dropConstraint(String catName, String dbName, String tableName, String constraintName,
+      boolean missingOk)
+    throws NoSuchObjectException {
+    TableEntry table = tableEntry(catName, dbName, tableName);
+    boolean removed = table != null
+        && (table.primaryKeys.removeIf(key -> constraintName.equals(key.getPk_name()))
+            | table.foreignKeys.removeIf(key -> constraintName.equals(key.getFk_name()))
+            | table.uniqueConstraints.removeIf(constraint -> constraintName.equals(constraint.getUk_name()))
+            | table.notNullConstraints.removeIf(constraint -> constraintName.equals(constraint.getNn_name()))
+            | table.defaultConstraints.removeIf(constraint -> constraintName.equals(constraint.getDc_name()))
+            | table.checkConstraints.removeIf(constraint -> constraintName.equals(constraint.getDc_name())));
+    if (!removed && !missingOk) {
+      throw new NoSuchObjectException("The constraint: " + constraintName + " does not exist for the associated table: "
+          + dbName + "." + tableName);
+    }
+  }
+
+  /**
+   * Adds constraints to the tables they belong to, naming the ones which don't have a name.
+   */
+  private <T> List<String> addConstraints(
+      List<T> constraints,
+      ConstraintTarget<T> target,
+      java.util.function.Function<T, String> name,
+      BiConsumer<T, String> setName)
+    throws InvalidObjectException {
+    List<String> names = new ArrayList<>();
+    if (constraints == null) {
+      return names;
+    }
+    synchronized (metastore) {
+      for (T constraint : constraints) {
+        List<T> tableConstraints = target.constraints(constraint);
+        if (tableConstraints == null) {
+          throw new InvalidObjectException("Parent table of constraint " + name.apply(constraint) + " not found");
+        }
+        if (name.apply(constraint) == null) {
+          setName.accept(constraint, "beeju_" + UUID.randomUUID().toString().replace("-", ""));
+        }
+        tableConstraints.add(constraint);
+        names.add(name.apply(constraint));
+      }
+    }
+    return names;
+  }
+
+  private interface ConstraintTarget<T> {
+    List<T> constraints(T constraint);
+  }
+
+  @Override
+  public List<String> addPrimaryKeys(List<SQLPrimaryKey> pks) throws InvalidObjectException, MetaException {
+    return addConstraints(copyAll(pks, SQLPrimaryKey::deepCopy), key -> {
+      TableEntry table = tableEntry(key.getCatName(), key.getTable_db(), key.getTable_name());
+      return table == null ? null : table.primaryKeys;
+    }, SQLPrimaryKey::getPk_name, SQLPrimaryKey::setPk_name);
+  }
+
+  @Override
+  public List<String> addForeignKeys(List<SQLForeignKey> fks) throws InvalidObjectException, MetaException {
+    return addConstraints(copyAll(fks, SQLForeignKey::deepCopy), key -> {
+      TableEntry table = tableEntry(key.getCatName(), key.getFktable_db(), key.getFktable_name());
+      return table == null ? null : table.foreignKeys;
+    }, SQLForeignKey::getFk_name, SQLForeignKey::setFk_name);
+  }
+
+  @Override
+  public List<String> addUniqueConstraints(List<SQLUniqueConstraint> uks)
+    throws InvalidObjectException, MetaException {
+    return addConstraints(copyAll(uks, SQLUniqueConstraint::deepCopy), constraint -> {
+      TableEntry table = tableEntry(constraint.getCatName(), constraint.getTable_db(), constraint.getTable_name());
+      return table == null ? null : table.uniqueConstraints;
+    }, SQLUniqueConstraint::getUk_name, SQLUniqueConstraint::setUk_name);
+  }
+
+  @Override
+  public List<String> addNotNullConstraints(List<SQLNotNullConstraint> nns)
+    throws InvalidObjectException, MetaException {
+    return addConstraints(copyAll(nns, SQLNotNullConstraint::deepCopy), constraint -> {
+      TableEntry table = tableEntry(constraint.getCatName(), constraint.getTable_db(), constraint.getTable_name());
+      return table == null ? null : table.notNullConstraints;
+    }, SQLNotNullConstraint::getNn_name, SQLNotNullConstraint::setNn_name);
+  }
+
+  @Override
+  public List<String> addDefaultConstraints(List<SQLDefaultConstraint> dv)
+    throws InvalidObjectException, MetaException {
+    return addConstraints(copyAll(dv, SQLDefaultConstraint::deepCopy), constraint -> {
+      TableEntry table = tableEntry(constraint.getCatName(), constraint.getTable_db(), constraint.getTable_name());
+      return table == null ? null : table.defaultConstraints;
+    }, SQLDefaultConstraint::getDc_name, SQLDefaultConstraint::setDc_name);
+  }
+
+  @Override
+  public List<String> addCheckConstraints(List<SQLCheckConstraint> cc) throws InvalidObjectException, MetaException {
+    return addConstraints(copyAll(cc, SQLCheckConstraint::deepCopy), constraint -> {
+      TableEntry table = tableEntry(constraint.getCatName(), constraint.getTable_db(), constraint.getTable_name());
+      return table == null ? null : table.checkConstraints;
+    }, SQLCheckConstraint::getDc_name, SQLCheckConstraint::setDc_name);
+  }
+
+  private static <T> List<T> copyAll(List<T> values, java.util.function.Function<T, T> copy) {
+    if (values == null) {
+      return null;
+    }
+    List<T> copies = new ArrayList<>();
+    for (T value : values) {
+      copies.add(copy.apply(value));
+    }
+    return copies;
+  }
+
+  // workload management
+
+  @Override
+  public void createResourcePlan(WMResourcePlan resourcePlan, String copyFrom, int defaultPoolSize)
+    throws MetaException {
+    throw unsupported("createResourcePlan");
+  }
+
+  @Override
+  public WMFullResourcePlan getResourcePlan(String name) throws NoSuchObjectException, MetaException {
+    throw new NoSuchObjectException("There is no resource plan " + name);
+  }
+
+  @Override
+  public List<WMResourcePlan> getAllResourcePlans() throws MetaException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public WMFullResourcePlan alterResourcePlan(
+      String name,
+      WMNullableResourcePlan resourcePlan,
+      boolean canActivateDisabled,
+      boolean canDeactivate,
+      boolean isReplace)
+    throws MetaException {
+    throw unsupported("alterResourcePlan");
+  }
+
+  @Override
+  public WMFullResourcePlan getActiveResourcePlan() throws MetaException {
+    return null;
+  }
+
+  @Override
+  public WMValidateResourcePlanResponse validateResourcePlan(String name) throws MetaException {
+    throw unsupported("validateResourcePlan");
+  }
+
+  @Override
+  public void dropResourcePlan(String name) throws MetaException {
+    throw unsupported("dropResourcePlan");
+  }
+
+  @Override
+  public void createWMTrigger(WMTrigger trigger) throws MetaException {
+    throw unsupported("createWMTrigger");
+  }
+
+  @Override
+  public void alterWMTrigger(WMTrigger trigger) throws MetaException {
+    throw unsupported("alterWMTrigger");
+  }
+
+  @Override
+  public void dropWMTrigger(String resourcePlanName, String triggerName) throws MetaException {
+    throw unsupported("dropWMTrigger");
+  }
+
+  @Override
+  public List<WMTrigger> getTriggersForResourcePlan(String resourcePlanName) throws MetaException {
+    throw unsupported("getTriggersForResourcePlan");
+  }
+
+  @Override
+  public void createPool(WMPool pool) throws MetaException {
+    throw unsupported("createPool");
+  }
+
+  @Override
+  public void alterPool(WMNullablePool pool, String poolPath) throws MetaException {
+    throw unsupported("alterPool");
+  }
+
+  @Override
+  public void dropWMPool(String resourcePlanName, String poolPath) throws MetaException {
+    throw unsupported("dropWMPool");
+  }
+
+  @Override
+  public void createOrUpdateWMMapping(WMMapping mapping, boolean update) throws MetaException {
+    throw unsupported("createOrUpdateWMMapping");
+  }
+
+  @Override
+  public void dropWMMapping(WMMapping mapping) throws MetaException {
+    throw unsupported("dropWMMapping");
+  }
+
+  @Override
+  public void createWMTriggerToPoolMapping(String resourcePlanName, String triggerName, String poolPath)
+    throws MetaException {
+    throw unsupported("createWMTriggerToPoolMapping");
+  }
+
+  @Override
+  public void dropWMTriggerToPoolMapping(String resourcePlanName, String triggerName, String poolPath)
+    throws MetaException {
+    throw unsupported("dropWMTriggerToPoolMapping");
+  }
+
+  // schema registry
+
+  @Override
+  public void createISchema(ISchema schema) throws MetaException {
+    throw unsupported("createISchema");
+  }
+
+  @Override
+  public void alterISchema(ISchemaName schemaName, ISchema newSchema) throws MetaException {
+    throw unsupported("alterISchema");
+  }
+
+  @Override
+  public ISchema getISchema(ISchemaName schemaName) throws MetaException {
+    throw unsupported("getISchema");
+  }
+
+  @Override
+  public void dropISchema(ISchemaName schemaName) throws MetaException {
+    throw unsupported("dropISchema");
+  }
+
+  @Override
+  public void addSchemaVersion(SchemaVersion schemaVersion) throws MetaException {
+    throw unsupported("addSchemaVersion");
+  }
+
+  @Override
+  public void alterSchemaVersion(SchemaVersionDescriptor version, SchemaVersion newVersion) throws MetaException {
+    throw unsupported("alterSchemaVersion");
+  }
+
+  @Override
+  public SchemaVersion getSchemaVersion(SchemaVersionDescriptor version) throws MetaException {
+    throw unsupported("getSchemaVersion");
+  }
+
+  @Override
+  public SchemaVersion getLatestSchemaVersion(ISchemaName schemaName) throws MetaException {
+    throw unsupported("getLatestSchemaVersion");
+  }
+
+  @Override
+  public List<SchemaVersion> getAllSchemaVersion(ISchemaName schemaName) throws MetaException {
+    throw unsupported("getAllSchemaVersion");
+  }
+
+  @Override
+  public List<SchemaVersion> getSchemaVersionsByColumns(String colName, String colNamespace, String type)
+    throws MetaException {
+    throw unsupported("getSchemaVersionsByColumns");
+  }
+
+  @Override
+  public void dropSchemaVersion(SchemaVersionDescriptor version) throws MetaException {
+    throw unsupported("dropSchemaVersion");
+  }
+
+  @Override
+  public SerDeInfo getSerDeInfo(String serDeName) throws MetaException {
+    throw unsupported("getSerDeInfo");
+  }
+
+  @Override
+  public void addSerde(SerDeInfo serde) throws MetaException {
+    throw unsupported("addSerde");
+  }
+
+  // runtime statistics
+
+  @Override
+  public void addRuntimeStat(RuntimeStat stat) throws MetaException {}
+
+  @Override
+  public List<RuntimeStat> getRuntimeStats(int maxEntries, int maxCreateTime) throws MetaException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public int deleteRuntimeStats(int maxRetainSecs) throws MetaException {
+    return 0;
+  }
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.common.ValidTxnList;
+import org.apache.hadoop.hive.metastore.api.AbortTxnRequest;
+import org.apache.hadoop.hive.metastore.api.AbortTxnsRequest;
+import org.apache.hadoop.hive.metastore.api.AddDynamicPartitions;
+import org.apache.hadoop.hive.metastore.api.AllocateTableWriteIdsRequest;
+import org.apache.hadoop.hive.metastore.api.AllocateTableWriteIdsResponse;
+import org.apache.hadoop.hive.metastore.api.CheckLockRequest;
+import org.apache.hadoop.hive.metastore.api.CommitTxnRequest;
+import org.apache.hadoop.hive.metastore.api.CompactionRequest;
+import org.apache.hadoop.hive.metastore.api.CompactionResponse;
+import org.apache.hadoop.hive.metastore.api.CreationMetadata;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.GetOpenTxnsInfoResponse;
+import org.apache.hadoop.hive.metastore.api.GetOpenTxnsResponse;
+import org.apache.hadoop.hive.metastore.api.GetValidWriteIdsRequest;
+import org.apache.hadoop.hive.metastore.api.GetValidWriteIdsResponse;
+import org.apache.hadoop.hive.metastore.api.HeartbeatRequest;
+import org.apache.hadoop.hive.metastore.api.HeartbeatTxnRangeRequest;
+import org.apache.hadoop.hive.metastore.api.HeartbeatTxnRangeResponse;
+import org.apache.hadoop.hive.metastore.api.HiveObjectType;
+import org.apache.hadoop.hive.metastore.api.InitializeTableWriteIdsRequest;
+import org.apache.hadoop.hive.metastore.api.LockRequest;
+import org.apache.hadoop.hive.metastore.api.LockResponse;
+import org.apache.hadoop.hive.metastore.api.Materialization;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.OpenTxnRequest;
+import org.apache.hadoop.hive.metastore.api.OpenTxnsResponse;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.ReplTblWriteIdStateRequest;
+import org.apache.hadoop.hive.metastore.api.ShowCompactRequest;
+import org.apache.hadoop.hive.metastore.api.ShowCompactResponse;
+import org.apache.hadoop.hive.metastore.api.ShowLocksRequest;
+import org.apache.hadoop.hive.metastore.api.ShowLocksResponse;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.api.UnlockRequest;
+import org.apache.hadoop.hive.metastore.txn.CompactionInfo;
+import org.apache.hadoop.hive.metastore.txn.TxnStore;
+
+/**
+ * The {@link TxnStore} of metastores using {@link InMemoryRawStore}, selected by setting {@code metastore.txn.store.impl}
+ * to this class, which BeeJU does by default for such metastores.
+ * <p>
+ * Hive's own transaction store keeps its tables in the metastore database, which an {@link InMemoryRawStore} doesn't
+ * have. There are never any open transactions, locks or compactions: the clean up the metastore does when objects are
+ * dropped or renamed does nothing and opening transactions, taking locks and requesting compactions fail.
+ * </p>
+ */
+public class InMemoryTxnStore implements TxnStore {
+
+  private Configuration conf;
+
+  @Override
+  public void setConf(Configuration conf) {
+    this.conf = conf;
+  }
+
+  @Override
+  public Configuration getConf() {
+    return conf;
+  }
+
+  private static MetaException unsupported(String operation) {
+    return new MetaException(operation + " is not supported by " + InMemoryTxnStore.class.getSimpleName());
+  }
+
+  @Override
+  public GetOpenTxnsInfoResponse getOpenTxnsInfo() throws MetaException {
+    return new GetOpenTxnsInfoResponse(0, new ArrayList<>());
+  }
+
+  @Override
+  public GetOpenTxnsResponse getOpenTxns() throws MetaException {
+    return new GetOpenTxnsResponse(0, new ArrayList<>(), ByteBuffer.allocate(0));
+  }
+
+  @Override
+  public void countOpenTxns() throws MetaException {}
+
+  @Override
+  public OpenTxnsResponse openTxns(OpenTxnRequest rqst) throws MetaException {
+    throw unsupported("openTxns");
+  }
+
+  @Override
+  public void abortTxn(AbortTxnRequest rqst) throws MetaException {
+    throw unsupported("abortTxn");
+  }
+
+  @Override
+  public void abortTxns(AbortTxnsRequest rqst) throws MetaException {
+    throw unsupported("abortTxns");
+  }
+
+  @Override
+  public void commitTxn(CommitTxnRequest rqst) throws MetaException {
+    throw unsupported("commitTxn");
+  }
+
+  @Override
+  public void replTableWriteIdState(ReplTblWriteIdStateRequest rqst) throws MetaException {
+    throw unsupported("replTableWriteIdState");
+  }
+
+  @Override
+  public Materialization getMaterializationInvalidationInfo(CreationMetadata cm, String validTxnList)
+    throws MetaException {
+    throw unsupported("getMaterializationInvalidationInfo");
+  }
+
+  @Override
+  public LockResponse lockMaterializationRebuild(String dbName, String tableName, long txnId) throws MetaException {
+    throw unsupported("lockMaterializationRebuild");
+  }
+
+  @Override
+  public boolean heartbeatLockMaterializationRebuild(String dbName, String tableName, long txnId)
+    throws MetaException {
+    throw unsupported("heartbeatLockMaterializationRebuild");
+  }
+
+  @Override
+  public long cleanupMaterializationRebuildLocks(ValidTxnList validTxnList, long timeout) throws MetaException {
+    return 0;
+  }
+
+  @Override
+  public GetValidWriteIdsResponse getValidWriteIds(GetValidWriteIdsRequest rqst) throws MetaException {
+    throw unsupported("getValidWriteIds");
+  }
+
+  @Override
+  public AllocateTableWriteIdsResponse allocateTableWriteIds(AllocateTableWriteIdsRequest rqst) throws MetaException {
+    throw unsupported("allocateTableWriteIds");
+  }
+
+  @Override
+  public void seedWriteIdOnAcidConversion(InitializeTableWriteIdsRequest rqst) throws MetaException {
+    throw unsupported("seedWriteIdOnAcidConversion");
+  }
+
+  @Override
+  public LockResponse lock(LockRequest rqst) throws MetaException {
+    throw unsupported("lock");
+  }
+
+  @Override
+  public LockResponse checkLock(CheckLockRequest rqst) throws MetaException {
+    throw unsupported("checkLock");
+  }
+
+  @Override
+  public void unlock(UnlockRequest rqst) throws MetaException {
+    throw unsupported("unlock");
+  }
+
+  @Override
+  public ShowLocksResponse showLocks(ShowLocksRequest rqst) throws MetaException {
+    return new ShowLocksResponse();
+  }
+
+  @Override
+  public void heartbeat(HeartbeatRequest ids) throws MetaException {
+    throw unsupported("heartbeat");
+  }
+
+  @Override
+  public HeartbeatTxnRangeResponse heartbeatTxnRange(HeartbeatTxnRangeRequest rqst) throws MetaException {
+    throw unsupported("heartbeatTxnRange");
+  }
+
+  @Override
+  public CompactionResponse compact(CompactionRequest rqst) throws MetaException {
+    throw unsupported("compact");
+  }
+
+  @Override
+  public ShowCompactResponse showCompact(ShowCompactRequest rqst) throws MetaException {
+    return new ShowCompactResponse(new ArrayList<>());
+  }
+
+  @Override
+  public void addDynamicPartitions(AddDynamicPartitions rqst) throws MetaException {
+    throw unsupported("addDynamicPartitions");
+  }
+
+  @Override
+  public void cleanupRecords(HiveObjectType type, Database db, Table table, Iterator<Partition> partitionIterator)
+    throws MetaException {}
+
+  @Override
+  public void onRename(
+      String oldCatName,
+      String oldDbName,
+      String oldTabName,
+      String oldPartName,
+      String newCatName,
+      String newDbName,
+      String newTabName,
+      String newPartName)
+    throws MetaException {}
+
+  @Override
+  public void performTimeOuts() {}
+
+  @Override
+  public Set<CompactionInfo> findPotentialCompactions(int maxAborted) throws MetaException {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public void setRunAs(long cq_id, String user) throws MetaException {}
+
+  @Override
+  public CompactionInfo findNextToCompact(String workerId) throws MetaException {
+    return null;
+  }
+
+  @Override
+  public void markCompacted(CompactionInfo info) throws MetaException {}
+
+  @Override
+  public List<CompactionInfo> findReadyToClean() throws MetaException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public void markCleaned(CompactionInfo info) throws MetaException {}
+
+  @Override
+  public void markFailed(CompactionInfo info) throws MetaException {}
+
+  @Override
+  public void cleanTxnToWriteIdTable() throws MetaException {}
+
+  @Override
+  public void cleanEmptyAbortedTxns() throws MetaException {}
+
+  @Override
+  public void revokeFromLocalWorkers(String hostname) throws MetaException {}
+
+  @Override
+  public void revokeTimedoutWorkers(long timeout) throws MetaException {}
+
+  @Override
+  public List<String> findColumnsWithStats(CompactionInfo ci) throws MetaException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public void setCompactionHighestWriteId(CompactionInfo ci, long highestWriteId) throws MetaException {}
+
+  @Override
+  public void purgeCompactionHistory() throws MetaException {}
+
+  @Override
+  public void performWriteSetGC() {}
+
+  @Override
+  public boolean checkFailedCompactions(CompactionInfo ci) throws MetaException {
+    return false;
+  }
+
+  @Override
+  public int numLocksInLockTable() throws MetaException {
+    return 0;
+  }
+
+  @Override
+  public long setTimeout(long milliseconds) {
+    return 0;
+  }
+
+  @Override
+  public MutexAPI getMutexAPI() {
+    return new MutexAPI() {
+      @Override
+      public LockHandle acquireLock(String key) throws MetaException {
+        return () -> {};
+      }
+
+      @Override
+      public void acquireLock(String key, LockHandle handle) throws MetaException {}
+    };
+  }
+
+  @Override
+  public void setHadoopJobId(String hadoopJobId, long id) {}
+}
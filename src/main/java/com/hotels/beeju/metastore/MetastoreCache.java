@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+
+/**
+ * The cached databases, tables and partitions of a metastore using {@link BeejuCachedStore}, keyed by lower case
+ * catalog, database and table names joined with dots.
+ * <p>
+ * Objects are only cached if nothing has been invalidated since they were read from the metastore database, so that a
+ * read which races with a write can't put back an object the write has just invalidated.
+ * </p>
+ */
+final class MetastoreCache {
+
+  private static final ConcurrentMap<String, MetastoreCache> caches = new ConcurrentHashMap<>();
+
+  final ConcurrentMap<String, List<String>> databaseNames = new ConcurrentHashMap<>();
+  final ConcurrentMap<String, Database> databases = new ConcurrentHashMap<>();
+  final ConcurrentMap<String, List<String>> tableNames = new ConcurrentHashMap<>();
+  final ConcurrentMap<String, Table> tables = new ConcurrentHashMap<>();
+  /** Partitions of each table keyed by partition name in name order. */
+  final ConcurrentMap<String, Map<String, Partition>> partitions = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private long generation;
+
+  /**
+   * @param id The connection URL of the metastore database.
+   * @return The cache of the metastore, created if there isn't one.
+   */
+  static MetastoreCache forId(String id) {
+    return caches.computeIfAbsent(id, key -> new MetastoreCache());
+  }
+
+  /**
+   * @param id The connection URL of the metastore database.
+   * @return The cache of the metastore, or {@code null} if there isn't one.
+   */
+  static MetastoreCache get(String id) {
+    return caches.get(id);
+  }
+
+  static void remove(String id) {
+    caches.remove(id);
+  }
+
+  static String key(String... names) {
+    StringBuilder key = new StringBuilder();
+    for (String name : names) {
+      if (key.length() > 0) {
+        key.append('.');
+      }
+      key.append(name == null ? null : name.trim().toLowerCase());
+    }
+    return key.toString();
+  }
+
+  /**
+   * Looks an object up, counting a hit if it is cached.
+   */
+  <T> T get(Map<String, T> cache, String key) {
+    T value = cache.get(key);
+    if (value != null) {
+      hits.incrementAndGet();
+    }
+    return value;
+  }
+
+  /**
+   * @return The generation to pass to {@link #put(Map, String, Object, long)} for an object which is about to be read
+   *         from the metastore database, counting a miss.
+   */
+  synchronized long miss() {
+    misses.incrementAndGet();
+    return generation;
+  }
+
+  /**
+   * @return The current generation, for objects which are read without counting a miss.
+   */
+  synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Caches an object unless something has been invalidated since the given generation.
+   */
+  synchronized <T> void put(Map<String, T> cache, String key, T value, long generation) {
+    if (this.generation == generation && value != null) {
+      cache.put(key, value);
+    }
+  }
+
+  synchronized void invalidateDatabase(String catalogName, String databaseName) {
+    generation++;
+    databaseNames.remove(key(catalogName));
+    String databaseKey = key(catalogName, databaseName);
+    databases.remove(databaseKey);
+    tableNames.remove(databaseKey);
+    tables.keySet().removeIf(tableKey -> tableKey.startsWith(databaseKey + "."));
+    partitions.keySet().removeIf(tableKey -> tableKey.startsWith(databaseKey + "."));
+  }
+
+  synchronized void invalidateTable(String catalogName, String databaseName, String tableName) {
+    generation++;
+    tableNames.remove(key(catalogName, databaseName));
+    String tableKey = key(catalogName, databaseName, tableName);
+    tables.remove(tableKey);
+    partitions.remove(tableKey);
+  }
+
+  synchronized void invalidatePartitions(String catalogName, String databaseName, String tableName) {
+    generation++;
+    partitions.remove(key(catalogName, databaseName, tableName));
+  }
+
+  synchronized void invalidateAll() {
+    generation++;
+    databaseNames.clear();
+    databases.clear();
+    tableNames.clear();
+    tables.clear();
+    partitions.clear();
+  }
+
+  MetastoreCacheStatistics statistics() {
+    int partitionCount = 0;
+    for (Map<String, Partition> tablePartitions : partitions.values()) {
+      partitionCount += tablePartitions.size();
+    }
+    return new MetastoreCacheStatistics(hits.get(), misses.get(), databases.size(), tables.size(), partitionCount);
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+/**
+ * A snapshot of the hits, misses and contents of the cache of a metastore using {@link BeejuCachedStore}.
+ */
+public final class MetastoreCacheStatistics {
+
+  private final long hits;
+  private final long misses;
+  private final int databases;
+  private final int tables;
+  private final int partitions;
+
+  MetastoreCacheStatistics(long hits, long misses, int databases, int tables, int partitions) {
+    this.hits = hits;
+    this.misses = misses;
+    this.databases = databases;
+    this.tables = tables;
+    this.partitions = partitions;
+  }
+
+  /**
+   * @return The number of reads served from the cache.
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return The number of reads which had to be served from the metastore database.
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return The share of reads served from the cache, or 0 if nothing has been read.
+   */
+  public double getHitRatio() {
+    long reads = hits + misses;
+    return reads == 0 ? 0 : (double) hits / reads;
+  }
+
+  /**
+   * @return The number of databases in the cache.
+   */
+  public int getDatabases() {
+    return databases;
+  }
+
+  /**
+   * @return The number of tables in the cache.
+   */
+  public int getTables() {
+    return tables;
+  }
+
+  /**
+   * @return The number of partitions in the cache.
+   */
+  public int getPartitions() {
+    return partitions;
+  }
+
+  @Override
+  public String toString() {
+    return "MetastoreCacheStatistics[hits=" + hits + ", misses=" + misses + ", databases=" + databases + ", tables="
+        + tables + ", partitions=" + partitions + "]";
+  }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.hadoop.hive.metastore.datasource.DataSourceProvider;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import com.hotels.beeju.core.ConfigurationNames;
+
+/**
+ * Pools of JDBC connections to the metastore database which {@link BeejuObjectStore} can get its connections from
+ * instead of DataNucleus opening a new connection for each transaction.
+ * <p>
+ * The pool is chosen with the {@value #POOL} configuration property and sized with {@value #POOL_SIZE}. Each metastore
+ * has its own pool, which is closed with its {@link javax.jdo.PersistenceManagerFactory PersistenceManagerFactory}.
+ * Hive's own {@code datanucleus.connectionPoolingType} is left unpooled by BeeJU because Hive's {@code TxnHandler}
+ * creates its pool once per JVM, for whichever metastore database it sees first.
+ * </p>
+ */
+public enum MetastoreConnectionPool {
+
+  /** No pool, a connection is opened for each transaction. */
+  NONE {
+    @Override
+    DataSource create(Configuration conf, int size) throws SQLException {
+      return null;
+    }
+  },
+
+  /** A HikariCP pool. */
+  HIKARICP {
+    @Override
+    DataSource create(Configuration conf, int size) throws SQLException {
+      HikariConfig config = new HikariConfig();
+      config.setPoolName("beeju-metastore-pool-" + pools.incrementAndGet());
+      config.setJdbcUrl(DataSourceProvider.getMetastoreJdbcDriverUrl(conf));
+      config.setDriverClassName(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_DRIVER));
+      config.setUsername(DataSourceProvider.getMetastoreJdbcUser(conf));
+      config.setPassword(DataSourceProvider.getMetastoreJdbcPasswd(conf));
+      config.setMaximumPoolSize(size);
+      // embedded connections are cheap to open, so the pool only grows as concurrent calls need it to
+      config.setMinimumIdle(1);
+      return new HikariDataSource(config);
+    }
+  },
+
+  /** A Commons DBCP pool. */
+  DBCP {
+    @Override
+    DataSource create(Configuration conf, int size) throws SQLException {
+      BasicDataSource dataSource = new BasicDataSource();
+      dataSource.setUrl(DataSourceProvider.getMetastoreJdbcDriverUrl(conf));
+      dataSource.setDriverClassName(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.CONNECTION_DRIVER));
+      dataSource.setUsername(DataSourceProvider.getMetastoreJdbcUser(conf));
+      dataSource.setPassword(DataSourceProvider.getMetastoreJdbcPasswd(conf));
+      dataSource.setMaxActive(size);
+      dataSource.setMaxIdle(size);
+      return dataSource;
+    }
+  };
+
+  /** Configuration property naming the pool. Defaults to {@code none}. */
+  public static final String POOL = "beeju.metastore.connection.pool";
+
+  /** Configuration property with the maximum number of connections in the pool. Defaults to 10. */
+  public static final String POOL_SIZE = "beeju.metastore.connection.pool.size";
+
+  private static final int DEFAULT_POOL_SIZE = 10;
+
+  private static final AtomicInteger pools = new AtomicInteger();
+
+  /**
+   * @param name Pool name, in any case.
+   * @return The pool with the given name.
+   * @throws IllegalArgumentException If there is no pool with the given name.
+   */
+  public static MetastoreConnectionPool forName(String name) {
+    return ConfigurationNames.forName(MetastoreConnectionPool.class, "metastore connection pool", name);
+  }
+
+  /**
+   * @param conf Metastore configuration.
+   * @return The pool the configuration chooses.
+   * @throws IllegalArgumentException If the configuration chooses an unknown pool or a size which isn't >0.
+   */
+  public static MetastoreConnectionPool forConf(Configuration conf) {
+    MetastoreConnectionPool pool = forName(conf.get(POOL, NONE.poolName()));
+    int size = poolSize(conf);
+    if (size <= 0) {
+      throw new IllegalArgumentException("Metastore connection pool size must be >0, not " + size);
+    }
+    return pool;
+  }
+
+  /**
+   * @return The name the pool is chosen with.
+   */
+  public String poolName() {
+    return ConfigurationNames.nameOf(this);
+  }
+
+  /**
+   * @return A pool of connections to the database of the configured metastore, or {@code null} for {@link #NONE}.
+   * @throws SQLException If the metastore password can't be read.
+   */
+  DataSource create(Configuration conf) throws SQLException {
+    return create(conf, poolSize(conf));
+  }
+
+  abstract DataSource create(Configuration conf, int size) throws SQLException;
+
+  private static int poolSize(Configuration conf) {
+    return conf.getInt(POOL_SIZE, DEFAULT_POOL_SIZE);
+  }
+
+  static ConnectionPoolStatistics statistics(DataSource dataSource) {
+    if (dataSource instanceof HikariDataSource) {
+      HikariDataSource hikari = (HikariDataSource) dataSource;
+      HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+      return new ConnectionPoolStatistics(hikari.getMaximumPoolSize(), pool.getActiveConnections(),
+          pool.getIdleConnections(), pool.getThreadsAwaitingConnection());
+    }
+    BasicDataSource dbcp = (BasicDataSource) dataSource;
+    return new ConnectionPoolStatistics(dbcp.getMaxActive(), dbcp.getNumActive(), dbcp.getNumIdle(), 0);
+  }
+
+  static void close(DataSource dataSource) throws Exception {
+    if (dataSource instanceof HikariDataSource) {
+      ((HikariDataSource) dataSource).close();
+    } else {
+      ((BasicDataSource) dataSource).close();
+    }
+  }
+}
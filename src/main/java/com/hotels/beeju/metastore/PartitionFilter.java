@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.hive.metastore.PartFilterExprUtil;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree.LeafNode;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree.LogicalOperator;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree.TreeNode;
+
+/**
+ * A partition filter string, as taken by {@code get_partitions_by_filter}, evaluated against partition values in
+ * memory.
+ * <p>
+ * The filter is parsed with the metastore's own filter grammar. As in {@code ObjectStore}, only partition columns of
+ * string or integral types can be filtered on. Values of integral columns are compared numerically with a number and
+ * values of string columns are compared as strings, even with a number. {@code LIKE} takes a Java regular expression.
+ * </p>
+ */
+final class PartitionFilter {
+
+  private static final Set<String> STRING_TYPES = new HashSet<>(Arrays.asList("string", "char", "varchar"));
+  private static final Set<String> INTEGRAL_TYPES = new HashSet<>(Arrays.asList("tinyint", "smallint", "int",
+      "bigint"));
+
+  private final TreeNode root;
+
+  private PartitionFilter(TreeNode root) {
+    this.root = root;
+  }
+
+  /**
+   * @param filter The filter, or {@code null} or an empty string to match every partition.
+   * @return the parsed filter.
+   * @throws MetaException If the filter can't be parsed.
+   */
+  static PartitionFilter parse(String filter) throws MetaException {
+    if (filter == null || filter.trim().isEmpty()) {
+      return new PartitionFilter(null);
+    }
+    ExpressionTree tree = PartFilterExprUtil.getFilterParser(filter).tree;
+    return new PartitionFilter(tree.getRoot());
+  }
+
+  /**
+   * @param partitionKeys The table's partition columns.
+   * @param values The partition's values, in the same order.
+   * @return {@code true} if the partition matches.
+   * @throws MetaException If the filter refers to a column which isn't a partition column or whose type can't be
+   *           filtered on.
+   */
+  boolean matches(List<FieldSchema> partitionKeys, List<String> values) throws MetaException {
+    if (root == null) {
+      return true;
+    }
+    Map<String, Integer> keyIndexes = new HashMap<>();
+    for (int i = 0; i < partitionKeys.size(); i++) {
+      keyIndexes.put(partitionKeys.get(i).getName().toLowerCase(Locale.ROOT), i);
+    }
+    return evaluate(root, partitionKeys, keyIndexes, values);
+  }
+
+  private static boolean evaluate(
+      TreeNode node,
+      List<FieldSchema> partitionKeys,
+      Map<String, Integer> keyIndexes,
+      List<String> values)
+    throws MetaException {
+    if (node instanceof LeafNode) {
+      return evaluate((LeafNode) node, partitionKeys, keyIndexes, values);
+    }
+    boolean lhs = evaluate(node.getLhs(), partitionKeys, keyIndexes, values);
+    if (node.getAndOr() == LogicalOperator.AND) {
+      return lhs && evaluate(node.getRhs(), partitionKeys, keyIndexes, values);
+    }
+    return lhs || evaluate(node.getRhs(), partitionKeys, keyIndexes, values);
+  }
+
+  private static boolean evaluate(
+      LeafNode leaf,
+      List<FieldSchema> partitionKeys,
+      Map<String, Integer> keyIndexes,
+      List<String> values)
+    throws MetaException {
+    Integer index = keyIndexes.get(leaf.keyName.toLowerCase(Locale.ROOT));
+    if (index == null) {
+      throw new MetaException("The filter column " + leaf.keyName + " is not a partition column");
+    }
+    String type = baseType(partitionKeys.get(index).getType());
+    boolean integral = INTEGRAL_TYPES.contains(type);
+    if (!integral && !STRING_TYPES.contains(type)) {
+      // the same message as ObjectStore's
+      throw new MetaException("Filtering is supported only on partition keys of type string, or integral types");
+    }
+    String partitionValue = values.get(index);
+    if (leaf.operator == ExpressionTree.Operator.LIKE) {
+      return partitionValue.matches(leaf.value.toString());
+    }
+    int comparison;
+    if (integral && leaf.value instanceof Long) {
+      long number;
+      try {
+        number = Long.parseLong(partitionValue);
+      } catch (NumberFormatException e) {
+        // e.g. the default partition
+        return false;
+      }
+      comparison = Long.compare(number, (Long) leaf.value);
+    } else {
+      comparison = partitionValue.compareTo(leaf.value.toString());
+    }
+    if (leaf.isReverseOrder) {
+      comparison = -comparison;
+    }
+    switch (leaf.operator) {
+    case EQUALS:
+      return comparison == 0;
+    case NOTEQUALS:
+    case NOTEQUALS2:
+      return comparison != 0;
+    case LESSTHAN:
+      return comparison < 0;
+    case LESSTHANOREQUALTO:
+      return comparison <= 0;
+    case GREATERTHAN:
+      return comparison > 0;
+    case GREATERTHANOREQUALTO:
+      return comparison >= 0;
+    default:
+      throw new MetaException("Unsupported partition filter operator " + leaf.operator);
+    }
+  }
+
+  /**
+   * @return the type name without its parameters, e.g. {@code varchar} for {@code varchar(10)}.
+   */
+  private static String baseType(String type) {
+    int parameters = type.indexOf('(');
+    return (parameters < 0 ? type : type.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FixtureFileTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void read() throws Exception {
+    FixtureFile fixture = read(
+        "# sales data",
+        "database sales",
+        "",
+        "table sales.orders id:bigint,amount:decimal(10,2),tags:map<string,int> partitioned by dt:string,region:string",
+        "table sales.customers id:bigint",
+        "partition sales.orders dt=2021-01-01/region=eu");
+
+    assertThat(fixture.databases().size(), is(1));
+    assertThat(fixture.databases().get(0).getName(), is("sales"));
+    List<Table> tables = fixture.tables();
+    assertThat(tables.size(), is(2));
+    Table orders = tables.get(0);
+    assertThat(orders.getDbName(), is("sales"));
+    assertThat(orders.getTableName(), is("orders"));
+    assertThat(orders.getSd().getCols(), is(Arrays.asList(new FieldSchema("id", "bigint", null),
+        new FieldSchema("amount", "decimal(10,2)", null), new FieldSchema("tags", "map<string,int>", null))));
+    assertThat(orders.getPartitionKeys(),
+        is(Arrays.asList(new FieldSchema("dt", "string", null), new FieldSchema("region", "string", null))));
+    assertThat(tables.get(1).getPartitionKeys().isEmpty(), is(true));
+
+    List<Partition> partitions = fixture.partitions(orders);
+    assertThat(partitions.size(), is(1));
+    assertThat(partitions.get(0).getValues(), is(Arrays.asList("2021-01-01", "eu")));
+    assertThat(fixture.partitions(tables.get(1)).isEmpty(), is(true));
+    assertThat(fixture.size(), is(4));
+  }
+
+  @Test
+  public void partitionOfUndefinedTable() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> read("database sales", "partition sales.orders dt=2021-01-01"));
+    assertThat(e.getMessage(), containsString(":2: Table sales.orders isn't defined"));
+  }
+
+  @Test
+  public void partitionKeysDontMatch() {
+    assertThrows(IllegalArgumentException.class,
+        () -> read("table sales.orders id:bigint partitioned by dt:string", "partition sales.orders hour=1"));
+  }
+
+  @Test
+  public void unknownObject() {
+    assertThrows(IllegalArgumentException.class, () -> read("view sales.orders id:bigint"));
+  }
+
+  private FixtureFile read(String... lines) throws Exception {
+    Path file = tempDir.resolve("fixture.txt");
+    Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    return FixtureFile.read(file);
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+
+/**
+ * Tables and partitions for tests, stored as text files with an {@code active boolean} and a {@code name string}
+ * column.
+ */
+public final class TestTables {
+
+  private TestTables() {}
+
+  /**
+   * @param databaseName Database of the table.
+   * @param tableName Name of the table.
+   * @param partitionKeys Partition keys of the table, none for an unpartitioned table.
+   * @return a new table.
+   */
+  public static Table table(String databaseName, String tableName, FieldSchema... partitionKeys) {
+    Table table = new Table();
+    table.setDbName(databaseName);
+    table.setTableName(tableName);
+    if (partitionKeys.length > 0) {
+      table.setPartitionKeys(Arrays.asList(partitionKeys));
+    }
+    table.setSd(storageDescriptor());
+    return table;
+  }
+
+  /**
+   * @param databaseName Database of the table.
+   * @param tableName Name of the table.
+   * @param values Values of the table's partition keys.
+   * @return a new partition.
+   */
+  public static Partition partition(String databaseName, String tableName, String... values) {
+    Partition partition = new Partition();
+    partition.setDbName(databaseName);
+    partition.setTableName(tableName);
+    partition.setValues(Arrays.asList(values));
+    partition.setSd(storageDescriptor());
+    return partition;
+  }
+
+  /**
+   * @param databaseName Database of the table.
+   * @param tableName Name of the table.
+   * @param values Values of the table's partition keys, for each partition.
+   * @return new partitions.
+   */
+  public static List<Partition> partitions(String databaseName, String tableName, List<List<String>> values) {
+    List<Partition> partitions = new ArrayList<>();
+    for (List<String> partitionValues : values) {
+      partitions.add(partition(databaseName, tableName, partitionValues.toArray(new String[0])));
+    }
+    return partitions;
+  }
+
+  /**
+   * @return a new storage descriptor of a text table with the {@code active} and {@code name} columns.
+   */
+  public static StorageDescriptor storageDescriptor() {
+    StorageDescriptor sd = new StorageDescriptor();
+    sd.setCols(Arrays.asList(new FieldSchema("active", "boolean", null), new FieldSchema("name", "string", null)));
+    sd.setInputFormat("org.apache.hadoop.mapred.TextInputFormat");
+    sd.setOutputFormat("org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat");
+    sd.setSerdeInfo(new SerDeInfo());
+    sd.getSerdeInfo().setSerializationLib("org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe");
+    return sd;
+  }
+}
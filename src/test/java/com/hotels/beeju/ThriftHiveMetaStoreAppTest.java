@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ThriftHiveMetaStoreAppTest {
+
+  @TempDir
+  Path tempDir;
+  private ThriftHiveMetaStoreApp app;
+
+  @AfterEach
+  public void stop() {
+    if (app != null) {
+      app.stop();
+    }
+  }
+
+  @Test
+  public void severalMetastores() throws Exception {
+    Path fixture = tempDir.resolve("fixture.txt");
+    Files.write(fixture, Arrays.asList(
+        "database sales",
+        "table sales.orders id:bigint partitioned by dt:string",
+        "partition sales.orders dt=2021-01-01",
+        "partition sales.orders dt=2021-01-02"), StandardCharsets.UTF_8);
+    Path readyFile = tempDir.resolve("ready");
+
+    app = new ThriftHiveMetaStoreApp("--port=0", "--port=0", "--database=db_a", "--database=db_b",
+        "--fixture=" + fixture, "--ready-file=" + readyFile, "--workers=4",
+        "--conf=hive.metastore.disallow.incompatible.col.type.changes=false");
+    app.start();
+
+    List<String> uris = app.getThriftConnectionUris();
+    assertThat(uris.size(), is(2));
+    assertThat(uris.get(0).equals(uris.get(1)), is(false));
+    assertThat(Files.readAllLines(readyFile, StandardCharsets.UTF_8), is(uris));
+
+    HiveMetaStoreClient first = client(uris.get(0));
+    HiveMetaStoreClient second = client(uris.get(1));
+    try {
+      assertThat(first.getAllDatabases(), is(Arrays.asList("db_a", "db_b", "default", "sales")));
+      assertThat(first.listPartitionNames("sales", "orders", (short) -1),
+          is(Arrays.asList("dt=2021-01-01", "dt=2021-01-02")));
+
+      // the metastores are independent
+      first.dropDatabase("db_b");
+      assertThat(second.getAllDatabases(), is(Arrays.asList("db_a", "db_b", "default", "sales")));
+    } finally {
+      first.close();
+      second.close();
+    }
+
+    app.stop();
+    assertFalse(Files.exists(readyFile));
+    assertThat(app.getThriftConnectionUris().isEmpty(), is(true));
+  }
+
+  @Test
+  public void defaults() throws Exception {
+    app = new ThriftHiveMetaStoreApp();
+    app.start();
+
+    assertThat(app.getThriftConnectionUris(), is(Arrays.asList("thrift://localhost:22334")));
+    HiveMetaStoreClient client = client(app.getThriftConnectionUris().get(0));
+    try {
+      assertThat(client.getAllDatabases(), is(Arrays.asList("default", "test_database")));
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void unknownOption() {
+    assertThrows(IllegalArgumentException.class, () -> new ThriftHiveMetaStoreApp("--foo=bar"));
+  }
+
+  @Test
+  public void invalidConfiguration() {
+    assertThrows(IllegalArgumentException.class, () -> new ThriftHiveMetaStoreApp("--conf=foo"));
+  }
+
+  private static HiveMetaStoreClient client(String uri) throws Exception {
+    HiveConf conf = new HiveConf();
+    conf.setVar(HiveConf.ConfVars.METASTOREURIS, uri);
+    return new HiveMetaStoreClient(conf);
+  }
+}
@@ -17,6 +17,7 @@ package com.hotels.beeju;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -25,6 +26,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
@@ -122,6 +124,24 @@ public class ThriftHiveMetaStoreJUnitRuleTest {
     assertThat(defaultDbRule.getThriftPort(), is(thriftPort));
   }
 
+  @Test
+  public void noCoreCreatedForPrestartedService() {
+    ThriftHiveMetaStoreJUnitRule rule = new ThriftHiveMetaStoreJUnitRule("unused_db");
+    rule.setPrestart(true);
+    assertNull(rule.core);
+    assertThat(rule.databaseName(), is("unused_db"));
+  }
+
+  @Test
+  public void noCoreCreatedForPrestartedServiceWithSettings() {
+    ThriftHiveMetaStoreJUnitRule rule = new ThriftHiveMetaStoreJUnitRule("unused_db");
+    rule.setPrestart(true);
+    rule.setThriftPort(3333);
+    rule.setStartupTimeout(1, TimeUnit.MINUTES);
+    rule.setLazyStart(true);
+    assertNull(rule.core);
+  }
+
   @AfterClass
   public static void afterClass() {
     assertFalse(defaultTempRoot.exists());
@@ -17,20 +17,46 @@ package com.hotels.beeju.core;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static com.hotels.beeju.TestTables.partition;
+import static com.hotels.beeju.TestTables.table;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.derby.jdbc.EmbeddedDriver;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
 import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.thrift.TException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hotels.beeju.metastore.BeejuObjectStore;
+import com.hotels.beeju.metastore.MetastoreConnectionPool;
 
 public class BeejuCoreTest {
 
@@ -41,6 +67,9 @@ public class BeejuCoreTest {
   private String coreOverrideValue = "user-that-core-will-override";
   private String confOverrideValue = "password-that-will-override-core";
 
+  @TempDir
+  Path backendDir;
+
   private final BeejuCore defaultCore = new BeejuCore();
   private final BeejuCore dbNameCore = new BeejuCore("test_db");
   private final BeejuCore dbNameAndMapConfCore = new BeejuCore("test_db_2", createPreConfigurationMap(),
@@ -157,7 +186,8 @@ public class BeejuCoreTest {
     assertThat(defaultCore.conf().getVar(HiveConf.ConfVars.METASTORE_CONNECTION_USER_NAME), is("db_user"));
     assertThat(defaultCore.conf().getVar(HiveConf.ConfVars.METASTOREPWD), is("db_password"));
     assertThat(defaultCore.conf().getBoolVar(HiveConf.ConfVars.HMSHANDLERFORCERELOADCONF), is(true));
-    assertThat(defaultCore.conf().get("datanucleus.schema.autoCreateAll"), is("true"));
+    // schema is cloned from a template so doesn't need to be created on the fly
+    assertThat(defaultCore.conf().get("datanucleus.schema.autoCreateAll"), is("false"));
     assertThat(defaultCore.conf().get("hive.metastore.schema.verification"), is("false"));
     assertThat(defaultCore.conf().get("hcatalog.hive.client.cache.disabled"), is("true"));
   }
@@ -175,5 +205,492 @@ public class BeejuCoreTest {
     assertThat(db.getName(), is(databaseName.toLowerCase()));
     assertThat(db.getLocationUri(), is(String.format("file:%s/%s", defaultCore.warehouseDir(), databaseName)));
   }
-  
+
+  @Test
+  public void startupReport() throws Exception {
+    assertThat(defaultCore.startupReport().phases().keySet(), contains(StartupReport.CONFIGURE_FOLDERS,
+        StartupReport.SCHEMA_TEMPLATE, StartupReport.CREATE_DERBY_DATABASE));
+
+    defaultCore.createDatabase(defaultCore.databaseName());
+
+    assertThat(defaultCore.startupReport().phases().keySet(),
+        contains(StartupReport.CONFIGURE_FOLDERS, StartupReport.SCHEMA_TEMPLATE, StartupReport.CREATE_DERBY_DATABASE,
+            StartupReport.FIRST_CLIENT_CONNECT, StartupReport.CREATE_DATABASE));
+  }
+
+  @Test
+  public void reset() throws Exception {
+    String databaseName = defaultCore.databaseName();
+    defaultCore.createDatabase(databaseName);
+    defaultCore.createDatabase("other_db");
+    HiveMetaStoreClient client = defaultCore.newClient();
+    try {
+      createPartitionedTable(client, databaseName, "my_table");
+      createPartitionedTable(client, "default", "my_default_table");
+      Path dataFile = Files.createDirectories(defaultCore.warehouseDir().resolve(databaseName).resolve("my_table"));
+      Files.createFile(dataFile.resolve("data.txt"));
+
+      defaultCore.reset();
+
+      assertThat(client.getAllDatabases(), is(Arrays.asList("default", databaseName)));
+      assertThat(client.getAllTables(databaseName), is(empty()));
+      assertThat(client.getAllTables("default"), is(empty()));
+      assertThat(defaultCore.warehouseDir().toFile().list(), is(new String[] { databaseName }));
+      assertThat(defaultCore.warehouseDir().resolve(databaseName).toFile().list(), is(new String[0]));
+
+      // the same objects can be created again once the metastore has been reset
+      createPartitionedTable(client, databaseName, "my_table");
+      defaultCore.createDatabase("other_db");
+      assertThat(client.getAllTables(databaseName), contains("my_table"));
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void resetBeforeDatabaseCreated() throws Exception {
+    defaultCore.reset();
+
+    HiveMetaStoreClient client = defaultCore.newClient();
+    try {
+      assertThat(client.getAllDatabases(), is(Collections.singletonList("default")));
+    } finally {
+      client.close();
+    }
+    assertTrue(Files.isDirectory(defaultCore.warehouseDir()));
+  }
+
+  @Test
+  public void clientPool() throws Exception {
+    defaultCore.setClientPoolSize(2);
+    defaultCore.createDatabase("db_1");
+    defaultCore.createDatabase("db_2");
+
+    HiveMetaStoreClientPool pool = defaultCore.clientPool();
+    assertThat(pool.getMaxSize(), is(2));
+    assertThat(pool.getCreatedCount(), is(1L));
+    assertThat(pool.getIdle(), is(1));
+    assertThrows(IllegalStateException.class, () -> defaultCore.setClientPoolSize(4));
+
+    defaultCore.cleanUp();
+    assertThat(pool.getIdle(), is(0));
+    assertThrows(IllegalStateException.class, pool::borrow);
+  }
+
+  @Test
+  public void loadFixture() throws Exception {
+    defaultCore.setFixtureBatchSize(7);
+    defaultCore.setFixtureThreads(2);
+    List<Partition> partitions = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      partitions.add(partition("db_1", "table_1", Integer.toString(i)));
+    }
+    partitions.add(partition("db_2", "table_3", "1"));
+
+    FixtureLoadReport report = defaultCore.loadFixture(
+        Arrays.asList(new Database("db_1", null, null, null), new Database("db_2", null, null, null)),
+        Arrays.asList(partitionedTable("db_1", "table_1"), partitionedTable("db_1", "table_2"),
+            partitionedTable("db_2", "table_3")),
+        partitions);
+
+    assertThat(report.getDatabases(), is(2));
+    assertThat(report.getTables(), is(3));
+    assertThat(report.getPartitions(), is(21));
+    assertThat(report.getObjects(), is(26));
+    assertTrue(report.getObjectsPerSecond() > 0);
+
+    // partitions of tables which already exist
+    report = defaultCore.loadFixture(Collections.emptyList(), Collections.emptyList(),
+        Arrays.asList(partition("db_1", "table_2", "1"), partition("db_1", "table_2", "2")));
+    assertThat(report.getObjects(), is(2));
+
+    HiveMetaStoreClient client = defaultCore.newClient();
+    try {
+      assertThat(client.getAllDatabases(), is(Arrays.asList("db_1", "db_2", "default")));
+      assertThat(client.getAllTables("db_1"), contains("table_1", "table_2"));
+      assertThat(client.listPartitionNames("db_1", "table_1", (short) -1).size(), is(20));
+      assertThat(client.listPartitionNames("db_1", "table_2", (short) -1),
+          is(Arrays.asList("partcol=1", "partcol=2")));
+      assertThat(client.listPartitionNames("db_2", "table_3", (short) -1), is(Arrays.asList("partcol=1")));
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void loadFixtureIntoMissingDatabase() {
+    assertThrows(TException.class, () -> defaultCore.loadFixture(Collections.emptyList(),
+        Arrays.asList(partitionedTable("missing_db", "my_table")), Collections.emptyList()));
+  }
+
+  @Test
+  public void invalidFixtureBatchSize() {
+    assertThrows(IllegalArgumentException.class, () -> defaultCore.setFixtureBatchSize(0));
+  }
+
+  @Test
+  public void snapshotAndRestore() throws Exception {
+    String databaseName = defaultCore.databaseName();
+    defaultCore.createDatabase(databaseName);
+    HiveMetaStoreClient client = defaultCore.newClient();
+    try {
+      createPartitionedTable(client, databaseName, "my_table");
+      Path dataFile = Files.createDirectories(defaultCore.warehouseDir().resolve(databaseName).resolve("my_table"));
+      Files.createFile(dataFile.resolve("data.txt"));
+      defaultCore.snapshot("snapshotAndRestore");
+
+      client.dropTable(databaseName, "my_table");
+      createPartitionedTable(client, databaseName, "other_table");
+      defaultCore.createDatabase("other_db");
+
+      defaultCore.restore("snapshotAndRestore");
+
+      // the client which was open before the restore sees the restored catalog
+      assertThat(client.getAllDatabases(), is(Arrays.asList("default", databaseName)));
+      assertThat(client.getAllTables(databaseName), contains("my_table"));
+      assertThat(client.listPartitionNames(databaseName, "my_table", (short) -1), is(Arrays.asList("partcol=1")));
+      assertTrue(Files.exists(dataFile.resolve("data.txt")));
+      assertFalse(Files.exists(defaultCore.warehouseDir().resolve(databaseName).resolve("other_table")));
+
+      // objects can be created in the restored catalog
+      createPartitionedTable(client, databaseName, "other_table");
+      assertThat(client.getAllTables(databaseName), contains("my_table", "other_table"));
+    } finally {
+      client.close();
+      BeejuCore.deleteSnapshot("snapshotAndRestore");
+    }
+  }
+
+  @Test
+  public void restoreSnapshotOfAnotherInstance() throws Exception {
+    HiveMetaStoreClient client = defaultCore.newClient();
+    try {
+      defaultCore.createDatabase(defaultCore.databaseName());
+      createPartitionedTable(client, defaultCore.databaseName(), "my_table");
+      defaultCore.snapshot("restoreSnapshotOfAnotherInstance");
+    } finally {
+      client.close();
+    }
+
+    dbNameCore.restore("restoreSnapshotOfAnotherInstance");
+
+    client = dbNameCore.newClient();
+    try {
+      String warehouse = dbNameCore.warehouseDir().toString();
+      Table table = client.getTable(defaultCore.databaseName(), "my_table");
+      assertTrue(table.getSd().getLocation().contains(warehouse));
+      Partition partition = client.getPartition(defaultCore.databaseName(), "my_table", "partcol=1");
+      assertTrue(partition.getSd().getLocation().contains(warehouse));
+      assertTrue(client.getDatabase(defaultCore.databaseName()).getLocationUri().contains(warehouse));
+      assertTrue(Files.isDirectory(dbNameCore.warehouseDir().resolve(defaultCore.databaseName())));
+    } finally {
+      client.close();
+      BeejuCore.deleteSnapshot("restoreSnapshotOfAnotherInstance");
+    }
+  }
+
+  @Test
+  public void restoreMissingSnapshot() {
+    assertFalse(BeejuCore.hasSnapshot("missing"));
+    assertThrows(IllegalArgumentException.class, () -> defaultCore.restore("missing"));
+  }
+
+  @Test
+  public void deleteSnapshot() {
+    defaultCore.snapshot("deleteSnapshot");
+    assertTrue(BeejuCore.hasSnapshot("deleteSnapshot"));
+
+    assertTrue(BeejuCore.deleteSnapshot("deleteSnapshot"));
+    assertFalse(BeejuCore.hasSnapshot("deleteSnapshot"));
+    assertFalse(BeejuCore.deleteSnapshot("deleteSnapshot"));
+  }
+
+  @Test
+  public void inMemoryBackendReport() throws Exception {
+    defaultCore.createDatabase(defaultCore.databaseName());
+
+    MetastoreBackendReport report = defaultCore.backendReport();
+    assertThat(report.getBackend(), is(DerbyMetastoreBackend.IN_MEMORY));
+    assertThat(report.getCreationTime(), is(notNullValue()));
+    assertTrue(report.getDatabaseBytes() > 0);
+    assertTrue(report.getHeapBytes() >= report.getDatabaseBytes());
+    assertThat(report.getDiskBytes(), is(0L));
+  }
+
+  @Test
+  public void onDiskBackend() throws Exception {
+    Map<String, String> preConfiguration = new HashMap<>();
+    preConfiguration.put(MetastoreBackend.BACKEND, DerbyMetastoreBackend.ON_DISK);
+    preConfiguration.put(MetastoreBackend.DIRECTORY, backendDir.toString());
+    BeejuCore core = new BeejuCore("disk_db", preConfiguration);
+    try {
+      assertTrue(core.connectionURL().startsWith("jdbc:derby:" + backendDir.toAbsolutePath()));
+      core.createDatabase("disk_db");
+      HiveMetaStoreClient client = core.newClient();
+      try {
+        createPartitionedTable(client, "disk_db", "my_table");
+        assertThat(client.getAllTables("disk_db"), contains("my_table"));
+      } finally {
+        client.close();
+      }
+
+      MetastoreBackendReport report = core.backendReport();
+      assertThat(report.getBackend(), is(DerbyMetastoreBackend.ON_DISK));
+      assertTrue(report.getDatabaseBytes() > 0);
+      assertTrue(report.getHeapBytes() < report.getDatabaseBytes());
+      assertTrue(report.getDiskBytes() > 0);
+
+      // the database is dropped and created again from a snapshot on disk too
+      core.snapshot("onDiskBackend");
+      core.restore("onDiskBackend");
+      client = core.newClient();
+      try {
+        assertThat(client.getAllTables("disk_db"), contains("my_table"));
+      } finally {
+        client.close();
+      }
+    } finally {
+      core.cleanUp();
+      BeejuCore.deleteSnapshot("onDiskBackend");
+    }
+    assertThat(backendDir.toFile().list(), is(new String[0]));
+  }
+
+  @Test
+  public void onDiskBackendWithLargePageCache() throws Exception {
+    Map<String, String> postConfiguration = new HashMap<>();
+    postConfiguration.put(MetastoreBackend.BACKEND, DerbyMetastoreBackend.ON_DISK_LARGE_PAGE_CACHE);
+    postConfiguration.put(MetastoreBackend.DIRECTORY, backendDir.toString());
+    BeejuCore core = new BeejuCore("disk_db", Collections.emptyMap(), postConfiguration);
+    try {
+      core.createDatabase("disk_db");
+      assertThat(core.backend().pageCacheSize(), is(DerbyMetastoreBackend.LARGE_PAGE_CACHE_SIZE));
+      assertThat(core.backendReport().getBackend(), is(DerbyMetastoreBackend.ON_DISK_LARGE_PAGE_CACHE));
+      // the boot time settings only apply while the database boots
+      assertThat(System.getProperty("derby.storage.pageCacheSize"), is((String) null));
+      assertThat(System.getProperty("derby.system.durability"), is((String) null));
+    } finally {
+      core.cleanUp();
+    }
+  }
+
+  @Test
+  public void customBackend() {
+    BeejuCore core = new BeejuCore("custom_db",
+        Collections.singletonMap(MetastoreBackend.BACKEND, CustomBackend.class.getName()));
+    try {
+      assertThat(core.backend().name(), is("custom"));
+      assertThat(core.backendReport().getBackend(), is("custom"));
+    } finally {
+      core.cleanUp();
+    }
+  }
+
+  @Test
+  public void unknownBackend() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new BeejuCore("unknown_db", Collections.singletonMap(MetastoreBackend.BACKEND, "unknown")));
+  }
+
+  @Test
+  public void noConnectionPoolByDefault() {
+    assertThat(defaultCore.connectionPool(), is(MetastoreConnectionPool.NONE));
+    assertThrows(IllegalStateException.class, () -> defaultCore.connectionPoolStatistics());
+  }
+
+  @Test
+  public void unknownConnectionPool() {
+    assertThrows(IllegalArgumentException.class, () -> new BeejuCore("unknown_db", Collections.emptyMap(),
+        Collections.singletonMap(MetastoreConnectionPool.POOL, "unknown")));
+  }
+
+  @Test
+  public void invalidConnectionPoolSize() {
+    Map<String, String> configuration = new HashMap<>();
+    configuration.put(MetastoreConnectionPool.POOL, "hikaricp");
+    configuration.put(MetastoreConnectionPool.POOL_SIZE, "0");
+    assertThrows(IllegalArgumentException.class, () -> new BeejuCore("invalid_db", Collections.emptyMap(),
+        configuration));
+  }
+
+  @Test
+  public void reloadConfiguration() throws Exception {
+    defaultCore.createDatabase(defaultCore.databaseName());
+    HiveMetaStoreClient client = defaultCore.newClient();
+    try {
+      createPartitionedTable(client, defaultCore.databaseName(), "reload_table");
+      Partition partition = client.getPartition(defaultCore.databaseName(), "reload_table", Arrays.asList("1"));
+      partition.setValues(Arrays.asList("2"));
+      client.add_partition(partition);
+      assertThat(client.listPartitions(defaultCore.databaseName(), "reload_table", (short) -1).size(), is(2));
+
+      defaultCore.reloadConfiguration(
+          Collections.singletonMap(MetastoreConf.ConfVars.LIMIT_PARTITION_REQUEST.getVarname(), "1"));
+
+      assertThat(MetastoreConf.getIntVar(defaultCore.conf(), MetastoreConf.ConfVars.LIMIT_PARTITION_REQUEST), is(1));
+      assertThrows(MetaException.class,
+          () -> client.listPartitions(defaultCore.databaseName(), "reload_table", (short) -1));
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void clientsOfTwoInstancesOnOneThread() throws Exception {
+    HiveMetaStoreClient defaultClient = defaultCore.newClient();
+    HiveMetaStoreClient dbNameClient = dbNameCore.newClient();
+    try {
+      defaultClient.createDatabase(new Database("default_core_db", null, null, null));
+      dbNameClient.createDatabase(new Database("db_name_core_db", null, null, null));
+
+      assertThat(defaultClient.getAllDatabases(), is(Arrays.asList("default", "default_core_db")));
+      assertThat(dbNameClient.getAllDatabases(), is(Arrays.asList("db_name_core_db", "default")));
+      assertThat(defaultClient.getAllDatabases(), is(Arrays.asList("default", "default_core_db")));
+    } finally {
+      defaultClient.close();
+      dbNameClient.close();
+    }
+  }
+
+  @Test
+  public void instancesShareFactory() throws Exception {
+    // a database which already has an object's id would otherwise only fail the first attempt to store it
+    Map<String, String> configuration = Collections.singletonMap(
+        MetastoreConf.ConfVars.HMS_HANDLER_ATTEMPTS.getVarname(), "1");
+    BeejuCore core = new BeejuCore("shared_db", Collections.emptyMap(), configuration);
+    BeejuCore otherCore = new BeejuCore("other_shared_db", Collections.emptyMap(), configuration);
+    HiveMetaStoreClient client = core.newClient();
+    HiveMetaStoreClient otherClient = otherCore.newClient();
+    try {
+      assertTrue(BeejuObjectStore.isFactoryShared(core.connectionURL()));
+      assertTrue(BeejuObjectStore.isFactoryShared(otherCore.connectionURL()));
+
+      // each creates more databases in a row than DataNucleus would otherwise allocate ids for at a time, so that
+      // they would use ids allocated from each other's database
+      for (int i = 0; i < 35; i++) {
+        HiveMetaStoreClient creatingClient = i / 7 % 2 == 0 ? client : otherClient;
+        creatingClient.createDatabase(new Database("shared_db_" + i, null, null, null));
+      }
+
+      assertThat(client.getAllDatabases().size(), is(22));
+      assertThat(otherClient.getAllDatabases().size(), is(15));
+    } finally {
+      client.close();
+      otherClient.close();
+      core.cleanUp();
+      otherCore.cleanUp();
+    }
+  }
+
+  @Test
+  public void unsharedFactory() throws Exception {
+    BeejuCore core = new BeejuCore("unshared_db", Collections.emptyMap(),
+        Collections.singletonMap(BeejuObjectStore.SHARED_FACTORY, "false"));
+    try {
+      core.createDatabase(core.databaseName());
+      assertFalse(BeejuObjectStore.isFactoryShared(core.connectionURL()));
+    } finally {
+      core.cleanUp();
+    }
+  }
+
+  @Test
+  public void defaultPersistenceProfile() {
+    assertThat(defaultCore.persistenceProfile(), is(PersistenceProfile.DEFAULT));
+    assertFalse(defaultCore.conf().getBoolVar(HiveConf.ConfVars.METASTORE_FASTPATH));
+    assertThat(defaultCore.conf().get("datanucleus.cache.queryCompilation.type"), is(nullValue()));
+  }
+
+  @Test
+  public void fastPersistenceProfile() throws Exception {
+    BeejuCore core = new BeejuCore("fast_db", Collections.singletonMap(PersistenceProfile.PROFILE, "fast"),
+        Collections.singletonMap(MetastoreConf.ConfVars.TRY_DIRECT_SQL_DDL.getVarname(), "false"));
+    try {
+      assertThat(core.persistenceProfile(), is(PersistenceProfile.FAST));
+      HiveConf conf = core.conf();
+      assertTrue(conf.getBoolVar(HiveConf.ConfVars.METASTORE_FASTPATH));
+      assertTrue(MetastoreConf.getBoolVar(conf, MetastoreConf.ConfVars.TRY_DIRECT_SQL));
+      assertThat(conf.get("datanucleus.cache.queryCompilation.type"), is("strong"));
+      assertThat(MetastoreConf.getVar(conf, MetastoreConf.ConfVars.EVENT_LISTENERS), is(""));
+      assertFalse(MetastoreConf.getBoolVar(conf, MetastoreConf.ConfVars.TRY_DIRECT_SQL_DDL));
+
+      core.createDatabase(core.databaseName());
+      core.loadFixture(Collections.emptyList(), Arrays.asList(partitionedTable("fast_db", "fast_table")),
+          Arrays.asList(partition("fast_db", "fast_table", "1"), partition("fast_db", "fast_table", "2")));
+      HiveMetaStoreClient client = core.newClient();
+      try {
+        assertThat(client.listPartitionNames("fast_db", "fast_table", (short) -1),
+            is(Arrays.asList("partcol=1", "partcol=2")));
+      } finally {
+        client.close();
+      }
+    } finally {
+      core.cleanUp();
+    }
+  }
+
+  @Test
+  public void unknownPersistenceProfile() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new BeejuCore("unknown_db", Collections.singletonMap(PersistenceProfile.PROFILE, "unknown")));
+  }
+
+  @Test
+  public void unknownQueryProfile() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new BeejuCore("unknown_db", Collections.singletonMap(QueryProfile.PROFILE, "unknown")));
+  }
+
+  public static class CustomBackend implements MetastoreBackend {
+    private final MetastoreBackend delegate = DerbyMetastoreBackend.inMemory();
+
+    @Override
+    public String name() {
+      return "custom";
+    }
+
+    @Override
+    public String connectionURL(String databaseName) {
+      return delegate.connectionURL(databaseName);
+    }
+
+    @Override
+    public Connection connect(String url, String user, String password) throws SQLException {
+      return delegate.connect(url, user, password);
+    }
+
+    @Override
+    public void drop(String connectionURL, String user, String password) {
+      delegate.drop(connectionURL, user, password);
+    }
+
+    @Override
+    public boolean isInMemory() {
+      return true;
+    }
+
+    @Override
+    public int pageCacheSize() {
+      return delegate.pageCacheSize();
+    }
+
+    @Override
+    public long diskBytes(String connectionURL) {
+      return 0;
+    }
+  }
+
+  private void createPartitionedTable(HiveMetaStoreClient client, String databaseName, String tableName)
+    throws Exception {
+    client.createTable(partitionedTable(databaseName, tableName));
+
+    Partition partition = partition(databaseName, tableName, "1");
+    partition.setSd(new StorageDescriptor(client.getTable(databaseName, tableName).getSd()));
+    partition.getSd().setLocation(partition.getSd().getLocation() + "/partcol=1");
+    client.add_partition(partition);
+  }
+
+  private Table partitionedTable(String databaseName, String tableName) {
+    return table(databaseName, tableName, new FieldSchema("partcol", "int", null));
+  }
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DerbyMetastoreBackendTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void inMemory() {
+    DerbyMetastoreBackend backend = DerbyMetastoreBackend.forName(DerbyMetastoreBackend.IN_MEMORY, null);
+
+    assertThat(backend.name(), is(DerbyMetastoreBackend.IN_MEMORY));
+    assertTrue(backend.isInMemory());
+    assertThat(backend.connectionURL("abc"), is("jdbc:derby:memory:abc;create=true"));
+    assertThat(backend.diskBytes("jdbc:derby:memory:abc;create=true"), is(0L));
+  }
+
+  @Test
+  public void onDisk() {
+    DerbyMetastoreBackend backend = DerbyMetastoreBackend.forName(DerbyMetastoreBackend.ON_DISK, directory.toString());
+
+    assertThat(backend.name(), is(DerbyMetastoreBackend.ON_DISK));
+    assertFalse(backend.isInMemory());
+    assertThat(backend.connectionURL("abc"),
+        is("jdbc:derby:" + directory.resolve("beeju-abc").toAbsolutePath() + ";create=true"));
+    assertThat(backend.pageCacheSize(), is(DerbyMetastoreBackend.DEFAULT_PAGE_CACHE_SIZE));
+  }
+
+  @Test
+  public void onDiskWithLargePageCache() {
+    DerbyMetastoreBackend backend = DerbyMetastoreBackend
+        .forName(DerbyMetastoreBackend.ON_DISK_LARGE_PAGE_CACHE, directory.toString());
+
+    assertThat(backend.name(), is(DerbyMetastoreBackend.ON_DISK_LARGE_PAGE_CACHE));
+    assertThat(backend.pageCacheSize(), is(DerbyMetastoreBackend.LARGE_PAGE_CACHE_SIZE));
+  }
+
+  @Test
+  public void unknownName() {
+    assertThat(DerbyMetastoreBackend.forName("unknown", null), is(nullValue()));
+  }
+
+  @Test
+  public void backupName() {
+    assertThat(DerbyMetastoreBackend.backupName("jdbc:derby:memory:abc;create=true"), is("abc"));
+    assertThat(DerbyMetastoreBackend.backupName("jdbc:derby:/dev/shm/beeju-abc;create=true"), is("beeju-abc"));
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class DerbySchemaTemplateTest {
+
+  private final BeejuCore core = new BeejuCore();
+  private final BeejuCore otherCore = new BeejuCore("other_database");
+
+  @AfterEach
+  public void cleanUp() {
+    core.cleanUp();
+    otherCore.cleanUp();
+  }
+
+  @Test
+  public void schemaCreatedBeforeFirstClient() throws Exception {
+    assertThat(tableNames(core), hasItems("DBS", "TBLS", "PARTITIONS", "SDS", "COLUMNS_V2"));
+  }
+
+  @Test
+  public void templateSharedBetweenCoresWithSameConfiguration() {
+    assertThat(DerbySchemaTemplate.forConf(core.conf()), is(sameInstance(DerbySchemaTemplate.forConf(otherCore.conf()))));
+  }
+
+  @Test
+  public void clonedDatabasesAreIndependent() throws Exception {
+    core.createDatabase(core.databaseName());
+
+    HiveMetaStoreClient client = otherCore.newClient();
+    try {
+      assertThat(client.getAllDatabases(), not(hasItems(core.databaseName())));
+    } finally {
+      client.close();
+    }
+  }
+
+  private List<String> tableNames(BeejuCore core) throws Exception {
+    List<String> tableNames = new ArrayList<>();
+    try (Connection connection = DriverManager.getConnection(core.connectionURL(), "db_user", "db_password");
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT TABLENAME FROM SYS.SYSTABLES WHERE TABLETYPE = 'T'")) {
+      while (resultSet.next()) {
+        tableNames.add(resultSet.getString(1));
+      }
+    }
+    Collections.sort(tableNames);
+    return tableNames;
+  }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.thrift.TException;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class HiveMetaStoreClientPoolTest {
+
+  private final BeejuCore core = new BeejuCore();
+  private final HiveMetaStoreClientPool pool = new HiveMetaStoreClientPool(this::newClient, 2, 200,
+      TimeUnit.MILLISECONDS);
+
+  @AfterEach
+  public void cleanUp() {
+    pool.close();
+    core.cleanUp();
+  }
+
+  @Test
+  public void idleClientReused() {
+    HiveMetaStoreClient client = pool.borrow();
+    pool.release(client);
+
+    assertThat(pool.borrow(), is(sameInstance(client)));
+    assertThat(pool.getCreatedCount(), is(1L));
+    assertThat(pool.getBorrowCount(), is(2L));
+    assertThat(pool.getReturnCount(), is(1L));
+    assertThat(pool.getBorrowed(), is(1));
+    assertThat(pool.getIdle(), is(0));
+  }
+
+  @Test
+  public void borrowTimesOutWhenAllClientsBorrowed() {
+    pool.borrow();
+    pool.borrow();
+
+    assertThrows(IllegalStateException.class, pool::borrow);
+    assertThat(pool.getCreatedCount(), is(2L));
+    assertTrue(pool.getBorrowWait(TimeUnit.MILLISECONDS) >= 200);
+  }
+
+  @Test
+  public void releasedClientUnblocksBorrow() throws Exception {
+    HiveMetaStoreClient first = pool.borrow();
+    pool.borrow();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<HiveMetaStoreClient> borrowed = executor.submit(pool::borrow);
+      pool.release(first);
+      assertThat(borrowed.get(), is(sameInstance(first)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void invalidClientReplaced() {
+    TestClient client = (TestClient) pool.borrow();
+    pool.release(client);
+    client.broken = true;
+
+    HiveMetaStoreClient replacement = pool.borrow();
+    assertThat(replacement, is(not(sameInstance(client))));
+    assertTrue(client.closed);
+    assertThat(pool.getValidationFailureCount(), is(1L));
+    assertThat(pool.getCreatedCount(), is(2L));
+  }
+
+  @Test
+  public void invalidatedClientClosed() {
+    TestClient client = (TestClient) pool.borrow();
+    pool.invalidate(client);
+
+    assertTrue(client.closed);
+    assertThat(pool.getIdle(), is(0));
+    assertThat(pool.getBorrowed(), is(0));
+  }
+
+  @Test
+  public void close() {
+    TestClient idle = (TestClient) pool.borrow();
+    TestClient borrowed = (TestClient) pool.borrow();
+    pool.release(idle);
+
+    pool.close();
+
+    assertTrue(idle.closed);
+    assertThrows(IllegalStateException.class, pool::borrow);
+    pool.release(borrowed);
+    assertTrue(borrowed.closed);
+  }
+
+  @Test
+  public void clear() {
+    TestClient idle = (TestClient) pool.borrow();
+    TestClient borrowed = (TestClient) pool.borrow();
+    pool.release(idle);
+
+    pool.clear();
+    assertTrue(idle.closed);
+    pool.release(borrowed);
+    assertTrue(borrowed.closed);
+    assertThat(pool.getIdle(), is(0));
+
+    HiveMetaStoreClient client = pool.borrow();
+    pool.release(client);
+    assertThat(pool.borrow(), is(sameInstance(client)));
+    assertThat(pool.getCreatedCount(), is(3L));
+  }
+
+  @Test
+  public void concurrentBorrows() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 20; j++) {
+            HiveMetaStoreClient client = borrowWaiting();
+            try {
+              client.getAllDatabases();
+            } finally {
+              pool.release(client);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(pool.getBorrowCount(), is(80L));
+    assertThat(pool.getReturnCount(), is(80L));
+    assertThat(pool.getCreatedCount(), is(lessThanOrEqualTo(2L)));
+    assertThat(pool.getBorrowed(), is(0));
+  }
+
+  private HiveMetaStoreClient borrowWaiting() {
+    while (true) {
+      try {
+        return pool.borrow();
+      } catch (IllegalStateException e) {
+        // timed out, all clients were borrowed
+      }
+    }
+  }
+
+  private HiveMetaStoreClient newClient() {
+    try {
+      return new TestClient(core.conf());
+    } catch (MetaException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static class TestClient extends HiveMetaStoreClient {
+    private volatile boolean broken;
+    private volatile boolean closed;
+
+    private TestClient(Configuration conf) throws MetaException {
+      super(conf);
+    }
+
+    @Override
+    public String getMetaConf(String key) throws TException {
+      if (broken) {
+        throw new TTransportException("broken");
+      }
+      return super.getMetaConf(key);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      super.close();
+    }
+  }
+}
@@ -17,8 +17,6 @@ package com.hotels.beeju.core;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
-import java.util.concurrent.ExecutionException;
-
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -28,7 +26,7 @@ public class HiveMetaStoreCoreTest {
   private final HiveMetaStoreCore hiveMetaStoreCore = new HiveMetaStoreCore(core);
 
   @Test
-  public void clientStarted() throws ExecutionException, InterruptedException {
+  public void clientStarted() {
     hiveMetaStoreCore.initialise();
     assertNotNull(hiveMetaStoreCore.client());
   }
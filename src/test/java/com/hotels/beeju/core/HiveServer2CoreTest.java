@@ -15,18 +15,30 @@
  */
 package com.hotels.beeju.core;
 
+import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
@@ -41,6 +53,7 @@ import org.apache.thrift.TException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class HiveServer2CoreTest {
 
@@ -66,6 +79,8 @@ public class HiveServer2CoreTest {
     assertThat(server.getJdbcConnectionUrl(),
         is("jdbc:hive2://localhost:" + server.getPort() + "/" + core.databaseName()));
     assertThat(server.getHiveServer2().getServiceState(), is(Service.STATE.STARTED));
+    assertThat(server.getStartupReport().phases().keySet(),
+        hasItems(StartupReport.HIVESERVER2_INIT, StartupReport.HIVESERVER2_START, StartupReport.CREATE_DATABASE));
   }
 
   @Test
@@ -75,11 +90,55 @@ public class HiveServer2CoreTest {
     assertThat(server.getHiveServer2().getServiceState(), is(Service.STATE.STOPPED));
   }
 
+  @Test
+  public void lazyStart() throws Exception {
+    BeejuCore lazyCore = new BeejuCore(DATABASE);
+    HiveServer2Core lazyServer = new HiveServer2Core(lazyCore);
+    lazyServer.setLazyStart(true);
+    try {
+      lazyServer.startServerSocket();
+      lazyServer.initialise();
+      lazyCore.createDatabase(DATABASE);
+      assertFalse(lazyServer.isStarted());
+
+      try (Connection connection = DriverManager.getConnection(lazyServer.getJdbcConnectionUrl());
+          Statement statement = connection.createStatement()) {
+        statement.execute("SHOW DATABASES");
+      }
+      assertTrue(lazyServer.isStarted());
+      assertThat(lazyServer.getHiveServer2().getServiceState(), is(Service.STATE.STARTED));
+    } finally {
+      lazyServer.shutdown();
+      lazyCore.cleanUp();
+    }
+  }
+
+  @Test
+  public void lazyStartNeverStarted() throws Exception {
+    BeejuCore lazyCore = new BeejuCore(DATABASE);
+    HiveServer2Core lazyServer = new HiveServer2Core(lazyCore);
+    lazyServer.setLazyStart(true);
+    try {
+      lazyServer.startServerSocket();
+      lazyServer.initialise();
+    } finally {
+      lazyServer.shutdown();
+      lazyCore.cleanUp();
+    }
+    assertNull(lazyServer.getHiveServer2());
+    assertFalse(lazyServer.isStarted());
+  }
+
   @Test
   public void startServerSocket() {
     assertEquals(core.conf().getIntVar(HiveConf.ConfVars.HIVE_SERVER2_THRIFT_PORT), server.getPort());
   }
 
+  @Test
+  public void invalidStartupTimeout() {
+    assertThrows(IllegalArgumentException.class, () -> server.setStartupTimeout(-1, TimeUnit.SECONDS));
+  }
+
   @Test
   public void dropTable() throws Exception {
     String tableName = "my_drop_table";
@@ -241,6 +300,46 @@ public class HiveServer2CoreTest {
     }
   }
 
+  @Test
+  public void defaultQueryProfile() {
+    assertThat(server.getQueryProfile(), is(QueryProfile.DEFAULT));
+    assertTrue(core.conf().getBoolVar(HiveConf.ConfVars.HIVE_CBO_ENABLED));
+  }
+
+  @Test
+  public void fastQueryProfile(@TempDir Path dataDir) throws Exception {
+    BeejuCore fastCore = new BeejuCore("fast_db", Collections.singletonMap(QueryProfile.PROFILE, "fast"));
+    HiveServer2Core fastServer = new HiveServer2Core(fastCore);
+    try {
+      fastServer.startServerSocket();
+      fastServer.initialise();
+      fastCore.createDatabase("fast_db");
+      assertThat(fastServer.getQueryProfile(), is(QueryProfile.FAST));
+      for (Map.Entry<String, String> property : QueryProfile.FAST.properties().entrySet()) {
+        assertThat(fastCore.conf().get(property.getKey()), is(property.getValue()));
+        assertThat(core.conf().get(property.getKey()), is(not(property.getValue())));
+      }
+
+      Path data = Files.write(dataDir.resolve("fast_table.csv"), Arrays.asList("1,a", "2,b", "3,c"));
+      List<String> names = new ArrayList<>();
+      try (Connection connection = DriverManager.getConnection(fastServer.getJdbcConnectionUrl());
+          Statement statement = connection.createStatement()) {
+        statement
+            .execute("CREATE TABLE fast_table (id int, name string) ROW FORMAT DELIMITED FIELDS TERMINATED BY ','");
+        statement.execute("LOAD DATA LOCAL INPATH '" + data + "' INTO TABLE fast_table");
+        try (ResultSet resultSet = statement.executeQuery("SELECT name FROM fast_table WHERE id > 1")) {
+          while (resultSet.next()) {
+            names.add(resultSet.getString(1));
+          }
+        }
+      }
+      assertThat(names, is(Arrays.asList("b", "c")));
+    } finally {
+      fastServer.shutdown();
+      fastCore.cleanUp();
+    }
+  }
+
   private Table createUnpartitionedTable(String databaseName, String tableName, HiveServer2Core server)
     throws Exception {
     Table table = new Table();
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PortAllocatorTest {
+
+  private static final int FIRST_PORT = 24000;
+  private static final int LAST_PORT = 24400;
+  private static final int BLOCK_SIZE = 100;
+
+  @TempDir
+  Path lockDirectory;
+
+  @Test
+  public void allocatorsSharingLockDirectoryClaimDisjointBlocks() throws Exception {
+    PortAllocator allocator = new PortAllocator(lockDirectory, FIRST_PORT, LAST_PORT, BLOCK_SIZE);
+    PortAllocator otherAllocator = new PortAllocator(lockDirectory, FIRST_PORT, LAST_PORT, BLOCK_SIZE);
+
+    Set<Integer> blocks = new HashSet<>();
+    Set<Integer> otherBlocks = new HashSet<>();
+    for (int i = 0; i < BLOCK_SIZE; i++) {
+      blocks.add(block(allocator.allocate()));
+      otherBlocks.add(block(otherAllocator.allocate()));
+    }
+    for (int block : blocks) {
+      assertThat(otherBlocks.contains(block), is(false));
+    }
+  }
+
+  @Test
+  public void portsHandedOutRoundRobin() throws Exception {
+    PortAllocator allocator = new PortAllocator(lockDirectory, FIRST_PORT, LAST_PORT, BLOCK_SIZE);
+
+    Set<Integer> ports = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      int port = allocator.allocate();
+      assertTrue(port >= FIRST_PORT && port < LAST_PORT);
+      ports.add(port);
+    }
+    assertThat(ports.size(), is(10));
+  }
+
+  @Test
+  public void portInUseSkipped() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      int port = socket.getLocalPort();
+      PortAllocator allocator = new PortAllocator(lockDirectory, port, port + 1, 1);
+
+      assertThat(allocator.allocate(), is(not(port)));
+    }
+  }
+
+  @Test
+  public void ephemeralPortWhenLockDirectoryUnusable() throws Exception {
+    Path file = Files.createFile(lockDirectory.resolve("file"));
+    PortAllocator allocator = new PortAllocator(file.resolve("locks"), FIRST_PORT, LAST_PORT, BLOCK_SIZE);
+
+    int port = allocator.allocate();
+    assertTrue(port > 0);
+  }
+
+  private static int block(int port) {
+    assertTrue(port >= FIRST_PORT && port < LAST_PORT, "Port " + port + " not allocated from the range");
+    return (port - FIRST_PORT) / BLOCK_SIZE;
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class ReadinessProbeTest {
+
+  @Test
+  public void readyWhenPortAcceptsConnections() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      ReadinessProbe probe = new ReadinessProbe("service", ReadinessProbe.acceptsConnections(socket.getLocalPort()), 1,
+          TimeUnit.MINUTES);
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> probe.await(new CompletableFuture<Void>()));
+    }
+  }
+
+  @Test
+  public void readyWhenPortIsListening() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      ReadinessProbe probe = new ReadinessProbe("service", ReadinessProbe.isListening(socket.getLocalPort()), 1,
+          TimeUnit.MINUTES);
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> probe.await(null));
+    }
+  }
+
+  @Test
+  public void startupFailureReportedBeforeTimeout() throws Exception {
+    IllegalStateException cause = new IllegalStateException("startup failed");
+    CompletableFuture<Void> startup = new CompletableFuture<>();
+    startup.completeExceptionally(cause);
+    ReadinessProbe probe = new ReadinessProbe("service", ReadinessProbe.acceptsConnections(unusedPort()), 10,
+        TimeUnit.MINUTES);
+
+    RuntimeException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+        () -> assertThrows(RuntimeException.class, () -> probe.await(startup)));
+    assertThat(e.getCause(), is(sameInstance(cause)));
+  }
+
+  @Test
+  public void startupStoppedBeforeAcceptingConnections() throws Exception {
+    ReadinessProbe probe = new ReadinessProbe("service", ReadinessProbe.acceptsConnections(unusedPort()), 10,
+        TimeUnit.MINUTES);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10),
+        () -> assertThrows(RuntimeException.class, () -> probe.await(CompletableFuture.completedFuture(null))));
+  }
+
+  @Test
+  public void timeout() throws Exception {
+    ReadinessProbe probe = new ReadinessProbe("service", ReadinessProbe.isListening(unusedPort()), 100,
+        TimeUnit.MILLISECONDS);
+
+    assertThrows(RuntimeException.class, () -> probe.await(null));
+  }
+
+  private static int unusedPort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class StartupReportTest {
+
+  private final StartupReport report = new StartupReport();
+
+  @Test
+  public void phasesInOrderOfFirstRun() {
+    report.record("first", StartupReport.start());
+    report.record("second", StartupReport.start());
+    report.record("first", StartupReport.start());
+
+    assertThat(report.phases().keySet(), contains("first", "second"));
+  }
+
+  @Test
+  public void latestRunReported() {
+    report.record("phase", StartupReport.start() - Duration.ofSeconds(10).toNanos());
+    report.record("phase", StartupReport.start());
+
+    assertThat(report.phase("phase"), is(lessThanOrEqualTo(Duration.ofSeconds(1))));
+  }
+
+  @Test
+  public void total() {
+    report.record("first", StartupReport.start() - Duration.ofSeconds(1).toNanos());
+    report.record("second", StartupReport.start() - Duration.ofSeconds(2).toNanos());
+
+    assertThat(report.total(), is(greaterThan(Duration.ofSeconds(3))));
+  }
+
+  @Test
+  public void phaseNotRun() {
+    assertThat(report.phase("phase"), is(nullValue()));
+    assertThat(report.total(), is(Duration.ZERO));
+  }
+}
@@ -16,16 +16,44 @@
 package com.hotels.beeju.core;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.thrift.transport.TTransportException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import com.hotels.beeju.metastore.ConnectionPoolStatistics;
+import com.hotels.beeju.metastore.MetastoreConnectionPool;
+
 public class ThriftHiveMetaStoreCoreTest {
 
   private final BeejuCore core = new BeejuCore();
@@ -48,6 +76,8 @@ public class ThriftHiveMetaStoreCoreTest {
     List<String> databases = client.getAllDatabases();
     assertThat(databases.size(), is(1));
     assertThat(databases.get(0), is("default"));
+    assertThat(thriftHiveMetaStoreCore.getStartupReport().phase(StartupReport.THRIFT_METASTORE_START),
+        is(notNullValue()));
   }
 
   @Test
@@ -59,9 +89,310 @@ public class ThriftHiveMetaStoreCoreTest {
     assertThat(thriftHiveMetaStoreCore.getThriftPort(), is(thriftPort));
   }
 
+  @Test
+  public void thriftPortInUse() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      thriftHiveMetaStoreCore.setThriftPort(socket.getLocalPort());
+      assertThrows(TTransportException.class, thriftHiveMetaStoreCore::initialise);
+    }
+  }
+
+  @Test
+  public void shutdownStopsAcceptingConnections() throws Exception {
+    thriftHiveMetaStoreCore.initialise();
+    int thriftPort = thriftHiveMetaStoreCore.getThriftPort();
+    assertTrue(ReadinessProbe.acceptsConnections(thriftPort).getAsBoolean());
+
+    thriftHiveMetaStoreCore.shutdown();
+    // the port is only released once the thread accepting connections has woken up
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      while (ReadinessProbe.isListening(thriftPort).getAsBoolean()) {
+        Thread.sleep(10);
+      }
+    });
+  }
+
+  @Test
+  public void threadPoolServer() throws Exception {
+    thriftHiveMetaStoreCore.setServerOptions(ThriftServerOptions.threadPool(1, 8));
+    thriftHiveMetaStoreCore.initialise();
+
+    HiveMetaStoreClient client = new HiveMetaStoreClient(new HiveConf(core.conf()));
+    try {
+      assertThat(client.getAllDatabases(), is(Collections.singletonList("default")));
+      ThriftServerStatistics statistics = thriftHiveMetaStoreCore.getServerStatistics();
+      assertThat(statistics.getModel(), is(ThriftServerOptions.Model.THREAD_POOL));
+      assertThat(statistics.getOpenConnections(), is(1));
+      assertThat(statistics.getActiveWorkerThreads(), is(1));
+      assertThat(statistics.getQueuedRequests(), is(0));
+    } finally {
+      client.close();
+      thriftHiveMetaStoreCore.shutdown();
+    }
+  }
+
+  @Test
+  public void threadedSelectorServer() throws Exception {
+    thriftHiveMetaStoreCore.setServerOptions(ThriftServerOptions.threadedSelector(2, 4));
+    thriftHiveMetaStoreCore.initialise();
+
+    HiveMetaStoreClient client = new HiveMetaStoreClient(new HiveConf(core.conf()));
+    try {
+      assertThat(client.getAllDatabases(), is(Collections.singletonList("default")));
+      ThriftServerStatistics statistics = thriftHiveMetaStoreCore.getServerStatistics();
+      assertThat(statistics.getModel(), is(ThriftServerOptions.Model.THREADED_SELECTOR));
+      assertThat(statistics.getOpenConnections(), is(1));
+      assertThat(statistics.getWorkerThreads() <= 4, is(true));
+      assertThat(statistics.getCompletedTasks() > 0, is(true));
+    } finally {
+      client.close();
+      thriftHiveMetaStoreCore.shutdown();
+    }
+  }
+
+  @Test
+  public void noServerStatisticsBeforeStart() {
+    assertThat(thriftHiveMetaStoreCore.getServerStatistics(), is(nullValue()));
+  }
+
   @Test
   public void invalidThriftPort() {
     assertThrows(IllegalArgumentException.class, () -> thriftHiveMetaStoreCore.setThriftPort(-1));
   }
 
+  @Test
+  public void startupFailureReportedBeforeTimeout() {
+    Map<String, String> configuration = new HashMap<>();
+    configuration.put(MetastoreConf.ConfVars.RAW_STORE_IMPL.getVarname(), "com.hotels.beeju.MissingRawStore");
+    configuration.put(MetastoreConf.ConfVars.RAW_STORE_IMPL.getHiveName(), "com.hotels.beeju.MissingRawStore");
+    BeejuCore failingCore = new BeejuCore("test_database", Collections.emptyMap(), configuration);
+    ThriftHiveMetaStoreCore failingThriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(failingCore);
+    try {
+      assertTimeoutPreemptively(Duration.ofMinutes(1),
+          () -> assertThrows(RuntimeException.class, failingThriftHiveMetaStoreCore::initialise));
+    } finally {
+      failingThriftHiveMetaStoreCore.shutdown();
+      failingCore.cleanUp();
+    }
+  }
+
+  @Test
+  public void lazyStart() throws Exception {
+    thriftHiveMetaStoreCore.setLazyStart(true);
+    thriftHiveMetaStoreCore.initialise();
+    assertFalse(thriftHiveMetaStoreCore.isStarted());
+    assertThat(core.conf().getVar(HiveConf.ConfVars.METASTOREURIS), is(""));
+
+    HiveConf conf = new HiveConf(this.getClass());
+    conf.setVar(HiveConf.ConfVars.METASTOREURIS, thriftHiveMetaStoreCore.getThriftConnectionUri());
+    assertTrue(thriftHiveMetaStoreCore.isStarted());
+    HiveMetaStoreClient client = new HiveMetaStoreClient(conf);
+    try {
+      assertThat(client.getAllDatabases(), is(Collections.singletonList("default")));
+    } finally {
+      client.close();
+      thriftHiveMetaStoreCore.shutdown();
+    }
+  }
+
+  @Test
+  public void clientPoolFollowsThriftService() throws Exception {
+    HiveMetaStoreClientPool pool = core.clientPool();
+    HiveMetaStoreClient localClient = pool.borrow();
+    assertTrue(localClient.isLocalMetaStore());
+
+    thriftHiveMetaStoreCore.initialise();
+    pool.release(localClient);
+    assertThat(pool.getIdle(), is(0));
+
+    HiveMetaStoreClient thriftClient = pool.borrow();
+    try {
+      assertFalse(thriftClient.isLocalMetaStore());
+      assertThat(thriftClient.getAllDatabases(), is(Collections.singletonList("default")));
+    } finally {
+      pool.release(thriftClient);
+    }
+
+    thriftHiveMetaStoreCore.shutdown();
+    assertThat(pool.getIdle(), is(0));
+    HiveMetaStoreClient client = pool.borrow();
+    try {
+      assertTrue(client.isLocalMetaStore());
+      assertThat(client.getAllDatabases(), is(Collections.singletonList("default")));
+    } finally {
+      pool.release(client);
+    }
+  }
+
+  @Test
+  public void lazyStartNeverStarted() throws Exception {
+    thriftHiveMetaStoreCore.setLazyStart(true);
+    thriftHiveMetaStoreCore.initialise();
+    thriftHiveMetaStoreCore.shutdown();
+
+    assertThat(thriftHiveMetaStoreCore.getThriftPort(), is(-1));
+    assertFalse(thriftHiveMetaStoreCore.isStarted());
+  }
+
+  @Test
+  public void invalidStartupTimeout() {
+    assertThrows(IllegalArgumentException.class, () -> thriftHiveMetaStoreCore.setStartupTimeout(0, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void parallelInstancesAreIsolated() throws Exception {
+    int instances = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(instances);
+    try {
+      List<Future<List<String>>> results = new ArrayList<>();
+      for (int i = 0; i < instances; i++) {
+        String databaseName = "parallel_db_" + i;
+        results.add(executor.submit(() -> startAndListDatabases(databaseName)));
+      }
+      for (int i = 0; i < instances; i++) {
+        assertThat(results.get(i).get(), is(Arrays.asList("default", "parallel_db_" + i)));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void restoreWhileServing() throws Exception {
+    thriftHiveMetaStoreCore.initialise();
+    core.createDatabase(core.databaseName());
+    core.snapshot("restoreWhileServing");
+
+    HiveConf conf = new HiveConf(this.getClass());
+    conf.setVar(HiveConf.ConfVars.METASTOREURIS, thriftHiveMetaStoreCore.getThriftConnectionUri());
+    HiveMetaStoreClient client = new HiveMetaStoreClient(conf);
+    try {
+      client.createDatabase(new Database("other_db", null, null, null));
+
+      core.restore("restoreWhileServing");
+
+      assertThat(client.getAllDatabases(), is(Arrays.asList("default", core.databaseName())));
+      client.createDatabase(new Database("other_db", null, null, null));
+      assertThat(client.getAllDatabases(), is(Arrays.asList("default", "other_db", core.databaseName())));
+    } finally {
+      client.close();
+      BeejuCore.deleteSnapshot("restoreWhileServing");
+    }
+  }
+
+  @Test
+  public void reloadConfigurationWhileServing() throws Exception {
+    thriftHiveMetaStoreCore.initialise();
+    core.createDatabase(core.databaseName());
+    Table table = new Table();
+    table.setDbName(core.databaseName());
+    table.setTableName("reload_table");
+    table.setPartitionKeys(Arrays.asList(new FieldSchema("partcol", "string", null)));
+    table.setSd(new StorageDescriptor());
+    table.getSd().setCols(Arrays.asList(new FieldSchema("id", "int", null)));
+    table.getSd().setSerdeInfo(new SerDeInfo());
+    List<Partition> partitions = new ArrayList<>();
+    for (String value : Arrays.asList("a", "b")) {
+      Partition partition = new Partition();
+      partition.setDbName(core.databaseName());
+      partition.setTableName("reload_table");
+      partition.setValues(Arrays.asList(value));
+      partition.setSd(new StorageDescriptor(table.getSd()));
+      partitions.add(partition);
+    }
+    core.loadFixture(Collections.emptyList(), Arrays.asList(table), partitions);
+
+    HiveMetaStoreClient client = core.newClient();
+    try {
+      assertThat(client.listPartitions(core.databaseName(), "reload_table", (short) -1).size(), is(2));
+
+      core.reloadConfiguration(
+          Collections.singletonMap(MetastoreConf.ConfVars.LIMIT_PARTITION_REQUEST.getVarname(), "1"));
+
+      assertThrows(MetaException.class, () -> client.listPartitions(core.databaseName(), "reload_table", (short) -1));
+      assertThat(client.listPartitions(core.databaseName(), "reload_table", (short) 1).size(), is(1));
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void concurrentClientsWithHikariConnectionPool() throws Exception {
+    callConcurrentlyWithConnectionPool(MetastoreConnectionPool.HIKARICP);
+  }
+
+  @Test
+  public void concurrentClientsWithDbcpConnectionPool() throws Exception {
+    callConcurrentlyWithConnectionPool(MetastoreConnectionPool.DBCP);
+  }
+
+  private static void callConcurrentlyWithConnectionPool(MetastoreConnectionPool pool) throws Exception {
+    Map<String, String> configuration = new HashMap<>();
+    configuration.put(MetastoreConnectionPool.POOL, pool.poolName());
+    configuration.put(MetastoreConnectionPool.POOL_SIZE, "4");
+    BeejuCore pooledCore = new BeejuCore("pooled_db", Collections.emptyMap(), configuration);
+    ThriftHiveMetaStoreCore pooledThriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(pooledCore);
+    int clients = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(clients);
+    try {
+      pooledThriftHiveMetaStoreCore.initialise();
+      pooledCore.createDatabase(pooledCore.databaseName());
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < clients; i++) {
+        results.add(executor.submit(() -> {
+          HiveMetaStoreClient client = pooledCore.newClient();
+          try {
+            int calls = 0;
+            for (; calls < 20; calls++) {
+              assertThat(client.getDatabase(pooledCore.databaseName()).getName(), is(pooledCore.databaseName()));
+            }
+            return calls;
+          } finally {
+            client.close();
+          }
+        }));
+      }
+      for (Future<Integer> result : results) {
+        assertThat(result.get(), is(20));
+      }
+
+      assertThat(pooledCore.connectionPool(), is(pool));
+      ConnectionPoolStatistics statistics = pooledCore.connectionPoolStatistics();
+      assertThat(statistics.getMaximumConnections(), is(4));
+      assertTrue(statistics.getTotalConnections() >= 1 && statistics.getTotalConnections() <= 4);
+      assertThat(statistics.getThreadsAwaitingConnection(), is(0));
+    } finally {
+      executor.shutdownNow();
+      pooledThriftHiveMetaStoreCore.shutdown();
+      pooledCore.cleanUp();
+    }
+  }
+
+  private static List<String> startAndListDatabases(String databaseName) throws Exception {
+    BeejuCore parallelCore = new BeejuCore(databaseName);
+    ThriftHiveMetaStoreCore parallelThriftHiveMetaStoreCore = new ThriftHiveMetaStoreCore(parallelCore);
+    try {
+      parallelThriftHiveMetaStoreCore.initialise();
+      parallelCore.createDatabase(databaseName);
+      HiveMetaStoreClient client = parallelCore.newClient();
+      try {
+        Table table = new Table();
+        table.setDbName(databaseName);
+        table.setTableName("parallel_table");
+        table.setSd(new StorageDescriptor());
+        table.getSd().setCols(Collections.singletonList(new FieldSchema("id", "int", null)));
+        table.getSd().setSerdeInfo(new SerDeInfo());
+        table.getSd().getSerdeInfo().setSerializationLib("org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe");
+        client.createTable(table);
+        assertThat(client.getAllTables(databaseName), is(Collections.singletonList("parallel_table")));
+        return client.getAllDatabases();
+      } finally {
+        client.close();
+      }
+    } finally {
+      parallelThriftHiveMetaStoreCore.shutdown();
+      parallelCore.cleanUp();
+    }
+  }
+
 }
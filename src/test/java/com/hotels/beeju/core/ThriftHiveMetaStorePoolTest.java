@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ThriftHiveMetaStorePoolTest {
+
+  private static final Map<String, String> CONFIGURATION = Collections.singletonMap("my.custom.key", "value");
+
+  private final ThriftHiveMetaStorePool pool = new ThriftHiveMetaStorePool(1);
+
+  @AfterEach
+  public void cleanUp() {
+    pool.close();
+  }
+
+  @Test
+  public void sameConfigurationReusesResetServer() throws Exception {
+    BeejuCore core;
+    try (ThriftHiveMetaStorePool.Lease lease = pool.lease("pool_db", CONFIGURATION, null)) {
+      core = lease.core();
+      lease.core().createDatabase("other_db");
+    }
+
+    try (ThriftHiveMetaStorePool.Lease lease = pool.lease("pool_db", CONFIGURATION, Collections.emptyMap())) {
+      assertThat(lease.core(), is(sameInstance(core)));
+      HiveMetaStoreClient client = lease.core().newClient();
+      try {
+        assertThat(client.getAllDatabases(), is(Arrays.asList("default", "pool_db")));
+      } finally {
+        client.close();
+      }
+    }
+    assertThat(pool.getLiveServers(), is(1));
+    assertThat(pool.getIdleServers(), is(1));
+  }
+
+  @Test
+  public void leasedServersAreNotShared() throws Exception {
+    try (ThriftHiveMetaStorePool.Lease lease = pool.lease();
+        ThriftHiveMetaStorePool.Lease otherLease = pool.lease()) {
+      assertThat(otherLease.core(), is(not(sameInstance(lease.core()))));
+      assertThat(otherLease.getThriftConnectionUri(), is(not(lease.getThriftConnectionUri())));
+      assertThat(pool.getLiveServers(), is(2));
+    }
+    // the maximum number of servers was exceeded while both were leased
+    assertThat(pool.getLiveServers(), is(1));
+  }
+
+  @Test
+  public void leastRecentlyUsedServerEvicted() throws Exception {
+    BeejuCore core;
+    try (ThriftHiveMetaStorePool.Lease lease = pool.lease("pool_db")) {
+      core = lease.core();
+    }
+
+    try (ThriftHiveMetaStorePool.Lease lease = pool.lease("pool_db", CONFIGURATION, null)) {
+      assertThat(lease.core(), is(not(sameInstance(core))));
+      assertThat(lease.core().conf().get("my.custom.key"), is("value"));
+    }
+    assertThat(pool.getLiveServers(), is(1));
+    assertFalse(Files.exists(core.tempDir()));
+  }
+
+  @Test
+  public void prestartedServerLeased() throws Exception {
+    pool.prestart("pool_db", CONFIGURATION, null);
+    pool.prestart("pool_db", CONFIGURATION, null);
+    assertThat(pool.getLiveServers(), is(1));
+
+    try (ThriftHiveMetaStorePool.Lease lease = pool.lease("pool_db", CONFIGURATION, null)) {
+      assertThat(lease.core().conf().get("my.custom.key"), is("value"));
+      assertThat(pool.getLiveServers(), is(1));
+      assertThat(pool.getIdleServers(), is(0));
+    }
+    assertThat(pool.getIdleServers(), is(1));
+  }
+
+  @Test
+  public void detachedServerRemovedFromPool() throws Exception {
+    ThriftHiveMetaStorePool.Lease lease = pool.lease("pool_db");
+    try {
+      lease.detach();
+      assertThat(pool.getLiveServers(), is(0));
+      assertThat(pool.getIdleServers(), is(0));
+      assertThrows(IllegalStateException.class, lease::close);
+    } finally {
+      lease.thriftHiveMetaStore().shutdown();
+      lease.core().cleanUp();
+    }
+  }
+
+  @Test
+  public void returnTwice() throws Exception {
+    ThriftHiveMetaStorePool.Lease lease = pool.lease();
+    lease.close();
+    assertThrows(IllegalStateException.class, lease::close);
+  }
+
+  @Test
+  public void invalidMaxServers() {
+    assertThrows(IllegalArgumentException.class, () -> pool.setMaxServers(-1));
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class ThriftServerOptionsTest {
+
+  @Test
+  public void defaults() {
+    ThriftServerOptions options = ThriftServerOptions.defaults();
+    assertThat(options.getModel(), is(ThriftServerOptions.Model.THREAD_POOL));
+    assertThat(options.getMaxWorkerThreads(), is(0));
+  }
+
+  @Test
+  public void threadPool() {
+    ThriftServerOptions options = ThriftServerOptions.threadPool(2, 10);
+    assertThat(options.getModel(), is(ThriftServerOptions.Model.THREAD_POOL));
+    assertThat(options.getMinWorkerThreads(), is(2));
+    assertThat(options.getMaxWorkerThreads(), is(10));
+  }
+
+  @Test
+  public void threadedSelector() {
+    ThriftServerOptions options = ThriftServerOptions.threadedSelector(2, 16);
+    assertThat(options.getModel(), is(ThriftServerOptions.Model.THREADED_SELECTOR));
+    assertThat(options.getSelectorThreads(), is(2));
+    assertThat(options.getMaxWorkerThreads(), is(16));
+    assertThat(options.getAcceptQueueSizePerThread(), is(4));
+  }
+
+  @Test
+  public void invalidThreadPool() {
+    assertThrows(IllegalArgumentException.class, () -> ThriftServerOptions.threadPool(-1, 10));
+    assertThrows(IllegalArgumentException.class, () -> ThriftServerOptions.threadPool(10, 2));
+    assertThrows(IllegalArgumentException.class, () -> ThriftServerOptions.threadPool(0, 0));
+  }
+
+  @Test
+  public void invalidThreadedSelector() {
+    assertThrows(IllegalArgumentException.class, () -> ThriftServerOptions.threadedSelector(0, 16));
+    assertThrows(IllegalArgumentException.class, () -> ThriftServerOptions.threadedSelector(2, 0));
+    assertThrows(IllegalArgumentException.class, () -> ThriftServerOptions.threadedSelector(2, 16, 0));
+  }
+}
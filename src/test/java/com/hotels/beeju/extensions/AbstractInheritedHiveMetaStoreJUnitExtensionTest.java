@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.extensions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/**
+ * An extension on a {@code static} field inherited by several test classes, which starts its services for each of them.
+ */
+public abstract class AbstractInheritedHiveMetaStoreJUnitExtensionTest {
+
+  private static final String DATABASE = "inherited_db";
+
+  @RegisterExtension
+  static HiveMetaStoreJUnitExtension hive = new HiveMetaStoreJUnitExtension(DATABASE);
+
+  private static final Set<String> connectionURLs = ConcurrentHashMap.newKeySet();
+
+  @BeforeAll
+  public static void startedForClass() {
+    assertTrue(connectionURLs.add(hive.connectionURL()));
+  }
+
+  @Test
+  public void databaseExists() throws Exception {
+    assertThat(hive.client().getDatabase(DATABASE).getName(), is(DATABASE));
+    assertTrue(hive.getWarehouseDirectory().isDirectory());
+  }
+}
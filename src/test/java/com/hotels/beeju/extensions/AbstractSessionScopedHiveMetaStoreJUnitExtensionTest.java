@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.extensions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/**
+ * A session scoped extension on a {@code static} field inherited by several test classes, which share its services.
+ */
+public abstract class AbstractSessionScopedHiveMetaStoreJUnitExtensionTest {
+
+  private static final String DATABASE = "session_db";
+
+  @RegisterExtension
+  static HiveMetaStoreJUnitExtension hive = new HiveMetaStoreJUnitExtension(DATABASE);
+
+  static {
+    hive.setSessionScoped(true);
+  }
+
+  private static final Set<String> connectionURLs = ConcurrentHashMap.newKeySet();
+
+  @BeforeAll
+  public static void sharedWithOtherClasses() {
+    connectionURLs.add(hive.connectionURL());
+    assertThat(connectionURLs.size(), is(1));
+  }
+
+  @Test
+  public void databaseExists() throws Exception {
+    assertThat(hive.client().getDatabase(DATABASE).getName(), is(DATABASE));
+  }
+}
@@ -16,6 +16,8 @@
 package com.hotels.beeju.extensions;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -80,4 +82,14 @@ public class HiveMetaStoreJUnitExtensionTest {
   public void createDatabaseNullName() {
     assertThrows(NullPointerException.class, () -> defaultDbExtension.createDatabase(null));
   }
+
+  @Test
+  public void noClientAfterStop() throws Exception {
+    HiveMetaStoreJUnitExtension hive = new HiveMetaStoreJUnitExtension("stopped_database");
+    hive.before(null);
+    assertThat(hive.client(), is(notNullValue()));
+    hive.after(null);
+    assertThat(hive.client(), is(nullValue()));
+    assertThat(hive.core, is(nullValue()));
+  }
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.extensions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+public class PrestartedThriftHiveMetaStoreJUnitExtensionTest {
+
+  private static final String OTHER_DATABASE = "other_database";
+
+  @RegisterExtension
+  ThriftHiveMetaStoreJUnitExtension hive = new ThriftHiveMetaStoreJUnitExtension("prestarted_db");
+
+  {
+    hive.setPrestart(true);
+  }
+
+  @Test
+  public void freshServerForFirstTest() throws Exception {
+    assertFreshServer();
+  }
+
+  @Test
+  public void freshServerForSecondTest() throws Exception {
+    assertFreshServer();
+  }
+
+  @Test
+  public void noCoreCreatedForPrestartedService() {
+    ThriftHiveMetaStoreJUnitExtension extension = new ThriftHiveMetaStoreJUnitExtension("unused_db");
+    extension.setPrestart(true);
+    assertThat(extension.core, is(nullValue()));
+    assertThat(extension.databaseName(), is("unused_db"));
+  }
+
+  @Test
+  public void noCoreCreatedForPrestartedServiceWithSettings() {
+    ThriftHiveMetaStoreJUnitExtension extension = new ThriftHiveMetaStoreJUnitExtension("unused_db");
+    extension.setPrestart(true);
+    extension.setThriftPort(3333);
+    extension.setStartupTimeout(1, TimeUnit.MINUTES);
+    extension.setLazyStart(true);
+    assertThat(extension.core, is(nullValue()));
+  }
+
+  private void assertFreshServer() throws Exception {
+    assertThat(hive.client().getAllDatabases(), is(Arrays.asList("default", "prestarted_db")));
+    hive.createDatabase(OTHER_DATABASE);
+
+    HiveConf conf = new HiveConf(hive.conf());
+    conf.setVar(HiveConf.ConfVars.METASTOREURIS, hive.getThriftConnectionUri());
+    HiveMetaStoreClient client = new HiveMetaStoreClient(conf);
+    try {
+      assertThat(client.getAllDatabases(), is(Arrays.asList("default", OTHER_DATABASE, "prestarted_db")));
+    } finally {
+      client.close();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.extensions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class SharedHiveServer2JUnitExtensionTest {
+
+  private static final String DATABASE = "my_test_db";
+  private static final String TABLE = "my_shared_table";
+
+  @RegisterExtension
+  static HiveServer2JUnitExtension hive = new HiveServer2JUnitExtension(DATABASE);
+
+  private static String connectionURL;
+
+  @Test
+  @Order(1)
+  public void createTable() throws Exception {
+    connectionURL = hive.connectionURL();
+    try (Connection connection = DriverManager.getConnection(hive.connectionURL());
+        Statement statement = connection.createStatement()) {
+      statement.execute(String.format("CREATE TABLE %s.%s (id int)", DATABASE, TABLE));
+    }
+  }
+
+  @Test
+  @Order(2)
+  public void tableVisibleToNextTest() throws Exception {
+    assertThat(hive.connectionURL(), is(connectionURL));
+    HiveMetaStoreClient client = hive.newClient();
+    try {
+      assertThat(client.tableExists(DATABASE, TABLE), is(true));
+    } finally {
+      client.close();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.extensions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class SharedThriftHiveMetaStoreJUnitExtensionTest {
+
+  private static final String SHARED_DATABASE = "shared_database";
+
+  @RegisterExtension
+  static ThriftHiveMetaStoreJUnitExtension hive = new ThriftHiveMetaStoreJUnitExtension();
+
+  private static int thriftPort;
+
+  @Test
+  @Order(1)
+  public void startedOnceForClass() throws Exception {
+    thriftPort = hive.getThriftPort();
+    hive.createDatabase(SHARED_DATABASE);
+    assertThat(hive.client().getDatabase(hive.databaseName()), is(notNullValue()));
+  }
+
+  @Test
+  @Order(2)
+  public void sharedBetweenTests() throws Exception {
+    assertThat(hive.getThriftPort(), is(thriftPort));
+    Database database = hive.client().getDatabase(SHARED_DATABASE);
+    assertThat(database.getName(), is(SHARED_DATABASE));
+  }
+
+}
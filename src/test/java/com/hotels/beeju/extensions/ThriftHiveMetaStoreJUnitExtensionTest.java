@@ -16,6 +16,7 @@
 package com.hotels.beeju.extensions;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -109,4 +110,11 @@ public class ThriftHiveMetaStoreJUnitExtensionTest {
     defaultDbExtension.setThriftPort(thriftPort);
     assertThat(defaultDbExtension.getThriftPort(), is(thriftPort));
   }
+
+  @Test
+  public void noCoreCreatedToStopUnstartedService() throws Exception {
+    ThriftHiveMetaStoreJUnitExtension hive = new ThriftHiveMetaStoreJUnitExtension("unstarted_database");
+    hive.after(null);
+    assertThat(hive.core, is(nullValue()));
+  }
 }
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hotels.beeju.TestTables;
+import com.hotels.beeju.core.BeejuCore;
+import com.hotels.beeju.core.StartupReport;
+
+public class BeejuCachedStoreTest {
+
+  private final BeejuCore core = new BeejuCore("test_database", Collections.emptyMap(),
+      Collections.singletonMap(BeejuCore.METASTORE_CACHE, "true"));
+  private HiveMetaStoreClient client;
+
+  @BeforeEach
+  public void init() throws Exception {
+    core.createDatabase(core.databaseName());
+    client = core.newClient();
+  }
+
+  @AfterEach
+  public void cleanUp() {
+    client.close();
+    core.cleanUp();
+  }
+
+  @Test
+  public void prewarmedAtStartup() throws Exception {
+    assertThat(MetastoreConf.getVar(core.conf(), MetastoreConf.ConfVars.RAW_STORE_IMPL),
+        is(BeejuCachedStore.class.getName()));
+    assertTrue(core.startupReport().phases().containsKey(StartupReport.PREWARM_METASTORE_CACHE));
+
+    core.refreshMetastoreCache();
+    MetastoreCacheStatistics statistics = core.metastoreCacheStatistics();
+    assertThat(statistics.getDatabases(), is(2));
+    client.getDatabase(core.databaseName());
+    assertThat(core.metastoreCacheStatistics().getMisses(), is(statistics.getMisses()));
+  }
+
+  @Test
+  public void readsAreServedFromCache() throws Exception {
+    createTable("my_table");
+    client.add_partitions(partitions("my_table"));
+
+    client.getTable(core.databaseName(), "my_table");
+    client.listPartitionNames(core.databaseName(), "my_table", (short) -1);
+    MetastoreCacheStatistics before = core.metastoreCacheStatistics();
+    for (int i = 0; i < 5; i++) {
+      client.getTable(core.databaseName(), "my_table");
+      client.listPartitionNames(core.databaseName(), "my_table", (short) -1);
+      client.getPartition(core.databaseName(), "my_table", Arrays.asList("2020", "fr"));
+    }
+    MetastoreCacheStatistics after = core.metastoreCacheStatistics();
+
+    assertThat(after.getMisses(), is(before.getMisses()));
+    assertTrue(after.getHits() >= before.getHits() + 15);
+    assertThat(after.getPartitions(), is(3));
+  }
+
+  @Test
+  public void writesAreVisible() throws Exception {
+    createTable("my_table");
+    client.add_partitions(partitions("my_table"));
+    assertThat(client.getAllTables(core.databaseName()), is(Arrays.asList("my_table")));
+    assertThat(client.listPartitionNames(core.databaseName(), "my_table", (short) -1),
+        is(Arrays.asList("year=2019/country=uk", "year=2020/country=fr", "year=2020/country=uk")));
+
+    client.dropPartition(core.databaseName(), "my_table", Arrays.asList("2020", "fr"), false);
+    assertThat(client.listPartitionNames(core.databaseName(), "my_table", (short) -1),
+        is(Arrays.asList("year=2019/country=uk", "year=2020/country=uk")));
+    assertThrows(NoSuchObjectException.class,
+        () -> client.getPartition(core.databaseName(), "my_table", Arrays.asList("2020", "fr")));
+
+    Table table = client.getTable(core.databaseName(), "my_table");
+    table.putToParameters("comment", "altered");
+    client.alter_table(core.databaseName(), "my_table", table);
+    assertThat(client.getTable(core.databaseName(), "my_table").getParameters().get("comment"), is("altered"));
+
+    client.dropTable(core.databaseName(), "my_table");
+    assertThat(client.getAllTables(core.databaseName()), is(Collections.emptyList()));
+    assertThrows(NoSuchObjectException.class, () -> client.getTable(core.databaseName(), "my_table"));
+  }
+
+  @Test
+  public void loadFixtureRefreshesCache() throws Exception {
+    core.loadFixture(Collections.emptyList(), Arrays.asList(table("my_table")), partitions("my_table"));
+
+    MetastoreCacheStatistics before = core.metastoreCacheStatistics();
+    assertThat(before.getPartitions(), is(3));
+    client.getTable(core.databaseName(), "my_table");
+    client.getPartitionsByNames(core.databaseName(), "my_table", Arrays.asList("year=2019/country=uk"));
+
+    assertThat(core.metastoreCacheStatistics().getMisses(), is(before.getMisses()));
+  }
+
+  @Test
+  public void resetRefreshesCache() throws Exception {
+    createTable("my_table");
+    assertThat(client.getAllTables(core.databaseName()), is(Arrays.asList("my_table")));
+
+    core.reset();
+
+    assertThat(core.metastoreCacheStatistics().getTables(), is(0));
+    assertThat(client.getAllTables(core.databaseName()), is(Collections.emptyList()));
+  }
+
+  @Test
+  public void restoreRefreshesCache() throws Exception {
+    core.snapshot("cached_store");
+    try {
+      createTable("my_table");
+      assertThat(client.getAllTables(core.databaseName()), is(Arrays.asList("my_table")));
+
+      core.restore("cached_store");
+
+      assertThat(client.getAllTables(core.databaseName()), is(Collections.emptyList()));
+    } finally {
+      BeejuCore.deleteSnapshot("cached_store");
+    }
+  }
+
+  @Test
+  public void notEnabled() {
+    BeejuCore uncached = new BeejuCore();
+    try {
+      assertThrows(IllegalStateException.class, () -> uncached.metastoreCacheStatistics());
+      assertThrows(IllegalStateException.class, () -> uncached.refreshMetastoreCache());
+    } finally {
+      uncached.cleanUp();
+    }
+  }
+
+  private void createTable(String tableName) throws Exception {
+    client.createTable(table(tableName));
+  }
+
+  private Table table(String tableName) {
+    return TestTables.table(core.databaseName(), tableName, new FieldSchema("year", "int", null),
+        new FieldSchema("country", "string", null));
+  }
+
+  private List<Partition> partitions(String tableName) {
+    return TestTables.partitions(core.databaseName(), tableName,
+        Arrays.asList(Arrays.asList("2020", "uk"), Arrays.asList("2019", "uk"), Arrays.asList("2020", "fr")));
+  }
+}
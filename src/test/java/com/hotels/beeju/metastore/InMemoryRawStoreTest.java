@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2015-2021 Expedia, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hotels.beeju.metastore;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.BooleanColumnStatsData;
+import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsData;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsDesc;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.apache.hadoop.hive.ql.exec.SerializationUtilities;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hotels.beeju.TestTables;
+import com.hotels.beeju.core.BeejuCore;
+
+public class InMemoryRawStoreTest {
+
+  private final BeejuCore core = new BeejuCore("test_database", Collections.emptyMap(),
+      Collections.singletonMap(MetastoreConf.ConfVars.RAW_STORE_IMPL.getVarname(), InMemoryRawStore.class.getName()));
+  private HiveMetaStoreClient client;
+
+  @BeforeEach
+  public void init() throws Exception {
+    core.createDatabase(core.databaseName());
+    client = core.newClient();
+  }
+
+  @AfterEach
+  public void cleanUp() {
+    client.close();
+    core.cleanUp();
+  }
+
+  @Test
+  public void configuration() {
+    assertThat(MetastoreConf.getVar(core.conf(), MetastoreConf.ConfVars.TXN_STORE_IMPL),
+        is(InMemoryTxnStore.class.getName()));
+    assertThrows(IllegalStateException.class, () -> core.snapshot("in_memory"));
+    assertThrows(IllegalStateException.class, () -> core.backendReport());
+  }
+
+  @Test
+  public void databasesAndTables() throws Exception {
+    core.createDatabase("other_db");
+    createTable("my_table");
+    createTable("other_table");
+
+    assertThat(client.getAllDatabases(), is(Arrays.asList("default", "other_db", "test_database")));
+    assertThat(client.getAllTables(core.databaseName()), is(Arrays.asList("my_table", "other_table")));
+    assertThat(client.getTables(core.databaseName(), "my_*"), is(Arrays.asList("my_table")));
+
+    Table table = client.getTable(core.databaseName(), "my_table");
+    table.setTableName("renamed_table");
+    client.alter_table(core.databaseName(), "my_table", table);
+    assertThat(client.getAllTables(core.databaseName()), is(Arrays.asList("other_table", "renamed_table")));
+
+    client.dropTable(core.databaseName(), "other_table");
+    assertThrows(NoSuchObjectException.class, () -> client.getTable(core.databaseName(), "other_table"));
+
+    client.dropDatabase("other_db");
+    assertThat(client.getAllDatabases(), is(Arrays.asList("default", "test_database")));
+  }
+
+  @Test
+  public void partitions() throws Exception {
+    createTable("my_table");
+    addPartitions("my_table");
+
+    assertThat(client.listPartitionNames(core.databaseName(), "my_table", (short) -1),
+        is(Arrays.asList("year=2019/country=uk", "year=2020/country=fr", "year=2020/country=uk")));
+    assertThat(client.getPartition(core.databaseName(), "my_table", "year=2020/country=fr").getValues(),
+        is(Arrays.asList("2020", "fr")));
+    assertThat(client.listPartitionNames(core.databaseName(), "my_table", Arrays.asList("2020"), (short) -1),
+        is(Arrays.asList("year=2020/country=fr", "year=2020/country=uk")));
+
+    client.dropPartition(core.databaseName(), "my_table", Arrays.asList("2020", "fr"), false);
+    assertThat(client.listPartitionNames(core.databaseName(), "my_table", (short) -1),
+        is(Arrays.asList("year=2019/country=uk", "year=2020/country=uk")));
+  }
+
+  @Test
+  public void partitionsByFilter() throws Exception {
+    createTable("my_table");
+    addPartitions("my_table");
+
+    assertThat(partitionsByFilter("year > 2019"), is(Arrays.asList("year=2020/country=fr", "year=2020/country=uk")));
+    assertThat(partitionsByFilter("year = 2020 and country = \"uk\""), is(Arrays.asList("year=2020/country=uk")));
+    assertThat(partitionsByFilter("year < 2020 or country like \"f.*\""),
+        is(Arrays.asList("year=2019/country=uk", "year=2020/country=fr")));
+    assertThat(client.getNumPartitionsByFilter(core.databaseName(), "my_table", "country <> \"uk\""), is(1));
+  }
+
+  @Test
+  public void partitionsByFilterOnStringColumnWithNumber() throws Exception {
+    createTable("my_table");
+    addPartitions("my_table",
+        Arrays.asList(Arrays.asList("2020", "07"), Arrays.asList("2020", "7"), Arrays.asList("2020", "uk")));
+
+    assertThat(partitionsByFilter("country = 7"), is(Arrays.asList("year=2020/country=7")));
+    assertThat(partitionsByFilter("country != 7"), is(Arrays.asList("year=2020/country=07", "year=2020/country=uk")));
+    assertThat(partitionsByFilter("country < 7"), is(Arrays.asList("year=2020/country=07")));
+    assertThat(partitionsByFilter("year = 2020 and country = \"07\""), is(Arrays.asList("year=2020/country=07")));
+  }
+
+  @Test
+  public void partitionsByFilterOnUnsupportedColumnType() throws Exception {
+    client.createTable(TestTables.table(core.databaseName(), "my_table", new FieldSchema("day", "date", null)));
+    client.add_partition(TestTables.partition(core.databaseName(), "my_table", "2020-01-01"));
+
+    assertThrows(MetaException.class, () -> partitionsByFilter("day = \"2020-01-01\""));
+  }
+
+  @Test
+  public void partitionsByExpr() throws Exception {
+    createTable("my_table");
+    addPartitions("my_table");
+
+    ExprNodeGenericFuncDesc expr = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+        new GenericUDFOPEqual(), Arrays.asList(new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "country",
+            null, true), new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, "uk")));
+    List<Partition> partitions = new ArrayList<>();
+    boolean hasUnknownPartitions = client.listPartitionsByExpr(core.databaseName(), "my_table",
+        SerializationUtilities.serializeExpressionToKryo(expr), null, (short) -1, partitions);
+
+    assertFalse(hasUnknownPartitions);
+    assertThat(partitionNames(partitions), is(Arrays.asList("year=2019/country=uk", "year=2020/country=uk")));
+  }
+
+  @Test
+  public void columnStatistics() throws Exception {
+    createTable("my_table");
+    ColumnStatisticsData data = new ColumnStatisticsData();
+    data.setBooleanStats(new BooleanColumnStatsData(3, 1, 0));
+    ColumnStatistics statistics = new ColumnStatistics(new ColumnStatisticsDesc(true, core.databaseName(), "my_table"),
+        Arrays.asList(new ColumnStatisticsObj("active", "boolean", data)));
+
+    assertTrue(client.updateTableColumnStatistics(statistics));
+
+    List<ColumnStatisticsObj> objects = client.getTableColumnStatistics(core.databaseName(), "my_table",
+        Arrays.asList("active", "name"));
+    assertThat(objects.size(), is(1));
+    assertThat(objects.get(0).getStatsData().getBooleanStats().getNumTrues(), is(3L));
+    assertTrue(client.getTable(core.databaseName(), "my_table").getParameters().get("COLUMN_STATS_ACCURATE")
+        .contains("active"));
+  }
+
+  @Test
+  public void reset() throws Exception {
+    core.createDatabase("other_db");
+    createTable("my_table");
+    addPartitions("my_table");
+
+    core.reset();
+
+    assertThat(client.getAllDatabases(), is(Arrays.asList("default", "test_database")));
+    assertThat(client.getAllTables(core.databaseName()), is(empty()));
+    createTable("my_table");
+    assertThat(client.getAllTables(core.databaseName()), contains("my_table"));
+  }
+
+  @Test
+  public void catalogsAreNotShared() throws Exception {
+    BeejuCore otherCore = new BeejuCore("other_database", Collections.emptyMap(),
+        Collections.singletonMap(MetastoreConf.ConfVars.RAW_STORE_IMPL.getVarname(), InMemoryRawStore.class.getName()));
+    try {
+      otherCore.createDatabase(otherCore.databaseName());
+      HiveMetaStoreClient otherClient = otherCore.newClient();
+      try {
+        assertThat(otherClient.getAllDatabases(), is(Arrays.asList("default", "other_database")));
+        assertThat(client.getAllDatabases(), is(Arrays.asList("default", "test_database")));
+      } finally {
+        otherClient.close();
+      }
+    } finally {
+      otherCore.cleanUp();
+    }
+  }
+
+  @Test
+  public void preConfigurationWithHiveName() throws Exception {
+    BeejuCore otherCore = new BeejuCore("other_database",
+        Collections.singletonMap(MetastoreConf.ConfVars.RAW_STORE_IMPL.getHiveName(), InMemoryRawStore.class.getName()));
+    try {
+      assertThat(MetastoreConf.getVar(otherCore.conf(), MetastoreConf.ConfVars.RAW_STORE_IMPL),
+          is(InMemoryRawStore.class.getName()));
+      assertThrows(IllegalStateException.class, () -> otherCore.snapshot("in_memory"));
+    } finally {
+      otherCore.cleanUp();
+    }
+  }
+
+  private List<String> partitionsByFilter(String filter) throws Exception {
+    return partitionNames(client.listPartitionsByFilter(core.databaseName(), "my_table", filter, (short) -1));
+  }
+
+  private static List<String> partitionNames(List<Partition> partitions) {
+    List<String> names = new ArrayList<>();
+    for (Partition partition : partitions) {
+      names.add("year=" + partition.getValues().get(0) + "/country=" + partition.getValues().get(1));
+    }
+    return names;
+  }
+
+  private void createTable(String tableName) throws Exception {
+    client.createTable(TestTables.table(core.databaseName(), tableName, new FieldSchema("year", "int", null),
+        new FieldSchema("country", "string", null)));
+  }
+
+  private void addPartitions(String tableName) throws Exception {
+    addPartitions(tableName,
+        Arrays.asList(Arrays.asList("2020", "uk"), Arrays.asList("2019", "uk"), Arrays.asList("2020", "fr")));
+  }
+
+  private void addPartitions(String tableName, List<List<String>> partitionValues) throws Exception {
+    client.add_partitions(TestTables.partitions(core.databaseName(), tableName, partitionValues));
+  }
+}